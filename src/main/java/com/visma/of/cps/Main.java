@@ -1,13 +1,14 @@
 package com.visma.of.cps;
 
 import java.util.List;
-import java.util.Map;
 
 import com.visma.of.cps.model.Shift;
 import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
 import com.visma.of.cps.solution.Problem;
 import com.visma.of.cps.util.CarPoolingTimeDependentPairsUtils;
 import com.visma.of.cps.util.Constants;
+import com.visma.of.cps.util.RouteTimeWindows;
 
 public class Main {
     CarPoolingTimeDependentPairsUtils utilsCarcool;
@@ -20,8 +21,10 @@ public class Main {
         for (Shift shift : solver.getModel().getShifts()){
             System.out.println(String.format("Shift nr %d: Motorized %b", shift.getId(), shift.isMotorized()));
             List<Visit> route = bestSolution.getSolution().getRoute(shift);
+            VisitSchedule visitSchedule = bestSolution.getSolution().getVisitSchedule();
+            RouteTimeWindows routeTimeWindows = new RouteTimeWindows(route, bestSolution.getSolution().getCarpoolSyncedTaskStartTimes(), visitSchedule, shift);
             for (Visit visit: route ){
-                String response = new Main().visitToString(visit, route, bestSolution.getSolution().getCarpoolSyncedTaskStartTimes(), shift);
+                String response = new Main().visitToString(visit, routeTimeWindows, visitSchedule);
                 System.out.println(response);
             }
         }
@@ -31,8 +34,8 @@ public class Main {
     }
 
 
-    private String visitToString(Visit visit, List<Visit> route, Map<Visit, Integer> syncedVisitsStartTimes, Shift employeeShift){
-        int startTime = new CarPoolingTimeDependentPairsUtils().getTimeWindowStart(route, visit, syncedVisitsStartTimes, employeeShift);
+    private String visitToString(Visit visit, RouteTimeWindows routeTimeWindows, VisitSchedule visitSchedule){
+        int startTime = routeTimeWindows.getTimeWindowStart(visit);
         String visitType ="";
         switch(visit.getVisitType()){
             case Constants.VisitType.COMPLETE_TASK:
@@ -49,7 +52,7 @@ public class Main {
                 break;
 
         }
-        return String.format("%s %d \nstart-end %d - %d \nCoCarpool %d \ntransport %d \ntravelTime %d",visitType, visit.getTask().getId(), startTime, startTime+visit.getVisitDuration(), visit.getCoCarPoolerShiftID(), visit.getTransportType(),  visit.getTravelTime());
+        return String.format("%s %d \nstart-end %d - %d \nCoCarpool %d \ntransport %d \ntravelTime %d",visitType, visit.getTask().getId(), startTime, startTime+visit.getVisitDuration(), visitSchedule.getCoCarPoolerShiftId(visit), visitSchedule.getTransportType(visit),  visitSchedule.getTravelTime(visit));
 
     }
 }
@@ -1,5 +1,7 @@
 package com.visma.of.cps;
 
+import com.visma.of.cps.algorithm.BestSolutionBoard;
+import com.visma.of.cps.algorithm.IslandModel;
 import com.visma.of.cps.algorithm.LargeNeighborhoodSearch;
 import com.visma.of.cps.model.Model;
 import com.visma.of.cps.routeEvaluator.evaluation.constraint.OvertimeIntraRouteConstraint;
@@ -11,7 +13,15 @@ import com.visma.of.cps.solution.Problem;
 import com.visma.of.cps.util.Constants;
 import com.visma.of.cps.util.Constants.Penalty;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 
@@ -29,9 +39,11 @@ public class SuperSolver {
         model.initialize();
     }
 
+    /**
+     * @param model An initialized model.
+     */
     public void initialize(Model model) {
         this.model = model;
-        model.loadData();
     }
 
     public void solve() {
@@ -43,6 +55,81 @@ public class SuperSolver {
         this.currentBestSolution = newBestSolution;
     }
 
+    /**
+     * Runs independent searches in parallel, one per thread. Each search has its own problem and its own random,
+     * seeded from the seed. The searches share their best solutions through a best solution board, and restart from
+     * the best solution on the board when it is better than their own.
+     *
+     * @param threads Number of searches to run in parallel.
+     * @param seed    Seed of the randoms of the searches.
+     */
+    public void solveParallel(int threads, long seed) {
+        System.out.println("Solver running on " + threads + " threads!");
+        BestSolutionBoard bestSolutionBoard = new BestSolutionBoard();
+        Random seeds = new Random(seed);
+        List<Callable<Problem>> searches = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            LargeNeighborhoodSearch search = new LargeNeighborhoodSearch(model, new Random(seeds.nextLong()));
+            search.setSolutionExchange(bestSolutionBoard);
+            Problem problem = initializeLNS(model, search);
+            searches.add(() -> search.solveWithConstructionHeuristic(problem));
+            if (i == 0) lns = search;
+        }
+        runSearches(threads, searches);
+        System.out.println("Best solution found after " + bestSolutionBoard.getMillisecondsToBest() + " ms");
+        this.currentBestSolution = bestSolutionBoard.getBest();
+    }
+
+    /**
+     * Runs an island model, with one search per island and each island on its own thread. Each island has its own
+     * problem, random, simulated annealing schedule and neighborhood selector. Every migration interval the islands
+     * send their best solution to their neighbours in the topology, and adopt the solution received when it is better
+     * than their own.
+     *
+     * @param islands                       Number of islands.
+     * @param millisecondsBetweenMigrations Migration interval.
+     * @param topology                      Which islands an island sends its best solution to.
+     * @param seed                          Seed of the randoms of the islands.
+     */
+    public void solveIslands(int islands, long millisecondsBetweenMigrations, IslandModel.Topology topology, long seed) {
+        System.out.println("Solver running on " + islands + " islands!");
+        IslandModel islandModel = new IslandModel(islands, topology);
+        Random seeds = new Random(seed);
+        List<Callable<Problem>> searches = new ArrayList<>();
+        for (int i = 0; i < islands; i++) {
+            LargeNeighborhoodSearch search = new LargeNeighborhoodSearch(model, new Random(seeds.nextLong()));
+            search.setSolutionExchange(islandModel.getSolutionExchange(i));
+            search.setMillisecondsBetweenSolutionExchanges(millisecondsBetweenMigrations);
+            Problem problem = initializeLNS(model, search);
+            searches.add(() -> search.solveWithConstructionHeuristic(problem));
+            if (i == 0) lns = search;
+        }
+        Problem bestSolution = null;
+        for (Problem islandBest : runSearches(islands, searches)) {
+            if (bestSolution == null || LargeNeighborhoodSearch.improvesBestKnownSolution(islandBest, bestSolution))
+                bestSolution = islandBest;
+        }
+        this.currentBestSolution = bestSolution;
+    }
+
+    private static List<Problem> runSearches(int threads, List<Callable<Problem>> searches) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Problem> bestSolutions = new ArrayList<>();
+            for (Future<Problem> search : executor.invokeAll(searches)) {
+                bestSolutions.add(search.get());
+            }
+            return bestSolutions;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the searches to finish", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A search failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 
     public static Problem initializeLNS(Model model, LargeNeighborhoodSearch lns) {
         lns.setUnallocatedTasksAreHierarchical(true);
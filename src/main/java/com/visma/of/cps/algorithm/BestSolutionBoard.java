@@ -0,0 +1,82 @@
+package com.visma.of.cps.algorithm;
+
+import com.visma.of.cps.solution.Problem;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the best solution found by searches running in parallel. The searches publish their best known solutions
+ * to the board, and the board keeps a copy of a solution if it is better than the best on the board, using the same
+ * rules as LargeNeighborhoodSearch.updateBestKnownSolution. Publishing never blocks, the best solution is replaced by
+ * compare and set.
+ * <p>
+ * The solutions on the board are never changed after they are published, hence they can be read by any thread. The
+ * copies on the board have their own route evaluators, as those of the publishing search are changed while it
+ * searches. They must only be used to update other problems, not to be searched from directly.
+ */
+public class BestSolutionBoard implements ISolutionExchange {
+
+    private final AtomicReference<BestSolution> best;
+    private final long startTime;
+
+    public BestSolutionBoard() {
+        this.best = new AtomicReference<>();
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Publishes a solution to the board. A copy of the solution is made if it is better than the best solution
+     * on the board.
+     *
+     * @param problem The problem containing the solution to publish, it is not changed.
+     * @return True if the solution became the best solution on the board.
+     */
+    public boolean publish(Problem problem) {
+        BestSolution published = null;
+        while (true) {
+            BestSolution current = best.get();
+            if (current != null && !LargeNeighborhoodSearch.improvesBestKnownSolution(problem, current.problem))
+                return false;
+            if (published == null)
+                published = new BestSolution(new Problem(problem, true), System.currentTimeMillis() - startTime);
+            if (best.compareAndSet(current, published))
+                return true;
+        }
+    }
+
+    /**
+     * Publishes the best known solution and returns the best solution on the board.
+     */
+    @Override
+    public Problem exchange(Problem bestKnown) {
+        publish(bestKnown);
+        return getBest();
+    }
+
+    /**
+     * @return The best solution on the board, null if no solution is published. Must not be changed.
+     */
+    public Problem getBest() {
+        BestSolution current = best.get();
+        return current == null ? null : current.problem;
+    }
+
+    /**
+     * @return Milliseconds from the board was created until the best solution on the board was published,
+     * -1 if no solution is published.
+     */
+    public long getMillisecondsToBest() {
+        BestSolution current = best.get();
+        return current == null ? -1 : current.foundAtMilliseconds;
+    }
+
+    private static class BestSolution {
+        private final Problem problem;
+        private final long foundAtMilliseconds;
+
+        private BestSolution(Problem problem, long foundAtMilliseconds) {
+            this.problem = problem;
+            this.foundAtMilliseconds = foundAtMilliseconds;
+        }
+    }
+}
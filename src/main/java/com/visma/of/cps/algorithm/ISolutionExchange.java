@@ -0,0 +1,19 @@
+package com.visma.of.cps.algorithm;
+
+import com.visma.of.cps.solution.Problem;
+
+/**
+ * Exchanges solutions between searches running in parallel. Implementations must never block, as searches calling
+ * the exchange at the same time must not wait for each other.
+ */
+public interface ISolutionExchange {
+
+    /**
+     * Shares the best known solution of a search with the other searches, and returns a solution the search may
+     * restart from.
+     *
+     * @param bestKnown Best known solution of the search, it is not changed.
+     * @return A solution shared by the other searches, or null if there is none. Must not be changed.
+     */
+    Problem exchange(Problem bestKnown);
+}
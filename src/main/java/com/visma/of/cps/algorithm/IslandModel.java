@@ -0,0 +1,81 @@
+package com.visma.of.cps.algorithm;
+
+import com.visma.of.cps.solution.Problem;
+
+/**
+ * Migration of solutions between islands, i.e., searches running in parallel that each have their own simulated
+ * annealing schedule and neighborhood selector. Each island has a board of immigrants. When an island exchanges
+ * solutions it publishes its best known solution to the boards of its neighbours, and receives the best solution on
+ * its own board. The island adopts the solution received if it is better than its own.
+ * <p>
+ * The boards are lock free, hence islands never block each other when migrating.
+ */
+public class IslandModel {
+
+    /**
+     * Which islands an island sends its best solution to.
+     */
+    public enum Topology {
+        /** To the next island, the last island sends to the first. */
+        RING,
+        /** To the previous and the next island. */
+        BIDIRECTIONAL_RING,
+        /** To all other islands. */
+        FULLY_CONNECTED
+    }
+
+    private final BestSolutionBoard[] immigrants;
+    private final Topology topology;
+
+    /**
+     * @param islands  Number of islands.
+     * @param topology Which islands an island sends its best solution to.
+     */
+    public IslandModel(int islands, Topology topology) {
+        if (islands < 1)
+            throw new IllegalArgumentException("There must be at least one island");
+        this.immigrants = new BestSolutionBoard[islands];
+        for (int i = 0; i < islands; i++) {
+            immigrants[i] = new BestSolutionBoard();
+        }
+        this.topology = topology;
+    }
+
+    public int getIslands() {
+        return immigrants.length;
+    }
+
+    /**
+     * @param island Index of the island.
+     * @return The exchange the search of the island uses to migrate solutions.
+     */
+    public ISolutionExchange getSolutionExchange(int island) {
+        return bestKnown -> migrate(island, bestKnown);
+    }
+
+    private Problem migrate(int island, Problem bestKnown) {
+        int islands = immigrants.length;
+        switch (topology) {
+            case RING:
+                emigrate(island + 1, bestKnown);
+                break;
+            case BIDIRECTIONAL_RING:
+                emigrate(island + 1, bestKnown);
+                emigrate(island - 1 + islands, bestKnown);
+                break;
+            case FULLY_CONNECTED:
+                for (int i = 1; i < islands; i++) {
+                    emigrate(island + i, bestKnown);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown topology " + topology);
+        }
+        return immigrants[island].getBest();
+    }
+
+    private void emigrate(int toIsland, Problem bestKnown) {
+        int island = toIsland % immigrants.length;
+        immigrants[island].publish(bestKnown);
+    }
+}
@@ -1,12 +1,13 @@
 package com.visma.of.cps.algorithm;
-import java.util.IntSummaryStatistics;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import com.visma.of.cps.algorithm.heuristics.SimulatedAnnealing;
 import com.visma.of.cps.algorithm.operators.GreedyDestroy;
 import com.visma.of.cps.algorithm.operators.GreedyRepair;
+import com.visma.of.cps.algorithm.operators.RegretRepair;
 import com.visma.of.cps.algorithm.feasibility.SynchronizedTaskFeasibilityCheck;
 import com.visma.of.cps.model.Model;
-import com.visma.of.cps.model.Task;
 import com.visma.of.cps.solution.Problem;
 import com.visma.of.cps.solution.Solution;
 import com.visma.of.cps.util.Constants;
@@ -15,6 +16,7 @@ import com.visma.of.cps.util.Constants;
 public class LargeNeighborhoodSearch {
     private static final double INFEASIBILITY_STEPS = 0.01;
     public static final long MINIMUM_MILLISECONDS_BETWEEN_CONVERGENCE_IS_CHECKED_DEFAULT = 30 * 1000L;
+    public static final long MILLISECONDS_BETWEEN_SOLUTION_EXCHANGES_DEFAULT = 10 * 1000L;
     private static final double WORSE_SOLUTION_ACCEPTED_AT_PROBABILITY = 0.5;
     private static final double PROPORTION_OF_RUNTIME_USED_FOR_DEEP_DIVE = 0.2;
     private static final boolean UNALLOCATED_TASKS_ARE_HIERARCHICAL_OBJECTIVE = true;
@@ -30,9 +32,23 @@ public class LargeNeighborhoodSearch {
     private SimulatedAnnealing simulatedAnnealing;
     private boolean unallocatedTasksAreHierarchical = UNALLOCATED_TASKS_ARE_HIERARCHICAL_OBJECTIVE;
     private SyncedTaskFeasibilityRecovery syncedTaskFeasibilityRecovery;
+    private Random random;
+    private ISolutionExchange solutionExchange;
+    private long millisecondsBetweenSolutionExchanges;
+    private long lastSolutionExchange;
 
 
     public LargeNeighborhoodSearch(Model model){
+        this(model, new Random());
+    }
+
+    /**
+     * @param random Random from which the randoms of the neighborhood selector, the simulated annealing and the
+     *               standard operators are seeded. Searches with different randoms can be run in parallel as long as
+     *               they search different problems.
+     */
+    public LargeNeighborhoodSearch(Model model, Random random){
+        this.random = random;
         initialize(model);
     }
 
@@ -41,13 +57,15 @@ public class LargeNeighborhoodSearch {
         syncedTaskFeasibilityRecovery = new SyncedTaskFeasibilityRecovery(model);
         this.model = model;
         this.neighborhoodSelector = new NeighborhoodSelector();
+        this.neighborhoodSelector.setRandom(new Random(random.nextLong()));
         this.minimumMillisecondsBetweenConvergenceIsChecked = MINIMUM_MILLISECONDS_BETWEEN_CONVERGENCE_IS_CHECKED_DEFAULT;
-        this.simulatedAnnealing = new SimulatedAnnealing(WORSE_SOLUTION_ACCEPTED_AT_PROBABILITY);
+        this.millisecondsBetweenSolutionExchanges = MILLISECONDS_BETWEEN_SOLUTION_EXCHANGES_DEFAULT;
+        this.simulatedAnnealing = new SimulatedAnnealing(WORSE_SOLUTION_ACCEPTED_AT_PROBABILITY, new Random(random.nextLong()));
         initializeSimulatedAnnealingCriteriaRuntime(model);
     }
 
     public void useIterationsAsStopCriteria(int iterations) {
-        this.simulatedAnnealing = new SimulatedAnnealing(WORSE_SOLUTION_ACCEPTED_AT_PROBABILITY);
+        this.simulatedAnnealing = new SimulatedAnnealing(WORSE_SOLUTION_ACCEPTED_AT_PROBABILITY, new Random(random.nextLong()));
         this.simulatedAnnealing.setIterationsStopCriteria(iterations, iterations, iterations / 10);
     }
 
@@ -66,8 +84,22 @@ public class LargeNeighborhoodSearch {
      * Initialize and add the standard destroy, repair and improve operators to the lns algorithm.
      */
     public void initializeStandardOperators() {
-        neighborhoodSelector.addNeighborhood(new GreedyDestroy(model));
-        neighborhoodSelector.addNeighborhood(new GreedyRepair(model));
+        neighborhoodSelector.addNeighborhood(new GreedyDestroy(model, new Random(random.nextLong())));
+        neighborhoodSelector.addNeighborhood(new GreedyRepair(model, new Random(random.nextLong())));
+        neighborhoodSelector.addNeighborhood(new RegretRepair(model, new Random(random.nextLong()), 2));
+        neighborhoodSelector.addNeighborhood(new RegretRepair(model, new Random(random.nextLong()), 3));
+    }
+
+    /**
+     * As initializeStandardOperators, but the repair operators evaluate the shifts in parallel in the given pool.
+     *
+     * @param repairPool Pool used by the repair operators.
+     */
+    public void initializeStandardOperators(ForkJoinPool repairPool) {
+        neighborhoodSelector.addNeighborhood(new GreedyDestroy(model, new Random(random.nextLong())));
+        neighborhoodSelector.addNeighborhood(new GreedyRepair(model, new Random(random.nextLong()), repairPool));
+        neighborhoodSelector.addNeighborhood(new RegretRepair(model, new Random(random.nextLong()), 2, repairPool));
+        neighborhoodSelector.addNeighborhood(new RegretRepair(model, new Random(random.nextLong()), 3, repairPool));
     }
 
     public Problem solveWithConstructionHeuristic(Problem problem){
@@ -87,23 +119,53 @@ public class LargeNeighborhoodSearch {
         
         simulatedAnnealing.startSearch();
         lastConvergenceCheck = simulatedAnnealing.getCurrentRuntime();
+        lastSolutionExchange = simulatedAnnealing.getCurrentRuntime();
         while (simulatedAnnealing.continueSearch()) {
+            solverState.getTmpInstance().startMove();
             var neighborhoodMoveInfo = neighborhoodSelector.applyRandomNeighborhood(solverState.getTmpInstance());
 
             updateSolverState(solverState, feasibilityCheck, neighborhoodMoveInfo);
+            if (solutionExchange != null && (simulatedAnnealing.getCurrentRuntime() - lastSolutionExchange) > millisecondsBetweenSolutionExchanges) {
+                exchangeSolutions(solverState);
+            }
+        }
+        if (solutionExchange != null) {
+            solutionExchange.exchange(solverState.getBestKnown());
         }
         return solverState.getBestKnown();
     }
 
+    /**
+     * Shares the best known solution with the searches running in parallel. If the solution received in return is
+     * better, the search is restarted from it, i.e., the current and best known solutions are updated to it.
+     *
+     * @param solverState Current solver state.
+     */
+    private void exchangeSolutions(SolverState solverState) {
+        lastSolutionExchange = simulatedAnnealing.getCurrentRuntime();
+        Problem received = solutionExchange.exchange(solverState.getBestKnown());
+        if (received == null || !improvesBestKnownSolution(received, solverState.getBestKnown())) return;
+
+        solverState.getBestKnown().update(received);
+        solverState.getCurrent().update(received);
+        solverState.getCurrentFeasible().update(received);
+        solverState.getTmpInstance().update(received);
+        solverState.setTmpInstanceMatchesCurrent(true);
+    }
+
 
     // Before also input feasibility checker
     private void updateSolverState(SolverState solverState, SynchronizedTaskFeasibilityCheck feasibilityCheck, NeighborhoodMoveInfo neighborhoodMoveInfo) {
         if (neighborhoodMoveInfo.possible() && acceptNewSolution(solverState, neighborhoodMoveInfo)) {
             neighborhoodSelector.acceptMove(neighborhoodMoveInfo);
+            solverState.getTmpInstance().commitMove();
             updateSolutions(solverState, feasibilityCheck, neighborhoodMoveInfo.getProblem());
         } else {
             neighborhoodSelector.rejectMove(neighborhoodMoveInfo);
-            solverState.getTmpInstance().update(solverState.getCurrent());
+            // Undoing the move restores the current solution, unless the temporary instance differed from it already
+            if (!(solverState.tmpInstanceMatchesCurrent() && solverState.getTmpInstance().rollbackMove()))
+                solverState.getTmpInstance().update(solverState.getCurrent());
+            solverState.setTmpInstanceMatchesCurrent(true);
         }
     }
 
@@ -127,9 +189,11 @@ public class LargeNeighborhoodSearch {
         boolean isFeasible = feasibilityCheck.isFeasible(solverState, newProblem);
         // solverState.getCurrent().update(newProblem);
 
-        if (isFeasible || feasibilityCheck.isFeasibleInPhase(solverState)) {
+        boolean updateCurrent = isFeasible || feasibilityCheck.isFeasibleInPhase(solverState);
+        if (updateCurrent) {
             solverState.getCurrent().update(newProblem);
         }
+        solverState.setTmpInstanceMatchesCurrent(updateCurrent && newProblem == solverState.getTmpInstance());
 
         if (!isFeasible) {
             solverState.getCandidate().update(newProblem);
@@ -183,11 +247,8 @@ public class LargeNeighborhoodSearch {
      * @return Integer, -1, 0 or 1. Depending on whether the new dominates the old (-1), they are equal (0) and otherwise 1.
      */
     private static int dominatesUnallocatedTasks(Solution current, Solution otherSolution) {
-        IntSummaryStatistics currentStats = current.getUnallocatedTasks().stream().mapToInt(Task::getDuration).summaryStatistics();
-        IntSummaryStatistics otherStats = otherSolution.getUnallocatedTasks().stream().mapToInt(Task::getDuration).summaryStatistics();
-
-        int compare = Long.compare(otherStats.getSum(), currentStats.getSum());
-        return compare == 0 ? Long.compare(otherStats.getMax(), currentStats.getMax()) : compare;
+        int compare = Long.compare(otherSolution.getUnallocatedTaskDurationSum(), current.getUnallocatedTaskDurationSum());
+        return compare == 0 ? Integer.compare(otherSolution.getUnallocatedTaskMaxDuration(), current.getUnallocatedTaskMaxDuration()) : compare;
     }
 
 
@@ -218,6 +279,20 @@ public class LargeNeighborhoodSearch {
         return true;
     }
 
+    /**
+     * Whether the new solution is better than the best known solution, using the same rules as updateBestKnownSolution.
+     * Neither solution is changed.
+     *
+     * @param newSolution Problem with the potential new best solution.
+     * @param bestKnown   Problem with best known solution thus far.
+     * @return True if the new solution dominates on unallocated tasks, or is equal on these and has a lower objective.
+     */
+    public static boolean improvesBestKnownSolution(Problem newSolution, Problem bestKnown) {
+        int newSolutionDominance = dominatesUnallocatedTasks(bestKnown.getSolution(), newSolution.getSolution());
+        return newSolutionDominance < 0 || (newSolutionDominance == 0
+                && newSolution.getObjective().getTotalObjectiveValue() < bestKnown.getObjective().getTotalObjectiveValue());
+    }
+
     /**
      * Check if it is likely that the solver is converging.
      *
@@ -255,5 +330,21 @@ public class LargeNeighborhoodSearch {
         this.minimumMillisecondsBetweenConvergenceIsChecked = minimumMillisecondsBetweenConvergenceIsChecked;
     }
 
+    /**
+     * Lets the search share its best solution with searches running in parallel. The best known solution is exchanged
+     * periodically and when the search ends, and the search restarts from the solution received when it is better
+     * than its own.
+     *
+     * @param solutionExchange Exchange shared by the searches, e.g., a best solution board or the migration of an
+     *                         island model. Null if the search runs alone.
+     */
+    public void setSolutionExchange(ISolutionExchange solutionExchange) {
+        this.solutionExchange = solutionExchange;
+    }
+
+    public void setMillisecondsBetweenSolutionExchanges(long millisecondsBetweenSolutionExchanges) {
+        this.millisecondsBetweenSolutionExchanges = millisecondsBetweenSolutionExchanges;
+    }
+
 
 }
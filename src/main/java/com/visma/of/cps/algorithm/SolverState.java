@@ -9,6 +9,7 @@ public class SolverState {
     private final Problem candidate;
 
     private double nextCheckForMovingBetweenInfeasiblePhase;
+    private boolean tmpInstanceMatchesCurrent = true;
 
     public SolverState(Problem problem, double infeasibilitySteps) {
         this.current = new Problem(problem);
@@ -40,6 +41,18 @@ public class SolverState {
         return tmpInstance;
     }
 
+    /**
+     * @return Whether the temporary instance was equal to the current solution before the last neighborhood move was
+     * applied to it, in which case rolling back the move restores the current solution.
+     */
+    public boolean tmpInstanceMatchesCurrent() {
+        return tmpInstanceMatchesCurrent;
+    }
+
+    public void setTmpInstanceMatchesCurrent(boolean tmpInstanceMatchesCurrent) {
+        this.tmpInstanceMatchesCurrent = tmpInstanceMatchesCurrent;
+    }
+
     public double getNextCheckForMovingBetweenInfeasiblePhase() {
         return nextCheckForMovingBetweenInfeasiblePhase;
     }
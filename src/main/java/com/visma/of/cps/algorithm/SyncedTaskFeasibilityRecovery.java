@@ -11,11 +11,9 @@ import com.visma.of.cps.util.SynchronizedTaskUtils;
 
 public class SyncedTaskFeasibilityRecovery {
 
-    private final Set<Visit> masterVisits;
     private final Map<Visit, Set<TimeDependentVisitPair>> masterToDependent;
 
     public SyncedTaskFeasibilityRecovery(Model model) {
-        masterVisits = new HashSet<>();
         masterToDependent = new HashMap<>();
         initializedMasterTasks(model);
     }
@@ -23,7 +21,6 @@ public class SyncedTaskFeasibilityRecovery {
     private void initializedMasterTasks(Model model) {
         for (TimeDependentVisitPair pair : model.getTimeDependentVisitPairs()) {
             Visit masterVisit = pair.getMasterVisit();
-            masterVisits.add(masterVisit);
             masterToDependent.putIfAbsent(masterVisit, new HashSet<>());
             masterToDependent.get(masterVisit).add(pair);
         }
@@ -36,7 +33,12 @@ public class SyncedTaskFeasibilityRecovery {
         Solution solution = problem.getSolution();
         boolean updated = false;
 
-        for (Visit masterVisit : masterVisits) {
+        // Only the groups with a violated pair are visited
+        Set<Visit> violatedMasterVisits = new LinkedHashSet<>();
+        for (TimeDependentVisitPair pair : solution.getViolatedTimeDependentVisitPairs())
+            violatedMasterVisits.add(pair.getMasterVisit());
+
+        for (Visit masterVisit : violatedMasterVisits) {
             if (shouldUnassignGroup(solution, masterVisit)) {
                 unAssignTasksIfUnallocatedTasksAreFound(problem, solution, masterVisit);
                 updated = true;
@@ -64,7 +66,7 @@ public class SyncedTaskFeasibilityRecovery {
     private void unAssign(Problem problem, Solution solution, Visit visit) {
         Shift shift = solution.shiftForVisit(visit);
         if (shift == null) return;
-        problem.unAssignVisitFromShift(shift, solution.getRoute(shift).indexOf(visit));
+        problem.unAssignVisitFromShift(shift, solution.getPositionInRoute(visit));
     }
 }
     
@@ -1,11 +1,9 @@
 package com.visma.of.cps.algorithm.feasibility;
 
 import com.visma.of.cps.model.Model;
-import com.visma.of.cps.model.TimeDependentVisitPair;
 import com.visma.of.cps.algorithm.SolverState;
 import com.visma.of.cps.solution.Problem;
 import com.visma.of.cps.solution.Solution;
-import com.visma.of.cps.util.SynchronizedTaskUtils;
 
 public class SynchronizedTaskFeasibilityCheck {
 
@@ -49,19 +47,12 @@ public class SynchronizedTaskFeasibilityCheck {
         return isSyncTaskAllocationFeasible(currentFeasibleCandidate.getSolution());
     }
 
+    /**
+     * Both the time dependent visit pairs of the model and the carpool pairs are checked. The solution keeps track of
+     * the violated pairs, hence only the pairs changed since the last check are checked again.
+     */
     private boolean isSyncTaskAllocationFeasible(Solution solution) {
-        for (TimeDependentVisitPair pair : model.getTimeDependentVisitPairs()) {
-            if (SynchronizedTaskUtils.isNotSameAllocationState(solution, pair) || SynchronizedTaskUtils.isStartTimeInvalid(solution, pair)) {
-                return false;
-            }
-        }
-        // Checking for carpoolTimeDependentVisitPairs as well
-        for (TimeDependentVisitPair pair: solution.getCarpoolTimeDependentVisitPairs()){
-            if (SynchronizedTaskUtils.isNotSameAllocationState(solution, pair) || SynchronizedTaskUtils.isStartTimeInvalid(solution, pair)) {
-                return false;
-            }
-        }
-        return true;
+        return solution.isSyncedPairsFeasible();
     }
 
     public boolean isInfeasibilityActive() {
@@ -32,8 +32,15 @@ public class SimulatedAnnealing {
 
 
     public SimulatedAnnealing(double percentWorseSolutionThatCanBeAcceptedAtProbability) {
+        this(percentWorseSolutionThatCanBeAcceptedAtProbability, new Random());
+    }
+
+    /**
+     * @param random Random used to accept worse solutions.
+     */
+    public SimulatedAnnealing(double percentWorseSolutionThatCanBeAcceptedAtProbability, Random random) {
         this.percentWorseSolutionThatCanBeAcceptedAtProbability = percentWorseSolutionThatCanBeAcceptedAtProbability;
-        this.random = new Random();
+        this.random = random;
     }
 
     /**
@@ -4,6 +4,7 @@ import com.visma.of.cps.algorithm.NeighborhoodMoveInfo;
 import com.visma.of.cps.model.Model;
 import com.visma.of.cps.model.Shift;
 import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
 import com.visma.of.cps.solution.Objective;
 import com.visma.of.cps.solution.Problem;
 import com.visma.of.cps.solution.Solution;
@@ -79,7 +80,7 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
         while (totalShifts != 0) {
             int randInt = random.nextInt(totalShifts);
             int shiftIndex = shiftIndices[randInt];
-            Shift shift = model.getShifts().get(shiftIndex);
+            Shift shift = model.getShift(shiftIndex);
             totalShifts = updateRandomShifts(totalShifts, randInt, shiftIndex);
             List<Visit> route = solution.getRoute(shiftIndex);
             for (int i = 0; i < route.size(); i++) {
@@ -87,7 +88,7 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
                 Double intraObj = null;
                 Map<Integer, List<Integer>> removeVisitsTemp = findVisitsToRemove(solution, shift, i);
                 for (Map.Entry<Integer, List<Integer>> entry: removeVisitsTemp.entrySet()){
-                    Shift entryShift = model.getShifts().get(entry.getKey());
+                    Shift entryShift = model.getShift(entry.getKey());
                     List<Integer> removalPositions = entry.getValue();
                     intraObj = calculateIntraObjective(solution, entryShift, removalPositions, objective);
                     if(intraObj == null) continue; // intraObj is null if solution is infeasible
@@ -116,33 +117,11 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
      * @return new objective value if visits are removed
      */
     private Double calculateIntraObjective(Solution solution, Shift entryShift, List<Integer> removalPositions, Objective objective){
-        Double intraObj = null;
-        if(!entryShift.isMotorized()){
-            // Temporary update transportation mode, to calculate correct new objective
-            intraObj = objective.deltaIntraObjectiveNewRoute(entryShift, temporarilyUpdateNonMotorizedRemovedVisits(solution, entryShift, removalPositions), removalPositions, solution.getCarpoolSyncedTaskStartTimes());
-        } else {
-            intraObj = objective.deltaIntraObjectiveNewRoute(entryShift, solution.getRoute(entryShift), removalPositions, solution.getCarpoolSyncedTaskStartTimes());
-        }
-        return intraObj;
-    } 
-
-    /**
-     * @param solution
-     * @param entryShift
-     * @param removalPositions list of indices for the visits to be removed from the route
-     * @return copy of the route with visit transport modes updated according to the removed visits
-     */
-    private List<Visit> temporarilyUpdateNonMotorizedRemovedVisits(Solution solution, Shift entryShift, List<Integer> removalPositions){
-        List<Visit> routeCopy = new ArrayList<>();
-        solution.getRoute(entryShift).stream().forEach(v -> routeCopy.add(new Visit(v)));
-        for (int index : removalPositions){
-            if(routeCopy.get(index).getVisitType() == Constants.VisitType.JOIN_MOTORIZED && routeCopy.size() > index){
-                routeCopy.get(index+1).setTransportType(Constants.TransportMode.WALK);
-                routeCopy.get(index+1).setCoCarPoolerShiftID(null);
-            }}
-        return routeCopy;
+        // The route evaluator derives the transport modes from the visits of the route, hence when a join motorized
+        // visit is removed from a non motorized shift the successor is evaluated as reached by walking.
+        return objective.deltaIntraObjectiveNewRoute(entryShift, solution.getRoute(entryShift), removalPositions,
+                solution.getCarpoolSyncedTaskStartTimes(), solution.getVisitSchedule());
     }
-    
 
     /**
      * Find which visits that must be removed, depending on if the shift is motorized and if the visit is a carpool task or not.
@@ -159,6 +138,7 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
         Map<Integer, List<Integer>> removeVisits = new HashMap<>();
         removeVisits.put(shift.getId(), new ArrayList<>(currentVisitIndex));
         List<Visit> route = solution.getRoute(shift);
+        VisitSchedule visitSchedule = solution.getVisitSchedule();
         Integer predecessorIndex = 0 < currentVisitIndex ? currentVisitIndex-1 : null;
         Integer successorIndex = route.size() > currentVisitIndex ? currentVisitIndex+1 : null;
         if (route.get(currentVisitIndex).isDropOff()){
@@ -181,7 +161,7 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
             removeJoinMotorizedFromNonMotorizedShift(solution, route, currentVisitIndex, removeVisits);
 
         }
-        else if (route.get(currentVisitIndex).isSynced()) {
+        else if (visitSchedule.isSynced(route.get(currentVisitIndex))) {
             // Removing a complete task during a carpool route.
             // Case 3 driver in PP 
             if (predecessorIndex == null || successorIndex == null || 
@@ -208,7 +188,7 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
      */
     private void removeJoinMotorizedFromNonMotorizedShift(Solution solution, List<Visit> route, int pickUpIndex, Map<Integer, List<Integer>> removeVisits){
         // Get the person that is dropped off
-        int passengerShiftID = route.get(pickUpIndex).getCoCarPoolerShiftID();
+        int passengerShiftID = solution.getVisitSchedule().getCoCarPoolerShiftId(route.get(pickUpIndex));
         // Get the pickup point (join motorized) for coDrive arc
         Integer joinMotorizedIndex = solution.getCorrespondingVisitOfTypeIndex(passengerShiftID, route.get(pickUpIndex), Constants.VisitType.JOIN_MOTORIZED);
         // Remove the pickup point for that arc
@@ -219,6 +199,7 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
         Map<Integer, List<Integer>> removeVisits = new HashMap<>();
         removeVisits.put(shift.getId(), new ArrayList<>(currentVisitIndex));
         List<Visit> route = solution.getRoute(shift);
+        VisitSchedule visitSchedule = solution.getVisitSchedule();
         Integer successorIndex = route.size()>currentVisitIndex ? currentVisitIndex+1 : null;
         Integer predecessorIndex = 0 < currentVisitIndex ? currentVisitIndex-1 : null;
         if (route.get(currentVisitIndex).isJoinMotorized()){
@@ -226,10 +207,10 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
             removePickUpDropOff(solution, route, currentVisitIndex, removeVisits);
         }
         else if (predecessorIndex != null && route.get(predecessorIndex).isJoinMotorized()){
-            if (successorIndex != null && (route.get(predecessorIndex).getCoCarPoolerShiftID().equals(route.get(successorIndex).getCoCarPoolerShiftID()))){
+            if (successorIndex != null && visitSchedule.getCoCarPoolerShiftId(route.get(predecessorIndex)) == visitSchedule.getCoCarPoolerShiftId(route.get(successorIndex))){
                 // Carpooling was with the same driver from previous -> current -> successor node. 
                 // Case 4 walker in PP
-                int coDriverShiftID = route.get(predecessorIndex).getCoCarPoolerShiftID();
+                int coDriverShiftID = visitSchedule.getCoCarPoolerShiftId(route.get(predecessorIndex));
                 Map<Integer, Integer> transportVisitIndices = solution.getTransportVisitIndices(coDriverShiftID, route.get(currentVisitIndex));
                 removeVisits.put(coDriverShiftID, List.of(transportVisitIndices.get(Constants.VisitType.PICK_UP), transportVisitIndices.get(Constants.VisitType.DROP_OF)));
             } else {
@@ -248,7 +229,7 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
      * @param removeVisits
      */
     private void removePickUpDropOff(Solution solution, List<Visit> route, Integer joinMotorizedIndex, Map<Integer, List<Integer>> removeVisits){
-        int coDriverShiftID = route.get(joinMotorizedIndex).getCoCarPoolerShiftID();
+        int coDriverShiftID = solution.getVisitSchedule().getCoCarPoolerShiftId(route.get(joinMotorizedIndex));
         int pickUp = solution.getCorrespondingVisitOfTypeIndex(coDriverShiftID, route.get(joinMotorizedIndex), Constants.VisitType.PICK_UP);
         int dropOff = solution.getCorrespondingVisitOfTypeIndex(coDriverShiftID, route.get(joinMotorizedIndex+1), Constants.VisitType.DROP_OF);
         removeVisits.put(coDriverShiftID, new ArrayList<>(List.of(pickUp, dropOff)));
@@ -276,7 +257,7 @@ public abstract class GreedyDestroyAbstract extends DestroyOperatorAbstract {
                                         Map<Integer, List<Integer>> removeVisits) {
         if (removeVisits.size() == 0) return null;
         for (Map.Entry<Integer, List<Integer>> entry: removeVisits.entrySet()){
-            Shift removeShift = model.getShifts().get(entry.getKey());
+            Shift removeShift = model.getShift(entry.getKey());
             neighborhoodMoveInfo.getProblem().unAssignVisitsByRouteIndices(removeShift, entry.getValue(), bestIntraObjective); // updates the objective when the task (remove index) is removed from the shift
         }
         double deltaObjectiveValue = bestIntraObjective + neighborhoodMoveInfo.getDeltaObjectiveValue();
@@ -2,6 +2,7 @@ package com.visma.of.cps.algorithm.operators;
 
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import com.visma.of.cps.algorithm.NeighborhoodMoveInfo;
 import com.visma.of.cps.algorithm.repair.GreedyRepairAlgorithm;
@@ -25,6 +26,16 @@ public class GreedyRepair extends OperatorAbstract implements IRepairOperator {
         this.repairAlgorithm = new GreedyRepairAlgorithm(model, random);
     }
 
+    /**
+     * Creates the operator where the shifts are evaluated in parallel in the given pool. For a given seed of the random
+     * the inserts are the same as when the shifts are evaluated sequentially.
+     */
+    public GreedyRepair(Model model, Random random, ForkJoinPool pool) {
+        super(random);
+        this.model = model;
+        this.repairAlgorithm = new GreedyRepairAlgorithm(model, random, pool);
+    }
+
     public GreedyRepair(Model model) {
         super(new Random());
         this.model = model;
@@ -0,0 +1,67 @@
+package com.visma.of.cps.algorithm.operators;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import com.visma.of.cps.algorithm.NeighborhoodMoveInfo;
+import com.visma.of.cps.algorithm.repair.IRepairAlgorithm;
+import com.visma.of.cps.algorithm.repair.RegretRepairAlgorithm;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.solution.Solution;
+
+/**
+ * The regret insert operator inserts the unallocated visits into the solution until no visit can be inserted, each
+ * time choosing the visit that is most costly not to insert in its best shift now, i.e., where the difference between
+ * the cost of the best insert and the next k-1 best inserts is the largest.
+ */
+public class RegretRepair extends OperatorAbstract implements IRepairOperator {
+
+    private final IRepairAlgorithm repairAlgorithm;
+    private final Model model;
+
+    /**
+     * @param k Number of best inserts of a visit the regret is calculated from, at least 2.
+     */
+    public RegretRepair(Model model, Random random, int k) {
+        super(random);
+        this.model = model;
+        this.repairAlgorithm = new RegretRepairAlgorithm(model, random, k);
+    }
+
+    /**
+     * Creates the operator where the shifts are evaluated in parallel in the given pool. For a given seed of the random
+     * the inserts are the same as when the shifts are evaluated sequentially.
+     *
+     * @param k Number of best inserts of a visit the regret is calculated from, at least 2.
+     */
+    public RegretRepair(Model model, Random random, int k, ForkJoinPool pool) {
+        super(random);
+        this.model = model;
+        this.repairAlgorithm = new RegretRepairAlgorithm(model, random, k, pool);
+    }
+
+    /**
+     * Insert the unallocated tasks into the solution by largest regret.
+     * If it is not possible to insert a task into the solution, because there is no unallocated tasks or it will render
+     * the solution infeasible it will return false.
+     *
+     * @param neighborhoodMoveInfo Contains a problem (with solution, objectives and constraints), to insert the tasks into.
+     *                             The solution must be based on the same model used to create the operator. Also
+     *                             contains the delta objective value from a previous destroy move that created the
+     *                             neighborhood info. This will also be altered by the operator.
+     * @return True if successful otherwise false.
+     */
+    @Override
+    public boolean repair(NeighborhoodMoveInfo neighborhoodMoveInfo) {
+        Solution solution = neighborhoodMoveInfo.getSolution();
+        Set<Visit> unallocatedVisits = solution.getUnallocatedVisits();
+        if (unallocatedVisits.isEmpty()) {
+            return false;
+        }
+
+        NeighborhoodMoveInfo moveInfo = repairAlgorithm.repair(neighborhoodMoveInfo, model.getShifts(), unallocatedVisits);
+        return moveInfo != null;
+    }
+}
@@ -7,32 +7,65 @@ import com.visma.of.cps.model.Shift;
 import com.visma.of.cps.model.TimeDependentVisitPair;
 import com.visma.of.cps.model.TransportRequest;
 import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
 import com.visma.of.cps.routeEvaluator.results.MultiRouteEvaluatorResult;
 import com.visma.of.cps.routeEvaluator.results.Route;
 import com.visma.of.cps.routeEvaluator.results.RouteEvaluatorResult;
+import com.visma.of.cps.routeEvaluator.solver.RouteEvaluator;
+import com.visma.of.cps.routeEvaluator.solver.RouteEvaluatorPool;
 import com.visma.of.cps.solution.Problem;
 import com.visma.of.cps.solution.Solution;
 import com.visma.of.cps.util.CarPoolingTimeDependentPairsUtils;
+import com.visma.of.cps.util.RouteTimeWindows;
 import com.visma.of.cps.util.Constants;
 import com.visma.of.cps.util.CarPoolingTimeDependentPairsUtils.ShiftRouteEvaluatorPair;
 import com.visma.of.cps.util.Constants.VisitType;
 
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.visma.of.cps.util.RandomUtils.objectiveNoise;
 
 
+/**
+ * Inserts the visit that increases the objective value the least. The best insert is found for each shift
+ * independently, either sequentially on the calling thread or in parallel in a fork join pool. Each shift is given its
+ * own random, split from the random of the algorithm in the order of the shifts, and the best insert over the shifts
+ * is chosen in the order of the shifts. Hence, for a given seed the insert does not depend on whether the shifts are
+ * evaluated in parallel or how many threads are used.
+ * <p>
+ * The route evaluators hold buffers that are changed during evaluation. When evaluating in parallel each thread of
+ * the pool therefore uses its own copies of the route evaluators of the problem, which are updated to the active
+ * constraints and objectives of the problem at the start of every repair. The solution is only read while the
+ * inserts are evaluated, the time windows found for carpooled visits are calculated on a visit schedule confined to
+ * the thread and are set in the solution when the insert is made.
+ */
 public class GreedyRepairAlgorithm implements IRepairAlgorithm {
 
     protected final Model model;
     private final Random random;
+    protected final ForkJoinPool pool;
+    protected final RouteEvaluatorPool routeEvaluatorPool;
+    private final ThreadLocal<VisitSchedule> carpoolVisitSchedules;
     private final CarPoolingTimeDependentPairsUtils carpoolingUtils = new CarPoolingTimeDependentPairsUtils();
 
     public GreedyRepairAlgorithm(Model model, Random random) {
+        this(model, random, null);
+    }
+
+    /**
+     * @param model  The model.
+     * @param random Random used for the order of the visits and the noise on the objective.
+     * @param pool   Pool used to evaluate the shifts in parallel, if null the shifts are evaluated sequentially.
+     */
+    public GreedyRepairAlgorithm(Model model, Random random, ForkJoinPool pool) {
         this.model = model;
         this.random = random;
+        this.pool = pool;
+        this.routeEvaluatorPool = new RouteEvaluatorPool();
+        this.carpoolVisitSchedules = new ThreadLocal<>();
     }
 
     /**
@@ -61,23 +94,23 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
      * @return delta objective of best insert
      */
     protected Double findBestGreedyInsert(Problem problem, List<Shift> shifts, Set<Visit> unallocatedVisits) {
-        var solution = problem.getSolution();
-        var objective = problem.getObjective();
+        double bestNoisyDeltaObjectiveValue = Double.MAX_VALUE;
         double bestDeltaObjectiveValue = Double.MAX_VALUE;
         MultiRouteEvaluatorResult bestInsertVisitResult = null;
 
-        double deltaObjectiveValue;
-
+        // Sorted before shuffling, as the order of the set depends on the hash codes of the visits
         List<Visit> visits = new ArrayList<>(unallocatedVisits);
-        Collections.shuffle(visits);
+        visits.sort(Comparator.comparingInt(Visit::getId));
+        Collections.shuffle(visits, random);
         List<Visit> legalMotorizedVisits = visits.stream().filter(Visit::completesTask).collect(Collectors.toList());
-        for (Shift shift : shifts) {
-            MultiRouteEvaluatorResult result = findBestInsertInShift(problem, solution, shift, unallocatedVisits, legalMotorizedVisits);
-            if (result == null || result.isInfeasibleInsert()) continue;
-            deltaObjectiveValue = result.getDeltaObjective(objective);
-            if (objectiveNoise(random) * deltaObjectiveValue < bestDeltaObjectiveValue) {
-                bestDeltaObjectiveValue = deltaObjectiveValue;
-                bestInsertVisitResult = result;
+        ShiftInsert[] shiftInserts = findBestInsertInShifts(problem, shifts, visits, legalMotorizedVisits);
+        for (ShiftInsert shiftInsert : shiftInserts) {
+            if (shiftInsert == null) continue;
+            // Compared by the noisy value the insert was chosen by in its shift, such that each insert is noised once
+            if (shiftInsert.noisyDeltaObjectiveValue < bestNoisyDeltaObjectiveValue) {
+                bestNoisyDeltaObjectiveValue = shiftInsert.noisyDeltaObjectiveValue;
+                bestDeltaObjectiveValue = shiftInsert.deltaObjectiveValue;
+                bestInsertVisitResult = shiftInsert.result;
             }
         }
         if (bestInsertVisitResult == null) return null;
@@ -89,63 +122,140 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
         return deltaObjective;
     }
 
-    private MultiRouteEvaluatorResult findBestInsertInShift(Problem problem, Solution solution, Shift shift, Set<Visit> unallocatedVisits, List<Visit> legalMotorizedVisits){
-        return shift.isMotorized() ? findBestInsertInShiftMotorized(problem, solution, shift, legalMotorizedVisits) : findBestInsertInShiftNonMotorized(problem, solution, shift, unallocatedVisits);
+    /**
+     * Finds the best insert in each of the shifts. The randoms of the shifts are split from the random of the
+     * algorithm before any shift is evaluated, such that they are the same whether the shifts are evaluated in parallel
+     * or not.
+     *
+     * @return The best insert for each shift, in the order of the shifts. Null for shifts where no insert is feasible.
+     */
+    private ShiftInsert[] findBestInsertInShifts(Problem problem, List<Shift> shifts, List<Visit> visits, List<Visit> legalMotorizedVisits) {
+        ShiftInsert[] shiftInserts = new ShiftInsert[shifts.size()];
+        SplittableRandom[] shiftRandoms = new SplittableRandom[shifts.size()];
+        SplittableRandom shiftRandom = new SplittableRandom(random.nextLong());
+        for (int i = 0; i < shifts.size(); i++) {
+            shiftRandoms[i] = shiftRandom.split();
+        }
+        if (pool == null || shifts.size() < 2) {
+            Map<Integer, RouteEvaluator> routeEvaluators = problem.getRouteEvaluators();
+            for (int i = 0; i < shifts.size(); i++) {
+                shiftInserts[i] = findBestInsertInShift(problem, routeEvaluators, shifts.get(i), visits, legalMotorizedVisits, shiftRandoms[i]);
+            }
+        } else {
+            routeEvaluatorPool.update();
+            pool.submit(() -> IntStream.range(0, shifts.size()).parallel().forEach(i -> shiftInserts[i] =
+                    findBestInsertInShift(problem, routeEvaluatorPool.get(problem.getRouteEvaluators()), shifts.get(i), visits, legalMotorizedVisits, shiftRandoms[i])
+            )).join();
+        }
+        return shiftInserts;
+    }
+
+    /**
+     * Returns a visit schedule confined to the current thread, equal to the visit schedule of the solution. Used to
+     * calculate the time windows of carpooled visits without changing the solution.
+     */
+    private VisitSchedule getCarpoolVisitSchedule(Solution solution) {
+        VisitSchedule visitSchedule = carpoolVisitSchedules.get();
+        if (visitSchedule == null) {
+            visitSchedule = new VisitSchedule(solution.getVisitSchedule());
+            carpoolVisitSchedules.set(visitSchedule);
+        } else {
+            visitSchedule.update(solution.getVisitSchedule());
+        }
+        return visitSchedule;
+    }
+
+    private ShiftInsert findBestInsertInShift(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, Shift shift, List<Visit> visits,
+                                              List<Visit> legalMotorizedVisits, SplittableRandom random) {
+        var solution = problem.getSolution();
+        return shift.isMotorized()
+                ? findBestInsertInShiftMotorized(problem, routeEvaluators, solution, shift, legalMotorizedVisits, random)
+                : findBestInsertInShiftNonMotorized(problem, routeEvaluators, solution, shift, visits, random);
     }
 
-    private MultiRouteEvaluatorResult findBestInsertInShiftMotorized(Problem problem, Solution solution, Shift shift, List<Visit> legalMotorizedVisits){
+    private ShiftInsert findBestInsertInShiftMotorized(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, Solution solution,
+                                                       Shift shift, List<Visit> legalMotorizedVisits, SplittableRandom random){
         double bestDeltaObjectiveValue = Double.MAX_VALUE;
+        double bestNoisyDeltaObjectiveValue = Double.MAX_VALUE;
         MultiRouteEvaluatorResult bestInsertVisitResult = null;
         double deltaObjectiveValue;
         var objective = problem.getObjective();
 
         for (Visit insertVisit : legalMotorizedVisits) {
-            MultiRouteEvaluatorResult result = findRouteForMotorized(problem, insertVisit, solution, shift);
+            MultiRouteEvaluatorResult result = findRouteForMotorized(problem, routeEvaluators, insertVisit, solution, shift);
             if (result == null || result.isInfeasibleInsert()) continue;
             deltaObjectiveValue = result.getDeltaObjective(objective);
 
-            if (objectiveNoise(random) * deltaObjectiveValue < bestDeltaObjectiveValue) {
+            double noisyDeltaObjectiveValue = objectiveNoise(random) * deltaObjectiveValue;
+            if (noisyDeltaObjectiveValue < bestDeltaObjectiveValue) {
                 bestDeltaObjectiveValue = deltaObjectiveValue;
+                bestNoisyDeltaObjectiveValue = noisyDeltaObjectiveValue;
                 bestInsertVisitResult = result;
             }
         }
-        return bestInsertVisitResult;
+        return bestInsertVisitResult == null ? null : new ShiftInsert(bestInsertVisitResult, bestDeltaObjectiveValue, bestNoisyDeltaObjectiveValue);
     }
 
-    private MultiRouteEvaluatorResult findBestInsertInShiftNonMotorized(Problem problem, Solution solution, Shift shift, Set<Visit> unallocatedVisits){
+    private ShiftInsert findBestInsertInShiftNonMotorized(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, Solution solution,
+                                                          Shift shift, List<Visit> visits, SplittableRandom random){
         double bestDeltaObjectiveValue = Double.MAX_VALUE;
+        double bestNoisyDeltaObjectiveValue = Double.MAX_VALUE;
         MultiRouteEvaluatorResult bestInsertVisitResult = null;
         double deltaObjectiveValue;
         var objective = problem.getObjective();
 
-        for (Visit insertVisit : unallocatedVisits) {
+        for (Visit insertVisit : visits) {
             if (!legalInsertNonMotorizedShift(solution, insertVisit, shift)) continue;
-            MultiRouteEvaluatorResult result = findRouteForNonMotorized(problem, insertVisit, solution, shift);
+            MultiRouteEvaluatorResult result = findRouteForNonMotorized(problem, routeEvaluators, insertVisit, solution, shift);
             if (result == null || result.isInfeasibleInsert()) continue;
             deltaObjectiveValue = result.getDeltaObjective(objective);
 
-            if (objectiveNoise(random) * deltaObjectiveValue < bestDeltaObjectiveValue) {
+            double noisyDeltaObjectiveValue = objectiveNoise(random) * deltaObjectiveValue;
+            if (noisyDeltaObjectiveValue < bestDeltaObjectiveValue) {
                 bestDeltaObjectiveValue = deltaObjectiveValue;
+                bestNoisyDeltaObjectiveValue = noisyDeltaObjectiveValue;
                 bestInsertVisitResult = result;
             }
         }
-        return bestInsertVisitResult;
+        return bestInsertVisitResult == null ? null : new ShiftInsert(bestInsertVisitResult, bestDeltaObjectiveValue, bestNoisyDeltaObjectiveValue);
+    }
+
+    /**
+     * Finds the best insert of the visit in the shift, motorized shifts only take visits that complete a task.
+     *
+     * @param problem         current problem
+     * @param routeEvaluators route evaluators of the current thread
+     * @param insertVisit     the visit to be inserted
+     * @param shift           the shift where the visit should be inserted
+     * @return The affected routes when inserting the visit. Null if the visit can not be inserted in the shift or the
+     * insert is infeasible.
+     */
+    protected MultiRouteEvaluatorResult findInsert(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, Visit insertVisit, Shift shift) {
+        var solution = problem.getSolution();
+        MultiRouteEvaluatorResult result;
+        if (shift.isMotorized())
+            result = insertVisit.completesTask() ? findRouteForMotorized(problem, routeEvaluators, insertVisit, solution, shift) : null;
+        else
+            result = legalInsertNonMotorizedShift(solution, insertVisit, shift) ? findRouteForNonMotorized(problem, routeEvaluators, insertVisit, solution, shift) : null;
+        return result == null || result.isInfeasibleInsert() ? null : result;
     }
 
 
     /**
      * Finds where to insert a visit in a motorized shift, and possibly what non motorized shift that is affected.
      *
-     * @param problem        current problem
-     * @param insertVisit    the visit to be inserted
-     * @param solution       current solution
-     * @param motorizedShift the motorized where the visit should be inserted
+     * @param problem         current problem
+     * @param routeEvaluators route evaluators of the current thread
+     * @param insertVisit     the visit to be inserted
+     * @param solution        current solution
+     * @param motorizedShift  the motorized where the visit should be inserted
      * @return A class containing the affected routes when inserting a visit and the new objective obtained by doing this.
      * Returns null if insert is infeasible
      */
-    private MultiRouteEvaluatorResult findRouteForMotorized(Problem problem, Visit insertVisit, Solution solution, Shift motorizedShift) {
+    private MultiRouteEvaluatorResult findRouteForMotorized(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, Visit insertVisit,
+                                                            Solution solution, Shift motorizedShift) {
         List<Visit> insertedVisitsMotorized = new ArrayList<>(List.of(insertVisit));
-        RouteEvaluatorResult resultMotorized = findRoute(problem, insertVisit, motorizedShift);
+        RouteEvaluatorResult resultMotorized = findRoute(problem, routeEvaluators, insertVisit, solution.getVisitSchedule(), motorizedShift);
         // If the insert was infeasible return null
         if (resultMotorized == null) return null;
         int insertIndex = resultMotorized.getRoute().findIndexInRouteVisit(insertVisit);
@@ -157,43 +267,44 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
         // Else we inserted a complete task during a carpooling.
 
         // Find corresponding drop-off, pick-up and JM
-        Map<Integer, Visit> correspondingTransportVisits = findCorrespondingTransportVisits(insertVisit);
-
-        Visit pickUp = correspondingTransportVisits.get(VisitType.PICK_UP);
-        Visit dropOff = correspondingTransportVisits.get(VisitType.DROP_OF);
-        Visit newJM = correspondingTransportVisits.get(VisitType.JOIN_MOTORIZED);
-        Visit completeTask = correspondingTransportVisits.get(VisitType.COMPLETE_TASK);
+        Visit pickUp = model.getVisit(insertVisit.getTask(), VisitType.PICK_UP);
+        Visit dropOff = model.getVisit(insertVisit.getTask(), VisitType.DROP_OF);
+        Visit newJM = model.getVisit(insertVisit.getTask(), VisitType.JOIN_MOTORIZED);
+        Visit completeTask = model.getVisit(insertVisit.getTask(), VisitType.COMPLETE_TASK);
 
         // Insert pick up after complete task. (NB has to be done before insertion of drop off, so that the index is still correct)
         resultMotorized.getRoute().addVisitAtIndex(pickUp, insertIndex + 1);
         // Insert drop off behind complete task    
         resultMotorized.getRoute().addVisitAtIndex(dropOff, insertIndex - 1);
 
-        // NB!!! In the following code we change the time window of the visits. Should they be copied and not changed directly??
+        VisitSchedule visitSchedule = getCarpoolVisitSchedule(solution);
+        resultMotorized.getRoute().writeSchedule(visitSchedule);
 
         // Set time windows for D, P and JM
-        setTimeWindows(carpoolingUtils.calculateTimeWindowsForMotorized(resultMotorized.getRoute().getVisitSolution(), newJM, dropOff, pickUp, completeTask, solution.getCarpoolSyncedTaskStartTimes(), motorizedShift));
+        Map<Visit, List<Integer>> timeWindows = carpoolingUtils.calculateTimeWindowsForMotorized(resultMotorized.getRoute().getVisitSolution(), newJM, dropOff, pickUp, completeTask, solution.getCarpoolSyncedTaskStartTimes(), visitSchedule, motorizedShift);
+        setTimeWindows(visitSchedule, timeWindows);
 
         // Create time dependent pairs
         Map<Visit, Integer> carpoolSyncedVisitStartTime = new HashMap<>();
         List<TimeDependentVisitPair> newTimeDependentVisitPairs = new ArrayList<>();
 
-        int syncedStartTimeDropOff = carpoolingUtils.getTimeWindowStart(resultMotorized.getRoute().getVisitSolution(), dropOff, solution.getCarpoolSyncedTaskStartTimes(), motorizedShift);
+        int syncedStartTimeDropOff = carpoolingUtils.getTimeWindowStart(resultMotorized.getRoute().getVisitSolution(), dropOff, solution.getCarpoolSyncedTaskStartTimes(), visitSchedule, motorizedShift);
         newTimeDependentVisitPairs.add(carpoolingUtils.createCarpoolTimeDependentPair(dropOff, motorizedShift.getId(), completeTask, motorizedShift.getId(), syncedStartTimeDropOff, 0, carpoolSyncedVisitStartTime));
         int syncedStartTimePickUp = syncedStartTimeDropOff + insertVisit.getVisitDuration();
         newTimeDependentVisitPairs.add(carpoolingUtils.createCarpoolTimeDependentPair(pickUp, motorizedShift.getId(), newJM, motorizedShift.getId(), syncedStartTimePickUp, 0, carpoolSyncedVisitStartTime));
 
         // Find non motorized carpooling shift ID
-        Integer coCarPoolerShiftID = predecessor.getCoCarPoolerShiftID();
+        int coCarPoolerShiftID = solution.getVisitSchedule().getCoCarPoolerShiftId(predecessor);
         // Add the corresponding JM to the non motorized route after the predecessor JM 
         Route newNonMotorizedRoute = new Route();
         newNonMotorizedRoute.addVisits(solution.getRoute(coCarPoolerShiftID));
-        int indexPredecessorJM = newNonMotorizedRoute.findIndexInRouteVisitTypeTask(predecessor.getTask(), VisitType.JOIN_MOTORIZED);
+        int indexPredecessorJM = solution.getCorrespondingVisitOfTypeIndex(coCarPoolerShiftID, predecessor, VisitType.JOIN_MOTORIZED);
         newNonMotorizedRoute.addVisitAtIndex(newJM, indexPredecessorJM + 1);
 
-        RouteEvaluatorResult resultNonMotorized = getEvaluatorResultByTheOrderOfVisits(newNonMotorizedRoute.getVisitSolution(), problem, motorizedShift);
+        RouteEvaluatorResult resultNonMotorized = getEvaluatorResultByTheOrderOfVisits(newNonMotorizedRoute.getVisitSolution(), problem, routeEvaluators, visitSchedule, motorizedShift);
 
         MultiRouteEvaluatorResult multiRouteEvaluatorResult = new MultiRouteEvaluatorResult(resultMotorized, resultNonMotorized, newTimeDependentVisitPairs, carpoolSyncedVisitStartTime, motorizedShift.getId(), coCarPoolerShiftID);
+        multiRouteEvaluatorResult.addTimeWindows(timeWindows);
         multiRouteEvaluatorResult.setInsertedVisits(motorizedShift.getId(), insertedVisitsMotorized);
         multiRouteEvaluatorResult.setInsertedVisits(coCarPoolerShiftID, new ArrayList<>(Arrays.asList(newJM)));
         return multiRouteEvaluatorResult;
@@ -204,32 +315,36 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
      * Finds where to insert a visit in a non-motorized shift, and possibly which motorized shift that is affected.
      *
      * @param problem           current problem
+     * @param routeEvaluators   route evaluators of the current thread
      * @param insertVisit       the visit to be inserted
      * @param solution          current solution
      * @param nonMotorizedShift the non-motorized where the visit should be inserted
      * @return A class containing the affected routes when inserting a visit and the new objective obtained by doing this.
      * Returns null if insert is infeasible
      */
-    private MultiRouteEvaluatorResult findRouteForNonMotorized(Problem problem, Visit insertVisit, Solution solution, Shift nonMotorizedShift) {
+    private MultiRouteEvaluatorResult findRouteForNonMotorized(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, Visit insertVisit,
+                                                               Solution solution, Shift nonMotorizedShift) {
         if (insertVisit.completesTask())
-            return insertCompleteTaskNonMotorized(problem, insertVisit, solution, nonMotorizedShift);
-        return insertJoinMotorizedNonMotorized(problem, insertVisit, solution, nonMotorizedShift);
+            return insertCompleteTaskNonMotorized(problem, routeEvaluators, insertVisit, solution, nonMotorizedShift);
+        return insertJoinMotorizedNonMotorized(problem, routeEvaluators, insertVisit, solution, nonMotorizedShift);
     }
 
     /**
      * Finds where to insert a complete task visit in a non-motorized shift, and possibly which motorized shift that is affected.
      *
      * @param problem           current problem
+     * @param routeEvaluators   route evaluators of the current thread
      * @param insertVisit       the visit to be inserted
      * @param solution          current solution
      * @param nonMotorizedShift the non-motorized where the visit should be inserted
      * @return A class containing the affected routes when inserting a visit and the new objective obtained by doing this.
      * Returns null if insert is infeasible
      */
-    private MultiRouteEvaluatorResult insertCompleteTaskNonMotorized(Problem problem, Visit insertVisit, Solution solution, Shift nonMotorizedShift) {
+    private MultiRouteEvaluatorResult insertCompleteTaskNonMotorized(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, Visit insertVisit,
+                                                                     Solution solution, Shift nonMotorizedShift) {
         List<Visit> insertedVisitsNonMotorized = new ArrayList<>();
         insertedVisitsNonMotorized.add(insertVisit);
-        RouteEvaluatorResult resultNonMotorized = findRoute(problem, insertVisit, nonMotorizedShift);
+        RouteEvaluatorResult resultNonMotorized = findRoute(problem, routeEvaluators, insertVisit, solution.getVisitSchedule(), nonMotorizedShift);
         // If the insert was infeasible return null
         if (resultNonMotorized == null) return null;
         int insertIndex = resultNonMotorized.getRoute().findIndexInRouteVisit(insertVisit);
@@ -242,11 +357,9 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
         // Else we have "broken-up" a carpooling route. Case 4 in PP
         if (successor == null) throw new IllegalStateException("Non motorized is never dropped of");
         // Find corresponding drop-off, pick-up and JM
-        Map<Integer, Visit> correspondingTransportVisits = findCorrespondingTransportVisits(insertVisit);
-
-        Visit pickUp = correspondingTransportVisits.get(VisitType.PICK_UP);
-        Visit dropOff = correspondingTransportVisits.get(VisitType.DROP_OF);
-        Visit newJM = correspondingTransportVisits.get(VisitType.JOIN_MOTORIZED);
+        Visit pickUp = model.getVisit(insertVisit.getTask(), VisitType.PICK_UP);
+        Visit dropOff = model.getVisit(insertVisit.getTask(), VisitType.DROP_OF);
+        Visit newJM = model.getVisit(insertVisit.getTask(), VisitType.JOIN_MOTORIZED);
 
         // Insert new JM after the complete task
         resultNonMotorized.getRoute().addVisitAtIndex(newJM, insertIndex + 1);
@@ -254,40 +367,46 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
 
         // Create time dependent pairs
         // Find driver shift id
-        int motorizedShiftId = predecessor.getCoCarPoolerShiftID();
+        int motorizedShiftId = solution.getVisitSchedule().getCoCarPoolerShiftId(predecessor);
         Map<Visit, Integer> carpoolSyncedVisitStartTime = new HashMap<>();
         List<TimeDependentVisitPair> newTimeDependentVisitPairs = new ArrayList<>();
+        VisitSchedule visitSchedule = getCarpoolVisitSchedule(solution);
+        resultNonMotorized.getRoute().writeSchedule(visitSchedule);
 
         // Find previous pick up visit
-        Visit prevPickUp = findCorrespondingTransportVisits(predecessor).get(VisitType.PICK_UP);
+        Visit prevPickUp = model.getVisit(predecessor.getTask(), VisitType.PICK_UP);
         // Calculate time window for previous JM + Complete task (insertVisit) + previous P + insert Drop off
-        setTimeWindows(carpoolingUtils.calculateTimeWindowsForNonMotorized(resultNonMotorized.getRoute().getVisitSolution(), predecessor, dropOff, prevPickUp, insertVisit, solution.getCarpoolSyncedTaskStartTimes(), nonMotorizedShift));
+        Map<Visit, List<Integer>> timeWindowsDropOff = carpoolingUtils.calculateTimeWindowsForNonMotorized(resultNonMotorized.getRoute().getVisitSolution(), predecessor, dropOff, prevPickUp, insertVisit, solution.getCarpoolSyncedTaskStartTimes(), visitSchedule, nonMotorizedShift);
+        setTimeWindows(visitSchedule, timeWindowsDropOff);
 
         // Sync insert visit and insert drop off
-        int syncedStartTimeDropOff = insertVisit.getTimeWindowStart();
-        int intervalOffset = insertVisit.getTimeWindowEnd() - syncedStartTimeDropOff;
+        int syncedStartTimeDropOff = visitSchedule.getTimeWindowStart(insertVisit);
+        int intervalOffset = visitSchedule.getTimeWindowEnd(insertVisit) - syncedStartTimeDropOff;
         newTimeDependentVisitPairs.add(carpoolingUtils.createCarpoolTimeDependentPair(dropOff, motorizedShiftId, insertVisit, nonMotorizedShift.getId(), syncedStartTimeDropOff, intervalOffset, carpoolSyncedVisitStartTime));
 
         // Find successor motorized
-        Visit nextDropOff = findCorrespondingTransportVisits(successor).get(VisitType.DROP_OF);
+        Visit nextDropOff = model.getVisit(successor.getTask(), VisitType.DROP_OF);
         // Calculate time window for new JM + P + successor Drop off + successor nonMotorized
-        setTimeWindows(carpoolingUtils.calculateTimeWindowsForNonMotorized(resultNonMotorized.getRoute().getVisitSolution(), newJM, pickUp, nextDropOff, successor, solution.getCarpoolSyncedTaskStartTimes(), nonMotorizedShift));
+        Map<Visit, List<Integer>> timeWindowsPickUp = carpoolingUtils.calculateTimeWindowsForNonMotorized(resultNonMotorized.getRoute().getVisitSolution(), newJM, pickUp, nextDropOff, successor, solution.getCarpoolSyncedTaskStartTimes(), visitSchedule, nonMotorizedShift);
+        setTimeWindows(visitSchedule, timeWindowsPickUp);
 
         // Sync new JM and insert pick up
-        int syncedStartTimeJM = newJM.getTimeWindowStart();
+        int syncedStartTimeJM = visitSchedule.getTimeWindowStart(newJM);
         newTimeDependentVisitPairs.add(carpoolingUtils.createCarpoolTimeDependentPair(pickUp, motorizedShiftId, newJM, nonMotorizedShift.getId(), syncedStartTimeJM, 0, carpoolSyncedVisitStartTime));
 
         // Add the new Pick upp and Drop off to the motorized shift
         Route newMotorizedRoute = new Route();
         newMotorizedRoute.addVisits(solution.getRoute(motorizedShiftId));
-        int indexPreviousPickUp = newMotorizedRoute.findIndexInRouteVisitTypeTask(predecessor.getTask(), VisitType.PICK_UP);
+        int indexPreviousPickUp = solution.getCorrespondingVisitOfTypeIndex(motorizedShiftId, predecessor, VisitType.PICK_UP);
         newMotorizedRoute.addVisitAtIndex(dropOff, indexPreviousPickUp + 1);
         newMotorizedRoute.addVisitAtIndex(pickUp, indexPreviousPickUp + 1);
 
-        RouteEvaluatorResult resultMotorized = getEvaluatorResultByTheOrderOfVisits(newMotorizedRoute.getVisitSolution(), problem, model.getShift(motorizedShiftId));
+        RouteEvaluatorResult resultMotorized = getEvaluatorResultByTheOrderOfVisits(newMotorizedRoute.getVisitSolution(), problem, routeEvaluators, visitSchedule, model.getShift(motorizedShiftId));
         if (resultMotorized == null) return null;
 
         MultiRouteEvaluatorResult multiRouteEvaluatorResult = new MultiRouteEvaluatorResult(resultNonMotorized, resultMotorized, newTimeDependentVisitPairs, carpoolSyncedVisitStartTime, nonMotorizedShift.getId(), motorizedShiftId);
+        multiRouteEvaluatorResult.addTimeWindows(timeWindowsDropOff);
+        multiRouteEvaluatorResult.addTimeWindows(timeWindowsPickUp);
         multiRouteEvaluatorResult.setInsertedVisits(nonMotorizedShift.getId(), insertedVisitsNonMotorized);
         multiRouteEvaluatorResult.setInsertedVisits(motorizedShiftId, List.of(dropOff, pickUp));
         return multiRouteEvaluatorResult;
@@ -297,6 +416,7 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
      * Finds where to insert a join motorized visit in a non-motorized shift, and possibly which motorized shift that is affected.
      *
      * @param problem           current problem
+     * @param routeEvaluators   route evaluators of the current thread
      * @param insertVisit       the visit to be inserted
      * @param solution          current solution
      * @param nonMotorizedShift the non-motorized where the visit should be inserted
@@ -306,48 +426,53 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
      * 
      * NB!! For now we can not be picked up at the office because the office is not a complete task
      */
-    private MultiRouteEvaluatorResult insertJoinMotorizedNonMotorized(Problem problem, Visit insertVisit, Solution solution, Shift nonMotorizedShift) {
+    private MultiRouteEvaluatorResult insertJoinMotorizedNonMotorized(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, Visit insertVisit,
+                                                                      Solution solution, Shift nonMotorizedShift) {
         List<Visit> route = solution.getRoute(nonMotorizedShift.getId());
 
         // Find corresponding complete task visit, pick-up and drop off.
-        Map<Integer, Visit> correspondingTransportVisits = findCorrespondingTransportVisits(insertVisit);
-
-        Visit completeTask = correspondingTransportVisits.get(VisitType.COMPLETE_TASK);
-        Visit pickUp = correspondingTransportVisits.get(VisitType.PICK_UP);
-        int completeTaskIndex = route.indexOf(completeTask);
+        Visit completeTask = model.getVisit(insertVisit.getTask(), VisitType.COMPLETE_TASK);
+        Visit pickUp = model.getVisit(insertVisit.getTask(), VisitType.PICK_UP);
+        int completeTaskIndex = solution.getPositionInRoute(completeTask);
 
         Visit successorNonMotorized = route.get(completeTaskIndex + 1); // Check if successor exist. You need to be able to go back to the office, which is not a task. 
-        Visit dropOff = findCorrespondingTransportVisits(successorNonMotorized).get(VisitType.DROP_OF);
+        Visit dropOff = model.getVisit(successorNonMotorized.getTask(), VisitType.DROP_OF);
 
         // Insert JM after the CT
         Route newNonMotorizedRoute = new Route();
         newNonMotorizedRoute.addVisits(route);
         newNonMotorizedRoute.addVisitAtIndex(insertVisit, completeTaskIndex + 1);
 
-        RouteEvaluatorResult resultNonMotorized = getEvaluatorResultByTheOrderOfVisits(newNonMotorizedRoute.getVisitSolution(), problem, nonMotorizedShift);
+        RouteEvaluatorResult resultNonMotorized = getEvaluatorResultByTheOrderOfVisits(newNonMotorizedRoute.getVisitSolution(), problem, routeEvaluators, solution.getVisitSchedule(), nonMotorizedShift);
         if (resultNonMotorized == null) return null;
 
-        setTimeWindows(carpoolingUtils.calculateTimeWindowsForNonMotorized(resultNonMotorized.getRoute().getVisitSolution(), insertVisit, pickUp, dropOff, successorNonMotorized, solution.getCarpoolSyncedTaskStartTimes(), nonMotorizedShift));
+        VisitSchedule visitSchedule = getCarpoolVisitSchedule(solution);
+        resultNonMotorized.getRoute().writeSchedule(visitSchedule);
+        Map<Visit, List<Integer>> timeWindows = carpoolingUtils.calculateTimeWindowsForNonMotorized(resultNonMotorized.getRoute().getVisitSolution(), insertVisit, pickUp, dropOff, successorNonMotorized, solution.getCarpoolSyncedTaskStartTimes(), visitSchedule, nonMotorizedShift);
+        setTimeWindows(visitSchedule, timeWindows);
 
-        ShiftRouteEvaluatorPair motorizedShiftResult = getBestMotorizedShift(problem, pickUp, dropOff);
+        ShiftRouteEvaluatorPair motorizedShiftResult = getBestMotorizedShift(problem, routeEvaluators, visitSchedule, pickUp, dropOff);
         if (motorizedShiftResult == null) return null;
         Shift motorizedShift = motorizedShiftResult.getShift();
         RouteEvaluatorResult resultMotorized = motorizedShiftResult.getRouteEvaluatorResult();
+        resultMotorized.getRoute().writeSchedule(visitSchedule);
 
         // Create time dependent pairs
         Map<Visit, Integer> carpoolSyncedVisitStartTime = new HashMap<>();
         List<TimeDependentVisitPair> newTimeDependentVisitPairs = new ArrayList<>();
 
         // Get synced start times
-        int syncedStartTimePickUp = carpoolingUtils.getTimeWindowStart(resultMotorized.getRoute().getVisitSolution(), pickUp, solution.getCarpoolSyncedTaskStartTimes(), motorizedShift);
-        int syncedStartTimeDropOff = carpoolingUtils.getTimeWindowStart(resultMotorized.getRoute().getVisitSolution(), dropOff, solution.getCarpoolSyncedTaskStartTimes(), motorizedShift);
-        int intervalOffset = successorNonMotorized.getTimeWindowEnd() - syncedStartTimeDropOff;
+        RouteTimeWindows motorizedTimeWindows = new RouteTimeWindows(resultMotorized.getRoute().getVisitSolution(), solution.getCarpoolSyncedTaskStartTimes(), visitSchedule, motorizedShift);
+        int syncedStartTimePickUp = motorizedTimeWindows.getTimeWindowStart(pickUp);
+        int syncedStartTimeDropOff = motorizedTimeWindows.getTimeWindowStart(dropOff);
+        int intervalOffset = visitSchedule.getTimeWindowEnd(successorNonMotorized) - syncedStartTimeDropOff;
 
         newTimeDependentVisitPairs.add(carpoolingUtils.createCarpoolTimeDependentPair(pickUp, motorizedShift.getId(), insertVisit, nonMotorizedShift.getId(), syncedStartTimePickUp, 0, carpoolSyncedVisitStartTime));
         newTimeDependentVisitPairs.add(carpoolingUtils.createCarpoolTimeDependentPair(dropOff, motorizedShift.getId(), successorNonMotorized, nonMotorizedShift.getId(), syncedStartTimeDropOff, intervalOffset, carpoolSyncedVisitStartTime));
 
 
         MultiRouteEvaluatorResult multiRouteEvaluatorResult = new MultiRouteEvaluatorResult(resultNonMotorized, resultMotorized, newTimeDependentVisitPairs, carpoolSyncedVisitStartTime, nonMotorizedShift.getId(), motorizedShift.getId());
+        multiRouteEvaluatorResult.addTimeWindows(timeWindows);
         multiRouteEvaluatorResult.setInsertedVisits(nonMotorizedShift.getId(), new ArrayList<>(Arrays.asList(insertVisit)));
         multiRouteEvaluatorResult.setInsertedVisits(motorizedShift.getId(), new ArrayList<>(Arrays.asList(dropOff, pickUp)));
         return multiRouteEvaluatorResult;
@@ -356,6 +481,8 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
 
     protected void updateSolutionOneShift(Problem problem, double bestObjective, int bestShiftId, List<Visit> bestVisits, RouteEvaluatorResult bestRoute) {
         Shift bestShift = model.getShift(bestShiftId);
+        // The schedule is set before the visits are assigned, as the transport modes decide which tasks are completed
+        problem.setVisitSchedule(bestRoute.getRoute());
         for (Visit bestVisit : bestVisits) {
             // NB NB!!!! Must be inserted in the correct order, because the index is dependent on the size of the list.
             Integer index = bestRoute.getRoute().findIndexInRouteVisit(bestVisit);
@@ -364,6 +491,9 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
     }
 
     protected Double updateSolution(Problem problem, double bestObjective, MultiRouteEvaluatorResult bestInsertVisitResult) {
+        for (Map.Entry<Visit, List<Integer>> entry : bestInsertVisitResult.getTimeWindows().entrySet()) {
+            problem.setVisitTimeWindow(entry.getKey(), entry.getValue().get(0), entry.getValue().get(1));
+        }
         int shiftIdOne = bestInsertVisitResult.getShiftIdOne();
         updateSolutionOneShift(problem, bestObjective, shiftIdOne, bestInsertVisitResult.getInsertedVisits(shiftIdOne), bestInsertVisitResult.getRouteEvaluatorOne());
         if (bestInsertVisitResult.isMultipleRoutesAffected()) {
@@ -378,17 +508,15 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
                     bestInsertVisitResult.getCarpoolSyncedVisitStartTime(pair.getMasterVisit()),
                     bestInsertVisitResult.getCarpoolSyncedVisitStartTime(pair.getDependentVisit())
             );
-            // Updating info in visit class as well
-            pair.getMasterVisit().setCarpooling(pair.getDependentShiftId());
-            pair.getDependentVisit().setCarpooling(pair.getMasterShiftId());
         }
         return bestObjective;
     }
 
-    protected RouteEvaluatorResult getEvaluatorResultByTheOrderOfVisits(List<Visit> visits, Problem problem, Shift shift) {
+    protected RouteEvaluatorResult getEvaluatorResultByTheOrderOfVisits(List<Visit> visits, Problem problem, Map<Integer, RouteEvaluator> routeEvaluators,
+                                                                        VisitSchedule visitSchedule, Shift shift) {
         var solution = problem.getSolution();
-        return problem.getRouteEvaluators().get(shift.getId()).evaluateRouteByTheOrderOfVisits(
-                visits, solution.getCarpoolSyncedTaskStartTimes(), shift);
+        return routeEvaluators.get(shift.getId()).evaluateRouteByTheOrderOfVisits(
+                visits, solution.getCarpoolSyncedTaskStartTimes(), visitSchedule, shift);
     }
 
 
@@ -396,19 +524,22 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
      * This method tries to insert the pick-up and drop-of pair into all motorized shifts, run the route evaluator, and
      * return the best shift
      *
-     * @param problem The current problem
-     * @param pickUp  The pick-up visit to be allocated
-     * @param dropOf  the drop-off node to be allocated
+     * @param problem         The current problem
+     * @param routeEvaluators Route evaluators of the current thread
+     * @param visitSchedule   Visit schedule holding the time windows of the pick-up and drop-off
+     * @param pickUp          The pick-up visit to be allocated
+     * @param dropOf          the drop-off node to be allocated
      * @return Return a route evaluator result and shift id of the best shift to insert the transportation request in. Null if no shift is found
      */
-    private ShiftRouteEvaluatorPair getBestMotorizedShift(Problem problem, Visit pickUp, Visit dropOf) {
+    private ShiftRouteEvaluatorPair getBestMotorizedShift(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, VisitSchedule visitSchedule,
+                                                          Visit pickUp, Visit dropOf) {
         RouteEvaluatorResult bestResult = null;
-        int travelTimeBetween = model.getTravelTimeMatrix().get(Constants.TransportMode.DRIVE).getTravelTime(pickUp.getLocation(), dropOf.getLocation());
-        TransportRequest transportRequest = new TransportRequest(pickUp, dropOf, travelTimeBetween); // Change this to be aggregated node???
+        int travelTimeBetween = model.getTravelTimeProvider().getTravelTime(pickUp.getLocation(), dropOf.getLocation(), Constants.TransportMode.DRIVE);
+        TransportRequest transportRequest = new TransportRequest(pickUp, dropOf, travelTimeBetween, visitSchedule); // Change this to be aggregated node???
         Shift bestShift = null;
 
         for (Shift mShift : model.getCarpoolAbleMotorizedShifts()) {
-            RouteEvaluatorResult result = findRoute(problem, transportRequest, mShift);
+            RouteEvaluatorResult result = findRoute(problem, routeEvaluators, transportRequest, visitSchedule, mShift);
 
             if (result == null) continue;
             if (bestResult == null) {
@@ -424,14 +555,16 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
         return bestResult == null ? null : carpoolingUtils.new ShiftRouteEvaluatorPair(bestShift, bestResult);
     }
 
-    protected RouteEvaluatorResult getEvaluatorResult(IVisit visit, Problem problem, Shift shift) {
+    protected RouteEvaluatorResult getEvaluatorResult(IVisit visit, Problem problem, Map<Integer, RouteEvaluator> routeEvaluators,
+                                                      VisitSchedule visitSchedule, Shift shift) {
         var solution = problem.getSolution();
-        return problem.getRouteEvaluators().get(shift.getId()).evaluateRouteByTheOrderOfVisitsInsertVisit(
-                solution.getRoute(shift), visit, solution.getCarpoolSyncedTaskStartTimes(), shift);
+        return routeEvaluators.get(shift.getId()).evaluateRouteByTheOrderOfVisitsInsertVisit(solution.getRoute(shift),
+                solution.getRouteVersion(shift.getId()), visit, solution.getCarpoolSyncedTaskStartTimes(), visitSchedule, shift);
     }
 
-    private RouteEvaluatorResult findRoute(Problem problem, IVisit visit, Shift shift) {
-        return getEvaluatorResult(visit, problem, shift);
+    private RouteEvaluatorResult findRoute(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, IVisit visit,
+                                           VisitSchedule visitSchedule, Shift shift) {
+        return getEvaluatorResult(visit, problem, routeEvaluators, visitSchedule, shift);
     }
 
     private boolean legalInsertNonMotorizedShift(Solution solution, Visit visit, Shift shift) {
@@ -439,42 +572,29 @@ public class GreedyRepairAlgorithm implements IRepairAlgorithm {
     }
 
     private boolean completeTaskIsInShift(Solution solution, Shift shift, Visit joinMotorized) {
-        for (Visit visit : solution.getRoute(shift.getId())) {
-            if (visit.getTask() == joinMotorized.getTask()) {
-                return true;
-            }
-        }
-        return false;
+        return solution.isCompleteTaskInShift(joinMotorized.getTask(), shift.getId());
     }
 
-    private void setTimeWindows(Map<Visit, List<Integer>> timeWindows) {
+    private void setTimeWindows(VisitSchedule visitSchedule, Map<Visit, List<Integer>> timeWindows) {
         for (Map.Entry<Visit, List<Integer>> entry : timeWindows.entrySet()) {
-            entry.getKey().setTimeWindowStart(entry.getValue().get(0));
-            entry.getKey().setTimeWindowEnd(entry.getValue().get(1));
+            visitSchedule.setTimeWindow(entry.getKey(), entry.getValue().get(0), entry.getValue().get(1));
         }
     }
 
     /**
-     * Finds the three corresponding visits of the input visit
-     *
-     * @param visit current visit
-     * @return Map of visit type and visit
+     * The best insert found in a shift, with the noisy delta objective value it was chosen by in the shift, which is
+     * also used when the shifts are compared.
      */
-    private Map<Integer, Visit> findCorrespondingTransportVisits(Visit visit) {
-        // Find corresponding drop-off, pick-up and JM
-        Map<Integer, Visit> correspondingTransportVisits = model.getVisits().stream().filter(v -> v.getTask() == visit.getTask()).collect(Collectors.toMap(Visit::getVisitType, Function.identity()));
-
-        // Check if state is correct. Can be removed, because this should never happen. But is nice for debugging
-        if (correspondingTransportVisits.size() != 4 ||
-                correspondingTransportVisits.containsKey(VisitType.COMPLETE_TASK) ||
-                correspondingTransportVisits.containsKey(VisitType.DROP_OF) ||
-                correspondingTransportVisits.containsKey(VisitType.PICK_UP) ||
-                correspondingTransportVisits.containsKey(VisitType.JOIN_MOTORIZED)) {
-            throw new IllegalStateException("The model do not have 4 visits for each task");
+    private static class ShiftInsert {
+        private final MultiRouteEvaluatorResult result;
+        private final double deltaObjectiveValue;
+        private final double noisyDeltaObjectiveValue;
+
+        private ShiftInsert(MultiRouteEvaluatorResult result, double deltaObjectiveValue, double noisyDeltaObjectiveValue) {
+            this.result = result;
+            this.deltaObjectiveValue = deltaObjectiveValue;
+            this.noisyDeltaObjectiveValue = noisyDeltaObjectiveValue;
         }
-
-        return correspondingTransportVisits;
     }
 
-
-}
\ No newline at end of file
+}
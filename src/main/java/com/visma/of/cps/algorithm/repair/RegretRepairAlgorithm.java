@@ -0,0 +1,277 @@
+package com.visma.of.cps.algorithm.repair;
+
+import com.visma.of.cps.algorithm.NeighborhoodMoveInfo;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.results.MultiRouteEvaluatorResult;
+import com.visma.of.cps.routeEvaluator.solver.RouteEvaluator;
+import com.visma.of.cps.solution.Problem;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static com.visma.of.cps.util.RandomUtils.objectiveNoise;
+
+
+/**
+ * Inserts the unallocated visits one at a time until no visit can be inserted, each time choosing the visit with the
+ * largest regret. The regret of a visit is the sum of the differences between the cost of its best insert and the
+ * costs of its 2nd to k-th best inserts, where the best insert of a visit is found in each shift. Visits that can be
+ * inserted in fewer than k shifts have the largest regret, the one with the fewest shifts, and then the cheapest insert,
+ * is chosen first.
+ * <p>
+ * The best insert of every unallocated visit in every shift is kept in a table. An insert only changes the routes of the
+ * one or two shifts it is made in, hence after an insert only the columns of these shifts are evaluated again. In
+ * addition, the inserts in other shifts that also change one of these shifts are evaluated again, as are the inserts
+ * of join motorized visits when a motorized shift that can carpool is changed, as the driver of those is chosen among
+ * all such shifts.
+ * <p>
+ * The columns are evaluated sequentially or in parallel in a fork join pool, as in the greedy repair. The noise is
+ * applied to the regrets on the calling thread, hence for a given seed the inserts do not depend on whether the
+ * columns are evaluated in parallel.
+ */
+public class RegretRepairAlgorithm extends GreedyRepairAlgorithm {
+
+    private final Random random;
+    private final int k;
+    private final BitSet carpoolAbleMotorizedShiftIds;
+
+    /**
+     * @param model  The model.
+     * @param random Random used for the order of the visits and the noise on the regret.
+     * @param k      Number of best inserts of a visit the regret is calculated from, at least 2.
+     */
+    public RegretRepairAlgorithm(Model model, Random random, int k) {
+        this(model, random, k, null);
+    }
+
+    /**
+     * @param model  The model.
+     * @param random Random used for the order of the visits and the noise on the regret.
+     * @param k      Number of best inserts of a visit the regret is calculated from, at least 2.
+     * @param pool   Pool used to evaluate the shifts in parallel, if null the shifts are evaluated sequentially.
+     */
+    public RegretRepairAlgorithm(Model model, Random random, int k, ForkJoinPool pool) {
+        super(model, random, pool);
+        if (k < 2)
+            throw new IllegalArgumentException("The regret must be calculated from at least 2 inserts, was " + k);
+        this.random = random;
+        this.k = k;
+        this.carpoolAbleMotorizedShiftIds = new BitSet();
+        for (Shift shift : model.getCarpoolAbleMotorizedShifts())
+            carpoolAbleMotorizedShiftIds.set(shift.getId());
+    }
+
+    /**
+     * WARNING: Modifies unallocatedTasks by removing allocated task from it.
+     */
+    @Override
+    public NeighborhoodMoveInfo repair(NeighborhoodMoveInfo neighborhoodMoveInfo, List<Shift> shifts, Set<Visit> unallocatedVisits) {
+        if (unallocatedVisits.isEmpty()) {
+            return null;
+        }
+
+        Double repairDelta = insertByRegret(neighborhoodMoveInfo.getProblem(), shifts, unallocatedVisits);
+        if (repairDelta == null) {
+            return null;
+        }
+
+        neighborhoodMoveInfo.setDeltaObjectiveValue(neighborhoodMoveInfo.getDeltaObjectiveValue() + repairDelta);
+        return neighborhoodMoveInfo;
+    }
+
+    /**
+     * Inserts visits by largest regret until no unallocated visit can be inserted.
+     *
+     * @param problem           current problem
+     * @param shifts            Shifts to try to insert visits in
+     * @param unallocatedVisits Un allocated visits that can be inserted
+     * @return Sum of the delta objectives of the inserts, null if no visit was inserted
+     */
+    private Double insertByRegret(Problem problem, List<Shift> shifts, Set<Visit> unallocatedVisits) {
+        // Sorted before shuffling, as the order of the set depends on the hash codes of the visits
+        List<Visit> visits = new ArrayList<>(unallocatedVisits);
+        visits.sort(Comparator.comparingInt(Visit::getId));
+        Collections.shuffle(visits, random);
+        InsertTable table = new InsertTable(visits, shifts);
+        if (pool != null)
+            routeEvaluatorPool.update();
+
+        Double repairDelta = null;
+        BitSet changedShiftIds = null;
+        while (true) {
+            updateTable(problem, table, changedShiftIds);
+            tableUpdated(problem, table);
+            int row = selectRow(table);
+            if (row < 0) break;
+            MultiRouteEvaluatorResult bestInsert = table.results[row][table.bestColumn(row)];
+            double deltaObjective = updateSolution(problem, table.costs[row][table.bestColumn(row)], bestInsert);
+            repairDelta = repairDelta == null ? deltaObjective : repairDelta + deltaObjective;
+
+            for (Visit insertedVisit : bestInsert.getAllInsertedVisits()) {
+                unallocatedVisits.remove(insertedVisit); // remove unallocated if not already removed
+                table.removeVisit(insertedVisit);
+            }
+            changedShiftIds = new BitSet();
+            changedShiftIds.set(bestInsert.getShiftIdOne());
+            if (bestInsert.isMultipleRoutesAffected())
+                changedShiftIds.set(bestInsert.getShiftIdTwo());
+        }
+        return repairDelta;
+    }
+
+    /**
+     * Evaluates the inserts of the table that may have changed since the shifts were changed.
+     *
+     * @param changedShiftIds Ids of the shifts changed by the last insert, null if the whole table must be evaluated.
+     */
+    private void updateTable(Problem problem, InsertTable table, BitSet changedShiftIds) {
+        boolean carpoolAbleMotorizedShiftChanged = changedShiftIds != null && changedShiftIds.intersects(carpoolAbleMotorizedShiftIds);
+        if (pool == null || table.shifts.size() < 2) {
+            Map<Integer, RouteEvaluator> routeEvaluators = problem.getRouteEvaluators();
+            for (int column = 0; column < table.shifts.size(); column++) {
+                updateColumn(problem, routeEvaluators, table, column, changedShiftIds, carpoolAbleMotorizedShiftChanged);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, table.shifts.size()).parallel().forEach(column ->
+                    updateColumn(problem, routeEvaluatorPool.get(problem.getRouteEvaluators()), table, column, changedShiftIds, carpoolAbleMotorizedShiftChanged)
+            )).join();
+        }
+        table.updateBestColumns(k);
+    }
+
+    private void updateColumn(Problem problem, Map<Integer, RouteEvaluator> routeEvaluators, InsertTable table, int column,
+                              BitSet changedShiftIds, boolean carpoolAbleMotorizedShiftChanged) {
+        Shift shift = table.shifts.get(column);
+        boolean columnChanged = changedShiftIds == null || changedShiftIds.get(shift.getId());
+        for (int row = 0; row < table.visits.size(); row++) {
+            if (!table.active[row]) continue;
+            Visit visit = table.visits.get(row);
+            if (!columnChanged && !dependsOnChangedShift(table.results[row][column], changedShiftIds)
+                    && !(carpoolAbleMotorizedShiftChanged && visit.isJoinMotorized())) continue;
+            MultiRouteEvaluatorResult result = findInsert(problem, routeEvaluators, visit, shift);
+            table.results[row][column] = result;
+            table.costs[row][column] = result == null ? Double.POSITIVE_INFINITY : result.getDeltaObjective(problem.getObjective());
+        }
+    }
+
+    /**
+     * Called every time the table has been updated, before the next insert is selected. Does nothing, it lets the tests
+     * check the table.
+     */
+    void tableUpdated(Problem problem, InsertTable table) {
+    }
+
+    private boolean dependsOnChangedShift(MultiRouteEvaluatorResult result, BitSet changedShiftIds) {
+        return result != null && result.isMultipleRoutesAffected()
+                && (changedShiftIds.get(result.getShiftIdOne()) || changedShiftIds.get(result.getShiftIdTwo()));
+    }
+
+    /**
+     * @return The row of the visit with the largest regret, -1 if no visit can be inserted.
+     */
+    private int selectRow(InsertTable table) {
+        int bestRow = -1;
+        int bestFeasibleShifts = 0;
+        double bestRegret = 0;
+        double bestCost = 0;
+        for (int row = 0; row < table.visits.size(); row++) {
+            if (!table.active[row] || table.feasibleShifts[row] == 0) continue;
+            int feasibleShifts = Math.min(table.feasibleShifts[row], k);
+            double cost = table.costs[row][table.bestColumn(row)];
+            double regret = feasibleShifts < k ? 0 : objectiveNoise(random) * table.regrets[row];
+            boolean better;
+            if (bestRow < 0)
+                better = true;
+            else if (feasibleShifts != bestFeasibleShifts)
+                better = feasibleShifts < bestFeasibleShifts;
+            else if (regret != bestRegret)
+                better = regret > bestRegret;
+            else
+                better = cost < bestCost;
+            if (better) {
+                bestRow = row;
+                bestFeasibleShifts = feasibleShifts;
+                bestRegret = regret;
+                bestCost = cost;
+            }
+        }
+        return bestRow;
+    }
+
+    /**
+     * The best insert of each unallocated visit, the rows, in each shift, the columns. Null results and infinite costs
+     * are inserts that are infeasible.
+     */
+    static class InsertTable {
+        final List<Visit> visits;
+        final List<Shift> shifts;
+        final Map<Visit, Integer> rowOfVisit;
+        final boolean[] active;
+        final MultiRouteEvaluatorResult[][] results;
+        final double[][] costs;
+        // The k best columns of each row ordered by cost, only the first feasibleShifts of them are set
+        int[][] bestColumns;
+        final int[] feasibleShifts;
+        final double[] regrets;
+
+        InsertTable(List<Visit> visits, List<Shift> shifts) {
+            this.visits = visits;
+            this.shifts = shifts;
+            this.rowOfVisit = new HashMap<>();
+            for (int row = 0; row < visits.size(); row++)
+                rowOfVisit.put(visits.get(row), row);
+            this.active = new boolean[visits.size()];
+            Arrays.fill(active, true);
+            this.results = new MultiRouteEvaluatorResult[visits.size()][shifts.size()];
+            this.costs = new double[visits.size()][shifts.size()];
+            this.feasibleShifts = new int[visits.size()];
+            this.regrets = new double[visits.size()];
+        }
+
+        void removeVisit(Visit visit) {
+            Integer row = rowOfVisit.get(visit);
+            if (row == null) return;
+            active[row] = false;
+            Arrays.fill(results[row], null);
+        }
+
+        int bestColumn(int row) {
+            return bestColumns[row][0];
+        }
+
+        /**
+         * Finds the k best columns, the number of feasible shifts and the regret of each row.
+         */
+        void updateBestColumns(int k) {
+            if (bestColumns == null)
+                bestColumns = new int[visits.size()][k];
+            for (int row = 0; row < visits.size(); row++) {
+                if (!active[row]) continue;
+                int[] best = bestColumns[row];
+                int found = 0;
+                int feasible = 0;
+                for (int column = 0; column < shifts.size(); column++) {
+                    double cost = costs[row][column];
+                    if (cost == Double.POSITIVE_INFINITY) continue;
+                    feasible++;
+                    int position = Math.min(found, k - 1);
+                    if (found == k && cost >= costs[row][best[k - 1]]) continue;
+                    while (position > 0 && cost < costs[row][best[position - 1]]) {
+                        best[position] = best[position - 1];
+                        position--;
+                    }
+                    best[position] = column;
+                    found = Math.min(found + 1, k);
+                }
+                feasibleShifts[row] = feasible;
+                double regret = 0;
+                for (int i = 1; i < found; i++)
+                    regret += costs[row][best[i]] - costs[row][best[0]];
+                regrets[row] = regret;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.visma.of.cps.model;
+
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary format for problem instances, made to be memory mapped such that the travel times can be read
+ * directly from the file. Several solver processes on the same host reading the same file then share the pages in
+ * the page cache. All values are little-endian.
+ * <p>
+ * Header, 24 bytes:
+ * <pre>
+ *   int32 magic                 "CPSI"
+ *   int32 version
+ *   int32 number of shifts
+ *   int32 number of locations   n, including the depot
+ *   int32 depot return time
+ *   int32 bytes per travel time 2 (unsigned) or 4
+ * </pre>
+ * Followed by n location records of 32 bytes each, indexed by location id, where id 0 is the depot and id i > 0 is
+ * the task with id i. The task attributes of the depot record are 0.
+ * <pre>
+ *   float64 x coordinate
+ *   float64 y coordinate
+ *   int32   duration
+ *   int32   weight
+ *   int32   start time
+ *   int32   end time
+ * </pre>
+ * Followed by the n * n driving times stored row-major.
+ */
+public final class BinaryInstanceFormat {
+
+    public static final String FILE_EXTENSION = ".bin";
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    public static final int MAGIC = 'C' | 'P' << 8 | 'S' << 16 | 'I' << 24;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 24;
+    public static final int LOCATION_RECORD_BYTES = 32;
+    public static final int MAX_TWO_BYTE_TRAVEL_TIME = 0xFFFF;
+
+    private BinaryInstanceFormat() {
+    }
+
+    public static long travelTimesOffset(int numberOfLocations) {
+        return HEADER_BYTES + (long) numberOfLocations * LOCATION_RECORD_BYTES;
+    }
+
+    public static long fileSize(int numberOfLocations, int bytesPerTravelTime) {
+        return travelTimesOffset(numberOfLocations) + (long) numberOfLocations * numberOfLocations * bytesPerTravelTime;
+    }
+
+}
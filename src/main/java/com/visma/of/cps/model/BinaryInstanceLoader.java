@@ -0,0 +1,73 @@
+package com.visma.of.cps.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads instances on the format described in BinaryInstanceFormat. The file is memory mapped, the header and the
+ * location records are read into the instance data, while the driving times are left in the mapped buffer and are
+ * read from there when used.
+ */
+public final class BinaryInstanceLoader {
+
+    private BinaryInstanceLoader() {
+    }
+
+    public static InstanceData load(String filePath) throws IOException {
+        return load(Path.of(filePath));
+    }
+
+    public static InstanceData load(Path filePath) throws IOException {
+        MappedByteBuffer buffer;
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Instance file " + filePath + " is too large to be mapped");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(BinaryInstanceFormat.BYTE_ORDER);
+        return read(buffer, filePath);
+    }
+
+    private static InstanceData read(ByteBuffer buffer, Path filePath) {
+        if (buffer.remaining() < BinaryInstanceFormat.HEADER_BYTES || buffer.getInt() != BinaryInstanceFormat.MAGIC) {
+            throw new IllegalStateException(filePath + " is not a binary instance file");
+        }
+        int version = buffer.getInt();
+        if (version != BinaryInstanceFormat.VERSION) {
+            throw new IllegalStateException("Unsupported binary instance version " + version + " in " + filePath);
+        }
+        int numberOfShifts = buffer.getInt();
+        int numberOfLocations = buffer.getInt();
+        int depotReturnTime = buffer.getInt();
+        int bytesPerTravelTime = buffer.getInt();
+        if (buffer.capacity() != BinaryInstanceFormat.fileSize(numberOfLocations, bytesPerTravelTime)) {
+            throw new IllegalStateException("Size of " + filePath + " does not match its header");
+        }
+
+        double[] xCoords = new double[numberOfLocations];
+        double[] yCoords = new double[numberOfLocations];
+        int[] durations = new int[numberOfLocations];
+        int[] weights = new int[numberOfLocations];
+        int[] startTimes = new int[numberOfLocations];
+        int[] endTimes = new int[numberOfLocations];
+        for (int i = 0; i < numberOfLocations; i++) {
+            xCoords[i] = buffer.getDouble();
+            yCoords[i] = buffer.getDouble();
+            durations[i] = buffer.getInt();
+            weights[i] = buffer.getInt();
+            startTimes[i] = buffer.getInt();
+            endTimes[i] = buffer.getInt();
+        }
+
+        ByteBuffer drivingTimes = buffer.slice().order(BinaryInstanceFormat.BYTE_ORDER);
+        return new InstanceData(numberOfShifts, depotReturnTime, xCoords, yCoords, durations, weights, startTimes,
+                endTimes, drivingTimes, bytesPerTravelTime);
+    }
+
+}
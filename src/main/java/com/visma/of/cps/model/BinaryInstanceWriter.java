@@ -0,0 +1,92 @@
+package com.visma.of.cps.model;
+
+import com.visma.of.api.model.Request;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts instances on the train_N.json format, or given as a Request, to the format described in
+ * BinaryInstanceFormat. The driving times are stored with two bytes when all of them fits, otherwise with four.
+ * <p>
+ * Usage: BinaryInstanceWriter input.json [output.bin]
+ */
+public final class BinaryInstanceWriter {
+
+    private BinaryInstanceWriter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            throw new IllegalArgumentException("Usage: BinaryInstanceWriter input.json [output" + BinaryInstanceFormat.FILE_EXTENSION + "]");
+        }
+        String input = args[0];
+        String output = args.length == 2 ? args[1] : input.replaceFirst("\\.json$", "") + BinaryInstanceFormat.FILE_EXTENSION;
+        write(JsonInstanceLoader.load(input), Path.of(output));
+        System.out.println("Wrote " + output);
+    }
+
+    public static void write(Request request, Path filePath) throws IOException {
+        write(InstanceData.fromRequest(request), filePath);
+    }
+
+    public static void write(InstanceData instanceData, Path filePath) throws IOException {
+        int numberOfLocations = instanceData.getNumberOfLocations();
+        int bytesPerTravelTime = fitsInTwoBytes(instanceData) ? 2 : 4;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate((int) BinaryInstanceFormat.travelTimesOffset(numberOfLocations))
+                    .order(BinaryInstanceFormat.BYTE_ORDER);
+            header.putInt(BinaryInstanceFormat.MAGIC);
+            header.putInt(BinaryInstanceFormat.VERSION);
+            header.putInt(instanceData.getNumberOfShifts());
+            header.putInt(numberOfLocations);
+            header.putInt(instanceData.getDepotReturnTime());
+            header.putInt(bytesPerTravelTime);
+            for (int i = 0; i < numberOfLocations; i++) {
+                header.putDouble(instanceData.getXCoord(i));
+                header.putDouble(instanceData.getYCoord(i));
+                header.putInt(instanceData.getDuration(i));
+                header.putInt(instanceData.getWeight(i));
+                header.putInt(instanceData.getStartTime(i));
+                header.putInt(instanceData.getEndTime(i));
+            }
+            writeFully(channel, header.flip());
+
+            // Written one row at a time, to avoid holding a second copy of the matrix in memory
+            ByteBuffer row = ByteBuffer.allocate(numberOfLocations * bytesPerTravelTime).order(BinaryInstanceFormat.BYTE_ORDER);
+            for (int i = 0; i < numberOfLocations; i++) {
+                row.clear();
+                for (int j = 0; j < numberOfLocations; j++) {
+                    if (bytesPerTravelTime == 2)
+                        row.putChar((char) instanceData.getDrivingTime(i, j));
+                    else
+                        row.putInt(instanceData.getDrivingTime(i, j));
+                }
+                writeFully(channel, row.flip());
+            }
+        }
+    }
+
+    private static boolean fitsInTwoBytes(InstanceData instanceData) {
+        int numberOfLocations = instanceData.getNumberOfLocations();
+        for (int i = 0; i < numberOfLocations; i++) {
+            for (int j = 0; j < numberOfLocations; j++) {
+                int drivingTime = instanceData.getDrivingTime(i, j);
+                if (drivingTime < 0 || drivingTime > BinaryInstanceFormat.MAX_TWO_BYTE_TRAVEL_TIME)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.visma.of.cps.model;
+
+import com.visma.of.api.model.Request;
+import com.visma.of.api.model.RequestDepot;
+import com.visma.of.api.model.RequestTask;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The raw data of a problem instance, as read from file, stored in primitive arrays.
+ * It is used by the model to create the tasks, visits, shifts and travel time matrices.
+ * All per location arrays are indexed by location id, where id 0 is the depot and id i > 0 is the task with id i.
+ * The driving times are stored row-major, i.e., the driving time from location i to location j is found at
+ * index i * numberOfLocations + j. They are either held in an int array, or in a buffer when the instance is read
+ * from a memory mapped binary file, see BinaryInstanceFormat.
+ */
+public class InstanceData {
+
+    private final int numberOfShifts;
+    private final int depotReturnTime;
+    private final double[] xCoords;
+    private final double[] yCoords;
+    private final int[] durations;
+    private final int[] weights;
+    private final int[] startTimes;
+    private final int[] endTimes;
+    private final int[] drivingTimes;
+    private final ByteBuffer mappedDrivingTimes;
+    private final int bytesPerMappedDrivingTime;
+
+    public InstanceData(int numberOfShifts, int depotReturnTime, double[] xCoords, double[] yCoords, int[] durations,
+                        int[] weights, int[] startTimes, int[] endTimes, int[] drivingTimes) {
+        this(numberOfShifts, depotReturnTime, xCoords, yCoords, durations, weights, startTimes, endTimes, drivingTimes,
+                null, 0);
+        if (drivingTimes.length != xCoords.length * xCoords.length) {
+            throw new IllegalArgumentException("Driving times must contain one entry for every pair of locations");
+        }
+    }
+
+    public InstanceData(int numberOfShifts, int depotReturnTime, double[] xCoords, double[] yCoords, int[] durations,
+                        int[] weights, int[] startTimes, int[] endTimes, ByteBuffer mappedDrivingTimes,
+                        int bytesPerMappedDrivingTime) {
+        this(numberOfShifts, depotReturnTime, xCoords, yCoords, durations, weights, startTimes, endTimes, null,
+                mappedDrivingTimes, bytesPerMappedDrivingTime);
+    }
+
+    private InstanceData(int numberOfShifts, int depotReturnTime, double[] xCoords, double[] yCoords, int[] durations,
+                         int[] weights, int[] startTimes, int[] endTimes, int[] drivingTimes,
+                         ByteBuffer mappedDrivingTimes, int bytesPerMappedDrivingTime) {
+        int numberOfLocations = xCoords.length;
+        if (yCoords.length != numberOfLocations || durations.length != numberOfLocations || weights.length != numberOfLocations
+                || startTimes.length != numberOfLocations || endTimes.length != numberOfLocations) {
+            throw new IllegalArgumentException("All location attributes must have one entry per location");
+        }
+        this.numberOfShifts = numberOfShifts;
+        this.depotReturnTime = depotReturnTime;
+        this.xCoords = xCoords;
+        this.yCoords = yCoords;
+        this.durations = durations;
+        this.weights = weights;
+        this.startTimes = startTimes;
+        this.endTimes = endTimes;
+        this.drivingTimes = drivingTimes;
+        this.mappedDrivingTimes = mappedDrivingTimes;
+        this.bytesPerMappedDrivingTime = bytesPerMappedDrivingTime;
+    }
+
+    public int getNumberOfShifts() { return numberOfShifts; }
+
+    public int getDepotReturnTime() { return depotReturnTime; }
+
+    public int getNumberOfLocations() { return xCoords.length; }
+
+    public int getNumberOfTasks() { return xCoords.length - 1; }
+
+    public double getXCoord(int locationId) { return xCoords[locationId]; }
+
+    public double getYCoord(int locationId) { return yCoords[locationId]; }
+
+    public int getDuration(int taskId) { return durations[taskId]; }
+
+    public int getWeight(int taskId) { return weights[taskId]; }
+
+    public int getStartTime(int taskId) { return startTimes[taskId]; }
+
+    public int getEndTime(int taskId) { return endTimes[taskId]; }
+
+    public int getDrivingTime(int fromLocationId, int toLocationId) {
+        int index = fromLocationId * getNumberOfLocations() + toLocationId;
+        if (drivingTimes != null) {
+            return drivingTimes[index];
+        }
+        return bytesPerMappedDrivingTime == 2 ? mappedDrivingTimes.getChar(index << 1) : mappedDrivingTimes.getInt(index << 2);
+    }
+
+    /**
+     * Creates the driving time matrix for the locations. The driving times are not copied, hence the matrix is backed
+     * by the same array or buffer as this instance data.
+     *
+     * @param locationsById Locations indexed by their id.
+     * @return The driving time matrix.
+     */
+    public TravelTimeMatrix createDrivingTimeMatrix(Location[] locationsById) {
+        if (locationsById.length != getNumberOfLocations()) {
+            throw new IllegalArgumentException("Expected " + getNumberOfLocations() + " locations, got " + locationsById.length);
+        }
+        return drivingTimes != null
+                ? new TravelTimeMatrix(locationsById, drivingTimes)
+                : new MappedTravelTimeMatrix(locationsById, mappedDrivingTimes, bytesPerMappedDrivingTime);
+    }
+
+    /**
+     * Converts a request to instance data. The task ids of the request are used as location ids, hence they must be
+     * consecutive from 1, and the travel times must be indexed the same way with the depot at index 0.
+     *
+     * @param request Request to convert.
+     * @return The instance data of the request.
+     */
+    public static InstanceData fromRequest(Request request) {
+        List<RequestTask> requestTasks = request.getTasks();
+        List<List<Object>> requestTravelTimes = request.getTravelTimes();
+        int numberOfLocations = requestTasks.size() + 1;
+        if (requestTravelTimes.size() != numberOfLocations) {
+            throw new IllegalArgumentException("Travel times must be given for the depot and all " + requestTasks.size() + " tasks");
+        }
+        double[] xCoords = new double[numberOfLocations];
+        double[] yCoords = new double[numberOfLocations];
+        int[] durations = new int[numberOfLocations];
+        int[] weights = new int[numberOfLocations];
+        int[] startTimes = new int[numberOfLocations];
+        int[] endTimes = new int[numberOfLocations];
+        boolean[] seen = new boolean[numberOfLocations];
+
+        RequestDepot depot = request.getDepot();
+        xCoords[0] = depot.getxCoord();
+        yCoords[0] = depot.getyCoord();
+        for (RequestTask requestTask : requestTasks) {
+            int id = requestTask.getId();
+            if (id < 1 || id >= numberOfLocations || seen[id]) {
+                throw new IllegalArgumentException("Task ids must be consecutive from 1, found: " + id);
+            }
+            seen[id] = true;
+            xCoords[id] = requestTask.getxCoord();
+            yCoords[id] = requestTask.getyCoord();
+            durations[id] = requestTask.getCareTime();
+            weights[id] = requestTask.getDemand();
+            startTimes[id] = requestTask.getStartTime();
+            endTimes[id] = requestTask.getEndTime();
+        }
+
+        int[] drivingTimes = new int[numberOfLocations * numberOfLocations];
+        for (int i = 0; i < numberOfLocations; i++) {
+            List<Object> row = requestTravelTimes.get(i);
+            if (row.size() != numberOfLocations) {
+                throw new IllegalArgumentException("Row " + i + " of the travel time matrix must have " + numberOfLocations + " columns");
+            }
+            for (int j = 0; j < numberOfLocations; j++) {
+                drivingTimes[i * numberOfLocations + j] = ((Number) row.get(j)).intValue();
+            }
+        }
+        return new InstanceData(request.getNbrNurses(), depot.getReturnTime(), xCoords, yCoords, durations, weights,
+                startTimes, endTimes, drivingTimes);
+    }
+
+}
@@ -0,0 +1,233 @@
+package com.visma.of.cps.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads instances on the train_N.json format with the streaming Jackson parser. The depot, the patients and the
+ * travel times are read in a single pass directly into the primitive arrays of an InstanceData, without building a
+ * tree of the full document. The fields can appear in any order, and fields that are not used are skipped.
+ */
+public final class JsonInstanceLoader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private int numberOfShifts;
+    private int depotReturnTime;
+    private double depotXCoord;
+    private double depotYCoord;
+    private int numberOfPatients;
+    private int maxPatientId;
+    private double[] xCoords = new double[0];
+    private double[] yCoords = new double[0];
+    private int[] durations = new int[0];
+    private int[] weights = new int[0];
+    private int[] startTimes = new int[0];
+    private int[] endTimes = new int[0];
+    private int numberOfLocations;
+    private int[] drivingTimes;
+
+    private JsonInstanceLoader() {
+    }
+
+    public static InstanceData load(String filePath) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(new File(filePath))) {
+            return new JsonInstanceLoader().read(parser);
+        }
+    }
+
+    public static InstanceData load(InputStream inputStream) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            return new JsonInstanceLoader().read(parser);
+        }
+    }
+
+    private InstanceData read(JsonParser parser) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "nbr_nurses":
+                    numberOfShifts = parser.getValueAsInt();
+                    break;
+                case "depot":
+                    readDepot(parser);
+                    break;
+                case "patients":
+                    readPatients(parser);
+                    break;
+                case "travel_times":
+                    readTravelTimes(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return createInstanceData();
+    }
+
+    private void readDepot(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_OBJECT, parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "return_time":
+                    depotReturnTime = parser.getValueAsInt();
+                    break;
+                case "x_coord":
+                    depotXCoord = parser.getValueAsDouble();
+                    break;
+                case "y_coord":
+                    depotYCoord = parser.getValueAsDouble();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private void readPatients(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_OBJECT, parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int patientId = Integer.parseInt(parser.getCurrentName());
+            if (patientId < 1) {
+                throw new IllegalStateException("Patient ids must be positive, found: " + patientId);
+            }
+            ensurePatientCapacity(patientId);
+            parser.nextToken();
+            readPatient(parser, patientId);
+            numberOfPatients++;
+            maxPatientId = Math.max(maxPatientId, patientId);
+        }
+    }
+
+    private void readPatient(JsonParser parser, int patientId) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_OBJECT, parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "care_time":
+                    durations[patientId] = parser.getValueAsInt();
+                    break;
+                case "demand":
+                    weights[patientId] = parser.getValueAsInt();
+                    break;
+                case "start_time":
+                    startTimes[patientId] = parser.getValueAsInt();
+                    break;
+                case "end_time":
+                    endTimes[patientId] = parser.getValueAsInt();
+                    break;
+                case "x_coord":
+                    xCoords[patientId] = parser.getValueAsDouble();
+                    break;
+                case "y_coord":
+                    yCoords[patientId] = parser.getValueAsDouble();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private void ensurePatientCapacity(int patientId) {
+        if (patientId < xCoords.length) {
+            return;
+        }
+        int capacity = Math.max(patientId + 1, 2 * xCoords.length);
+        xCoords = Arrays.copyOf(xCoords, capacity);
+        yCoords = Arrays.copyOf(yCoords, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        endTimes = Arrays.copyOf(endTimes, capacity);
+    }
+
+    /**
+     * The number of locations is not known before the first row is read, hence the first row is read into a
+     * temporary array, after which the full matrix is allocated once.
+     */
+    private void readTravelTimes(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY, parser);
+        int row = 0;
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            if (row == 0) {
+                int[] firstRow = readFirstTravelTimeRow(parser);
+                numberOfLocations = firstRow.length;
+                drivingTimes = new int[numberOfLocations * numberOfLocations];
+                System.arraycopy(firstRow, 0, drivingTimes, 0, numberOfLocations);
+            } else {
+                readTravelTimeRow(parser, row);
+            }
+            row++;
+        }
+        if (row != numberOfLocations) {
+            throw new IllegalStateException("Travel time matrix must be square, found " + row + " rows and "
+                    + numberOfLocations + " columns");
+        }
+    }
+
+    private int[] readFirstTravelTimeRow(JsonParser parser) throws IOException {
+        int[] firstRow = new int[Math.max(16, xCoords.length)];
+        int column = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (column == firstRow.length) {
+                firstRow = Arrays.copyOf(firstRow, 2 * firstRow.length);
+            }
+            firstRow[column++] = parser.getValueAsInt();
+        }
+        return Arrays.copyOf(firstRow, column);
+    }
+
+    private void readTravelTimeRow(JsonParser parser, int row) throws IOException {
+        if (row >= numberOfLocations) {
+            throw new IllegalStateException("Travel time matrix has more rows than columns");
+        }
+        int offset = row * numberOfLocations;
+        int column = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (column == numberOfLocations) {
+                throw new IllegalStateException("Row " + row + " of the travel time matrix has too many columns");
+            }
+            // Travel times may be given as decimals, these are truncated
+            drivingTimes[offset + column++] = parser.getValueAsInt();
+        }
+        if (column != numberOfLocations) {
+            throw new IllegalStateException("Row " + row + " of the travel time matrix has too few columns");
+        }
+    }
+
+    private InstanceData createInstanceData() {
+        if (numberOfPatients != maxPatientId) {
+            throw new IllegalStateException("Patient ids must be consecutive from 1 to the number of patients");
+        }
+        if (drivingTimes == null || numberOfLocations != numberOfPatients + 1) {
+            throw new IllegalStateException("Travel times must be given for the depot and all " + numberOfPatients + " patients");
+        }
+        int length = numberOfLocations;
+        double[] locationXCoords = Arrays.copyOf(xCoords, length);
+        double[] locationYCoords = Arrays.copyOf(yCoords, length);
+        locationXCoords[0] = depotXCoord;
+        locationYCoords[0] = depotYCoord;
+        return new InstanceData(numberOfShifts, depotReturnTime, locationXCoords, locationYCoords,
+                Arrays.copyOf(durations, length), Arrays.copyOf(weights, length), Arrays.copyOf(startTimes, length),
+                Arrays.copyOf(endTimes, length), drivingTimes);
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, JsonParser parser) {
+        if (actual != expected) {
+            throw new IllegalStateException("Expected " + expected + " but found " + actual + " at "
+                    + parser.getCurrentLocation());
+        }
+    }
+
+}
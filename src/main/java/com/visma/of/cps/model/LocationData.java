@@ -0,0 +1,99 @@
+package com.visma.of.cps.model;
+
+/**
+ * The part of a model that only depends on the locations and the travel times between them. It does not depend on
+ * the time windows, durations etc. of the tasks, and can therefore be shared by all models of instances with the same
+ * locations and travel times. Both the locations and the travel time provider are immutable once created.
+ */
+public class LocationData {
+
+    // Rough size of a Location object and the reference to it
+    private static final long BYTES_PER_LOCATION = 40;
+
+    private final Location[] locationsById;
+    private final TravelTimeProvider travelTimeProvider;
+
+    private LocationData(Location[] locationsById, TravelTimeProvider travelTimeProvider) {
+        this.locationsById = locationsById;
+        this.travelTimeProvider = travelTimeProvider;
+    }
+
+    /**
+     * Creates the locations and the travel time provider of the instance. The driving times of the instance data are
+     * used without copying.
+     */
+    public static LocationData create(InstanceData instanceData) {
+        Location[] locationsById = new Location[instanceData.getNumberOfLocations()];
+        for (int i = 0; i < locationsById.length; i++) {
+            locationsById[i] = new Location(i, instanceData.getXCoord(i), instanceData.getYCoord(i));
+        }
+        TravelTimeMatrix drivingMatrix = instanceData.createDrivingTimeMatrix(locationsById);
+        return new LocationData(locationsById, TravelTimeProvider.withDefaultScaleFactors(drivingMatrix));
+    }
+
+    /**
+     * Hash of the coordinates and driving times of the instance, used to find location data that can be reused.
+     * Equal hashes does not guarantee equal content, use matches to check.
+     */
+    public static long contentHash(InstanceData instanceData) {
+        int numberOfLocations = instanceData.getNumberOfLocations();
+        long hash = mix(0x9E3779B97F4A7C15L, numberOfLocations);
+        for (int i = 0; i < numberOfLocations; i++) {
+            hash = mix(hash, Double.doubleToLongBits(instanceData.getXCoord(i)));
+            hash = mix(hash, Double.doubleToLongBits(instanceData.getYCoord(i)));
+        }
+        for (int i = 0; i < numberOfLocations; i++) {
+            for (int j = 0; j < numberOfLocations; j++) {
+                hash = mix(hash, instanceData.getDrivingTime(i, j));
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash ^= value;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * @return True if the instance has the same coordinates and driving times as this location data.
+     */
+    public boolean matches(InstanceData instanceData) {
+        int numberOfLocations = instanceData.getNumberOfLocations();
+        if (numberOfLocations != locationsById.length) {
+            return false;
+        }
+        for (int i = 0; i < numberOfLocations; i++) {
+            if (locationsById[i].getXCoord() != instanceData.getXCoord(i) || locationsById[i].getYCoord() != instanceData.getYCoord(i)) {
+                return false;
+            }
+        }
+        TravelTimeMatrix drivingMatrix = travelTimeProvider.getBaseMatrix();
+        for (int i = 0; i < numberOfLocations; i++) {
+            for (int j = 0; j < numberOfLocations; j++) {
+                if (drivingMatrix.getTravelTime(i, j) != instanceData.getDrivingTime(i, j)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public Location getLocation(int locationId) {
+        return locationsById[locationId];
+    }
+
+    public int getNumberOfLocations() {
+        return locationsById.length;
+    }
+
+    public TravelTimeProvider getTravelTimeProvider() {
+        return travelTimeProvider;
+    }
+
+    public long getApproximateHeapBytes() {
+        return BYTES_PER_LOCATION * locationsById.length + travelTimeProvider.getBaseMatrix().getApproximateHeapBytes();
+    }
+
+}
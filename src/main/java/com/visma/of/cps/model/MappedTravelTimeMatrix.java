@@ -0,0 +1,47 @@
+package com.visma.of.cps.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Travel time matrix that reads the travel times directly from a buffer, typically a memory mapped instance file,
+ * without copying them to the heap. The travel times are stored row-major as little-endian unsigned int16 or int32.
+ * The matrix is read only.
+ */
+public class MappedTravelTimeMatrix extends TravelTimeMatrix {
+
+    private final ByteBuffer buffer;
+    private final boolean twoByteTravelTimes;
+    private final int numberOfLocations;
+
+    /**
+     * @param locations          Locations indexed by id.
+     * @param buffer             Buffer where the first byte is the first travel time of the matrix.
+     * @param bytesPerTravelTime Either 2 or 4.
+     */
+    public MappedTravelTimeMatrix(Location[] locations, ByteBuffer buffer, int bytesPerTravelTime) {
+        super(locations);
+        if (bytesPerTravelTime != 2 && bytesPerTravelTime != 4) {
+            throw new IllegalArgumentException("Travel times must be stored with 2 or 4 bytes, not " + bytesPerTravelTime);
+        }
+        this.numberOfLocations = locations.length;
+        if (buffer.remaining() < (long) numberOfLocations * numberOfLocations * bytesPerTravelTime) {
+            throw new IllegalArgumentException("Buffer is too small to hold the travel times of " + numberOfLocations + " locations");
+        }
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.twoByteTravelTimes = bytesPerTravelTime == 2;
+    }
+
+    @Override
+    public int getTravelTime(int fromLocationId, int toLocationId) {
+        int index = fromLocationId * numberOfLocations + toLocationId;
+        // Two byte travel times are unsigned, hence read as char
+        return twoByteTravelTimes ? buffer.getChar(index << 1) : buffer.getInt(index << 2);
+    }
+
+    @Override
+    public void setTravelTime(int fromLocationId, int toLocationId, int travelTime) {
+        throw new IllegalStateException("Travel times read from a mapped instance file cannot be changed");
+    }
+
+}
@@ -2,42 +2,65 @@ package com.visma.of.cps.model;
 
 
 import com.visma.of.cps.util.Constants;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collector;
-import java.util.stream.Collectors;
 
 public class Model {
     // Stuff that goes in the model here
     private final String filePath;
-    private JSONObject data;
+    private InstanceData instanceData;
+    private LocationData locationData;
     private Collection<Task> tasks;
     private int returnTime;
     private Map<Integer, Location> locations = new HashMap<Integer,Location>();
     
 
-    private Map<Integer, Shift> idsShifts; // denne trenger vi egentlig ikke her fordi sykepleierne er homogene
-    private Map<Integer, TravelTimeMatrix> travelTimeMatrix;
+    private Shift[] shiftsById;
+    private Visit[][] visitsByTaskAndType;
+    private TravelTimeProvider travelTimeProvider;
     private Collection<Visit> visits;
     private Collection<TimeDependentVisitPair> timeDependentVisitPairs = new HashSet<>();
     private List<Shift> shifts;
     private List<Shift> carpoolAbleShifts;
+    private List<Shift> carpoolAbleMotorizedShifts;
     private int numTasks;
 
     public Model(int modelInstance) {
-        this.filePath = System.getProperty("user.dir") + "/resources/train_" + modelInstance + ".json";
+        this(System.getProperty("user.dir") + "/resources/train_" + modelInstance + ".json");
+    }
+
+    /**
+     * @param filePath Path to the instance file, either on the train_N.json format or the binary format described in
+     *                 BinaryInstanceFormat, the latter is recognised by its file extension.
+     */
+    public Model(String filePath) {
+        this(filePath, null, null);
+    }
+
+    /**
+     * Creates a model from instance data that is already read. The location data can be shared with other models of
+     * instances with the same locations and travel times, if null it is created from the instance data.
+     *
+     * @param instanceData The instance data.
+     * @param locationData Location data matching the instance data, or null.
+     */
+    public Model(InstanceData instanceData, LocationData locationData) {
+        this(null, instanceData, locationData);
+    }
+
+    private Model(String filePath, InstanceData instanceData, LocationData locationData) {
+        this.filePath = filePath;
+        this.instanceData = instanceData;
+        this.locationData = locationData;
         this.tasks = new ArrayList<>();
         this.shifts = new ArrayList<>();
         this.carpoolAbleShifts = new ArrayList<>();
+        this.carpoolAbleMotorizedShifts = new ArrayList<>();
         this.visits = new ArrayList<>();
-        this.idsShifts = new HashMap<>();
+        this.shiftsById = new Shift[0];
+        this.visitsByTaskAndType = new Visit[0][];
     }
 
     public void initialize(){
@@ -52,7 +75,7 @@ public class Model {
 
     public List<Shift> getCarpoolAbleShifts(){ return this.carpoolAbleShifts;}
 
-    public List<Shift> getCarpoolAbleMotorizedShifts(){ return this.carpoolAbleShifts.stream().filter(Shift::isMotorized).collect(Collectors.toList());} // Make faster by storing?
+    public List<Shift> getCarpoolAbleMotorizedShifts(){ return this.carpoolAbleMotorizedShifts;}
 
 
     // Needs to be sat if we want to allow overtime
@@ -62,12 +85,23 @@ public class Model {
         return locations.get(0);
     }
 
-    public Map<Integer, Shift> getIdsShifts(){ return this.idsShifts;}
+    public Shift getShift(int shiftId){ return this.shiftsById[shiftId];}
 
-    public Shift getShift(int shiftId){ return this.idsShifts.get(shiftId);}
+    /**
+     * Finds the visit of the given type belonging to the task.
+     *
+     * @param task      Task the visit belongs to.
+     * @param visitType Type of visit, see Constants.VisitType.
+     * @return The visit.
+     */
+    public Visit getVisit(Task task, int visitType){ return getVisit(task.getId(), visitType);}
 
+    public Visit getVisit(int taskId, int visitType){ return this.visitsByTaskAndType[taskId][visitType];}
 
-    public Map<Integer, TravelTimeMatrix> getTravelTimeMatrix(){ return this.travelTimeMatrix; }
+
+    public TravelTimeProvider getTravelTimeProvider(){ return this.travelTimeProvider; }
+
+    public LocationData getLocationData(){ return this.locationData; }
 
     public Collection<TimeDependentVisitPair> getTimeDependentVisitPairs() { return this.timeDependentVisitPairs;}
 
@@ -77,116 +111,95 @@ public class Model {
         this.timeDependentVisitPairs = timeDependentTaskPairs;
     }
 
+    /**
+     * Reads the instance file, unless the model was created from instance data, and creates the shifts. The rest of
+     * the instance is kept in primitive form until setTasks and setTravelTime are called, after which it is released.
+     */
     public void loadData() {
-
-        JSONParser parser = new JSONParser();
-
-        try (
-            FileReader reader = new FileReader(this.filePath)
-        ) {
-            JSONObject data = (JSONObject) parser.parse(reader);
-            this.data = data;
-            int numWorkers =  Integer.parseInt(Long.toString((Long) data.get("nbr_nurses")));
+        try {
+            if (this.filePath != null) {
+                this.instanceData = this.filePath.endsWith(BinaryInstanceFormat.FILE_EXTENSION)
+                        ? BinaryInstanceLoader.load(this.filePath)
+                        : JsonInstanceLoader.load(this.filePath);
+            }
+            int numWorkers = instanceData.getNumberOfShifts();
+            this.shiftsById = new Shift[numWorkers];
             for(int i = 0; i < numWorkers; i ++) {
                 Boolean motorised = i != 5 && i != 3 ? true : false;
                 // NB! Need to get carpoolable from dataset
                 Shift newShift = new Shift(i, true, motorised);
                 shifts.add(newShift);
-                idsShifts.put(i, newShift);
+                shiftsById[i] = newShift;
             }
             for(int i = 0; i < this.shifts.size(); i++){
                 Shift shift = shifts.get(i);
                 if (shift.getCarpoolAble()){this.carpoolAbleShifts.add(shift);}
+                if (shift.getCarpoolAble() && shift.isMotorized()){this.carpoolAbleMotorizedShifts.add(shift);}
             }
+            this.numTasks = instanceData.getNumberOfTasks();
 
-            JSONObject patients = (JSONObject) data.get("patients");
-            this.numTasks = patients.size();
-
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
         } catch(IOException e) {
             e.printStackTrace();
-        } catch (ParseException e) {
-            e.printStackTrace();
         }
     }
 
     public void setTasks(){
-        if (this.data.isEmpty()){
+        if (this.instanceData == null){
             throw new IllegalCallerException("Model class is missing data from file");
         }
+        if (this.locationData == null){
+            this.locationData = LocationData.create(instanceData);
+        }
         Collection<Task> allTasks = new ArrayList<Task>();
-        JSONObject jsonTasks = (JSONObject) this.data.get("patients");
-        for (int i = 1; i < jsonTasks.size()+1; i++){
+        // Indexed by task id, index 0 is not used since task ids start at 1
+        this.visitsByTaskAndType = new Visit[this.numTasks + 1][4];
+        for (int i = 1; i < this.numTasks + 1; i++){
             Task task = new Task(i, this.numTasks);
-            JSONObject jsonAttributes = (JSONObject) jsonTasks.get(Integer.toString(i));
-            task.setDuration(( (Long) jsonAttributes.get("care_time")).intValue());
-            task.setWeight(((Long) jsonAttributes.get("demand")).intValue());
-            task.setStartTime(((Long) jsonAttributes.get("start_time")).intValue());
-            task.setEndTime(((Long) jsonAttributes.get("end_time")).intValue());
-            Location location = new Location(i, (Long) jsonAttributes.get("x_coord"), (Long) jsonAttributes.get("x_coord"));
+            task.setDuration(instanceData.getDuration(i));
+            task.setWeight(instanceData.getWeight(i));
+            task.setStartTime(instanceData.getStartTime(i));
+            task.setEndTime(instanceData.getEndTime(i));
+            Location location = locationData.getLocation(i);
             locations.put(i, location);
             task.setLocation(location);
-            if (location == null){
-                location = null;
-            }
             allTasks.add(task);
             // Creating corresponding visits
             Visit visit1 = new Visit((i), task, Constants.VisitType.COMPLETE_TASK);
-            Visit visit1Virtual= new Visit(i + 2 * jsonTasks.size(), task, Constants.VisitType.JOIN_MOTORIZED);
-            Visit visit2 = new Visit(i + jsonTasks.size(), task, Constants.VisitType.DROP_OF);
-            Visit visit2Virtual = new Visit(i + 3 * jsonTasks.size(), task, Constants.VisitType.PICK_UP);
+            Visit visit1Virtual= new Visit(i + 2 * this.numTasks, task, Constants.VisitType.JOIN_MOTORIZED);
+            Visit visit2 = new Visit(i + this.numTasks, task, Constants.VisitType.DROP_OF);
+            Visit visit2Virtual = new Visit(i + 3 * this.numTasks, task, Constants.VisitType.PICK_UP);
 
             this.visits.add(visit1);
             this.visits.add(visit1Virtual);
             this.visits.add(visit2);
             this.visits.add(visit2Virtual);
+            addToVisitIndex(visit1, visit1Virtual, visit2, visit2Virtual);
         }
         this.tasks = allTasks;
         // Legge til depop i locations, med indeks 0
-        JSONObject jsonDepop = (JSONObject) this.data.get("depot");
-        Location depop = new Location(0, (Long) jsonDepop.get("x_coord"), (Long) jsonDepop.get("x_coord"));
-        this.returnTime = ((Long)jsonDepop.get("return_time")).intValue();
+        Location depop = locationData.getLocation(0);
+        this.returnTime = instanceData.getDepotReturnTime();
         locations.put(0, depop);
     
     }
+
+    private void addToVisitIndex(Visit... taskVisits) {
+        for (Visit visit : taskVisits) {
+            visitsByTaskAndType[visit.getTask().getId()][visit.getVisitType()] = visit;
+        }
+    }
+
+    /**
+     * Sets the travel time provider of the location data. The driving times read from file are used directly, without
+     * copying, also when they are read from a memory mapped binary instance file. Walking times are derived from the
+     * driving times. The instance data is no longer needed after this, and is therefore released.
+     */
     public void setTravelTime(){
         if (this.tasks.isEmpty()){
             throw new IllegalCallerException("Model class is missing task-data from file");
         }
-        Map<Integer, TravelTimeMatrix> ogTravelTimes = new HashMap<Integer, TravelTimeMatrix>();
-        JSONArray jsonDrivingTimes = (JSONArray) this.data.get("travel_times");
-        Map<Location, Map<Location, Integer>> drivingTimes = new HashMap<Location,Map<Location,Integer>>();
-        Map<Location, Map<Location, Integer>> walkingTimes = new HashMap<Location, Map<Location, Integer>>();    
-        for (int i = 0; i <jsonDrivingTimes.size(); i++){
-            JSONArray indJsonTravelTimes = (JSONArray) jsonDrivingTimes.get(i);
-            Map<Location, Integer> indDrivingTimes = new HashMap<Location, Integer>();
-            Map<Location, Integer> indWalkingTimes = new HashMap<Location, Integer>();
-            for (int j = 0; j < indJsonTravelTimes.size(); j++){
-                if (indJsonTravelTimes.get(j) instanceof Long){
-                    indDrivingTimes.put(this.locations.get(j), ((Long) indJsonTravelTimes.get(j)).intValue());
-                    indWalkingTimes.put(this.locations.get(j), (((Long) indJsonTravelTimes.get(j)).intValue())*10); // Ganger med 10 fordi walk
-                    // System.out.println(i + " " +this.locations.get(j).getId()+ " " + ((Long) indJsonTravelTimes.get(j)).doubleValue());
-                }
-                else if (indJsonTravelTimes.get(j) instanceof Double){
-                    indDrivingTimes.put(this.locations.get(j), ((Double) indJsonTravelTimes.get(j)).intValue());
-                    indWalkingTimes.put(this.locations.get(j), (((Double) indJsonTravelTimes.get(j)).intValue())*10); // Ganger med 10 fordi walk
-                    // System.out.println(i + " " +this.locations.get(j).getId()+ " " + ((Long) indJsonTravelTimes.get(j)).doubleValue());
-                }
-                else {
-                    indDrivingTimes.put(this.locations.get(j), (Integer) indJsonTravelTimes.get(j));
-                    indWalkingTimes.put(this.locations.get(j), ((Integer) indJsonTravelTimes.get(j))*10); // samme her, ganger med 10
-                    //System.out.println(i + " " +this.locations.get(j).getId()+ " " + (Double) indJsonTravelTimes.get(j));
-                }
-            }
-            drivingTimes.put(this.locations.get(i), indDrivingTimes);
-            walkingTimes.put(this.locations.get(i), indWalkingTimes);
-        }
-        TravelTimeMatrix drivingMatrix = new TravelTimeMatrix(drivingTimes);
-        TravelTimeMatrix walkingMatrix = new TravelTimeMatrix(walkingTimes);
-        ogTravelTimes.put(0, drivingMatrix);
-        ogTravelTimes.put(1, walkingMatrix);
-        this.travelTimeMatrix = ogTravelTimes;
+        this.travelTimeProvider = locationData.getTravelTimeProvider();
+        this.instanceData = null;
     }
 
     public static void main(String[] args) {
@@ -194,7 +207,7 @@ public class Model {
         model.loadData();
         model.setTasks();
         model.setTravelTime();
-        for (int i = 0; i<model.locations.size();i++){System.out.println(model.travelTimeMatrix.get(0).getTravelTimes().get(model.locations.get(0)).get(model.locations.get(i)));}
+        for (int i = 0; i<model.locations.size();i++){System.out.println(model.travelTimeProvider.getTravelTime(0, i, Constants.TransportMode.DRIVE));}
         // System.out.println(model.travelTimeMatrix.get(0).getTravelTimes().get(model.locations.get(1)));
         // for (int i = 1; i<model.locations.size()+1;i++){ System.out.println(model.locations.get(i));}
         // for (int i = 1; i < model.travelTimeMatrix.get(0).getTravelTimes().size();i++){ System.out.println(model.travelTimeMatrix.get(0).getTravelTimes().get(model.locations.get(i))); }
@@ -22,7 +22,7 @@ public class ModelFactory {
 
     private Map<Integer, Location> locations;
 
-    private Map<Integer, TravelTimeMatrix> travelTimeMatrix;
+    private TravelTimeProvider travelTimeProvider;
 
 
     public ModelFactory(Request request){
@@ -89,33 +89,20 @@ public class ModelFactory {
         if (this.taskList.isEmpty()){
             throw new IllegalCallerException("Model class is missing task-data from file");
         }
-        Map<Integer, TravelTimeMatrix> ogTravelTimes = new HashMap<Integer, TravelTimeMatrix>();
         List<List<Object>> requestTravelTimes  = request.getTravelTimes();
-        Map<Location, Map<Location, Integer>> drivingTimes = new HashMap<Location,Map<Location,Integer>>();
-        Map<Location, Map<Location, Integer>> walkingTimes = new HashMap<Location, Map<Location, Integer>>();
+        Location[] locationsById = new Location[requestTravelTimes.size()];
+        for (Location location : this.locations.values()) {
+            locationsById[location.getId()] = location;
+        }
+        int numberOfLocations = locationsById.length;
+        TravelTimeMatrix drivingMatrix = new TravelTimeMatrix(locationsById, new int[numberOfLocations * numberOfLocations]);
         for (int i = 0; i <requestTravelTimes.size(); i++){
             List<Object> indTravelTimes = requestTravelTimes.get(i);
-            Map<Location, Integer> indDrivingTimes = new HashMap<Location, Integer>();
-            Map<Location, Integer> indWalkingTimes = new HashMap<Location, Integer>();
             for (int j = 0; j < indTravelTimes.size(); j++){
-                if (indTravelTimes.get(j) instanceof Long){
-                    indDrivingTimes.put(this.locations.get(j), ((Long) indTravelTimes.get(j)).intValue());
-                    indWalkingTimes.put(this.locations.get(j), (((Long) indTravelTimes.get(j)).intValue())*10); // Ganger med 10 fordi walk
-                    // System.out.println(i + " " +this.locations.get(j).getId()+ " " + ((Long) indJsonTravelTimes.get(j)).doubleValue());
-                }
-                else {
-                    indDrivingTimes.put(this.locations.get(j), (Integer) indTravelTimes.get(j));
-                    indWalkingTimes.put(this.locations.get(j), ((Integer) indTravelTimes.get(j))*10); // samme her, ganger med 10
-                    //System.out.println(i + " " +this.locations.get(j).getId()+ " " + (Double) indJsonTravelTimes.get(j));
-                }
+                int drivingTime = ((Number) indTravelTimes.get(j)).intValue();
+                drivingMatrix.setTravelTime(i, j, drivingTime);
             }
-            drivingTimes.put(this.locations.get(i), indDrivingTimes);
-            walkingTimes.put(this.locations.get(i), indWalkingTimes);
         }
-        TravelTimeMatrix drivingMatrix = new TravelTimeMatrix(drivingTimes);
-        TravelTimeMatrix walkingMatrix = new TravelTimeMatrix(walkingTimes);
-        ogTravelTimes.put(Constants.TransportMode.DRIVE, drivingMatrix);
-        ogTravelTimes.put(Constants.TransportMode.WALK, walkingMatrix);
-        this.travelTimeMatrix = ogTravelTimes;
+        this.travelTimeProvider = TravelTimeProvider.withDefaultScaleFactors(drivingMatrix);
     }
 }
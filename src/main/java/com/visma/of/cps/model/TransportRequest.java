@@ -17,10 +17,13 @@ public class TransportRequest implements IVisit {
     private Visit pickUp;
     private Visit dropOff;
 
-    public TransportRequest(Visit pickUp, Visit dropOff, int travelTimeBetween) {
-       this.timeWindowStart = pickUp.getTimeWindowStart();
+    /**
+     * @param schedule Schedule of the solution, holding the time windows of the pick-up and drop-off.
+     */
+    public TransportRequest(Visit pickUp, Visit dropOff, int travelTimeBetween, VisitSchedule schedule) {
+       this.timeWindowStart = schedule.getTimeWindowStart(pickUp);
        this.visitDuration = pickUp.getVisitDuration() + travelTimeBetween + dropOff.getVisitDuration();
-       this.timeWindowEnd = dropOff.getTimeWindowEnd() - this.visitDuration;
+       this.timeWindowEnd = schedule.getTimeWindowEnd(dropOff) - this.visitDuration;
 
        if (timeWindowEnd < timeWindowStart) {
            throw new IllegalArgumentException(
@@ -38,17 +41,14 @@ public class TransportRequest implements IVisit {
         return this.visitDuration;
     }
 
-    @Override
     public Integer getTimeWindowStart() {
         return this.timeWindowStart;
     }
 
-    @Override
     public Integer getTimeWindowEnd() {
         return this.timeWindowEnd;
     }
 
-    @Override
     public boolean isSynced() {
         return this.isSynced;
     }
@@ -1,30 +1,72 @@
 package com.visma.of.cps.model;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Map;
 
+/**
+ * Dense travel time matrix indexed by location id. The travel times are stored row-major in a single int array, such
+ * that the travel time from location i to location j is found at index i * numberOfLocations + j.
+ * Location ids must therefore be in the range [0, numberOfLocations).
+ * Subclasses may store the travel times elsewhere, e.g., in a memory mapped file, by overriding the travel time
+ * getter and setter.
+ */
 public class TravelTimeMatrix {
-    
-    private Map<Location, Map<Location, Integer>> travelTimes;
 
-    public TravelTimeMatrix(Map<Location, Map<Location, Integer>> travelTimes){this.travelTimes = travelTimes; }
-    
-    public boolean connected(Location from, Location to){
-        return this.travelTimes.containsKey(from) && travelTimes.get(from).containsKey(to);
+    private final Location[] locations;
+    private final int numberOfLocations;
+    private final int[] travelTimes;
+
+    /**
+     * Used by subclasses that do not store the travel times in the int array.
+     */
+    protected TravelTimeMatrix(Location[] locations) {
+        this.locations = locations;
+        this.numberOfLocations = locations.length;
+        this.travelTimes = null;
+    }
+
+    public TravelTimeMatrix(Location[] locations, int[] travelTimes) {
+        if (travelTimes.length != locations.length * locations.length) {
+            throw new IllegalArgumentException("Travel times must contain one entry for every pair of locations");
+        }
+        this.locations = locations;
+        this.numberOfLocations = locations.length;
+        this.travelTimes = travelTimes;
+    }
+
+    public boolean connected(Location from, Location to) {
+        return isLocationId(from.getId()) && isLocationId(to.getId());
+    }
+
+    private boolean isLocationId(int locationId) {
+        return locationId >= 0 && locationId < numberOfLocations;
     }
 
-    public Map<Location, Map<Location, Integer>> getTravelTimes() {
-        return this.travelTimes;
+    public void setTravelTime(int fromLocationId, int toLocationId, int travelTime) {
+        travelTimes[fromLocationId * numberOfLocations + toLocationId] = travelTime;
+    }
+
+    public int getTravelTime(int fromLocationId, int toLocationId) {
+        return travelTimes[fromLocationId * numberOfLocations + toLocationId];
     }
 
     public int getTravelTime(Location from, Location to) {
-        return travelTimes.get(from).get(to);
+        return getTravelTime(from.getId(), to.getId());
     }
 
-    public Collection<Location> getLocations() {
-        return travelTimes.keySet();
+    public int getNumberOfLocations() {
+        return numberOfLocations;
     }
 
-    // pluss masse greier her
+    /**
+     * @return Approximate number of bytes used by the travel times on the heap, 0 if they are stored elsewhere.
+     */
+    public long getApproximateHeapBytes() {
+        return travelTimes == null ? 0 : 4L * travelTimes.length;
+    }
+
+    public Collection<Location> getLocations() {
+        return Arrays.asList(locations);
+    }
 
 }
@@ -0,0 +1,106 @@
+package com.visma.of.cps.model;
+
+import com.visma.of.cps.util.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Gives the travel time between two locations for a given transport mode. Only one base matrix, the driving times,
+ * is stored. The travel times of the other transport modes are derived from it by a scale factor, unless an explicit
+ * matrix is given for the transport mode, e.g., when real walking times are available.
+ * Transport modes are the ids in Constants.TransportMode.
+ */
+public class TravelTimeProvider {
+
+    private final TravelTimeMatrix baseMatrix;
+    private double[] scaleFactors;
+    private TravelTimeMatrix[] overrideMatrices;
+
+    /**
+     * Creates a travel time provider where all transport modes use the base matrix unscaled, until a scale factor or
+     * an override matrix is set for them.
+     *
+     * @param baseMatrix The driving times.
+     */
+    public TravelTimeProvider(TravelTimeMatrix baseMatrix) {
+        this.baseMatrix = baseMatrix;
+        this.scaleFactors = new double[0];
+        this.overrideMatrices = new TravelTimeMatrix[0];
+    }
+
+    /**
+     * Creates the travel time provider used by default, driving times as given and walking times as the driving
+     * times scaled by Constants.WALK_TRAVEL_TIME_SCALE.
+     *
+     * @param drivingTimes The driving times.
+     * @return The travel time provider.
+     */
+    public static TravelTimeProvider withDefaultScaleFactors(TravelTimeMatrix drivingTimes) {
+        TravelTimeProvider provider = new TravelTimeProvider(drivingTimes);
+        provider.setScaleFactor(Constants.TransportMode.DRIVE, 1.0);
+        provider.setScaleFactor(Constants.TransportMode.WALK, Constants.WALK_TRAVEL_TIME_SCALE);
+        return provider;
+    }
+
+    /**
+     * Sets the scale factor used to derive the travel times of a transport mode from the base matrix. Travel times
+     * are rounded to the nearest integer.
+     */
+    public void setScaleFactor(int transportMode, double scaleFactor) {
+        if (scaleFactor < 0) {
+            throw new IllegalArgumentException("Scale factor cannot be negative: " + scaleFactor);
+        }
+        ensureCapacity(transportMode);
+        scaleFactors[transportMode] = scaleFactor;
+    }
+
+    /**
+     * Sets a matrix holding the travel times for a transport mode, this takes precedence over the scale factor.
+     */
+    public void setOverrideMatrix(int transportMode, TravelTimeMatrix travelTimeMatrix) {
+        if (travelTimeMatrix.getNumberOfLocations() != baseMatrix.getNumberOfLocations()) {
+            throw new IllegalArgumentException("Override matrix must have the same locations as the base matrix");
+        }
+        ensureCapacity(transportMode);
+        overrideMatrices[transportMode] = travelTimeMatrix;
+    }
+
+    private void ensureCapacity(int transportMode) {
+        if (transportMode < 0) {
+            throw new IllegalArgumentException("Transport mode cannot be negative: " + transportMode);
+        }
+        if (transportMode >= scaleFactors.length) {
+            int oldLength = scaleFactors.length;
+            scaleFactors = Arrays.copyOf(scaleFactors, transportMode + 1);
+            Arrays.fill(scaleFactors, oldLength, scaleFactors.length, 1.0);
+            overrideMatrices = Arrays.copyOf(overrideMatrices, transportMode + 1);
+        }
+    }
+
+    public boolean hasTransportMode(int transportMode) {
+        return transportMode >= 0 && transportMode < scaleFactors.length;
+    }
+
+    public int getTravelTime(int fromLocationId, int toLocationId, int transportMode) {
+        TravelTimeMatrix overrideMatrix = overrideMatrices[transportMode];
+        if (overrideMatrix != null) {
+            return overrideMatrix.getTravelTime(fromLocationId, toLocationId);
+        }
+        double scaleFactor = scaleFactors[transportMode];
+        int travelTime = baseMatrix.getTravelTime(fromLocationId, toLocationId);
+        return scaleFactor == 1.0 ? travelTime : (int) Math.round(travelTime * scaleFactor);
+    }
+
+    public int getTravelTime(Location from, Location to, int transportMode) {
+        return getTravelTime(from.getId(), to.getId(), transportMode);
+    }
+
+    public TravelTimeMatrix getBaseMatrix() {
+        return baseMatrix;
+    }
+
+    public int getNumberOfLocations() {
+        return baseMatrix.getNumberOfLocations();
+    }
+
+}
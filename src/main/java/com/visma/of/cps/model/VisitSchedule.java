@@ -0,0 +1,304 @@
+package com.visma.of.cps.model;
+
+import com.visma.of.cps.util.Constants.VisitType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The state of the visits that belongs to a solution, held in arrays indexed by visit id. That is the time windows of
+ * the visits, whether they are synced by carpooling, and the schedule found when their routes were evaluated, i.e., the
+ * start of service, the travel time to the visit, the transport mode used to reach it and the shift carpooled with.
+ * <p>
+ * The visits of the model are shared by all solutions and all threads, and are never changed. Each solution has its
+ * own visit schedule, which is copied with the solution. Values that are not set are NOT_SET.
+ */
+public class VisitSchedule {
+
+    public static final int NOT_SET = Integer.MIN_VALUE;
+    private static final int JOURNAL_VALUES_PER_VISIT = 8;
+    private static final AtomicLong NEXT_TIMES_VERSION = new AtomicLong();
+
+    private final int[] timeWindowStarts;
+    private final int[] timeWindowEnds;
+    private final int[] timeDependentOffsetIntervals;
+    private final boolean[] synced;
+    private final int[] startTimes;
+    private final int[] travelTimes;
+    private final int[] transportTypes;
+    private final int[] coCarPoolerShiftIds;
+    // Identifies the time windows and synced visits, see getTimesVersion
+    private long timesVersion;
+
+    // Values the visits had when the journal was started, each visit is recorded the first time it is changed
+    private boolean journaling;
+    private final boolean[] journaled;
+    private int[] journalVisitIds;
+    private int[] journalValues;
+    private int journalSize;
+    private long journalTimesVersion;
+
+    /**
+     * Creates the schedule of a solution with no visits assigned. Only the complete task visits have a time window,
+     * that of their task, the time windows of the other visits are set when they are carpooled.
+     *
+     * @param visits All visits of the model.
+     */
+    public VisitSchedule(Collection<Visit> visits) {
+        int size = 0;
+        for (Visit visit : visits)
+            size = Math.max(size, visit.getId() + 1);
+        this.timeWindowStarts = newArray(size);
+        this.timeWindowEnds = newArray(size);
+        this.timeDependentOffsetIntervals = new int[size];
+        this.synced = new boolean[size];
+        this.startTimes = newArray(size);
+        this.travelTimes = new int[size];
+        this.transportTypes = newArray(size);
+        this.coCarPoolerShiftIds = newArray(size);
+        this.timesVersion = NEXT_TIMES_VERSION.incrementAndGet();
+        this.journaled = new boolean[size];
+        this.journalVisitIds = new int[16];
+        this.journalValues = new int[16 * JOURNAL_VALUES_PER_VISIT];
+        for (Visit visit : visits) {
+            if (visit.getVisitType() == VisitType.COMPLETE_TASK)
+                setTimeWindow(visit, visit.getTaskStartTime(), visit.getTaskEndTime());
+        }
+    }
+
+    public VisitSchedule(VisitSchedule other) {
+        this.timeWindowStarts = other.timeWindowStarts.clone();
+        this.timeWindowEnds = other.timeWindowEnds.clone();
+        this.timeDependentOffsetIntervals = other.timeDependentOffsetIntervals.clone();
+        this.synced = other.synced.clone();
+        this.startTimes = other.startTimes.clone();
+        this.travelTimes = other.travelTimes.clone();
+        this.transportTypes = other.transportTypes.clone();
+        this.coCarPoolerShiftIds = other.coCarPoolerShiftIds.clone();
+        this.timesVersion = other.timesVersion;
+        this.journaled = new boolean[other.journaled.length];
+        this.journalVisitIds = new int[16];
+        this.journalValues = new int[16 * JOURNAL_VALUES_PER_VISIT];
+    }
+
+    private static int[] newArray(int size) {
+        int[] array = new int[size];
+        Arrays.fill(array, NOT_SET);
+        return array;
+    }
+
+    /**
+     * Updates this schedule to be equal to the other schedule, any journal is discarded.
+     */
+    public void update(VisitSchedule other) {
+        clearJournal();
+        int size = timeWindowStarts.length;
+        System.arraycopy(other.timeWindowStarts, 0, this.timeWindowStarts, 0, size);
+        System.arraycopy(other.timeWindowEnds, 0, this.timeWindowEnds, 0, size);
+        System.arraycopy(other.timeDependentOffsetIntervals, 0, this.timeDependentOffsetIntervals, 0, size);
+        System.arraycopy(other.synced, 0, this.synced, 0, size);
+        System.arraycopy(other.startTimes, 0, this.startTimes, 0, size);
+        System.arraycopy(other.travelTimes, 0, this.travelTimes, 0, size);
+        System.arraycopy(other.transportTypes, 0, this.transportTypes, 0, size);
+        System.arraycopy(other.coCarPoolerShiftIds, 0, this.coCarPoolerShiftIds, 0, size);
+        this.timesVersion = other.timesVersion;
+    }
+
+    public boolean hasTimeWindow(Visit visit) {
+        return timeWindowStarts[visit.getId()] != NOT_SET && timeWindowEnds[visit.getId()] != NOT_SET;
+    }
+
+    public int getTimeWindowStart(Visit visit) {
+        return timeWindowStarts[visit.getId()];
+    }
+
+    public int getTimeWindowEnd(Visit visit) {
+        return timeWindowEnds[visit.getId()];
+    }
+
+    public void setTimeWindow(Visit visit, int timeWindowStart, int timeWindowEnd) {
+        if (timeWindowStarts[visit.getId()] == timeWindowStart && timeWindowEnds[visit.getId()] == timeWindowEnd)
+            return;
+        beforeChange(visit);
+        timesChanged();
+        timeWindowStarts[visit.getId()] = timeWindowStart;
+        timeWindowEnds[visit.getId()] = timeWindowEnd;
+    }
+
+    public int getTimeDependentOffsetInterval(Visit visit) {
+        return timeDependentOffsetIntervals[visit.getId()];
+    }
+
+    public void setTimeDependentOffsetInterval(Visit visit, int timeDependentOffsetInterval) {
+        beforeChange(visit);
+        timeDependentOffsetIntervals[visit.getId()] = timeDependentOffsetInterval;
+    }
+
+    public boolean isSynced(Visit visit) {
+        return synced[visit.getId()];
+    }
+
+    /**
+     * @return Start of service at the visit when its route was last evaluated, NOT_SET if it has not been.
+     */
+    public int getStartTime(Visit visit) {
+        return startTimes[visit.getId()];
+    }
+
+    /**
+     * @return Travel time to the visit from the previous location when its route was last evaluated, 0 if it has
+     * not been.
+     */
+    public int getTravelTime(Visit visit) {
+        return travelTimes[visit.getId()];
+    }
+
+    /**
+     * @return The transport mode used to reach the visit, see Constants.TransportMode, NOT_SET if the visit is not in
+     * a route.
+     */
+    public int getTransportType(Visit visit) {
+        return transportTypes[visit.getId()];
+    }
+
+    public void setTransportType(Visit visit, int transportType) {
+        beforeChange(visit);
+        transportTypes[visit.getId()] = transportType;
+    }
+
+    /**
+     * Sets the schedule of the visit found when its route was evaluated.
+     */
+    public void setSchedule(Visit visit, int startTime, int travelTime, int transportType) {
+        beforeChange(visit);
+        startTimes[visit.getId()] = startTime;
+        travelTimes[visit.getId()] = travelTime;
+        transportTypes[visit.getId()] = transportType;
+    }
+
+    public boolean hasCoCarPooler(Visit visit) {
+        return coCarPoolerShiftIds[visit.getId()] != NOT_SET;
+    }
+
+    /**
+     * @return Id of the shift the visit is carpooled with, NOT_SET if it is not carpooled.
+     */
+    public int getCoCarPoolerShiftId(Visit visit) {
+        return coCarPoolerShiftIds[visit.getId()];
+    }
+
+    public void setCoCarPoolerShiftId(Visit visit, int coCarPoolerShiftId) {
+        beforeChange(visit);
+        coCarPoolerShiftIds[visit.getId()] = coCarPoolerShiftId;
+    }
+
+    public void setCarpooling(Visit visit, int coCarPoolerShiftId) {
+        if (!hasTimeWindow(visit))
+            throw new IllegalStateException("Tried to set carpooling in visit without time windows being set first");
+        beforeChange(visit);
+        timesChanged();
+        synced[visit.getId()] = true;
+        coCarPoolerShiftIds[visit.getId()] = coCarPoolerShiftId;
+    }
+
+    public void removeCarPooling(Visit visit) {
+        beforeChange(visit);
+        if (synced[visit.getId()])
+            timesChanged();
+        synced[visit.getId()] = false;
+        coCarPoolerShiftIds[visit.getId()] = NOT_SET;
+        timeDependentOffsetIntervals[visit.getId()] = 0;
+    }
+
+    public void resetVisitWhenRemovedFromShift(Visit visit) {
+        beforeChange(visit);
+        transportTypes[visit.getId()] = NOT_SET;
+        coCarPoolerShiftIds[visit.getId()] = NOT_SET;
+    }
+
+    /**
+     * The times version identifies the time windows and the synced visits of the schedule, and the synced start times
+     * of the solution owning it. It is unique over all schedules and is changed every time one of these change, hence
+     * two schedules with the same times version have the same times. Copies and updates keep the version of the
+     * schedule they are made from, and a rollback restores the version the journal was started with.
+     *
+     * @return The times version.
+     */
+    public long getTimesVersion() {
+        return timesVersion;
+    }
+
+    /**
+     * Must be called when a synced start time of the solution owning the schedule changes.
+     */
+    public void syncedStartTimesChanged() {
+        timesChanged();
+    }
+
+    private void timesChanged() {
+        timesVersion = NEXT_TIMES_VERSION.incrementAndGet();
+    }
+
+    /**
+     * Starts recording the values of the visits that are changed, such that the changes can be rolled back. Any
+     * previous journal is discarded.
+     */
+    public void startJournal() {
+        clearJournal();
+        journaling = true;
+        journalTimesVersion = timesVersion;
+    }
+
+    /**
+     * Restores the values the changed visits had when the journal was started, and stops the journal.
+     */
+    public void rollbackJournal() {
+        for (int i = 0; i < journalSize; i++) {
+            int visitId = journalVisitIds[i];
+            int offset = i * JOURNAL_VALUES_PER_VISIT;
+            timeWindowStarts[visitId] = journalValues[offset];
+            timeWindowEnds[visitId] = journalValues[offset + 1];
+            timeDependentOffsetIntervals[visitId] = journalValues[offset + 2];
+            synced[visitId] = journalValues[offset + 3] != 0;
+            startTimes[visitId] = journalValues[offset + 4];
+            travelTimes[visitId] = journalValues[offset + 5];
+            transportTypes[visitId] = journalValues[offset + 6];
+            coCarPoolerShiftIds[visitId] = journalValues[offset + 7];
+        }
+        if (journaling)
+            timesVersion = journalTimesVersion;
+        clearJournal();
+    }
+
+    /**
+     * Keeps the changes and stops the journal.
+     */
+    public void clearJournal() {
+        for (int i = 0; i < journalSize; i++)
+            journaled[journalVisitIds[i]] = false;
+        journalSize = 0;
+        journaling = false;
+    }
+
+    private void beforeChange(Visit visit) {
+        int visitId = visit.getId();
+        if (!journaling || journaled[visitId])
+            return;
+        if (journalSize == journalVisitIds.length) {
+            journalVisitIds = Arrays.copyOf(journalVisitIds, journalSize * 2);
+            journalValues = Arrays.copyOf(journalValues, journalSize * 2 * JOURNAL_VALUES_PER_VISIT);
+        }
+        int offset = journalSize * JOURNAL_VALUES_PER_VISIT;
+        journalValues[offset] = timeWindowStarts[visitId];
+        journalValues[offset + 1] = timeWindowEnds[visitId];
+        journalValues[offset + 2] = timeDependentOffsetIntervals[visitId];
+        journalValues[offset + 3] = synced[visitId] ? 1 : 0;
+        journalValues[offset + 4] = startTimes[visitId];
+        journalValues[offset + 5] = travelTimes[visitId];
+        journalValues[offset + 6] = transportTypes[visitId];
+        journalValues[offset + 7] = coCarPoolerShiftIds[visitId];
+        journalVisitIds[journalSize++] = visitId;
+        journaled[visitId] = true;
+    }
+}
@@ -0,0 +1,37 @@
+package com.visma.of.cps.routeEvaluator.evaluation.constraint;
+
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.evaluation.info.ConstraintInfo;
+
+/**
+ * Checks a constraint that only implements IConstraintIntraRoute as a primitive constraint, by filling a constraint
+ * info that is reused between the checks.
+ */
+public class ConstraintIntraRouteAdapter implements IPrimitiveConstraintIntraRoute {
+
+    private final IConstraintIntraRoute constraint;
+    private final ConstraintInfo constraintInfo;
+
+    public ConstraintIntraRouteAdapter(IConstraintIntraRoute constraint) {
+        this.constraint = constraint;
+        this.constraintInfo = new ConstraintInfo();
+    }
+
+    @Override
+    public boolean constraintIsFeasible(Shift employeeWorkShift, Visit visit, int timeWindowEnd, int startOfServiceNextTask, int earliestOfficeReturn,
+                                        int syncedVisitLatestStartTime, int shiftStartTime) {
+        constraintInfo.set(employeeWorkShift, earliestOfficeReturn, visit, timeWindowEnd, startOfServiceNextTask,
+                syncedVisitLatestStartTime, shiftStartTime);
+        return constraint.constraintIsFeasible(constraintInfo);
+    }
+
+    @Override
+    public boolean constraintIsFeasible(ConstraintInfo constraintInfo) {
+        return constraint.constraintIsFeasible(constraintInfo);
+    }
+
+    public IConstraintIntraRoute getConstraint() {
+        return constraint;
+    }
+}
@@ -1,21 +1,42 @@
 package com.visma.of.cps.routeEvaluator.evaluation.constraint;
 
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
 import com.visma.of.cps.routeEvaluator.evaluation.info.ConstraintInfo;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-
+/**
+ * Holds the intra route constraints of a route evaluator. The constraints are checked as primitive constraints, those
+ * that only implement IConstraintIntraRoute through an adapter. As all constraints must be feasible the order they
+ * are checked in does not change the result, hence the active constraints are reordered such that those that most
+ * often reject an extension are checked first.
+ */
 public class ConstraintsIntraRouteHandler {
 
+    // Number of checks between each reordering of the active constraints
+    private static final int CHECKS_BETWEEN_REORDERING = 1 << 12;
+
     private final Map<String, IConstraintIntraRoute> activeConstraints;
     private final Map<String, IConstraintIntraRoute> inactiveConstraints;
+    // Copies of the map values, such that checking feasibility does not create iterators
+    private IPrimitiveConstraintIntraRoute[] activeConstraintsArray;
+    private IPrimitiveConstraintIntraRoute[] inactiveConstraintsArray;
+    // Number of times each active constraint has rejected an extension since the last reordering. As the constraints
+    // are checked in order, a constraint has been checked the number of checks minus the rejections before it.
+    private int[] activeConstraintRejections;
+    private double[] activeConstraintRejectionRates;
+    private int checksUntilReordering;
     private boolean checkAllConstraints;
+    private int modificationCount;
 
     public ConstraintsIntraRouteHandler() {
         activeConstraints = new LinkedHashMap<>();
         inactiveConstraints = new LinkedHashMap<>();
+        updateConstraintArrays();
     }
 
     public ConstraintsIntraRouteHandler(ConstraintsIntraRouteHandler other) {
@@ -24,34 +45,137 @@ public class ConstraintsIntraRouteHandler {
         this.activeConstraints.putAll(other.activeConstraints);
         this.inactiveConstraints = new LinkedHashMap<>();
         this.inactiveConstraints.putAll(other.inactiveConstraints);
+        updateConstraintArrays();
     }
 
+    /**
+     * Constraints that are active in other are set active in this and inactive in other are set inactive in this. The
+     * constraint arrays, and with them the order of the active constraints and the modification count, are only
+     * changed if the constraints that are checked change.
+     *
+     * @param other Other constraints handler to adapt to.
+     */
     public void update(ConstraintsIntraRouteHandler other) {
-        this.checkAllConstraints = other.checkAllConstraints;
+        if (this.checkAllConstraints != other.checkAllConstraints) {
+            this.checkAllConstraints = other.checkAllConstraints;
+            modificationCount++;
+        }
+        boolean changed = false;
         for (String name : other.activeConstraints.keySet()) {
             if (this.inactiveConstraints.containsKey(name)) {
                 IConstraintIntraRoute cons = this.inactiveConstraints.remove(name);
                 this.activeConstraints.put(name, cons);
+                changed = true;
             }
         }
         for (String name : other.inactiveConstraints.keySet()) {
             if (this.activeConstraints.containsKey(name)) {
                 IConstraintIntraRoute cons = this.activeConstraints.remove(name);
                 this.inactiveConstraints.put(name, cons);
+                changed = true;
+            }
+        }
+        if (changed)
+            updateConstraintArrays();
+    }
+
+    private void updateConstraintArrays() {
+        activeConstraintsArray = toPrimitiveConstraints(activeConstraints.values());
+        inactiveConstraintsArray = toPrimitiveConstraints(inactiveConstraints.values());
+        activeConstraintRejections = new int[activeConstraintsArray.length];
+        activeConstraintRejectionRates = new double[activeConstraintsArray.length];
+        checksUntilReordering = CHECKS_BETWEEN_REORDERING;
+        modificationCount++;
+    }
+
+    private static IPrimitiveConstraintIntraRoute[] toPrimitiveConstraints(Collection<IConstraintIntraRoute> constraints) {
+        IPrimitiveConstraintIntraRoute[] primitiveConstraints = new IPrimitiveConstraintIntraRoute[constraints.size()];
+        int i = 0;
+        for (IConstraintIntraRoute constraint : constraints) {
+            primitiveConstraints[i++] = constraint instanceof IPrimitiveConstraintIntraRoute
+                    ? (IPrimitiveConstraintIntraRoute) constraint : new ConstraintIntraRouteAdapter(constraint);
+        }
+        return primitiveConstraints;
+    }
+
+    /**
+     * Orders the active constraints by the share of their checks that rejected the extension, highest first, using
+     * the checks since the last reordering. Hence, the order follows changes in the routes evaluated.
+     */
+    private void reorderActiveConstraints() {
+        int numberOfConstraints = activeConstraintsArray.length;
+        double[] rejectionRates = activeConstraintRejectionRates;
+        int checks = CHECKS_BETWEEN_REORDERING;
+        for (int i = 0; i < numberOfConstraints; i++) {
+            rejectionRates[i] = checks > 0 ? activeConstraintRejections[i] / (double) checks : 0;
+            checks -= activeConstraintRejections[i];
+        }
+        for (int i = 1; i < numberOfConstraints; i++) {
+            IPrimitiveConstraintIntraRoute constraint = activeConstraintsArray[i];
+            double rejectionRate = rejectionRates[i];
+            int j = i - 1;
+            while (j >= 0 && rejectionRate > rejectionRates[j]) {
+                activeConstraintsArray[j + 1] = activeConstraintsArray[j];
+                rejectionRates[j + 1] = rejectionRates[j];
+                j--;
             }
+            activeConstraintsArray[j + 1] = constraint;
+            rejectionRates[j + 1] = rejectionRate;
         }
+        Arrays.fill(activeConstraintRejections, 0);
+        checksUntilReordering = CHECKS_BETWEEN_REORDERING;
     }
 
     public void activateCheckAllActiveAndInactiveConstraints() {
         checkAllConstraints = true;
+        modificationCount++;
     }
 
     public void deActivateCheckAllActiveAndInactiveConstraints() {
         checkAllConstraints = false;
+        modificationCount++;
+    }
+
+    /**
+     * The modification count is increased every time the constraints that are checked change, such that results
+     * depending on them can be invalidated.
+     *
+     * @return The modification count.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Checks whether extending a route to the visit is feasible w.r.t. the active constraints, and the inactive
+     * constraints when all constraints are checked. See IPrimitiveConstraintIntraRoute for the parameters.
+     *
+     * @return True if feasible, otherwise false.
+     */
+    public boolean isFeasible(Shift employeeWorkShift, Visit visit, int timeWindowEnd, int startOfServiceNextTask, int earliestOfficeReturn,
+                              int syncedVisitLatestStartTime, int shiftStartTime) {
+        if (--checksUntilReordering == 0)
+            reorderActiveConstraints();
+        IPrimitiveConstraintIntraRoute[] constraints = activeConstraintsArray;
+        for (int i = 0; i < constraints.length; i++) {
+            if (!constraints[i].constraintIsFeasible(employeeWorkShift, visit, timeWindowEnd, startOfServiceNextTask, earliestOfficeReturn,
+                    syncedVisitLatestStartTime, shiftStartTime)) {
+                activeConstraintRejections[i]++;
+                return false;
+            }
+        }
+        if (checkAllConstraints) {
+            for (IPrimitiveConstraintIntraRoute constraint : inactiveConstraintsArray) {
+                if (!constraint.constraintIsFeasible(employeeWorkShift, visit, timeWindowEnd, startOfServiceNextTask, earliestOfficeReturn,
+                        syncedVisitLatestStartTime, shiftStartTime))
+                    return false;
+            }
+        }
+        return true;
     }
 
     public boolean isFeasible(ConstraintInfo constraintInfo) {
-        for (IConstraintIntraRoute constraint : activeConstraints.values()) {
+        for (IConstraintIntraRoute constraint : activeConstraintsArray) {
             if (!constraint.constraintIsFeasible(constraintInfo)) {
                 return false;
             }
@@ -63,7 +187,7 @@ public class ConstraintsIntraRouteHandler {
     }
 
     private boolean relaxedConstraintsAreFeasible(ConstraintInfo constraintInfo) {
-        for (IConstraintIntraRoute constraint : inactiveConstraints.values()) {
+        for (IConstraintIntraRoute constraint : inactiveConstraintsArray) {
             if (!constraint.constraintIsFeasible(constraintInfo)) {
                 return false;
             }
@@ -73,10 +197,11 @@ public class ConstraintsIntraRouteHandler {
 
     public void addConstraint(String name, IConstraintIntraRoute constraint) {
         activeConstraints.put(name, constraint);
+        updateConstraintArrays();
     }
 
     public void addConstraint(IConstraintIntraRoute constraint) {
-        activeConstraints.put(constraint.getClass().getSimpleName(), constraint);
+        addConstraint(constraint.getClass().getSimpleName(), constraint);
     }
 
     /**
@@ -90,6 +215,7 @@ public class ConstraintsIntraRouteHandler {
         if (constraintToActivate == null)
             return false;
         activeConstraints.put(name, constraintToActivate);
+        updateConstraintArrays();
         return true;
     }
 
@@ -104,6 +230,7 @@ public class ConstraintsIntraRouteHandler {
         if (constraintToActivate == null)
             return false;
         inactiveConstraints.put(name, constraintToActivate);
+        updateConstraintArrays();
         return true;
     }
 
@@ -0,0 +1,28 @@
+package com.visma.of.cps.routeEvaluator.evaluation.constraint;
+
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+
+/**
+ * Intra route constraint that is checked from the values of the step directly, instead of through a constraint info.
+ * The route evaluators check constraints for every extension, hence this avoids filling an info object for each of
+ * them. Both methods must give the same result. Constraints that only implement IConstraintIntraRoute are checked
+ * through ConstraintIntraRouteAdapter.
+ */
+public interface IPrimitiveConstraintIntraRoute extends IConstraintIntraRoute {
+
+    /**
+     * Checks whether extending the route to the visit is feasible.
+     *
+     * @param employeeWorkShift          Employee the route applies to.
+     * @param visit                      Visit extended to, null for the destination.
+     * @param timeWindowEnd              End of the time window of the visit in the solution evaluated.
+     * @param startOfServiceNextTask     Start of service at the visit.
+     * @param earliestOfficeReturn       Earliest time the employee can be back at the office after the visit.
+     * @param syncedVisitLatestStartTime Intended start time of the visit if it is synced, otherwise -1.
+     * @param shiftStartTime             The time the shift started.
+     * @return True if feasible, otherwise false.
+     */
+    boolean constraintIsFeasible(Shift employeeWorkShift, Visit visit, int timeWindowEnd, int startOfServiceNextTask, int earliestOfficeReturn,
+                                 int syncedVisitLatestStartTime, int shiftStartTime);
+}
@@ -2,6 +2,7 @@ package com.visma.of.cps.routeEvaluator.evaluation.constraint;
 
 import com.visma.of.cps.model.Model;
 import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
 import com.visma.of.cps.routeEvaluator.evaluation.OvertimeAbstract;
 import com.visma.of.cps.routeEvaluator.evaluation.info.ConstraintInfo;
 
@@ -10,19 +11,19 @@ import com.visma.of.cps.routeEvaluator.evaluation.info.ConstraintInfo;
  * a maximum number of seconds of overtime allowed. If none is given the default allowed overtime is give by the parameter
  * DEFAULT_MAXIMUM_OVERTIME.
  */
-public class OvertimeIntraRouteConstraint extends OvertimeAbstract implements IConstraintIntraRoute {
+public class OvertimeIntraRouteConstraint extends OvertimeAbstract implements IPrimitiveConstraintIntraRoute {
 
     private static final int DEFAULT_MAXIMUM_OVERTIME = 0;
-    private Integer[] shiftMaxOvertime;
+    private final int[] shiftMaxOvertime;
 
     public OvertimeIntraRouteConstraint(Model model) {
-        shiftMaxOvertime = new Integer[model.getShifts().size()];
+        shiftMaxOvertime = new int[model.getShifts().size()];
         for (Shift shift : model.getShifts()) {
             shiftMaxOvertime[shift.getId()] = getLatestAllowedEndOfShift(model, shift);
         }
     }
 
-    private Integer getLatestAllowedEndOfShift(Model model, Shift shift) {
+    private int getLatestAllowedEndOfShift(Model model, Shift shift) {
         return (model.getMaximumOvertime() != null ?
                 model.getMaximumOvertime().getOrDefault(shift, DEFAULT_MAXIMUM_OVERTIME) : DEFAULT_MAXIMUM_OVERTIME)
                 + shift.getTimeWindowEnd();
@@ -34,5 +35,11 @@ public class OvertimeIntraRouteConstraint extends OvertimeAbstract implements IC
                 .getShiftId()], constraintInfo.getEarliestOfficeReturn());
     }
 
+    @Override
+    public boolean constraintIsFeasible(Shift employeeWorkShift, Visit visit, int timeWindowEnd, int startOfServiceNextTask, int earliestOfficeReturn,
+                                        int syncedVisitLatestStartTime, int shiftStartTime) {
+        return earliestOfficeReturn <= shiftMaxOvertime[employeeWorkShift.getId()];
+    }
+
 
 }
\ No newline at end of file
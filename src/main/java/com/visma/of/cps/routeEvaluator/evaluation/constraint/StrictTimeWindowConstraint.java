@@ -1,9 +1,25 @@
 package com.visma.of.cps.routeEvaluator.evaluation.constraint;
 
-public class StrictTimeWindowConstraint extends CustomCriteriaConstraint {
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.evaluation.info.ConstraintInfo;
 
-    public StrictTimeWindowConstraint() {
-    super(i -> !i.isDepot() && i.isStrict(),
-                i -> i.getStartOfServiceNextTask() + i.getVisit().getVisitDuration() <= i.getVisit().getTimeWindowEnd());
+public class StrictTimeWindowConstraint implements IPrimitiveConstraintIntraRoute {
+
+    @Override
+    public boolean constraintIsFeasible(ConstraintInfo constraintInfo) {
+        return isFeasible(constraintInfo.getVisit(), constraintInfo.getTimeWindowEnd(), constraintInfo.getStartOfServiceNextTask());
+    }
+
+    @Override
+    public boolean constraintIsFeasible(Shift employeeWorkShift, Visit visit, int timeWindowEnd, int startOfServiceNextTask, int earliestOfficeReturn,
+                                        int syncedVisitLatestStartTime, int shiftStartTime) {
+        return isFeasible(visit, timeWindowEnd, startOfServiceNextTask);
+    }
+
+    private boolean isFeasible(Visit visit, int timeWindowEnd, int startOfServiceNextTask) {
+        if (visit == null || !visit.getTask().isStrict())
+            return true;
+        return startOfServiceNextTask + visit.getVisitDuration() <= timeWindowEnd;
     }
 }
@@ -1,8 +1,10 @@
 package com.visma.of.cps.routeEvaluator.evaluation.constraint;
 
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
 import com.visma.of.cps.routeEvaluator.evaluation.info.ConstraintInfo;
 
-public class SyncedTasksConstraint implements IConstraintIntraRoute {
+public class SyncedTasksConstraint implements IPrimitiveConstraintIntraRoute {
 
     private final long allowedSlack;
 
@@ -22,5 +24,13 @@ public class SyncedTasksConstraint implements IConstraintIntraRoute {
                 //+ constraintInfo.getVisit().getSyncedWithIntervalDiff()
                 + allowedSlack);
     }
+
+    @Override
+    public boolean constraintIsFeasible(Shift employeeWorkShift, Visit visit, int timeWindowEnd, int startOfServiceNextTask, int earliestOfficeReturn,
+                                        int syncedVisitLatestStartTime, int shiftStartTime) {
+        if (visit == null || syncedVisitLatestStartTime < 0)
+            return true;
+        return startOfServiceNextTask <= syncedVisitLatestStartTime + allowedSlack;
+    }
 }
 
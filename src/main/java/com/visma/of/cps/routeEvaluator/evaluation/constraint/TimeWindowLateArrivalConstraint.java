@@ -24,6 +24,6 @@ public class TimeWindowLateArrivalConstraint extends CustomCriteriaConstraint{
     }
 
     private static Function<ConstraintInfo, Boolean> constraintFunction(int maximumLateArrival) {
-        return i -> i.getStartOfServiceNextTask() + i.getVisit().getVisitDuration() <= i.getVisit().getTimeWindowEnd() + maximumLateArrival;
+        return i -> i.getStartOfServiceNextTask() + i.getVisit().getVisitDuration() <= i.getTimeWindowEnd() + maximumLateArrival;
     }
 }
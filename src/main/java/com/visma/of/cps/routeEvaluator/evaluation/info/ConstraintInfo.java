@@ -13,11 +13,22 @@ public class ConstraintInfo extends RouteEvaluationInfoAbstract {
     int shiftStartTime;
     int syncedVisitLatestStartTime;
 
-    public ConstraintInfo(Shift employeeWorkShift, int earliestOfficeReturn, Visit visit, int startOfServiceNextTask, int syncedVisitLatestStartTime, int shiftStartTime) {
-        super(visit, employeeWorkShift);
+    public ConstraintInfo(Shift employeeWorkShift, int earliestOfficeReturn, Visit visit, int timeWindowEnd, int startOfServiceNextTask, int syncedVisitLatestStartTime, int shiftStartTime) {
+        set(employeeWorkShift, earliestOfficeReturn, visit, timeWindowEnd, startOfServiceNextTask, syncedVisitLatestStartTime, shiftStartTime);
+    }
+
+    /**
+     * Creates an empty constraint info, to be reused for several evaluations by calling set before each of them.
+     */
+    public ConstraintInfo() {
+    }
+
+    public void set(Shift employeeWorkShift, int earliestOfficeReturn, Visit visit, int timeWindowEnd, int startOfServiceNextTask, int syncedVisitLatestStartTime, int shiftStartTime) {
+        setVisitAndShift(visit, timeWindowEnd, employeeWorkShift);
         this.earliestOfficeReturn = earliestOfficeReturn;
         this.startOfServiceNextTask = startOfServiceNextTask;
         this.syncedVisitLatestStartTime = syncedVisitLatestStartTime;
+        this.syncedTaskStartTime = syncedVisitLatestStartTime;
         this.shiftStartTime = shiftStartTime;
     }
 
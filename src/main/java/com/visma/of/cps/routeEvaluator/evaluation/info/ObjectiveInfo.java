@@ -4,15 +4,26 @@ import com.visma.of.cps.model.Visit;
 import com.visma.of.cps.model.Shift;
 
 public class ObjectiveInfo extends RouteEvaluationInfoAbstract {
-    private final int travelTime;
-    private final int visitEnd;
-    private final int startOfServiceNextTask;
+    private int travelTime;
+    private int visitEnd;
+    private int startOfServiceNextTask;
 
-    public ObjectiveInfo(int travelTime,  Visit visit, int visitEnd, int startOfServiceNextTask, int syncedVisitStartTime, Shift employeeWorkShift) {
-        super(visit, employeeWorkShift);
+    public ObjectiveInfo(int travelTime,  Visit visit, int timeWindowEnd, int visitEnd, int startOfServiceNextTask, int syncedVisitStartTime, Shift employeeWorkShift) {
+        set(travelTime, visit, timeWindowEnd, visitEnd, startOfServiceNextTask, syncedVisitStartTime, employeeWorkShift);
+    }
+
+    /**
+     * Creates an empty objective info, to be reused for several evaluations by calling set before each of them.
+     */
+    public ObjectiveInfo() {
+    }
+
+    public void set(int travelTime,  Visit visit, int timeWindowEnd, int visitEnd, int startOfServiceNextTask, int syncedVisitStartTime, Shift employeeWorkShift) {
+        setVisitAndShift(visit, timeWindowEnd, employeeWorkShift);
         this.travelTime = travelTime;
         this.visitEnd = visitEnd;
         this.startOfServiceNextTask = startOfServiceNextTask;
+        this.syncedTaskStartTime = syncedVisitStartTime;
     }
 
     @Override
@@ -7,11 +7,24 @@ public class RouteEvaluationInfoAbstract {
     // OBS: in orginal code, use Task, but we use task
     protected Visit visit;
     protected int shiftId;
+    protected int timeWindowEnd;
     protected int endOfWorkShift;
     protected int syncedTaskStartTime;
 
-    public RouteEvaluationInfoAbstract(Visit visit, Shift employeeWorkShift) {
+    public RouteEvaluationInfoAbstract(Visit visit, int timeWindowEnd, Shift employeeWorkShift) {
+        setVisitAndShift(visit, timeWindowEnd, employeeWorkShift);
+        this.syncedTaskStartTime = -1;
+    }
+
+    /**
+     * Used by infos that are reused between evaluations, the values must be set before the info is used.
+     */
+    protected RouteEvaluationInfoAbstract() {
+    }
+
+    protected void setVisitAndShift(Visit visit, int timeWindowEnd, Shift employeeWorkShift) {
         this.visit = visit;
+        this.timeWindowEnd = timeWindowEnd;
         this.shiftId = employeeWorkShift.getId();
         this.endOfWorkShift = employeeWorkShift.getTimeWindowEnd();
     }
@@ -24,6 +37,13 @@ public class RouteEvaluationInfoAbstract {
         return visit;
     }
 
+    /**
+     * @return The end of the time window of the visit in the solution evaluated, the visit itself holds no time window.
+     */
+    public int getTimeWindowEnd() {
+        return timeWindowEnd;
+    }
+
     public int getEndOfWorkShift() {
         return endOfWorkShift;
     }
@@ -32,8 +52,11 @@ public class RouteEvaluationInfoAbstract {
         return visit != null && visit.getTask().isStrict();
     }
 
+    /**
+     * @return Whether the visit is synced, i.e., whether it has a synced start time. It is -1 for visits that are not.
+     */
     public boolean isSynced() {
-        return visit != null && visit.isSynced();
+        return visit != null && syncedTaskStartTime >= 0;
     }
     // If task is origin or destination
     public boolean isDepot() {
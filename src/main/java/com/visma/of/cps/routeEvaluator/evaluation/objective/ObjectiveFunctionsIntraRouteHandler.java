@@ -14,10 +14,23 @@ public class ObjectiveFunctionsIntraRouteHandler {
 
     private final Map<String, WeightObjectivePair<IObjectiveFunctionIntraRoute>> activeObjectiveFunctions;
     private final Map<String, WeightObjectivePair<IObjectiveFunctionIntraRoute>> inactiveObjectiveFunctions;
+    // Compiled form of the active objectives, in the iteration order of the map, such that the objective can be
+    // calculated without iterating the map. Rebuilt whenever the active objectives or their weights change.
+    private String[] activeObjectiveFunctionIds;
+    private IObjectiveFunctionIntraRoute[] activeObjectiveFunctionsArray;
+    private double[] activeObjectiveWeights;
+    // Set when the active objectives are exactly the standard travel time and time window objectives, see
+    // incrementObjectiveValue.
+    private TimeWindowLowHighObjectiveFunction standardTimeWindowObjectiveFunction;
+    private double standardTravelTimeWeight;
+    private double standardTimeWindowWeight;
+    private boolean standardTravelTimeFirst;
+    private int modificationCount;
 
     public ObjectiveFunctionsIntraRouteHandler() {
         activeObjectiveFunctions = new HashMap<>();
         inactiveObjectiveFunctions = new HashMap<>();
+        updateActiveObjectiveArrays();
     }
 
     public ObjectiveFunctionsIntraRouteHandler(ObjectiveFunctionsIntraRouteHandler other) {
@@ -25,26 +38,83 @@ public class ObjectiveFunctionsIntraRouteHandler {
         this.activeObjectiveFunctions.putAll(other.activeObjectiveFunctions);
         this.inactiveObjectiveFunctions = new HashMap<>();
         this.inactiveObjectiveFunctions.putAll(other.inactiveObjectiveFunctions);
+        updateActiveObjectiveArrays();
     }
 
     /**
      * Objective functions that are active in other is set to active in this and inactive in other are set inactive in this.
+     * The arrays, and with them the modification count, are only changed if the active objectives or their weights
+     * change. The weights are shared with the handler this was copied from, hence they may have been changed there.
      *
      * @param other Other objective to adapt to.
      */
     public void update(ObjectiveFunctionsIntraRouteHandler other) {
+        boolean changed = false;
         for (String name : other.activeObjectiveFunctions.keySet()) {
             if (this.inactiveObjectiveFunctions.containsKey(name)) {
                 WeightObjectivePair<IObjectiveFunctionIntraRoute> objectivePair = this.inactiveObjectiveFunctions.remove(name);
                 this.activeObjectiveFunctions.put(name, objectivePair);
+                changed = true;
             }
         }
         for (String name : other.inactiveObjectiveFunctions.keySet()) {
             if (this.activeObjectiveFunctions.containsKey(name)) {
                 WeightObjectivePair<IObjectiveFunctionIntraRoute> objectivePair = this.activeObjectiveFunctions.remove(name);
                 this.inactiveObjectiveFunctions.put(name, objectivePair);
+                changed = true;
             }
         }
+        if (changed || activeWeightsChanged())
+            updateActiveObjectiveArrays();
+    }
+
+    private boolean activeWeightsChanged() {
+        for (int i = 0; i < activeObjectiveFunctionIds.length; i++) {
+            if (activeObjectiveWeights[i] != activeObjectiveFunctions.get(activeObjectiveFunctionIds[i]).getWeight())
+                return true;
+        }
+        return false;
+    }
+
+    private void updateActiveObjectiveArrays() {
+        int size = activeObjectiveFunctions.size();
+        activeObjectiveFunctionIds = new String[size];
+        activeObjectiveFunctionsArray = new IObjectiveFunctionIntraRoute[size];
+        activeObjectiveWeights = new double[size];
+        int i = 0;
+        for (Map.Entry<String, WeightObjectivePair<IObjectiveFunctionIntraRoute>> objectivePair : activeObjectiveFunctions.entrySet()) {
+            activeObjectiveFunctionIds[i] = objectivePair.getKey();
+            activeObjectiveFunctionsArray[i] = objectivePair.getValue().getObjectiveFunction();
+            activeObjectiveWeights[i] = objectivePair.getValue().getWeight();
+            i++;
+        }
+        updateStandardObjectives();
+        modificationCount++;
+    }
+
+    private void updateStandardObjectives() {
+        standardTimeWindowObjectiveFunction = null;
+        if (activeObjectiveFunctionsArray.length != 2)
+            return;
+        int travelTimeIndex = activeObjectiveFunctionsArray[0].getClass() == TravelTimeObjectiveFunction.class ? 0 : 1;
+        int timeWindowIndex = 1 - travelTimeIndex;
+        if (activeObjectiveFunctionsArray[travelTimeIndex].getClass() != TravelTimeObjectiveFunction.class
+                || activeObjectiveFunctionsArray[timeWindowIndex].getClass() != TimeWindowLowHighObjectiveFunction.class)
+            return;
+        standardTimeWindowObjectiveFunction = (TimeWindowLowHighObjectiveFunction) activeObjectiveFunctionsArray[timeWindowIndex];
+        standardTravelTimeWeight = activeObjectiveWeights[travelTimeIndex];
+        standardTimeWindowWeight = activeObjectiveWeights[timeWindowIndex];
+        standardTravelTimeFirst = travelTimeIndex == 0;
+    }
+
+    /**
+     * The modification count is increased every time the active objectives or their weights change, such that results
+     * depending on them can be invalidated.
+     *
+     * @return The modification count.
+     */
+    public int getModificationCount() {
+        return modificationCount;
     }
 
     /**
@@ -58,6 +128,7 @@ public class ObjectiveFunctionsIntraRouteHandler {
         if (constraintToActivate == null)
             return false;
         activeObjectiveFunctions.put(name, constraintToActivate);
+        updateActiveObjectiveArrays();
         return true;
     }
 
@@ -72,21 +143,28 @@ public class ObjectiveFunctionsIntraRouteHandler {
         if (constraintToActivate == null)
             return false;
         inactiveObjectiveFunctions.put(name, constraintToActivate);
+        updateActiveObjectiveArrays();
         return true;
     }
 
 
     public void addIntraShiftObjectiveFunction(String objectiveFunctionId, double weight, IObjectiveFunctionIntraRoute objectiveIntraShift) {
         activeObjectiveFunctions.put(objectiveFunctionId, new WeightObjectivePair<>(weight, objectiveIntraShift));
+        updateActiveObjectiveArrays();
     }
 
     public boolean removeObjective(String name) {
         if (inactiveObjectiveFunctions.remove(name) != null)
             return true;
-        return activeObjectiveFunctions.remove(name) != null;
-
+        boolean removed = activeObjectiveFunctions.remove(name) != null;
+        updateActiveObjectiveArrays();
+        return removed;
     }
 
+    /**
+     * The weight of the pair must not be changed directly, use updateObjectiveWeight, as the weights are copied to
+     * the compiled form of the active objectives.
+     */
     public WeightObjectivePair<IObjectiveFunctionIntraRoute> getWeightObjectivePair(String name) {
         return activeObjectiveFunctions.getOrDefault(name, inactiveObjectiveFunctions.get(name));
 
@@ -95,6 +173,7 @@ public class ObjectiveFunctionsIntraRouteHandler {
     public void updateObjectiveWeight(String name, double newWeight) {
         WeightObjectivePair<IObjectiveFunctionIntraRoute> obj = activeObjectiveFunctions.getOrDefault(name, inactiveObjectiveFunctions.get(name));
         obj.setWeight(newWeight);
+        updateActiveObjectiveArrays();
     }
 
     /**
@@ -106,18 +185,55 @@ public class ObjectiveFunctionsIntraRouteHandler {
         return activeObjectiveFunctions.containsKey(name) || inactiveObjectiveFunctions.containsKey(name);
     }
 
-    public IRouteEvaluatorObjective calculateObjectiveValue(IRouteEvaluatorObjective currentObjective, int travelTime, Visit visit, int startOfServiceNextTask,
-                                                            int visitEnd, int syncedVisitLatestStartTime, Shift employeeWorkShift) {
+    public IRouteEvaluatorObjective calculateObjectiveValue(IRouteEvaluatorObjective currentObjective, int travelTime, Visit visit, int timeWindowEnd,
+                                                            int startOfServiceNextTask, int visitEnd, int syncedVisitLatestStartTime, Shift employeeWorkShift) {
 
         IRouteEvaluatorObjective newObjective = currentObjective.initializeNewObjective();
-        ObjectiveInfo objectiveInfo = new ObjectiveInfo(travelTime, visit, visitEnd, startOfServiceNextTask,
+        ObjectiveInfo objectiveInfo = new ObjectiveInfo(travelTime, visit, timeWindowEnd, visitEnd, startOfServiceNextTask,
                 syncedVisitLatestStartTime, employeeWorkShift);
+        incrementObjective(newObjective, objectiveInfo);
+        return newObjective;
+    }
 
-        for (Map.Entry<String, WeightObjectivePair<IObjectiveFunctionIntraRoute>> objectivePair : activeObjectiveFunctions.entrySet()) {
-            newObjective.incrementObjective(objectivePair.getKey(), objectivePair.getValue().getWeight(),
-                    objectivePair.getValue().getObjectiveFunction().calculateIncrementalObjectiveValueFor(objectiveInfo));
+    /**
+     * Increments the objective with the weighted values of all active objective functions.
+     *
+     * @param objective     Objective to increment.
+     * @param objectiveInfo The current state of the route.
+     */
+    public void incrementObjective(IRouteEvaluatorObjective objective, ObjectiveInfo objectiveInfo) {
+        for (int i = 0; i < activeObjectiveFunctionsArray.length; i++) {
+            objective.incrementObjective(activeObjectiveFunctionIds[i], activeObjectiveWeights[i],
+                    activeObjectiveFunctionsArray[i].calculateIncrementalObjectiveValueFor(objectiveInfo));
         }
-        return newObjective;
+    }
+
+    /**
+     * Adds the weighted values of all active objective functions to the objective value. The values are added in the
+     * same order and with the same arithmetic as WeightedObjective, hence the result is the same as when incrementing a
+     * WeightedObjective with the same value.
+     * <p>
+     * When the active objectives are the standard travel time and time window objectives, see
+     * SuperSolver.initializeStandardIntraRouteObjectives, they are calculated directly instead of through the
+     * objective function interface.
+     *
+     * @param objectiveValue Current objective value.
+     * @param objectiveInfo  The current state of the route.
+     * @return The incremented objective value.
+     */
+    public double incrementObjectiveValue(double objectiveValue, ObjectiveInfo objectiveInfo) {
+        if (standardTimeWindowObjectiveFunction != null) {
+            double travelTimeValue = objectiveInfo.getTravelTime() * standardTravelTimeWeight;
+            double timeWindowValue = objectiveInfo.isDepot() ? 0 : standardTimeWindowObjectiveFunction.calculatePenalty(
+                    objectiveInfo.getVisitEnd() - objectiveInfo.getTimeWindowEnd()) * standardTimeWindowWeight;
+            return standardTravelTimeFirst ? objectiveValue + travelTimeValue + timeWindowValue
+                    : objectiveValue + timeWindowValue + travelTimeValue;
+        }
+        for (int i = 0; i < activeObjectiveFunctionsArray.length; i++) {
+            objectiveValue += activeObjectiveFunctionsArray[i].calculateIncrementalObjectiveValueFor(objectiveInfo)
+                    * activeObjectiveWeights[i];
+        }
+        return objectiveValue;
     }
 
 
@@ -45,14 +45,20 @@ public class TimeWindowLowHighObjectiveFunction implements IObjectiveFunctionInt
     public double calculateIncrementalObjectiveValueFor(ObjectiveInfo objectiveInfo) {
         if (objectiveInfo.isDepot())
             return 0;
+        else
+            return calculatePenalty(objectiveInfo.getVisitEnd() - objectiveInfo.getTimeWindowEnd());
+    }
+
+    /**
+     * @param timeWindowBreak Time the visit ends after the end of its time window, negative if it ends before.
+     * @return The penalty for breaking the time window.
+     */
+    public double calculatePenalty(long timeWindowBreak) {
+        if (timeWindowBreak <= highPenaltyCutOff)
+            return (long) (lowPenaltyMultiplier * Math.max(0, timeWindowBreak));
         else {
-            long timeWindowBreak = objectiveInfo.getVisitEnd() - objectiveInfo.getVisit().getTimeWindowEnd();
-            if (timeWindowBreak <= highPenaltyCutOff)
-                return (long) (lowPenaltyMultiplier * Math.max(0, timeWindowBreak));
-            else {
-                long highPenaltyTimeWindowBreak = timeWindowBreak - highPenaltyCutOff;
-                return (long) (lowPenaltyMultiplier * highPenaltyCutOff + highPenaltyTimeWindowBreak * highPenaltyMultiplier);
-            }
+            long highPenaltyTimeWindowBreak = timeWindowBreak - highPenaltyCutOff;
+            return (long) (lowPenaltyMultiplier * highPenaltyCutOff + highPenaltyTimeWindowBreak * highPenaltyMultiplier);
         }
     }
 }
\ No newline at end of file
@@ -15,10 +15,11 @@ public class MultiRouteEvaluatorResult {
     private RouteEvaluatorResult routeEvaluatorTwo;
     private int shiftIdOne;
     private int shiftIdTwo;
-    private List<TimeDependentVisitPair> newTimeDependentVisitPairs;
+    private List<TimeDependentVisitPair> newTimeDependentVisitPairs = new ArrayList<>();
     private Map<Visit, Integer> carpoolSyncedVisitStartTime;
     private boolean multipleRoutesAffected = false;
     private Map<Integer, List<Visit>> insertedVisits = new HashMap<>();
+    private Map<Visit, List<Integer>> timeWindows = new HashMap<>();
 
     public MultiRouteEvaluatorResult(RouteEvaluatorResult routeEvaluatorOne, RouteEvaluatorResult routeEvaluatorTwo,
             List<TimeDependentVisitPair> newTimeDependentVisitPairs,
@@ -44,6 +45,19 @@ public class MultiRouteEvaluatorResult {
         this.insertedVisits.put(shiftId, insertVisits);
     }
 
+    /**
+     * Adds time windows of visits that must be set in the solution when the insert is made, time windows already
+     * added for a visit are replaced.
+     * @param timeWindows Time windows on the format [timeWindowStart, timeWindowEnd] by visit
+     */
+    public void addTimeWindows(Map<Visit, List<Integer>> timeWindows){
+        this.timeWindows.putAll(timeWindows);
+    }
+
+    public Map<Visit, List<Integer>> getTimeWindows() {
+        return timeWindows;
+    }
+
     public Map<Visit, Integer> getCarpoolSyncedVisitStartTime() {
         return carpoolSyncedVisitStartTime;
     }
@@ -2,9 +2,11 @@ package com.visma.of.cps.routeEvaluator.results;
 
 import com.visma.of.cps.model.Task;
 import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
 import com.visma.of.cps.util.Constants;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -13,6 +15,10 @@ public class Route {
 
     private final List<Visit> visitSolution;
     private int routeFinishedAtTime;
+    // Schedule of the visits found when the route was evaluated, by position in the route. Null if not evaluated.
+    private int[] startTimes;
+    private int[] travelTimes;
+    private int[] transportTypes;
 
     public Route() {
         this.visitSolution = new ArrayList<>();
@@ -20,11 +26,86 @@ public class Route {
     }
 
     public void addVisits(List<Visit> visits) {
+        int oldSize = visitSolution.size();
         visitSolution.addAll(visits);
+        if (hasSchedule()) {
+            startTimes = extendNotSet(startTimes, oldSize, VisitSchedule.NOT_SET);
+            travelTimes = extendNotSet(travelTimes, oldSize, 0);
+            transportTypes = extendNotSet(transportTypes, oldSize, VisitSchedule.NOT_SET);
+        }
+    }
+
+    private int[] extendNotSet(int[] array, int oldSize, int notSet) {
+        int[] newArray = Arrays.copyOf(array, visitSolution.size());
+        Arrays.fill(newArray, oldSize, newArray.length, notSet);
+        return newArray;
     }
 
+    /**
+     * Adds the visit at the index, if the route has a schedule the visit is added to it with no schedule set.
+     */
     public void addVisitAtIndex(Visit visit, int insertIndex){
         visitSolution.add(insertIndex, visit);
+        if (hasSchedule()) {
+            startTimes = insertNotSet(startTimes, insertIndex, VisitSchedule.NOT_SET);
+            travelTimes = insertNotSet(travelTimes, insertIndex, 0);
+            transportTypes = insertNotSet(transportTypes, insertIndex, VisitSchedule.NOT_SET);
+        }
+    }
+
+    private static int[] insertNotSet(int[] array, int insertIndex, int notSet) {
+        int[] newArray = new int[array.length + 1];
+        System.arraycopy(array, 0, newArray, 0, insertIndex);
+        newArray[insertIndex] = notSet;
+        System.arraycopy(array, insertIndex, newArray, insertIndex + 1, array.length - insertIndex);
+        return newArray;
+    }
+
+    /**
+     * Sets the schedule of the visits in the route, the arrays are indexed by the position of the visits in the route.
+     *
+     * @param startTimes     Start of service at the visits.
+     * @param travelTimes    Travel time to the visits from the previous location.
+     * @param transportTypes Transport mode used to reach the visits, see Constants.TransportMode.
+     */
+    public void setSchedule(int[] startTimes, int[] travelTimes, int[] transportTypes) {
+        if (startTimes.length != visitSolution.size() || travelTimes.length != visitSolution.size()
+                || transportTypes.length != visitSolution.size())
+            throw new IllegalArgumentException("The schedule must have one entry for each visit in the route");
+        this.startTimes = startTimes;
+        this.travelTimes = travelTimes;
+        this.transportTypes = transportTypes;
+    }
+
+    public boolean hasSchedule() {
+        return startTimes != null;
+    }
+
+    public int getStartTime(int index) {
+        return startTimes[index];
+    }
+
+    public int getTravelTime(int index) {
+        return travelTimes[index];
+    }
+
+    public int getTransportType(int index) {
+        return transportTypes[index];
+    }
+
+    /**
+     * Writes the schedule of the visits of the route to the visit schedule, visits without a schedule in the route
+     * are not written.
+     *
+     * @param visitSchedule The visit schedule of the solution the route is assigned to.
+     */
+    public void writeSchedule(VisitSchedule visitSchedule) {
+        if (!hasSchedule())
+            return;
+        for (int i = 0; i < visitSolution.size(); i++) {
+            if (startTimes[i] != VisitSchedule.NOT_SET)
+                visitSchedule.setSchedule(visitSolution.get(i), startTimes[i], travelTimes[i], transportTypes[i]);
+        }
     }
 
     public void setRouteFinishedAtTime(int routeFinishedAtTime) {
@@ -55,8 +136,10 @@ public class Route {
      */
     public List<Task> extractEmployeeTasks() {
         List<Task> employeeTasks = new ArrayList<>();
+        if (!hasSchedule())
+            return employeeTasks;
         for (int i=0; i<visitSolution.size()-1; i++){
-            if (visitSolution.get(i+1).getTransportType() == Constants.TransportMode.WALK){
+            if (transportTypes[i+1] == Constants.TransportMode.WALK){
                 employeeTasks.add(visitSolution.get(i).getTask());
             }
         }
@@ -9,7 +9,6 @@ import com.visma.of.cps.routeEvaluator.evaluation.objective.WeightedObjective;
 import com.visma.of.cps.routeEvaluator.results.RouteEvaluatorResult;
 import com.visma.of.cps.routeEvaluator.solver.algorithm.*;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -30,38 +29,65 @@ public class RouteEvaluator {
     private final ObjectiveFunctionsIntraRouteHandler objectiveFunctions;
     private final ConstraintsIntraRouteHandler constraints;
     private final LabellingAlgorithm algorithm;
+    private final LinearRouteEvaluator linearEvaluator;
+    private final RouteSummary routeSummary;
     private final NodeList firstNodeList;
     private final NodeList secondNodeList;
-    private final int[] syncedNodesStartTime;
+    private final ExtendInfoTwoElements nodeExtendInfo;
+    private final NodeTimes nodeTimes;
+    // The node times of the visits of the route with this version are set from a schedule with this times version
+    private long nodeTimesRouteVersion = RouteSummary.NO_ROUTE_VERSION;
+    private long nodeTimesTimesVersion;
+    // Number of times the route summary has been built, lets the tests check when it is reused
+    private int routeSummaryCount;
 
     // Remove, since origing and destination always has to de depot
-    /* public RouteEvaluator(Map<Integer, TravelTimeMatrix>  distanceMatrixMatrix, Collection<Visit> visits) {
-        this(distanceMatrixMatrix, visits, null, null);
+    /* public RouteEvaluator(TravelTimeProvider travelTimeProvider, Collection<Visit> visits) {
+        this(travelTimeProvider, visits, null, null);
     } */
 
-    public RouteEvaluator(Map<Integer, TravelTimeMatrix>  distanceMatrixMatrix, Collection<Visit> visits, Location officePosition) {
-        this(distanceMatrixMatrix, visits, officePosition, officePosition);
+    public RouteEvaluator(TravelTimeProvider travelTimeProvider, Collection<Visit> visits, Location officePosition) {
+        this(travelTimeProvider, visits, officePosition, officePosition);
     }
 
+    /**
+     * Copies the route evaluator. The search graph is immutable and is therefore shared with the other route evaluator,
+     * only the objectives, constraints and the buffers used during evaluation are copied.
+     */
     public RouteEvaluator(RouteEvaluator other) {
-        this.graph = new SearchGraph(other.graph);
+        this.graph = other.graph;
         this.objectiveFunctions = new ObjectiveFunctionsIntraRouteHandler(other.objectiveFunctions);
         this.constraints = new ConstraintsIntraRouteHandler(other.constraints);
         this.algorithm = new LabellingAlgorithm(graph, objectiveFunctions, constraints);
+        this.linearEvaluator = new LinearRouteEvaluator(graph, objectiveFunctions, constraints);
+        this.routeSummary = new RouteSummary(graph.getNodes().size());
         this.firstNodeList = new NodeList(graph.getNodes().size());
         this.secondNodeList = new NodeList(graph.getNodes().size());
-        this.syncedNodesStartTime = Arrays.copyOf(other.syncedNodesStartTime, other.syncedNodesStartTime.length);
+        this.nodeExtendInfo = new ExtendInfoTwoElements(firstNodeList, secondNodeList);
+        this.nodeTimes = new NodeTimes(graph.getNodes().size());
     }
 
-    public RouteEvaluator(Map<Integer, TravelTimeMatrix>  distanceMatrixMatrix, Collection<Visit> visits,
+    public RouteEvaluator(TravelTimeProvider travelTimeProvider, Collection<Visit> visits,
                           Location origin, Location destination) {
-        this.graph = new SearchGraph(distanceMatrixMatrix, visits, origin, destination);
+        this(new SearchGraph(travelTimeProvider, visits, origin, destination));
+    }
+
+    /**
+     * Creates a route evaluator on a search graph that may be shared with other route evaluators, e.g., one per shift.
+     *
+     * @param graph The search graph containing all visits that can be evaluated.
+     */
+    public RouteEvaluator(SearchGraph graph) {
+        this.graph = graph;
         this.objectiveFunctions = new ObjectiveFunctionsIntraRouteHandler();
         this.constraints = new ConstraintsIntraRouteHandler();
         this.algorithm = new LabellingAlgorithm(graph, objectiveFunctions, constraints);
+        this.linearEvaluator = new LinearRouteEvaluator(graph, objectiveFunctions, constraints);
+        this.routeSummary = new RouteSummary(graph.getNodes().size());
         this.firstNodeList = new NodeList(graph.getNodes().size());
         this.secondNodeList = new NodeList(graph.getNodes().size());
-        this.syncedNodesStartTime = new int[graph.getNodes().size()];
+        this.nodeExtendInfo = new ExtendInfoTwoElements(firstNodeList, secondNodeList);
+        this.nodeTimes = new NodeTimes(graph.getNodes().size());
     }
 
     /**
@@ -79,18 +105,15 @@ public class RouteEvaluator {
      * @param visits               The route to be evaluated, the order of the list is the order of the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
      *                             that are not in the route, this will reduce performance
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return A double value representing the objective value of the route.
      */
     // Changed to not support synced visits
-    public Double evaluateRouteObjective(List<Visit> visits, Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        ExtendInfoOneElement nodeExtendInfoOneElement = initializeOneElementEvaluator(visits, syncedVisitsStartTime);
-
-        // Lable is path + cost + time etc
-        Label bestLabel = algorithm.
-                runAlgorithm(new WeightedObjective(), nodeExtendInfoOneElement, syncedNodesStartTime, employeeWorkShift);
-        return bestLabel == null ? null : bestLabel.getObjective().getObjectiveValue();
-
+    public Double evaluateRouteObjective(List<Visit> visits, Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
+        updateFirstNodeList(visits);
+        return calcFirstNodeListObjective(employeeWorkShift);
     }
 
     /**
@@ -100,13 +123,14 @@ public class RouteEvaluator {
      *
      * @param visits                The route to be evaluated, the order of the list is the order of the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return A bool value representing the feasibility of the route.
      */
-    public boolean evaluateRouteFeasibilityForAllConstraints(List<Visit> visits, Map<Visit, Integer> syncedVisitsStartTime, 
+    public boolean evaluateRouteFeasibilityForAllConstraints(List<Visit> visits, Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule,
                                                              Shift employeeWorkShift) {
         constraints.activateCheckAllActiveAndInactiveConstraints();
-        boolean feasible = evaluateRouteObjective(visits, syncedVisitsStartTime, employeeWorkShift) != null;
+        boolean feasible = evaluateRouteObjective(visits, syncedVisitsStartTime, visitSchedule, employeeWorkShift) != null;
         constraints.deActivateCheckAllActiveAndInactiveConstraints();
         return feasible;
     }
@@ -119,12 +143,13 @@ public class RouteEvaluator {
      * @param visits                The route to be evaluated, the order of the list is the order of the route.
      * @param skipVisitsAtIndices   The indices where the visits to be removed are placed in the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return A double value representing the objective value of the route.
      */
     public Double evaluateRouteByTheOrderOfVisitsRemoveVisitObjective(List<Visit> visits, List<Integer> skipVisitsAtIndices, 
-                                                                      Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        return calcObjectiveRemoveVisit(visits, skipVisitsAtIndices, syncedVisitsStartTime, employeeWorkShift);
+                                                                      Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        return calcObjectiveRemoveVisit(visits, skipVisitsAtIndices, syncedVisitsStartTime, visitSchedule, employeeWorkShift);
     }
 
 
@@ -136,34 +161,27 @@ public class RouteEvaluator {
      * @param visits                The route to be evaluated, the order of the list is the order of the route.
      * @param skipVisitAtIndex      The the index where the task to be removed is placed in the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return A double value representing the objective value of the route.
      */
-    public Double evaluateRouteByTheOrderOfVisitsRemoveVisitObjective(List<Visit> visits, int skipVisitAtIndex, Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        return calcObjectiveRemoveVisit(visits, skipVisitAtIndex, syncedVisitsStartTime, employeeWorkShift);
+    public Double evaluateRouteByTheOrderOfVisitsRemoveVisitObjective(List<Visit> visits, int skipVisitAtIndex, Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        return calcObjectiveRemoveVisit(visits, skipVisitAtIndex, syncedVisitsStartTime, visitSchedule, employeeWorkShift);
     }
 
 
-    /**
-     * Used to initialize the route evaluator when
-     */
-    private ExtendInfoOneElement initializeOneElementEvaluator(List<Visit> visits, Map<Visit, Integer> syncedVisitsStartTime) {
-        setSyncedNodesStartTimes(syncedVisitsStartTime, visits);
-        updateFirstNodeList(visits);
-        return new ExtendInfoOneElement(firstNodeList);
-    }
-
     /**
      * Evaluates the route given by the visits input, the order of the visits is the order of the route.
      *
      * @param visits                The route to be evaluated, the order of the list is the order of the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
      *                             that are not in the route, this will reduce performance
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return A routeEvaluator result for the evaluated route.
      */
-    public RouteEvaluatorResult evaluateRouteByTheOrderOfVisits(List<Visit> visits, Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        return calcRouteEvaluatorResult(new WeightedObjective(), visits, syncedVisitsStartTime, employeeWorkShift);
+    public RouteEvaluatorResult evaluateRouteByTheOrderOfVisits(List<Visit> visits, Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        return calcRouteEvaluatorResult(new WeightedObjective(), visits, syncedVisitsStartTime, visitSchedule, employeeWorkShift);
     }
 
 
@@ -175,11 +193,12 @@ public class RouteEvaluator {
      * @param visits                The route to be evaluated, the order of the list is the order of the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
      *                             that are not in the route, this will reduce performance
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return A routeEvaluator result for the evaluated route.
      */
     /* public RouteEvaluatorResult evaluateRouteByOrderOfVisitsWithObjectiveValues(List<Visit> visits,
-                                                                                  Map<Visit, Integer> syncedVisitsStartTime,
+                                                                                  Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule,
                                                                                   Shift employeeWorkShift) {
         return calcRouteEvaluatorResult(new WeightedObjectiveWithValues(), visits, employeeWorkShift);
     } */
@@ -193,35 +212,52 @@ public class RouteEvaluator {
      * @param insertVisit           The task to be inserted into the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
      *                             that are not in the route, this will reduce performance
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return A routeEvaluator result for the evaluated route.
      */
-    public RouteEvaluatorResult evaluateRouteByTheOrderOfVisitsInsertVisit(List<Visit> visits, IVisit insertVisit, Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        return calcRouteEvaluatorResult(new WeightedObjective(), visits, insertVisit, syncedVisitsStartTime, employeeWorkShift);
+    public RouteEvaluatorResult evaluateRouteByTheOrderOfVisitsInsertVisit(List<Visit> visits, IVisit insertVisit, Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        return evaluateRouteByTheOrderOfVisitsInsertVisit(visits, RouteSummary.NO_ROUTE_VERSION, insertVisit, syncedVisitsStartTime, visitSchedule, employeeWorkShift);
+    }
+
+    /**
+     * As evaluateRouteByTheOrderOfVisitsInsertVisit, for a route identified by a version, e.g., the route of a shift in
+     * a solution. The summary of the route is then reused by later calls for the same version, as long as the times of
+     * the visit schedule and the constraints and objectives are unchanged.
+     *
+     * @param routeVersion Version of the route, it must change whenever the visits of the route change.
+     */
+    public RouteEvaluatorResult evaluateRouteByTheOrderOfVisitsInsertVisit(List<Visit> visits, long routeVersion, IVisit insertVisit, Map<Visit, Integer> syncedVisitsStartTime,
+                                                                         VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        return calcRouteEvaluatorResult(new WeightedObjective(), visits, routeVersion, insertVisit, syncedVisitsStartTime, visitSchedule, employeeWorkShift);
     }
 
     /**
      * Used to calculate objective of routes when removing one task
      */
-    private Double calcObjectiveRemoveVisit(List<Visit> visits, int skipVisitAtIndex, Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        setSyncedNodesStartTimes(syncedVisitsStartTime, visits);
+    private Double calcObjectiveRemoveVisit(List<Visit> visits, int skipVisitAtIndex, Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
         updateFirstNodeList(visits, skipVisitAtIndex);
-        ExtendInfoOneElement nodeExtendInfoOneElement = new ExtendInfoOneElement(firstNodeList);
-        Label bestLabel = algorithm.
-                runAlgorithm(new WeightedObjective(), nodeExtendInfoOneElement, syncedNodesStartTime, employeeWorkShift);
-        return bestLabel == null ? null : bestLabel.getObjective().getObjectiveValue();
+        return calcFirstNodeListObjective(employeeWorkShift);
     }
 
     /**
      * Used to calculate objective of routes when removing multiple task
      */
-    private Double calcObjectiveRemoveVisit(List<Visit> visits, List<Integer> skipVisitAtIndices, Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        setSyncedNodesStartTimes(syncedVisitsStartTime, visits);
+    private Double calcObjectiveRemoveVisit(List<Visit> visits, List<Integer> skipVisitAtIndices, Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
         updateFirstNodeList(visits, skipVisitAtIndices);
-        ExtendInfoOneElement nodeExtendInfoOneElement = new ExtendInfoOneElement(firstNodeList);
-        Label bestLabel = algorithm.
-                runAlgorithm(new WeightedObjective(), nodeExtendInfoOneElement, syncedNodesStartTime, employeeWorkShift);
-        return bestLabel == null ? null : bestLabel.getObjective().getObjectiveValue();
+        return calcFirstNodeListObjective(employeeWorkShift);
+    }
+
+    /**
+     * Used to calculate the objective of the route in the first node list. There is only one possible path when the
+     * order of the visits is fixed, hence the linear evaluator is used instead of the labelling algorithm.
+     */
+    private Double calcFirstNodeListObjective(Shift employeeWorkShift) {
+        if (!linearEvaluator.evaluate(firstNodeList, nodeTimes, employeeWorkShift, null))
+            return null;
+        return linearEvaluator.getObjectiveValue();
     }
 
 
@@ -236,12 +272,13 @@ public class RouteEvaluator {
      * @param insertVisits          The list of visits to be inserted into the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
      *                             that are not in the route, this will reduce performance
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return A routeEvaluator result for the evaluated route.
      */
     public RouteEvaluatorResult evaluateRouteByTheOrderOfVisitsInsertVisits(List<Visit> visits, List<Visit> insertVisits,
-                                                                            Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        return calcRouteEvaluatorResult(new WeightedObjective(), visits, insertVisits, syncedVisitsStartTime, employeeWorkShift);
+                                                                            Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        return calcRouteEvaluatorResult(new WeightedObjective(), visits, insertVisits, syncedVisitsStartTime, visitSchedule, employeeWorkShift);
     }
 
 
@@ -256,12 +293,13 @@ public class RouteEvaluator {
      * @param insertVisits          The list of visits to be inserted into the route.
      * @param syncedVisitsStartTime Map of ALL synced visits in the route and their start times. Should not contain visits
      *                             that are not in the route, this will reduce performance
+     * @param visitSchedule         The visit schedule of the solution, holds the time windows of the visits.
      * @param employeeWorkShift    Employee the route applies to.
      * @return The objective value for the evaluated route or null if infeasible.
      */
     public Double evaluateRouteByTheOrderOfVisitsInsertVisitsObjective(List<Visit> visits, List<Visit> insertVisits,
-                                                                       Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        return calcRouteEvaluatorObjective(new WeightedObjective(), visits, insertVisits, syncedVisitsStartTime, employeeWorkShift);
+                                                                       Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        return calcRouteEvaluatorObjective(new WeightedObjective(), visits, insertVisits, syncedVisitsStartTime, visitSchedule, employeeWorkShift);
     }
 
     /**
@@ -299,50 +337,98 @@ public class RouteEvaluator {
      * Used to calculate routes without inserting new visits.
      */
     private RouteEvaluatorResult calcRouteEvaluatorResult(IRouteEvaluatorObjective objective, List<Visit> visits, 
-                                                          Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        ExtendInfoOneElement nodeExtendInfoOneElement = initializeOneElementEvaluator(visits, syncedVisitsStartTime);
-        return algorithm.solveRouteEvaluatorResult(objective, nodeExtendInfoOneElement, syncedNodesStartTime, employeeWorkShift);
+                                                          Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
+        updateFirstNodeList(visits);
+        return linearEvaluator.solveRouteEvaluatorResult(objective, firstNodeList, nodeTimes, employeeWorkShift);
     }
 
     /**
-     * Used to calculate routes when inserting one new task
+     * Used to calculate routes when inserting one new task. The insert positions are evaluated using the summary of the
+     * route, which is reused as long as the route is unchanged. The labelling algorithm is used when the route is
+     * infeasible or the visit has no node in the search graph.
      */
-    private RouteEvaluatorResult calcRouteEvaluatorResult(IRouteEvaluatorObjective objective, List<Visit> visits, IVisit insertVisit,
-                                                          Map<Visit, Integer> syncedVisitsStartTime, Shift employeeWorkShift) {
-        setSyncedNodesStartTimes(syncedVisitsStartTime, visits);
-        setSyncedNodesStartTime(syncedVisitsStartTime, insertVisit);
+    private RouteEvaluatorResult calcRouteEvaluatorResult(IRouteEvaluatorObjective objective, List<Visit> visits, long routeVersion, IVisit insertVisit,
+                                                          Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        Node insertNode = graph.getNode(insertVisit);
+        if (insertNode != null && summarizeRoute(visits, routeVersion, syncedVisitsStartTime, visitSchedule, employeeWorkShift)) {
+            // Set from the same schedule as the route, hence it does not change the node times of the route
+            setNodeTime(visitSchedule, syncedVisitsStartTime, insertVisit);
+            int insertIndex = linearEvaluator.findBestInsertIndex(routeSummary, insertNode, nodeTimes, employeeWorkShift);
+            if (insertIndex < 0)
+                return null;
+            firstNodeList.initializeWithNodes(graph, visits, insertNode, insertIndex);
+            return linearEvaluator.solveRouteEvaluatorResult(objective, firstNodeList, nodeTimes, employeeWorkShift);
+        }
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, insertVisit);
         updateFirstNodeList(visits);
         updateSecondNodeList(insertVisit);
-        ExtendInfoTwoElements nodeExtendInfoTwoElements = new ExtendInfoTwoElements(firstNodeList, secondNodeList);
-        return algorithm.solveRouteEvaluatorResult(objective, nodeExtendInfoTwoElements, syncedNodesStartTime, employeeWorkShift);
+        return algorithm.solveRouteEvaluatorResult(objective, nodeExtendInfo, nodeTimes, employeeWorkShift);
     }
 
     /**
      * Used to calculate routes when inserting multiple new visits.
      */
     private RouteEvaluatorResult calcRouteEvaluatorResult(IRouteEvaluatorObjective objective, List<Visit> visits, List<Visit> insertVisits,
-                                                          Map<Visit, Integer> syncedVisitsStartTime,  Shift employeeWorkShift) {
-        setSyncedNodesStartTimes(syncedVisitsStartTime, visits);
-        setSyncedNodesStartTimes(syncedVisitsStartTime, insertVisits);
+                                                          Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, insertVisits);
         updateFirstNodeList(visits);
         updateSecondNodeList(insertVisits);
-        ExtendInfoTwoElements nodeExtendInfoTwoElements = new ExtendInfoTwoElements(firstNodeList, secondNodeList);
-        return algorithm.solveRouteEvaluatorResult(objective, nodeExtendInfoTwoElements, syncedNodesStartTime, employeeWorkShift);
+        return algorithm.solveRouteEvaluatorResult(objective, nodeExtendInfo, nodeTimes, employeeWorkShift);
     }
 
     /**
      * Used to calculate routes when inserting multiple new visits.
      */
     private Double calcRouteEvaluatorObjective(IRouteEvaluatorObjective objective, List<Visit> visits, List<Visit> insertVisits,
-                                               Map<Visit, Integer> syncedVisitsStartTime,  Shift employeeWorkShift) {
-        setSyncedNodesStartTimes(syncedVisitsStartTime, visits);
-        setSyncedNodesStartTimes(syncedVisitsStartTime, insertVisits);
+                                               Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
+        setNodeTimes(visitSchedule, syncedVisitsStartTime, insertVisits);
         updateFirstNodeList(visits);
         updateSecondNodeList(insertVisits);
-        ExtendInfoTwoElements nodeExtendInfoTwoElements = new ExtendInfoTwoElements(firstNodeList, secondNodeList);
-        return algorithm.solveRouteEvaluatorObjective(objective, nodeExtendInfoTwoElements, syncedNodesStartTime, employeeWorkShift);
+        return algorithm.solveRouteEvaluatorObjective(objective, nodeExtendInfo, nodeTimes, employeeWorkShift);
+    }
+
+
+    /**
+     * Ensures the route summary describes the route and that the node times of the visits of the route are set. When
+     * the summary is valid for the versions of the route and of the times of the schedule this takes constant time,
+     * unless the node times have been overwritten by the evaluation of another route.
+     *
+     * @return True if the route is feasible, and hence the summary can be used.
+     */
+    private boolean summarizeRoute(List<Visit> visits, long routeVersion, Map<Visit, Integer> syncedVisitsStartTime,
+                                   VisitSchedule visitSchedule, Shift employeeWorkShift) {
+        long timesVersion = visitSchedule.getTimesVersion();
+        if (routeSummary.isValidFor(routeVersion, timesVersion, employeeWorkShift,
+                constraints.getModificationCount(), objectiveFunctions.getModificationCount())) {
+            if (!routeSummary.isFeasible())
+                return false;
+            if (nodeTimesRouteVersion != routeVersion || nodeTimesTimesVersion != timesVersion)
+                setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
+        } else {
+            setNodeTimes(visitSchedule, syncedVisitsStartTime, visits);
+            updateFirstNodeList(visits);
+            linearEvaluator.summarize(routeSummary, routeVersion, timesVersion, firstNodeList, nodeTimes, employeeWorkShift);
+            routeSummaryCount++;
+        }
+        nodeTimesRouteVersion = routeVersion;
+        nodeTimesTimesVersion = timesVersion;
+        return routeSummary.isFeasible();
+    }
+
+    /**
+     * Invalidates the summary of the route, must be called when the route of the shift changes.
+     */
+    public void invalidateRouteSummary() {
+        routeSummary.invalidate();
     }
 
+    int getRouteSummaryCount() {
+        return routeSummaryCount;
+    }
 
     private void updateFirstNodeList(List<Visit> visits) {
         firstNodeList.initializeWithNodes(graph, visits);
@@ -364,23 +450,36 @@ public class RouteEvaluator {
         secondNodeList.initializeWithNodes(graph, visits);
     }
 
-    private void setSyncedNodesStartTimes(Map<Visit, Integer> syncedVisitsStartTime, Collection<Visit> visits) {
+    private void setNodeTimes(VisitSchedule visitSchedule, Map<Visit, Integer> syncedVisitsStartTime, Collection<Visit> visits) {
+        nodeTimesRouteVersion = RouteSummary.NO_ROUTE_VERSION;
         for (Visit visit : visits)
-            setSyncedNodesStartTime(syncedVisitsStartTime, visit);
+            setNodeTime(visitSchedule, syncedVisitsStartTime, visit);
     }
 
-    private void setSyncedNodesStartTime(Map<Visit, Integer> syncedVisitsStartTime, IVisit visit) {
-        if (visit.isSynced())
-            setStartTime(visit, syncedVisitsStartTime.get(visit));
+    private void setNodeTimes(VisitSchedule visitSchedule, Map<Visit, Integer> syncedVisitsStartTime, IVisit insertVisit) {
+        nodeTimesRouteVersion = RouteSummary.NO_ROUTE_VERSION;
+        setNodeTime(visitSchedule, syncedVisitsStartTime, insertVisit);
     }
 
-    public boolean hasObjective(String name) {
-        return objectiveFunctions.hasObjective(name);
+    /**
+     * Sets the time window and synced start time of the node of the visit. Visits without a time window in the visit
+     * schedule are evaluated with an open time window. Visits without a node in the search graph, e.g., transport
+     * requests, are ignored.
+     */
+    private void setNodeTime(VisitSchedule visitSchedule, Map<Visit, Integer> syncedVisitsStartTime, IVisit insertVisit) {
+        if (!(insertVisit instanceof Visit))
+            return;
+        Visit visit = (Visit) insertVisit;
+        Node node = graph.getNode(visit);
+        int syncedStartTime = visitSchedule.isSynced(visit) ? syncedVisitsStartTime.get(visit) : NodeTimes.NOT_SYNCED;
+        if (visitSchedule.hasTimeWindow(visit))
+            nodeTimes.set(node, visitSchedule.getTimeWindowStart(visit), visitSchedule.getTimeWindowEnd(visit), syncedStartTime);
+        else
+            nodeTimes.set(node, 0, NodeTimes.OPEN_TIME_WINDOW_END, syncedStartTime);
     }
 
-    private void setStartTime(IVisit visit, int startTime) {
-        Node node = graph.getNode(visit);
-        syncedNodesStartTime[node.getNodeId()] = startTime;
+    public boolean hasObjective(String name) {
+        return objectiveFunctions.hasObjective(name);
     }
 
     public ObjectiveFunctionsIntraRouteHandler getObjectiveFunctions() {
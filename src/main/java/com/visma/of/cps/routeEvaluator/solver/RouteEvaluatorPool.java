@@ -0,0 +1,71 @@
+package com.visma.of.cps.routeEvaluator.solver;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Hands out route evaluators that are confined to the calling thread. The route evaluators hold buffers that are
+ * changed during evaluation, hence a route evaluator can not be used by several threads at the same time. The pool
+ * keeps one copy of each route evaluator per thread, made the first time the thread asks for it.
+ * <p>
+ * When the active objectives or constraints of the route evaluators are changed, update must be called before they are
+ * next used in parallel. The copies are then updated from their route evaluator the next time they are handed out.
+ * Update must not be called while other threads are using the pool.
+ */
+public class RouteEvaluatorPool {
+
+    private final ThreadLocal<Map<RouteEvaluator, PooledRouteEvaluator>> pooledRouteEvaluators;
+    private volatile long version;
+
+    public RouteEvaluatorPool() {
+        this.pooledRouteEvaluators = ThreadLocal.withInitial(IdentityHashMap::new);
+    }
+
+    /**
+     * Marks all copies as outdated, such that they are updated from their route evaluator the next time they are used.
+     */
+    public void update() {
+        version++;
+    }
+
+    /**
+     * @param routeEvaluator Route evaluator to get the copy of.
+     * @return The copy of the route evaluator confined to the calling thread.
+     */
+    public RouteEvaluator get(RouteEvaluator routeEvaluator) {
+        Map<RouteEvaluator, PooledRouteEvaluator> pooled = pooledRouteEvaluators.get();
+        PooledRouteEvaluator pooledRouteEvaluator = pooled.get(routeEvaluator);
+        long currentVersion = version;
+        if (pooledRouteEvaluator == null) {
+            pooledRouteEvaluator = new PooledRouteEvaluator(new RouteEvaluator(routeEvaluator), currentVersion);
+            pooled.put(routeEvaluator, pooledRouteEvaluator);
+        } else if (pooledRouteEvaluator.version != currentVersion) {
+            pooledRouteEvaluator.routeEvaluator.update(routeEvaluator);
+            pooledRouteEvaluator.version = currentVersion;
+        }
+        return pooledRouteEvaluator.routeEvaluator;
+    }
+
+    /**
+     * @param routeEvaluators Route evaluators by shift id.
+     * @return The copies of the route evaluators confined to the calling thread, by shift id.
+     */
+    public Map<Integer, RouteEvaluator> get(Map<Integer, RouteEvaluator> routeEvaluators) {
+        Map<Integer, RouteEvaluator> threadRouteEvaluators = new HashMap<>();
+        for (Map.Entry<Integer, RouteEvaluator> entry : routeEvaluators.entrySet()) {
+            threadRouteEvaluators.put(entry.getKey(), get(entry.getValue()));
+        }
+        return threadRouteEvaluators;
+    }
+
+    private static class PooledRouteEvaluator {
+        private final RouteEvaluator routeEvaluator;
+        private long version;
+
+        private PooledRouteEvaluator(RouteEvaluator routeEvaluator, long version) {
+            this.routeEvaluator = routeEvaluator;
+            this.version = version;
+        }
+    }
+}
@@ -1,60 +1,31 @@
 package com.visma.of.cps.routeEvaluator.solver.algorithm;
 
-import java.util.Enumeration;
-
 /**
- * This class implement the IExtendInfo, it has two elements.
+ * This class implement the IExtendInfo, it has one element.
  */
 public class ExtendInfoOneElement implements IExtendInfo {
 
     NodeList nodeListOne;
-    Node node;
 
     public ExtendInfoOneElement(NodeList nodeListOne) {
         this.nodeListOne = nodeListOne;
     }
 
-    /**
-     * Check if there is a node that corresponds to the resource count, if not it
-     * can be interpreted as if all nodes on the nodeListOne has been visited.
-     *
-     * @param label Label to extend.
-     * @return Enumeration.
-     */
     @Override
-    public Enumeration<ExtendToInfo> extend(Label label) {
-        node = nodeListOne.getNode(label.getResources().getElementOneCount());
-        return new ExtendInfoOneElementEnumerator();
+    public int getNumberOfNodeSets() {
+        return 1;
     }
 
     /**
-     * Creates an resource with one element, corresponding to one nodeList. This points to the first node
-     * on the first nodeList.
+     * Check if there is a node that corresponds to the resource count, if not it
+     * can be interpreted as if all nodes on the nodeListOne has been visited.
      *
-     * @return ResourceOneElement.
+     * @param resources           Packed resources of the label to extend.
+     * @param extendNodeSetNumber Node set to extend to.
+     * @return The node or null.
      */
     @Override
-    public IResource createEmptyResource() {
-        return new ResourceOneElement(0);
-    }
-
-    /**
-     * An private implementation of enumeration. If there is a node to extend to,
-     * then ExtendInfo is returned for that node. There can only be one or zero elements.
-     */
-    private class ExtendInfoOneElementEnumerator implements Enumeration<ExtendToInfo> {
-
-        boolean next = (node != null);
-
-        @Override
-        public boolean hasMoreElements() {
-            return next;
-        }
-
-        @Override
-        public ExtendToInfo nextElement() {
-            next = false;
-            return new ExtendToInfo(node, 1);
-        }
+    public Node getNextNode(long resources, int extendNodeSetNumber) {
+        return nodeListOne.getNode(LabelResources.getElementOneCount(resources));
     }
 }
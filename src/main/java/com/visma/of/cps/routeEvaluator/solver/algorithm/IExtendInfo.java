@@ -1,26 +1,23 @@
 package com.visma.of.cps.routeEvaluator.solver.algorithm;
 
-import java.util.Enumeration;
-
 /**
- * The interface is used to find nodes to extend a label to this is returned as a part of the ExtendToInfo along with
- * the node set the node belongs to.
+ * The interface is used to find the nodes a label can be extended to, given the resources of the label. The node
+ * sets are numbered from 1, the node a label is extended to in a node set also decides how its resources are
+ * extended, see LabelResources.
  */
 interface IExtendInfo {
 
     /**
-     * Return an enumeration of the potential ways to extend the label.
-     *
-     * @param label Label to extend.
-     * @return Enumeration.
+     * @return The number of node sets, i.e., the highest node set number.
      */
-    Enumeration<ExtendToInfo> extend(Label label);
+    int getNumberOfNodeSets();
 
     /**
-     * Must create and return an empty IResource that is the same as the
-     * implementation of the IExtendInfo use when extending labels.
+     * Finds the node a label with the given resources can be extended to in the node set.
      *
-     * @return IResource.
+     * @param resources           Packed resources of the label to extend.
+     * @param extendNodeSetNumber Node set to extend to, from 1 to the number of node sets.
+     * @return The node, or null if all the nodes in the set has been visited.
      */
-    IResource createEmptyResource();
+    Node getNextNode(long resources, int extendNodeSetNumber);
 }
@@ -0,0 +1,182 @@
+package com.visma.of.cps.routeEvaluator.solver.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Holds the labels of the labelling algorithm. A label is an index into the arena, and its fields are stored in one
+ * array per field, such that creating a label creates no objects. The arena is cleared before every run of the
+ * algorithm and the arrays are only grown when a run needs more labels than any run before it.
+ * <p>
+ * The resources of a label are packed into a long, see LabelResources. The previous label of the start label is -1.
+ */
+public class LabelArena {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] previous;
+    private Node[] nodes;
+    private int[] currentTimes;
+    private int[] travelTimes;
+    private int[] shiftStartTimes;
+    private double[] objectiveValues;
+    private long[] resources;
+    private boolean[] closed;
+    private int size;
+
+    public LabelArena() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LabelArena(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.previous = new int[capacity];
+        this.nodes = new Node[capacity];
+        this.currentTimes = new int[capacity];
+        this.travelTimes = new int[capacity];
+        this.shiftStartTimes = new int[capacity];
+        this.objectiveValues = new double[capacity];
+        this.resources = new long[capacity];
+        this.closed = new boolean[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Adds a label to the arena.
+     *
+     * @param previous       Label this label is extended from, or -1 for the start label.
+     * @param node           Node the label is on.
+     * @param currentTime    The start of service at the node.
+     * @param travelTime     Travel time from the previous node.
+     * @param shiftStartTime The time the shift started.
+     * @param objectiveValue Objective value of the path to the label.
+     * @param resources      Packed resources of the label.
+     * @return The label.
+     */
+    public int add(int previous, Node node, int currentTime, int travelTime, int shiftStartTime, double objectiveValue,
+                   long resources) {
+        if (size == this.previous.length)
+            grow();
+        int label = size++;
+        this.previous[label] = previous;
+        this.nodes[label] = node;
+        this.currentTimes[label] = currentTime;
+        this.travelTimes[label] = travelTime;
+        this.shiftStartTimes[label] = shiftStartTime;
+        this.objectiveValues[label] = objectiveValue;
+        this.resources[label] = resources;
+        this.closed[label] = false;
+        return label;
+    }
+
+    private void grow() {
+        int capacity = previous.length << 1;
+        previous = Arrays.copyOf(previous, capacity);
+        nodes = Arrays.copyOf(nodes, capacity);
+        currentTimes = Arrays.copyOf(currentTimes, capacity);
+        travelTimes = Arrays.copyOf(travelTimes, capacity);
+        shiftStartTimes = Arrays.copyOf(shiftStartTimes, capacity);
+        objectiveValues = Arrays.copyOf(objectiveValues, capacity);
+        resources = Arrays.copyOf(resources, capacity);
+        closed = Arrays.copyOf(closed, capacity);
+    }
+
+    /**
+     * Removes all labels. The node references are kept until they are overwritten, the nodes belong to the search
+     * graph which outlives the arena.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return previous.length;
+    }
+
+    public int getPrevious(int label) {
+        return previous[label];
+    }
+
+    public Node getNode(int label) {
+        return nodes[label];
+    }
+
+    /**
+     * The start of service of the current task.
+     *
+     * @return Time in seconds
+     */
+    public int getCurrentTime(int label) {
+        return currentTimes[label];
+    }
+
+    /**
+     * Travel time from the previous location.
+     *
+     * @return Time in seconds
+     */
+    public int getTravelTime(int label) {
+        return travelTimes[label];
+    }
+
+    public int getShiftStartTime(int label) {
+        return shiftStartTimes[label];
+    }
+
+    public double getObjectiveValue(int label) {
+        return objectiveValues[label];
+    }
+
+    public long getResources(int label) {
+        return resources[label];
+    }
+
+    public boolean isClosed(int label) {
+        return closed[label];
+    }
+
+    public void close(int label) {
+        closed[label] = true;
+    }
+
+    /**
+     * Check if a label is being dominated by another label. Return -1 if this is dominating, 0 if equal,
+     * 1 if other dominates and 2 if neither dominates.
+     *
+     * @param label Label being compared.
+     * @param other Label being compared to the label.
+     * @return Integer indicating which label is dominated.
+     */
+    public int dominates(int label, int other) {
+        int compResources = LabelResources.dominates(resources[label], resources[other]);
+        if (compResources == 2)
+            return 2;
+
+        int compCurrentTime = Integer.compare(currentTimes[label], currentTimes[other]);
+        int compObjective = Double.compare(objectiveValues[label], objectiveValues[other]);
+
+        if (compCurrentTime == 0 && compObjective == 0 && compResources == 0)
+            return 0;
+        else if (compCurrentTime <= 0 && compObjective <= 0 && compResources <= 0)
+            return -1;
+        else if (compCurrentTime >= 0 && compObjective >= 0 && compResources >= 0)
+            return 1;
+        else
+            return 2;
+    }
+
+    /**
+     * Orders labels by objective value, and by the order they were created when the values are equal.
+     */
+    public int compare(int label, int other) {
+        int compObjective = Double.compare(objectiveValues[label], objectiveValues[other]);
+        return compObjective != 0 ? compObjective : Integer.compare(label, other);
+    }
+
+    public String toString(int label) {
+        return nodes[label].getNodeId() + ", " + objectiveValues[label] + " " + LabelResources.toString(resources[label]);
+    }
+}
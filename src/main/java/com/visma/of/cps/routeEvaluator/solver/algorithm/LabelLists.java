@@ -1,26 +1,28 @@
 package com.visma.of.cps.routeEvaluator.solver.algorithm;
 
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * The label lists class is used within the labelling algorithm to handle labels on the node.
  * The class handles the labels on the nodes, when new labels are considered to be added it is checked whether
  * they are dominated by existing labels. If they are, they are not added otherwise they are added.
  * If they dominate other labels those labels are removed from the list.
+ * The labels are indices in the label arena of the labelling algorithm.
  */
 public class LabelLists {
     private static final int DEFAULT_CAPACITY = 10;
 
-    private final Label[][] elements;
+    private final LabelArena arena;
+    private final int[][] elements;
     private final int[] elementCnt;
 
-    public LabelLists(int nodes) {
-        this(nodes, DEFAULT_CAPACITY);
+    public LabelLists(LabelArena arena, int nodes) {
+        this(arena, nodes, DEFAULT_CAPACITY);
     }
 
-    public LabelLists(int nodes, int labelCapacity) {
-        this.elements = new Label[nodes][labelCapacity];
+    public LabelLists(LabelArena arena, int nodes, int labelCapacity) {
+        this.arena = arena;
+        this.elements = new int[nodes][labelCapacity];
         this.elementCnt = new int[nodes];
     }
 
@@ -32,7 +34,7 @@ public class LabelLists {
      * @param label The label to be added.
      * @return True if the label is added, otherwise false.
      */
-    public boolean addLabelOnNode(Node node, Label label) {
+    public boolean addLabelOnNode(Node node, int label) {
         int nodeId = node.getNodeId();
         if (canNotBeAdded(label, nodeId)) {
             return false;
@@ -53,13 +55,13 @@ public class LabelLists {
      * @param nodeId Node to add the label to.
      * @return True if the label can be added to the node, otherwise false.
      */
-    private boolean canNotBeAdded(Label label, int nodeId) {
+    private boolean canNotBeAdded(int label, int nodeId) {
         int labelCnt = elementCnt[nodeId];
-        Label[] labelsOnNode = elements[nodeId];
+        int[] labelsOnNode = elements[nodeId];
 
         int i = 0;
         while (i < labelCnt) {
-            int dominates = labelsOnNode[i].dominates(label);
+            int dominates = arena.dominates(labelsOnNode[i], label);
             if (dominates <= 0) {
                 // not possible to add as it is dominated
                 return true;
@@ -67,9 +69,8 @@ public class LabelLists {
 
             if (dominates == 1) {
                 // remove dominated label
-                labelsOnNode[i].close();
+                arena.close(labelsOnNode[i]);
                 labelsOnNode[i] = labelsOnNode[labelCnt - 1];
-                labelsOnNode[labelCnt - 1] = null;
                 labelCnt--;
                 continue;
             }
@@ -96,8 +97,8 @@ public class LabelLists {
         return oldCapacity + (oldCapacity << 1);
     }
 
-    public List<Label> findLabels(Node node) {
-        return Arrays.asList(elements[node.getNodeId()]).subList(0, elementCnt[node.getNodeId()]);
+    public int[] findLabels(Node node) {
+        return Arrays.copyOf(elements[node.getNodeId()], elementCnt[node.getNodeId()]);
     }
 
     public int size(Node node) {
@@ -105,12 +106,7 @@ public class LabelLists {
     }
 
     public void clear() {
-        for (int i = 0; i < elementCnt.length; i++) {
-            for (int j = 0; j < elementCnt[i]; j++) {
-                elements[i][j] = null;
-            }
-            elementCnt[i] = 0;
-        }
+        Arrays.fill(elementCnt, 0);
     }
 
     public int getLabelCapacity(Node node) {
@@ -0,0 +1,88 @@
+package com.visma.of.cps.routeEvaluator.solver.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue of the unextended labels in the labelling algorithm. It is a binary heap of label indices in the
+ * label arena, ordered by the objective value of the labels, see LabelArena.compare. Polling returns the label with
+ * the lowest objective value.
+ */
+public class LabelQueue {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final LabelArena arena;
+    private int[] heap;
+    private int size;
+
+    public LabelQueue(LabelArena arena) {
+        this(arena, DEFAULT_CAPACITY);
+    }
+
+    public LabelQueue(LabelArena arena, int capacity) {
+        this.arena = arena;
+        this.heap = new int[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    public void add(int label) {
+        if (size == heap.length)
+            heap = Arrays.copyOf(heap, heap.length << 1);
+        int index = size++;
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+            if (arena.compare(label, parent) >= 0)
+                break;
+            heap[index] = parent;
+            index = parentIndex;
+        }
+        heap[index] = label;
+    }
+
+    /**
+     * Removes and returns the label with the lowest objective value.
+     *
+     * @return The label, or -1 if the queue is empty.
+     */
+    public int poll() {
+        if (size == 0)
+            return -1;
+        int first = heap[0];
+        int last = heap[--size];
+        if (size > 0)
+            siftDown(last);
+        return first;
+    }
+
+    private void siftDown(int label) {
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int childIndex = (index << 1) + 1;
+            int child = heap[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && arena.compare(heap[rightIndex], child) < 0) {
+                childIndex = rightIndex;
+                child = heap[childIndex];
+            }
+            if (arena.compare(label, child) <= 0)
+                break;
+            heap[index] = child;
+            index = childIndex;
+        }
+        heap[index] = label;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
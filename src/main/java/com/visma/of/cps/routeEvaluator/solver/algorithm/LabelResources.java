@@ -0,0 +1,64 @@
+package com.visma.of.cps.routeEvaluator.solver.algorithm;
+
+/**
+ * The resources of a label packed into a long. The resources count how many nodes of each node list the label has
+ * visited, node list one in the lower 32 bits and node list two in the upper 32 bits. The empty resource is 0.
+ * Node set numbers are as for the extend info, 1 and 2 for the node lists and 0 for nodes that do not belong to a
+ * list, i.e., the destination.
+ */
+public final class LabelResources {
+
+    public static final long EMPTY = 0L;
+    private static final long ELEMENT_MASK = 0xFFFFFFFFL;
+
+    private LabelResources() {
+    }
+
+    public static int getElementOneCount(long resources) {
+        return (int) (resources & ELEMENT_MASK);
+    }
+
+    public static int getElementTwoCount(long resources) {
+        return (int) (resources >>> 32);
+    }
+
+    /**
+     * Returns the resources after extending to a node in the given node set.
+     *
+     * @param resources           Resources to extend.
+     * @param extendNodeSetNumber The node set the node extended to belongs to.
+     * @return New resources.
+     */
+    public static long extend(long resources, int extendNodeSetNumber) {
+        if (extendNodeSetNumber == 1)
+            return resources + 1;
+        else if (extendNodeSetNumber == 2)
+            return resources + (1L << 32);
+        else
+            return resources;
+    }
+
+    /**
+     * The dominate function returns: -1 if resources dominates other, 0 if equal, 1 if other dominates resources and
+     * 2 if they are not equal and neither dominates the other. Having visited more nodes is better.
+     *
+     * @param resources Resources that are compared.
+     * @param other     Resources compared to.
+     * @return integer.
+     */
+    public static int dominates(long resources, long other) {
+        if (resources == other)
+            return 0;
+        int compOne = Integer.compare(getElementOneCount(resources), getElementOneCount(other));
+        int compTwo = Integer.compare(getElementTwoCount(resources), getElementTwoCount(other));
+        if (compOne >= 0 && compTwo >= 0)
+            return -1;
+        if (compOne <= 0 && compTwo <= 0)
+            return 1;
+        return 2;
+    }
+
+    public static String toString(long resources) {
+        return "ElementOneCount = " + getElementOneCount(resources) + ", ElementTwoCount = " + getElementTwoCount(resources);
+    }
+}
@@ -3,7 +3,7 @@ package com.visma.of.cps.routeEvaluator.solver.algorithm;
 import com.visma.of.cps.model.Shift;
 import com.visma.of.cps.model.Visit;
 import com.visma.of.cps.routeEvaluator.evaluation.constraint.ConstraintsIntraRouteHandler;
-import com.visma.of.cps.routeEvaluator.evaluation.info.ConstraintInfo;
+import com.visma.of.cps.routeEvaluator.evaluation.info.ObjectiveInfo;
 import com.visma.of.cps.routeEvaluator.evaluation.objective.ObjectiveFunctionsIntraRouteHandler;
 import com.visma.of.cps.routeEvaluator.results.Route;
 import com.visma.of.cps.routeEvaluator.results.RouteEvaluatorResult;
@@ -14,50 +14,59 @@ import java.util.*;
 /**
  * The labelling algorithm is a resource constrained shortest path algorithm.
  * It finds the minimum cost path from the office through all tasks in the given order.
+ * <p>
+ * The labels are held in a label arena and the unextended labels in a label queue, both are reused between runs, as
+ * is the objective info. Hence, once the arena has grown to the size needed, running the algorithm
+ * creates no objects. Labels carry the weighted objective value, the objective given is only created for the best
+ * route when the route evaluator result is built, by incrementing it along the route.
  */
 public class LabellingAlgorithm {
 
     private final SearchGraph graph;
     private final ObjectiveFunctionsIntraRouteHandler objectiveFunctions;
     private final ConstraintsIntraRouteHandler constraints;
-    private final Queue<Label> unExtendedLabels;
-    private final Label[] labels;
-    private final List<Visit> visits;
+    private final LabelArena arena;
+    private final LabelQueue unExtendedLabels;
     private final LabelLists labelLists;
-    private Label bestLabelOnDestination;
+    private final ObjectiveInfo objectiveInfo;
+    private final int[] labels;
+    private final List<Visit> visits;
+    private int bestLabelOnDestination;
     private IExtendInfo nodeExtendInfo;
-    private int[] syncedNodesStartTime;
+    private NodeTimes nodeTimes;
     private Shift employeeWorkShift;
 
     public LabellingAlgorithm(SearchGraph graph, ObjectiveFunctionsIntraRouteHandler objectiveFunctions, ConstraintsIntraRouteHandler constraints) {
         this.graph = graph;
         this.objectiveFunctions = objectiveFunctions;
         this.constraints = constraints;
-        this.labels = new Label[graph.getNodes().size()];
+        this.arena = new LabelArena(4 * graph.getNodes().size());
+        this.unExtendedLabels = new LabelQueue(arena, graph.getNodes().size());
+        this.labelLists = new LabelLists(arena, graph.getNodes().size());
+        this.objectiveInfo = new ObjectiveInfo();
+        this.labels = new int[graph.getNodes().size() + 1];
         this.visits = new ArrayList<>();
         for (int i = 0; i < graph.getNodes().size(); i++) // Ensures that the array can hold the maximum potential entries, i.e, all tasks.
             visits.add(null);
-        this.labelLists = new LabelLists(graph.getNodes().size());
-        this.unExtendedLabels = new PriorityQueue<>(Label::compareTo);
-        this.bestLabelOnDestination = null;
+        this.bestLabelOnDestination = -1;
     }
 
     /**
-     * Solves the labelling algorithm and returns the objective value of the route.
+     * Solves the labelling algorithm and finds the label of the best route on the destination.
      *
-     * @param nodeExtendInfo       Information on how to extend labels and which resources to use.
-     * @param syncedNodesStartTime Intended start time of synced tasks.
-     * @param employeeWorkShift    Employee to simulate route for.
-     * @param objective            Starting objective.
-     * @return Total fitness value, null if infeasible.
+     * @param initialObjectiveValue Starting objective value.
+     * @param nodeExtendInfo        Information on how to extend labels.
+     * @param nodeTimes             Time windows and intended start time of synced tasks.
+     * @param employeeWorkShift     Employee to simulate route for.
+     * @return The best label in the label arena, -1 if infeasible.
      */
-    public Label runAlgorithm(IRouteEvaluatorObjective objective, IExtendInfo nodeExtendInfo, int[] syncedNodesStartTime, Shift employeeWorkShift) {
+    public int runAlgorithm(double initialObjectiveValue, IExtendInfo nodeExtendInfo, NodeTimes nodeTimes, Shift employeeWorkShift) {
         this.labelLists.clear();
-        IResource startResource = nodeExtendInfo.createEmptyResource();
-        Label startLabel = createStartLabel(objective, employeeWorkShift.getStartTime(), startResource);
+        this.arena.clear();
         this.nodeExtendInfo = nodeExtendInfo;
-        this.syncedNodesStartTime = syncedNodesStartTime;
+        this.nodeTimes = nodeTimes;
         this.employeeWorkShift = employeeWorkShift;
+        int startLabel = createStartLabel(initialObjectiveValue, employeeWorkShift.getStartTime());
         solveLabellingAlgorithm(startLabel);
         return this.bestLabelOnDestination;
     }
@@ -65,52 +74,65 @@ public class LabellingAlgorithm {
     /**
      * Solves the labelling algorithm and returns the route simulator result.
      *
-     * @param nodeExtendInfo       Information on how to extend labels and which resources to use.
-     * @param syncedNodesStartTime Intended start time of synced tasks.
+     * @param nodeExtendInfo       Information on how to extend labels.
+     * @param nodeTimes            Time windows and intended start time of synced tasks.
      * @param employeeWorkShift    Employee to simulate route for.
      * @param initialObjective     Starting objective.
      * @return RouteEvaluatorResult or null if route is infeasible.
      */
-    public RouteEvaluatorResult solveRouteEvaluatorResult(IRouteEvaluatorObjective initialObjective, IExtendInfo nodeExtendInfo, int[] syncedNodesStartTime, Shift employeeWorkShift) {
-        Label bestLabel = runAlgorithm(initialObjective, nodeExtendInfo, syncedNodesStartTime, employeeWorkShift);
-        if (bestLabel == null)
+    public RouteEvaluatorResult solveRouteEvaluatorResult(IRouteEvaluatorObjective initialObjective, IExtendInfo nodeExtendInfo, NodeTimes nodeTimes, Shift employeeWorkShift) {
+        int bestLabel = runAlgorithm(initialObjective.getObjectiveValue(), nodeExtendInfo, nodeTimes, employeeWorkShift);
+        if (bestLabel < 0)
             return null;
-        return buildRouteEvaluatorResult(bestLabel);
+        return buildRouteEvaluatorResult(initialObjective, bestLabel);
     }
 
     /**
-     * Solves the labelling algorithm and returns the route simulator result.
+     * Solves the labelling algorithm and returns the objective value of the route.
      *
-     * @param nodeExtendInfo       Information on how to extend labels and which resources to use.
-     * @param syncedNodesStartTime Intended start time of synced tasks.
+     * @param nodeExtendInfo       Information on how to extend labels.
+     * @param nodeTimes            Time windows and intended start time of synced tasks.
      * @param employeeWorkShift    Employee to simulate route for.
      * @param initialObjective     Starting objective.
      * @return Objective value or null if route is infeasible.
      */
-    public double solveRouteEvaluatorObjective(IRouteEvaluatorObjective initialObjective, IExtendInfo nodeExtendInfo, int[] syncedNodesStartTime, Shift employeeWorkShift) {
-        Label bestLabel = runAlgorithm(initialObjective, nodeExtendInfo, syncedNodesStartTime, employeeWorkShift);
-        return bestLabel.getObjective().getObjectiveValue();
+    public Double solveRouteEvaluatorObjective(IRouteEvaluatorObjective initialObjective, IExtendInfo nodeExtendInfo, NodeTimes nodeTimes, Shift employeeWorkShift) {
+        int bestLabel = runAlgorithm(initialObjective.getObjectiveValue(), nodeExtendInfo, nodeTimes, employeeWorkShift);
+        if (bestLabel < 0)
+            return null;
+        return arena.getObjectiveValue(bestLabel);
     }
 
-
     /**
-     * Extract the solution from the labels and builds the route evaluator results and the visits with the respective information.
+     * Extract the solution from the labels and builds the route evaluator results, the route holds the schedule of the
+     * visits.
+     * The objective is incremented along the route in the same order as when the labels were extended, hence its
+     * value is the same as the objective value of the label.
      *
-     * @param bestLabel Label representing the best route for the employee work shift.
+     * @param initialObjective Starting objective.
+     * @param bestLabel        Label representing the best route for the employee work shift.
      * @return Results of the route.
      */
-    private RouteEvaluatorResult buildRouteEvaluatorResult(Label bestLabel) {
+    private RouteEvaluatorResult buildRouteEvaluatorResult(IRouteEvaluatorObjective initialObjective, int bestLabel) {
+        IRouteEvaluatorObjective objective = initialObjective.initializeNewObjective();
+        int labelCnt = collectLabels(bestLabel);
+        for (int i = labelCnt - 1; i >= 0; i--) {
+            int label = labels[i];
+            Node node = arena.getNode(label);
+            setObjectiveInfo(node, arena.getTravelTime(label), arena.getCurrentTime(label), nodeTimes.getSyncedStartTime(node));
+            objectiveFunctions.incrementObjective(objective, objectiveInfo);
+        }
         Route route = new Route();
-        route.setRouteFinishedAtTime(bestLabel.getCurrentTime());
-        extractVisitsAndSyncedStartTime(bestLabel, route);
-        return new RouteEvaluatorResult(bestLabel.getObjective(), route);
+        route.setRouteFinishedAtTime(arena.getCurrentTime(bestLabel));
+        extractVisitsAndSyncedStartTime(labelCnt, route);
+        return new RouteEvaluatorResult(objective, route);
     }
 
-    private void solveLabellingAlgorithm(Label startLabel) {
+    private void solveLabellingAlgorithm(int startLabel) {
         unExtendedLabels.clear();
-        bestLabelOnDestination = null;
-        Label currentLabel = startLabel;
-        while (currentLabel != null) {
+        bestLabelOnDestination = -1;
+        int currentLabel = startLabel;
+        while (currentLabel >= 0) {
             extendLabelToAllPossibleVisits(currentLabel);
             currentLabel = findNextLabel();
             if (optimalSolutionFound(currentLabel))
@@ -119,29 +141,30 @@ public class LabellingAlgorithm {
     }
 
     /**
-     * Extends a label to the next node and returns the label to be put on that node.
+     * Extends a label to the next node and adds the label to be put on that node to the label arena.
      *
-     * @param thisLabel    The label to be extended.
-     * @param extendToInfo The info the contains the node to be extended.
-     * @return The label to be placed on the next node.
+     * @param thisLabel           The label to be extended.
+     * @param nextNode            The node to be extended to.
+     * @param extendNodeSetNumber The node set the node belongs to, 0 for the destination.
+     * @return The label placed on the next node, -1 if the extension is infeasible.
      */
-    public Label extendLabelToNextNode(Label thisLabel, ExtendToInfo extendToInfo) {
-        Node nextNode = extendToInfo.getToNode();
-        int newLocation = findNewLocation(thisLabel, nextNode); // nextNode.getLocationId();
-        Integer travelTime = getTravelTime(thisLabel, nextNode, newLocation);
+    public int extendLabelToNextNode(int thisLabel, Node nextNode, int extendNodeSetNumber) {
+        int travelTime = getTravelTime(thisLabel, nextNode);
         // OBS OBS check if travel is possible
         if (!isFeasibleTravleTime(nextNode, travelTime))
-            return null;
-        /* if (travelTime == null)
-            return null; */
-        int startOfServiceNextTask = calcStartOfServiceNextTask(thisLabel, nextNode, travelTime, nextNode.isSynced());
-        IRouteEvaluatorObjective objective = evaluateFeasibilityAndObjective(thisLabel, nextNode, startOfServiceNextTask, travelTime, nextNode.isSynced(), newLocation);
-        if (objective == null)
-            return null;
-        IResource resources = thisLabel.getResources().extend(extendToInfo);
-        return new Label(thisLabel, nextNode, newLocation, objective, resources, startOfServiceNextTask, travelTime);
+            return -1;
+        int startOfServiceNextTask = calcStartOfServiceNextTask(thisLabel, nextNode, travelTime);
+        boolean firstStep = arena.getPrevious(thisLabel) < 0;
+        int shiftStartTime = firstStep ? nodeTimes.getTimeWindowStart(nextNode) - travelTime : arena.getShiftStartTime(thisLabel);
+        if (!isFeasible(nextNode, startOfServiceNextTask, shiftStartTime))
+            return -1;
+        double objectiveValue = extend(arena.getObjectiveValue(thisLabel), nextNode, travelTime, startOfServiceNextTask);
+        long resources = LabelResources.extend(arena.getResources(thisLabel), extendNodeSetNumber);
+        // The shift of the label starts when leaving the origin to reach the first node
+        int labelShiftStartTime = firstStep ? startOfServiceNextTask - travelTime : arena.getShiftStartTime(thisLabel);
+        return arena.add(thisLabel, nextNode, startOfServiceNextTask, travelTime, labelShiftStartTime, objectiveValue, resources);
     }
-    
+
     /**
      * If the transportmode is walking and the walking distance is longer than the maximum walking distance return false
      * @param nextNode
@@ -153,97 +176,96 @@ public class LabellingAlgorithm {
         return true;
     }
 
-    private void extendLabelToAllPossibleVisits(Label label) {
+    private void extendLabelToAllPossibleVisits(int label) {
         boolean returnToDestinationNode = true;
-        Enumeration<ExtendToInfo> enumerator = nodeExtendInfo.extend(label);
-        while (enumerator.hasMoreElements()) {
-            returnToDestinationNode = false;
-            extendLabel(label, enumerator.nextElement());
+        long resources = arena.getResources(label);
+        for (int nodeSetNumber = 1; nodeSetNumber <= nodeExtendInfo.getNumberOfNodeSets(); nodeSetNumber++) {
+            Node nextNode = nodeExtendInfo.getNextNode(resources, nodeSetNumber);
+            if (nextNode != null) {
+                returnToDestinationNode = false;
+                extendLabel(label, nextNode, nodeSetNumber);
+            }
         }
         if (returnToDestinationNode) {
-            Label newLabel = extendLabelToNextNode(label, new ExtendToInfo(graph.getDestination(), 0));
-            if (newLabel != null && (bestLabelOnDestination == null || newLabel.compareTo(bestLabelOnDestination) < 0))
+            int newLabel = extendLabelToNextNode(label, graph.getDestination(), 0);
+            if (newLabel >= 0 && (bestLabelOnDestination < 0 || arena.getObjectiveValue(newLabel) < arena.getObjectiveValue(bestLabelOnDestination)))
                 bestLabelOnDestination = newLabel;
         }
     }
 
-    private void extendLabel(Label label, ExtendToInfo extendToInfo) {
-        Label newLabel = extendLabelToNextNode(label, extendToInfo);
-        if (newLabel != null && labelLists.addLabelOnNode(newLabel.getNode(), newLabel)) {
+    private void extendLabel(int label, Node nextNode, int extendNodeSetNumber) {
+        int newLabel = extendLabelToNextNode(label, nextNode, extendNodeSetNumber);
+        if (newLabel >= 0 && labelLists.addLabelOnNode(nextNode, newLabel)) {
             unExtendedLabels.add(newLabel);
         }
     }
 
-    public IRouteEvaluatorObjective extend(IRouteEvaluatorObjective currentObjective, Node toNode, int travelTime, int startOfServiceNextTask, int syncedVisitLatestStartTime) {
+    private double extend(double currentObjectiveValue, Node toNode, int travelTime, int startOfServiceNextTask) {
+        setObjectiveInfo(toNode, travelTime, startOfServiceNextTask, nodeTimes.getSyncedStartTime(toNode));
+        return objectiveFunctions.incrementObjectiveValue(currentObjectiveValue, objectiveInfo);
+    }
+
+    private void setObjectiveInfo(Node toNode, int travelTime, int startOfServiceNextTask, int syncedVisitLatestStartTime) {
         Visit visit = toNode.getVisit();
         int visitEnd = visit != null ? startOfServiceNextTask + visit.getVisitDuration() : 0;
-        return objectiveFunctions.calculateObjectiveValue(currentObjective, travelTime, visit,
-                startOfServiceNextTask, visitEnd, syncedVisitLatestStartTime, employeeWorkShift);
+        objectiveInfo.set(travelTime, visit, nodeTimes.getTimeWindowEnd(toNode), visitEnd, startOfServiceNextTask,
+                syncedVisitLatestStartTime, employeeWorkShift);
     }
 
-    private Label findNextLabel() {
-        Label currentLabel = unExtendedLabels.poll();
-        while (currentLabel != null && currentLabel.isClosed())
+    private int findNextLabel() {
+        int currentLabel = unExtendedLabels.poll();
+        while (currentLabel >= 0 && arena.isClosed(currentLabel))
             currentLabel = unExtendedLabels.poll();
         return currentLabel;
     }
 
-    private Label createStartLabel(IRouteEvaluatorObjective objective, int startTime, IResource emptyResource) {
-        return new Label(null, graph.getOrigin(), graph.getOrigin().getLocationId(),
-                objective, emptyResource, startTime, 0);
+    private int createStartLabel(double objectiveValue, int startTime) {
+        return arena.add(-1, graph.getOrigin(), startTime, 0, 0, objectiveValue, LabelResources.EMPTY);
     }
 
-    private int calcArrivalTimeNextTask(Label thisLabel, int travelTime) {
-        int actualTravelTime = travelTime;
+    private int calcArrivalTimeNextTask(int thisLabel, int travelTime) {
         // current time is The start of service of the current task.
-        // getCanLeaveLocationAtTime = the start of service time of a task + duration of all tasks performed at that location
         // Traveltime is time from current location to next nodes location
-        actualTravelTime = Math.max(travelTime - (thisLabel.getCurrentTime() - thisLabel.getCanLeaveLocationAtTime()), 0);
-        return actualTravelTime + thisLabel.getCurrentTime() + thisLabel.getNode().getDurationSeconds();
+        int actualTravelTime = Math.max(travelTime, 0);
+        return actualTravelTime + arena.getCurrentTime(thisLabel) + arena.getNode(thisLabel).getDurationSeconds();
     }
 
-    private int calcStartOfServiceNextTask(Label thisLabel, Node nextNode, int travelTime, boolean nextNodeIsSynced) {
+    private int calcStartOfServiceNextTask(int thisLabel, Node nextNode, int travelTime) {
         int arrivalTimeNextTask = calcArrivalTimeNextTask(thisLabel, travelTime);
-        int earliestStartTimeNextTask = findEarliestStartTimeNextTask(nextNode, nextNodeIsSynced);
+        int earliestStartTimeNextTask = findEarliestStartTimeNextTask(nextNode);
         return Math.max(arrivalTimeNextTask, earliestStartTimeNextTask);
     }
 
-    private IRouteEvaluatorObjective evaluateFeasibilityAndObjective(Label thisLabel, Node nextNode, int startOfServiceNextTask,
-                                                                     int travelTime, boolean nextNodeIsSynced, int newLocation) {
-        int syncedTaskLatestStartTime = nextNodeIsSynced ? syncedNodesStartTime[nextNode.getNodeId()] : -1;
-        int earliestOfficeReturn = calcEarliestPossibleReturnToOfficeTime(nextNode, newLocation, startOfServiceNextTask);
-        int shiftStartTime = thisLabel.getPrevious() == null ? nextNode.getTimeWindowStart() - travelTime : thisLabel.getShiftStartTime();
-        ConstraintInfo constraintInfo = new ConstraintInfo(employeeWorkShift, earliestOfficeReturn, nextNode.getVisit(),
-                startOfServiceNextTask, syncedTaskLatestStartTime, shiftStartTime);
-        if (!constraints.isFeasible(constraintInfo))
-            return null;
-        return extend(thisLabel.getObjective(), nextNode, travelTime, startOfServiceNextTask, syncedTaskLatestStartTime);
+    private boolean isFeasible(Node nextNode, int startOfServiceNextTask, int shiftStartTime) {
+        int earliestOfficeReturn = calcEarliestPossibleReturnToOfficeTime(nextNode, startOfServiceNextTask);
+        return constraints.isFeasible(employeeWorkShift, nextNode.getVisit(), nodeTimes.getTimeWindowEnd(nextNode),
+                startOfServiceNextTask, earliestOfficeReturn, nodeTimes.getSyncedStartTime(nextNode), shiftStartTime);
     }
 
     /**
-     * Finds the travel time to the next node. Note that if the current location is (-1) it is at the "origin" and interpreted as the first task will become the origin.
-     * Hence, this task will become the origin and therefore the travel time will be 0.
+     * Finds the travel time to the next node.
      *
-     * @param thisLabel   The current label
-     * @param nextNode    Node to extend the label to
-     * @param newLocation Location the label is extended to, can be different from the location of the node, e.g., if the
-     *                    next does not require physical appearance
-     * @return Travel time or null if travel is not possible.
+     * @param thisLabel The current label
+     * @param nextNode  Node to extend the label to
+     * @return Travel time.
      */
-    private int getTravelTime(Label thisLabel, Node nextNode, int newLocation) {
-        /* if (thisLabel.getCurrentLocationId() == 0) // When location is depot
-            return 0.0; */
-
-        //var locationB = newLocation == thisLabel.getCurrentLocationId() ? newLocation : nextNode.getLocationId();
-
-        return graph.getTravelTime(thisLabel.getCurrentLocationId(), nextNode.getLocationId(), getTransportMode(thisLabel.getNode()));
+    private int getTravelTime(int thisLabel, Node nextNode) {
+        Node currentNode = arena.getNode(thisLabel);
+        return graph.getTravelTime(currentNode.getLocationId(), nextNode.getLocationId(), getTransportMode(currentNode));
     }
 
-    private int calcEarliestPossibleReturnToOfficeTime(Node nextNode, Integer newLocation, int startOfServiceNextTask) {
-        return startOfServiceNextTask + nextNode.getDurationSeconds() + getTravelTimeToDestination(newLocation);
+    private int calcEarliestPossibleReturnToOfficeTime(Node nextNode, int startOfServiceNextTask) {
+        return startOfServiceNextTask + nextNode.getDurationSeconds() + getTravelTimeToDestination(nextNode.getLocationId());
     }
 
     private int getTransportMode(Node node) {
+        return getTransportMode(node, employeeWorkShift);
+    }
+
+    /**
+     * Finds the transport mode used when leaving the node.
+     */
+    static int getTransportMode(Node node, Shift employeeWorkShift) {
         int transportMode = Constants.TransportMode.WALK;
         if (node.getVisit() == null){
             if (employeeWorkShift.isMotorized()) transportMode = Constants.TransportMode.DRIVE;
@@ -252,59 +274,55 @@ public class LabellingAlgorithm {
         return transportMode;
     }
 
-    private int getTravelTimeToDestination(Integer currentLocation) {
+    private int getTravelTimeToDestination(int currentLocation) {
         // We do not implement "Ansattoppgaver", so there will be no tasks at depot
-        /* if (currentLocation == 0 || currentLocation == graph.getDestination().getLocationId() || graph.getDestination() instanceof VirtualNode) {
-            return 0.0;
-        } */
-        Integer travelTime = graph.getTravelTime(currentLocation, graph.getDestination().getLocationId(), getTransportMode(graph.getDestination()));
-        return travelTime == null ? 0 : travelTime;
+        return graph.getTravelTime(currentLocation, graph.getDestination().getLocationId(), getTransportMode(graph.getDestination()));
     }
 
-    private int findNewLocation(Label thisLabel, Node nextNode) {
-        return nextNode.getLocationId();
-    }
-
-    private int findEarliestStartTimeNextTask(Node nextNode, boolean nextNodeIsSynced) {
-        if (nextNodeIsSynced) {
-            return syncedNodesStartTime[nextNode.getNodeId()];
+    private int findEarliestStartTimeNextTask(Node nextNode) {
+        if (nodeTimes.isSynced(nextNode)) {
+            return nodeTimes.getSyncedStartTime(nextNode);
         } else {
-            return nextNode.getTimeWindowStart();
+            return nodeTimes.getTimeWindowStart(nextNode);
         }
     }
 
-    private boolean optimalSolutionFound(Label currentLabel) {
-        return bestLabelOnDestination != null && currentLabel != null &&
-                bestLabelOnDestination.getObjective().getObjectiveValue() < currentLabel.getObjective().getObjectiveValue();
+    private boolean optimalSolutionFound(int currentLabel) {
+        return bestLabelOnDestination >= 0 && currentLabel >= 0 &&
+                arena.getObjectiveValue(bestLabelOnDestination) < arena.getObjectiveValue(currentLabel);
     }
 
-    private void extractVisitsAndSyncedStartTime(Label bestLabel, Route route) {
-        int labelCnt = collectLabels(bestLabel);
-        int visitCnt = 0;
-        for (int i = labelCnt - 1; i > 0; i--) {
-            bestLabel = labels[i];
-            visitCnt = addVisit(visitCnt, bestLabel);
+    private void extractVisitsAndSyncedStartTime(int labelCnt, Route route) {
+        // The last label is on the destination, which has no visit
+        int visitCnt = labelCnt - 1;
+        int[] startTimes = new int[visitCnt];
+        int[] travelTimes = new int[visitCnt];
+        int[] transportTypes = new int[visitCnt];
+        for (int i = 0; i < visitCnt; i++) {
+            int label = labels[labelCnt - 1 - i];
+            visits.set(i, arena.getNode(label).getVisit());
+            startTimes[i] = arena.getCurrentTime(label);
+            travelTimes[i] = arena.getTravelTime(label);
+            transportTypes[i] = getTransportMode(arena.getNode(arena.getPrevious(label)));
         }
         route.addVisits(visits.subList(0, visitCnt));
+        route.setSchedule(startTimes, travelTimes, transportTypes);
     }
 
-    private int collectLabels(Label currentLabel) {
+    /**
+     * Collects the labels of the route, from the label on the destination to the first label after the start label.
+     *
+     * @return Number of labels collected.
+     */
+    private int collectLabels(int currentLabel) {
         int labelCnt = 0;
-        while (currentLabel.getPrevious() != null) {
+        while (arena.getPrevious(currentLabel) >= 0) {
             labels[labelCnt++] = currentLabel;
-            currentLabel = currentLabel.getPrevious();
+            currentLabel = arena.getPrevious(currentLabel);
         }
         return labelCnt;
     }
 
-    private int addVisit(int visitCnt, Label currentLabel) {
-        Visit visit = currentLabel.getNode().getVisit();
-        visit.setTimeWindowStart(currentLabel.getCurrentTime());
-        visit.setTravleTime(currentLabel.getTravelTime());
-        visits.set(visitCnt++, visit);
-        return visitCnt;
-    }
-
     public void setEmployeeWorkShift(Shift employeeWorkShift) {
         this.employeeWorkShift = employeeWorkShift;
     }
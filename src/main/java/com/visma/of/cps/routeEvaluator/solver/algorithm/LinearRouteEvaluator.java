@@ -0,0 +1,315 @@
+package com.visma.of.cps.routeEvaluator.solver.algorithm;
+
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.evaluation.constraint.ConstraintsIntraRouteHandler;
+import com.visma.of.cps.routeEvaluator.evaluation.info.ObjectiveInfo;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.ObjectiveFunctionsIntraRouteHandler;
+import com.visma.of.cps.routeEvaluator.results.Route;
+import com.visma.of.cps.routeEvaluator.results.RouteEvaluatorResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates routes where the order of the visits is fixed, i.e., when there is only one node list and hence only one
+ * possible path from the origin to the destination. The route is walked once, calculating the start times,
+ * constraints and objective in the same way as the labelling algorithm, but without creating labels or using the
+ * priority queue. The objective info and the buffers are reused, so an evaluation creates no objects.
+ */
+public class LinearRouteEvaluator {
+
+    private final SearchGraph graph;
+    private final ObjectiveFunctionsIntraRouteHandler objectiveFunctions;
+    private final ConstraintsIntraRouteHandler constraints;
+    private final ObjectiveInfo objectiveInfo;
+    private final int[] startTimes;
+    private final int[] travelTimes;
+    private final int[] transportTypes;
+    // Start times and objective values along the route after an insert position, for the current and the best position
+    private int[] insertStartTimes;
+    private double[] insertObjectiveValues;
+    private int[] bestInsertStartTimes;
+    private double[] bestInsertObjectiveValues;
+    private double objectiveValue;
+    private int routeFinishedAtTime;
+    // Results of the last step, see extend
+    private int stepTravelTime;
+    private int stepTransportType;
+    private int stepArrivalTime;
+    private int stepStartOfService;
+    private double stepObjectiveValue;
+
+    public LinearRouteEvaluator(SearchGraph graph, ObjectiveFunctionsIntraRouteHandler objectiveFunctions, ConstraintsIntraRouteHandler constraints) {
+        this.graph = graph;
+        this.objectiveFunctions = objectiveFunctions;
+        this.constraints = constraints;
+        this.objectiveInfo = new ObjectiveInfo();
+        this.startTimes = new int[graph.getNodes().size()];
+        this.travelTimes = new int[graph.getNodes().size()];
+        this.transportTypes = new int[graph.getNodes().size()];
+        this.insertStartTimes = new int[graph.getNodes().size()];
+        this.insertObjectiveValues = new double[graph.getNodes().size()];
+        this.bestInsertStartTimes = new int[graph.getNodes().size()];
+        this.bestInsertObjectiveValues = new double[graph.getNodes().size()];
+    }
+
+    /**
+     * Evaluates the route going from the origin through the nodes in the order of the node list and then to the
+     * destination. The objective value is found by getObjectiveValue.
+     *
+     * @param nodeList             The nodes of the route, in order.
+     * @param nodeTimes            Time windows and intended start times of synced nodes.
+     * @param employeeWorkShift    Employee to simulate route for.
+     * @param objective            Objective to increment, if null only the objective value is calculated.
+     * @return True if the route is feasible, otherwise false.
+     */
+    public boolean evaluate(NodeList nodeList, NodeTimes nodeTimes, Shift employeeWorkShift, IRouteEvaluatorObjective objective) {
+        int numberOfNodes = nodeList.size();
+        Node destination = graph.getDestination();
+        Node currentNode = graph.getOrigin();
+        int currentTime = employeeWorkShift.getStartTime();
+        int shiftStartTime = 0;
+        double value = objective == null ? 0 : objective.getObjectiveValue();
+
+        for (int i = 0; i <= numberOfNodes; i++) {
+            Node nextNode = i < numberOfNodes ? nodeList.getNode(i) : destination;
+            if (!extend(currentNode, currentTime, nextNode, i == 0, shiftStartTime, nodeTimes,
+                    employeeWorkShift, objective, value))
+                return false;
+            value = stepObjectiveValue;
+            if (i == 0)
+                shiftStartTime = stepStartOfService - stepTravelTime;
+            if (i < numberOfNodes) {
+                startTimes[i] = stepStartOfService;
+                travelTimes[i] = stepTravelTime;
+                transportTypes[i] = stepTransportType;
+            }
+            currentNode = nextNode;
+            currentTime = stepStartOfService;
+        }
+        this.objectiveValue = objective == null ? value : objective.getObjectiveValue();
+        this.routeFinishedAtTime = currentTime;
+        return true;
+    }
+
+    /**
+     * Extends the route from the current node to the next node, in the same way as the labelling algorithm extends
+     * a label. The results are found in the step fields.
+     *
+     * @param currentNode          Node the route is currently at.
+     * @param currentTime          Start of service at the current node.
+     * @param nextNode             Node to extend the route to.
+     * @param firstStep            Whether the current node is the origin.
+     * @param shiftStartTime       The time the shift started, only used when it is not the first step.
+     * @param nodeTimes            Time windows and intended start times of synced nodes.
+     * @param employeeWorkShift    Employee to simulate route for.
+     * @param objective            Objective to increment, if null the objective value is incremented instead.
+     * @param objectiveValue       Objective value before the step, only used when objective is null.
+     * @return True if the step is feasible, otherwise false.
+     */
+    private boolean extend(Node currentNode, int currentTime, Node nextNode, boolean firstStep, int shiftStartTime,
+                           NodeTimes nodeTimes, Shift employeeWorkShift, IRouteEvaluatorObjective objective,
+                           double objectiveValue) {
+        Node destination = graph.getDestination();
+        int nextLocationId = nextNode.getLocationId();
+        int transportType = LabellingAlgorithm.getTransportMode(currentNode, employeeWorkShift);
+        int travelTime = graph.getTravelTime(currentNode.getLocationId(), nextLocationId, transportType);
+        int arrivalTime = Math.max(travelTime, 0) + currentTime + currentNode.getDurationSeconds();
+        int syncedLatestStartTime = nodeTimes.getSyncedStartTime(nextNode);
+        int timeWindowStart = nodeTimes.getTimeWindowStart(nextNode);
+        int timeWindowEnd = nodeTimes.getTimeWindowEnd(nextNode);
+        int startOfService = Math.max(arrivalTime, nodeTimes.isSynced(nextNode) ? syncedLatestStartTime : timeWindowStart);
+        int earliestOfficeReturn = startOfService + nextNode.getDurationSeconds() + graph.getTravelTime(nextLocationId,
+                destination.getLocationId(), LabellingAlgorithm.getTransportMode(destination, employeeWorkShift));
+        // The shift starts when leaving the origin to reach the first node
+        int constraintShiftStartTime = firstStep ? timeWindowStart - travelTime : shiftStartTime;
+
+        Visit visit = nextNode.getVisit();
+        if (!constraints.isFeasible(employeeWorkShift, visit, timeWindowEnd, startOfService, earliestOfficeReturn,
+                syncedLatestStartTime, constraintShiftStartTime))
+            return false;
+        int visitEnd = visit != null ? startOfService + visit.getVisitDuration() : 0;
+        objectiveInfo.set(travelTime, visit, timeWindowEnd, visitEnd, startOfService, syncedLatestStartTime, employeeWorkShift);
+        if (objective != null)
+            objectiveFunctions.incrementObjective(objective, objectiveInfo);
+        else
+            objectiveValue = objectiveFunctions.incrementObjectiveValue(objectiveValue, objectiveInfo);
+
+        this.stepTravelTime = travelTime;
+        this.stepTransportType = transportType;
+        this.stepArrivalTime = arrivalTime;
+        this.stepStartOfService = startOfService;
+        this.stepObjectiveValue = objectiveValue;
+        return true;
+    }
+
+    /**
+     * Summarizes the route in the node list, see RouteSummary. The summary is marked infeasible if the route is.
+     *
+     * @param summary              Summary to fill.
+     * @param routeVersion         Version of the route, see RouteSummary.
+     * @param timesVersion         Times version of the visit schedule the node times are set from.
+     * @param nodeList             The nodes of the route, in order.
+     * @param nodeTimes            Time windows and intended start times of synced nodes.
+     * @param employeeWorkShift    Employee to simulate route for.
+     */
+    public void summarize(RouteSummary summary, long routeVersion, long timesVersion, NodeList nodeList, NodeTimes nodeTimes,
+                          Shift employeeWorkShift) {
+        int numberOfNodes = nodeList.size();
+        summary.reset(numberOfNodes, routeVersion, timesVersion, employeeWorkShift,
+                constraints.getModificationCount(), objectiveFunctions.getModificationCount());
+        Node currentNode = graph.getOrigin();
+        int currentTime = employeeWorkShift.getStartTime();
+        int shiftStartTime = 0;
+        double value = 0;
+        for (int i = 0; i <= numberOfNodes; i++) {
+            Node nextNode = i < numberOfNodes ? nodeList.getNode(i) : graph.getDestination();
+            if (!extend(currentNode, currentTime, nextNode, i == 0, shiftStartTime, nodeTimes,
+                    employeeWorkShift, null, value))
+                return;
+            value = stepObjectiveValue;
+            if (i == 0)
+                shiftStartTime = stepStartOfService - stepTravelTime;
+            summary.setStep(i, nextNode, stepStartOfService, value);
+            currentNode = nextNode;
+            currentTime = stepStartOfService;
+        }
+        summary.setFeasible(shiftStartTime);
+    }
+
+    /**
+     * Finds the best position to insert a node into the summarized route. The part of the route before the position
+     * is taken from the summary, and the route after the inserted node is only re-evaluated until the start of
+     * service is the same as in the summary, from there the rest of the route is unchanged. When the inserted node
+     * does not delay the following visits the insertion is hence evaluated in constant time.
+     * <p>
+     * When the following visits are delayed, the evaluation of a position is stopped as soon as it reaches a visit
+     * no earlier and with no better objective value than the best position found so far did. As in the dominance of
+     * the labelling algorithm, it is assumed that starting a visit later is never better for the rest of the route.
+     *
+     * @param summary              Summary of the route, must be feasible.
+     * @param insertNode           Node to insert.
+     * @param nodeTimes            Time windows and intended start times of synced nodes.
+     * @param employeeWorkShift    Employee to simulate route for.
+     * @return Index in the route the node should be inserted at, or -1 if no position is feasible.
+     */
+    public int findBestInsertIndex(RouteSummary summary, Node insertNode, NodeTimes nodeTimes, Shift employeeWorkShift) {
+        int numberOfNodes = summary.size();
+        Node destination = graph.getDestination();
+        double totalObjectiveValue = summary.getObjectiveValue(numberOfNodes);
+        double bestObjectiveValue = Double.MAX_VALUE;
+        int bestIndex = -1;
+        int bestShiftStartTime = 0;
+        // From this index the best position has the same start times as the summary, and objective values offset
+        int bestUnchangedFromIndex = 0;
+        double bestUnchangedObjectiveOffset = 0;
+
+        for (int index = 0; index <= numberOfNodes; index++) {
+            boolean firstStep = index == 0;
+            Node currentNode = firstStep ? graph.getOrigin() : summary.getNode(index - 1);
+            int currentTime = firstStep ? employeeWorkShift.getStartTime() : summary.getStartTime(index - 1);
+            double value = firstStep ? 0 : summary.getObjectiveValue(index - 1);
+            if (!extend(currentNode, currentTime, insertNode, firstStep, summary.getShiftStartTime(),
+                    nodeTimes, employeeWorkShift, null, value))
+                continue;
+            value = stepObjectiveValue;
+            int shiftStartTime = firstStep ? stepStartOfService - stepTravelTime : summary.getShiftStartTime();
+            currentNode = insertNode;
+            currentTime = stepStartOfService;
+
+            boolean feasible = true;
+            int unchangedFromIndex = numberOfNodes;
+            double unchangedObjectiveOffset = 0;
+            for (int i = index; i <= numberOfNodes; i++) {
+                if (i > index) {
+                    // The rest of the route is unchanged when the previous node starts as before
+                    if (currentTime == summary.getStartTime(i - 1) && shiftStartTime == summary.getShiftStartTime()) {
+                        unchangedFromIndex = i - 1;
+                        unchangedObjectiveOffset = value - summary.getObjectiveValue(i - 1);
+                        value += totalObjectiveValue - summary.getObjectiveValue(i - 1);
+                        break;
+                    }
+                    if (bestIndex >= 0 && shiftStartTime == bestShiftStartTime) {
+                        boolean bestUnchanged = i - 1 >= bestUnchangedFromIndex;
+                        int bestStartTime = bestUnchanged ? summary.getStartTime(i - 1) : bestInsertStartTimes[i - 1];
+                        double bestValue = bestUnchanged ? summary.getObjectiveValue(i - 1) + bestUnchangedObjectiveOffset
+                                : bestInsertObjectiveValues[i - 1];
+                        if (currentTime >= bestStartTime && value >= bestValue) {
+                            feasible = false;
+                            break;
+                        }
+                    }
+                    insertStartTimes[i - 1] = currentTime;
+                    insertObjectiveValues[i - 1] = value;
+                }
+                Node nextNode = i < numberOfNodes ? summary.getNode(i) : destination;
+                if (!extend(currentNode, currentTime, nextNode, false, shiftStartTime, nodeTimes,
+                        employeeWorkShift, null, value)) {
+                    feasible = false;
+                    break;
+                }
+                value = stepObjectiveValue;
+                currentNode = nextNode;
+                currentTime = stepStartOfService;
+            }
+            if (feasible && value < bestObjectiveValue) {
+                bestObjectiveValue = value;
+                bestIndex = index;
+                bestShiftStartTime = shiftStartTime;
+                bestUnchangedFromIndex = unchangedFromIndex;
+                bestUnchangedObjectiveOffset = unchangedObjectiveOffset;
+                int[] startTimes = bestInsertStartTimes;
+                bestInsertStartTimes = insertStartTimes;
+                insertStartTimes = startTimes;
+                double[] objectiveValues = bestInsertObjectiveValues;
+                bestInsertObjectiveValues = insertObjectiveValues;
+                insertObjectiveValues = objectiveValues;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Evaluates the route and returns the route evaluator result. As for the labelling algorithm, the route of the result
+     * holds the schedule of the visits, the visits themselves are not changed.
+     *
+     * @param initialObjective     Starting objective.
+     * @param nodeList             The nodes of the route, in order.
+     * @param nodeTimes            Time windows and intended start times of synced nodes.
+     * @param employeeWorkShift    Employee to simulate route for.
+     * @return RouteEvaluatorResult or null if route is infeasible.
+     */
+    public RouteEvaluatorResult solveRouteEvaluatorResult(IRouteEvaluatorObjective initialObjective, NodeList nodeList,
+                                                          NodeTimes nodeTimes, Shift employeeWorkShift) {
+        IRouteEvaluatorObjective objective = initialObjective.initializeNewObjective();
+        if (!evaluate(nodeList, nodeTimes, employeeWorkShift, objective))
+            return null;
+        int numberOfNodes = nodeList.size();
+        List<Visit> visits = new ArrayList<>(numberOfNodes);
+        for (int i = 0; i < numberOfNodes; i++) {
+            visits.add(nodeList.getNode(i).getVisit());
+        }
+        Route route = new Route();
+        route.setRouteFinishedAtTime(routeFinishedAtTime);
+        route.addVisits(visits);
+        route.setSchedule(Arrays.copyOf(startTimes, numberOfNodes), Arrays.copyOf(travelTimes, numberOfNodes),
+                Arrays.copyOf(transportTypes, numberOfNodes));
+        return new RouteEvaluatorResult(objective, route);
+    }
+
+    /**
+     * @return Objective value of the last feasible route evaluated.
+     */
+    public double getObjectiveValue() {
+        return objectiveValue;
+    }
+
+    /**
+     * @return Start of service at the destination of the last feasible route evaluated.
+     */
+    public int getRouteFinishedAtTime() {
+        return routeFinishedAtTime;
+    }
+}
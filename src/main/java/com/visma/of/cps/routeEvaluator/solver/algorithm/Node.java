@@ -38,10 +38,6 @@ public class Node {
         return visit == null ? 0 : visit.getTask().getDuration();
     }
 
-    public int getTimeWindowStart() {
-        return visit == null ? 0 : visit.getTimeWindowStart();
-    }
-    
     @Override
     public boolean equals(Object other) {
         if ((other instanceof Node))
@@ -71,12 +67,4 @@ public class Node {
     public boolean isDepotNode() {
         return visit == null;
     }
-
-    public int getTransportMode(){
-        return visit == null ? null : visit.getTransportType();
-    }
-
-    public boolean isSynced() {
-        return visit != null && visit.isSynced();
-    }
 }
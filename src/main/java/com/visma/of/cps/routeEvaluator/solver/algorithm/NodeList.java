@@ -88,6 +88,23 @@ public class NodeList {
     }
 
 
+    /**
+     * Insert the nodes representing the visits in the search graph, with an additional node inserted at a specific
+     * index.
+     *
+     * @param graph         Graph from which the nodes should be found.
+     * @param visits        Visits to be inserted.
+     * @param insertNode    Node to be inserted in between the visits.
+     * @param insertAtIndex Index at which the node should be inserted.
+     */
+    public void initializeWithNodes(SearchGraph graph, List<? extends Visit> visits, Node insertNode, int insertAtIndex) {
+        nodesCnt = visits.size() + 1;
+        int visitIndex = 0;
+        for (int i = 0; i < nodesCnt; i++) {
+            nodes[i] = i == insertAtIndex ? insertNode : graph.getNode(visits.get(visitIndex++));
+        }
+    }
+
     public void initializeWithNode(SearchGraph graph, IVisit visit) {
         nodesCnt = 1;
         nodes[0] = graph.getNode(visit);
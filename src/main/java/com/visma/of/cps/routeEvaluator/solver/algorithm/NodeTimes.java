@@ -0,0 +1,62 @@
+package com.visma.of.cps.routeEvaluator.solver.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * The time windows and intended start times of the nodes of a search graph, indexed by node id. The visits hold no
+ * state that depends on the solution, hence the route evaluator sets these from the visit schedule and the synced start
+ * times of the solution for the visits of a route before it is evaluated. The depot nodes are never set, they have the
+ * time window start 0 and are not synced.
+ */
+public class NodeTimes {
+
+    /**
+     * Synced start time of nodes that are not synced, as expected by the constraints.
+     */
+    public static final int NOT_SYNCED = -1;
+    /**
+     * Time window end of visits that have no time window, e.g., a join motorized visit that is evaluated before its
+     * time window is calculated. It leaves room for the slack added by the constraints without overflowing.
+     */
+    public static final int OPEN_TIME_WINDOW_END = Integer.MAX_VALUE / 2;
+
+    private final int[] timeWindowStarts;
+    private final int[] timeWindowEnds;
+    private final int[] syncedStartTimes;
+
+    public NodeTimes(int numberOfNodes) {
+        this.timeWindowStarts = new int[numberOfNodes];
+        this.timeWindowEnds = new int[numberOfNodes];
+        this.syncedStartTimes = new int[numberOfNodes];
+        Arrays.fill(syncedStartTimes, NOT_SYNCED);
+    }
+
+    /**
+     * @param syncedStartTime Intended start time of the node if it is synced, otherwise NOT_SYNCED.
+     */
+    public void set(Node node, int timeWindowStart, int timeWindowEnd, int syncedStartTime) {
+        int nodeId = node.getNodeId();
+        timeWindowStarts[nodeId] = timeWindowStart;
+        timeWindowEnds[nodeId] = timeWindowEnd;
+        syncedStartTimes[nodeId] = syncedStartTime;
+    }
+
+    public int getTimeWindowStart(Node node) {
+        return timeWindowStarts[node.getNodeId()];
+    }
+
+    public int getTimeWindowEnd(Node node) {
+        return timeWindowEnds[node.getNodeId()];
+    }
+
+    public boolean isSynced(Node node) {
+        return syncedStartTimes[node.getNodeId()] != NOT_SYNCED;
+    }
+
+    /**
+     * @return Intended start time of the node if it is synced, otherwise NOT_SYNCED.
+     */
+    public int getSyncedStartTime(Node node) {
+        return syncedStartTimes[node.getNodeId()];
+    }
+}
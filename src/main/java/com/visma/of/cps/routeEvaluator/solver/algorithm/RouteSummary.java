@@ -0,0 +1,132 @@
+package com.visma.of.cps.routeEvaluator.solver.algorithm;
+
+import com.visma.of.cps.model.Shift;
+
+/**
+ * Summary of a route evaluated in a fixed order, used to evaluate insertions without re-evaluating the whole route.
+ * For each step of the route, i.e., each visit and finally the destination, it holds the start of service and the
+ * accumulated objective value of the route up to and including the step. The part of the route before an insert
+ * position is then given by the summary, and the part after is unchanged from the first visit whose start of service
+ * is not changed by the insert.
+ * <p>
+ * The summary is keyed on the version of the route and the times version of the visit schedule it was created from,
+ * together with the modification counts of the constraints and objectives, hence checking whether it is still valid
+ * takes constant time. The route evaluator keeps one summary per shift, it is also invalidated by the problem when the
+ * route of the shift changes.
+ */
+public class RouteSummary {
+
+    /**
+     * Route version of routes that are not identified by a version, a summary is never valid for those.
+     */
+    public static final long NO_ROUTE_VERSION = -1;
+
+    private final Node[] nodes;
+    private final int[] startTimes;
+    private final double[] objectiveValues;
+    private int size;
+    private long routeVersion;
+    private long timesVersion;
+    private Shift employeeWorkShift;
+    private int shiftStartTime;
+    private int constraintsModificationCount;
+    private int objectivesModificationCount;
+    private boolean valid;
+    private boolean feasible;
+
+    /**
+     * @param maximumSize Maximum number of visits in a route.
+     */
+    public RouteSummary(int maximumSize) {
+        this.nodes = new Node[maximumSize + 1];
+        this.startTimes = new int[maximumSize + 1];
+        this.objectiveValues = new double[maximumSize + 1];
+        this.valid = false;
+    }
+
+    void reset(int size, long routeVersion, long timesVersion, Shift employeeWorkShift,
+               int constraintsModificationCount, int objectivesModificationCount) {
+        this.size = size;
+        this.routeVersion = routeVersion;
+        this.timesVersion = timesVersion;
+        this.employeeWorkShift = employeeWorkShift;
+        this.constraintsModificationCount = constraintsModificationCount;
+        this.objectivesModificationCount = objectivesModificationCount;
+        this.feasible = false;
+        this.valid = true;
+    }
+
+    void setStep(int step, Node node, int startTime, double objectiveValue) {
+        nodes[step] = node;
+        startTimes[step] = startTime;
+        objectiveValues[step] = objectiveValue;
+    }
+
+    void setFeasible(int shiftStartTime) {
+        this.shiftStartTime = shiftStartTime;
+        this.feasible = true;
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Checks whether the summary still describes the route. If the route was infeasible the summary is incomplete, and
+     * only tells that the route is infeasible.
+     *
+     * @param routeVersion                 Version of the route, NO_ROUTE_VERSION if it has none.
+     * @param timesVersion                 Times version of the visit schedule of the route.
+     * @param employeeWorkShift            Employee the route applies to.
+     * @param constraintsModificationCount Modification count of the constraints of the route evaluator.
+     * @param objectivesModificationCount  Modification count of the objectives of the route evaluator.
+     * @return True if the summary can be used for the route.
+     */
+    public boolean isValidFor(long routeVersion, long timesVersion, Shift employeeWorkShift,
+                              int constraintsModificationCount, int objectivesModificationCount) {
+        return valid && routeVersion != NO_ROUTE_VERSION && this.routeVersion == routeVersion
+                && this.timesVersion == timesVersion && this.employeeWorkShift == employeeWorkShift
+                && this.constraintsModificationCount == constraintsModificationCount
+                && this.objectivesModificationCount == objectivesModificationCount;
+    }
+
+    /**
+     * @return Whether the route was feasible when summarized, if not the summary cannot be used for insertions.
+     */
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    /**
+     * @return Number of visits in the route.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param step Index of the visit in the route, or the size of the route for the destination.
+     */
+    public Node getNode(int step) {
+        return nodes[step];
+    }
+
+    /**
+     * @param step Index of the visit in the route, or the size of the route for the destination.
+     */
+    public int getStartTime(int step) {
+        return startTimes[step];
+    }
+
+    /**
+     * @param step Index of the visit in the route, or the size of the route for the destination.
+     * @return The objective value of the route up to and including the step.
+     */
+    public double getObjectiveValue(int step) {
+        return objectiveValues[step];
+    }
+
+    public int getShiftStartTime() {
+        return shiftStartTime;
+    }
+}
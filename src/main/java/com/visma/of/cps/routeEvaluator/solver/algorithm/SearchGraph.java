@@ -4,64 +4,44 @@ package com.visma.of.cps.routeEvaluator.solver.algorithm;
 
 import com.visma.of.cps.model.IVisit;
 import com.visma.of.cps.model.Location;
-import com.visma.of.cps.model.TravelTimeMatrix;
+import com.visma.of.cps.model.TravelTimeProvider;
 import com.visma.of.cps.model.Visit;
 import com.visma.of.cps.util.Constants;
 
 import java.util.*;
 
+/**
+ * The search graph holds the nodes for all visits together with the travel times between their locations.
+ * The travel times are not copied, they are looked up in the travel time provider of the model.
+ * It is immutable once constructed, and can therefore be shared by all route evaluators built from the same model.
+ * State that changes between evaluations, such as the node lists and synced start times, is kept in the route
+ * evaluator itself.
+ */
 public class SearchGraph {
 
-    private Node origin;
-    private Node destination;
+    private final Node origin;
+    private final Node destination;
     private final List<Node> nodes;
     private final Map<IVisit, Node> visitToNodes;
-    private Map<Integer, Integer[][]> travelTimeMatrix;
+    private final TravelTimeProvider travelTimeProvider;
     private int nodeIdCounter;
-    private int sourceId;
-    private int sinkId;
 
 
-    //Trenger vi to constructors?
-    public SearchGraph( Map<Integer, TravelTimeMatrix>  travelTimeMatrixInput, Collection<? extends  Visit> visits,
-                        Location originLocation,  Location destinationLocation) {
-        this.nodes = new ArrayList<>();
+    public SearchGraph(TravelTimeProvider travelTimeProvider, Collection<? extends  Visit> visits,
+                       Location originLocation,  Location destinationLocation) {
+        List<Node> graphNodes = new ArrayList<>();
         this.visitToNodes = new HashMap<>();
         this.nodeIdCounter = 0;
-        this.populateGraph(travelTimeMatrixInput, visits, originLocation, destinationLocation);
-    }
-
-    public SearchGraph(SearchGraph other) {
-        this.nodeIdCounter = other.nodeIdCounter;
-        this.sourceId = other.sourceId;
-        this.sinkId = other.sinkId;
-        this.nodes = new ArrayList<>();
-        this.visitToNodes = new HashMap<>();
-        copyNodes(other);
-        int walk = Constants.TransportMode.WALK;
-        int drive = Constants.TransportMode.DRIVE;
-        Integer[][] travelTimeMatrixWalk = new Integer[other.travelTimeMatrix.get(walk).length][other.travelTimeMatrix.get(walk).length];
-        for (int i = 0; i < travelTimeMatrixWalk.length; i++) {
-            System.arraycopy(other.travelTimeMatrix.get(walk)[i], 0, this.travelTimeMatrix.get(walk)[i], 0, other.travelTimeMatrix.get(walk)[i].length);
-        }
-        Integer[][] travelTimeMatrixDrive = new Integer[other.travelTimeMatrix.get(drive).length][other.travelTimeMatrix.get(drive).length];
-        for (int i = 0; i < travelTimeMatrix.get(drive).length; i++) {
-            System.arraycopy(other.travelTimeMatrix.get(drive)[i], 0, this.travelTimeMatrix.get(drive)[i], 0, other.travelTimeMatrix.get(drive)[i].length);
-        }
-        this.travelTimeMatrix.put(Constants.TransportMode.WALK, travelTimeMatrixWalk);
-        this.travelTimeMatrix.put(Constants.TransportMode.DRIVE, travelTimeMatrixDrive);
-        this.origin = other.origin;
-        this.destination = other.destination;
-    }
-
-    private void copyNodes(SearchGraph other) {
-        for (Node node : other.nodes) {
-            Node newNode = new Node(node);
-            if (!node.isDepotNode()) {
-                visitToNodes.put(node.getVisit(), newNode);
-            }
-            nodes.add(newNode);
+        if (!travelTimeProvider.hasTransportMode(Constants.TransportMode.DRIVE) || !travelTimeProvider.hasTransportMode(Constants.TransportMode.WALK)) {
+            throw new IllegalArgumentException("Travel times must be given for both driving and walking");
         }
+        this.travelTimeProvider = travelTimeProvider;
+        this.origin = new Node(getNewNodeId(), null);
+        this.destination = new Node(getNewNodeId(), null);
+        graphNodes.add(origin);
+        graphNodes.add(destination);
+        addNodesToGraph(graphNodes, visits);
+        this.nodes = Collections.unmodifiableList(graphNodes);
     }
 
     public List<Node> getNodes() {
@@ -70,81 +50,21 @@ public class SearchGraph {
 
     public int getTravelTime(int locationIdA, int locationIdB, int transportmode) {
         if (locationIdA == locationIdB){return 0;} // Transport from Task to Task´
-        return travelTimeMatrix.get(transportmode)[locationIdA][locationIdB];
+        return travelTimeProvider.getTravelTime(locationIdA, locationIdB, transportmode);
     }
 
     private int getNewNodeId() {
         return nodeIdCounter++;
     }
 
-    private void populateGraph( Map<Integer, TravelTimeMatrix>  travelTimeMatrixInput,
-                               Collection<? extends  Visit> visits,  Location originLocation,
-                                Location destinationLocation) {
-        updateTravelTimeInformation(travelTimeMatrixInput);
-        initializeOriginDestination(originLocation, destinationLocation);
-        addNodesToGraph(visits);
-    }
-
-    private void initializeOriginDestination( Location originLocation,  Location destinationLocation) {
-        sourceId = getNewNodeId();
-        sinkId = getNewNodeId();
-        initializeOrigin(originLocation);
-        initializeDestination(destinationLocation);
-        nodes.add(origin);
-        nodes.add(destination);
-    }
-
-    /**
-
-     *
-     * Removed virtual node. If locationId is 0 it should be the last or first task.
-     * 
-     * @param originLocation Location of the origin, must be in the travel matrix, or null.
-     */
-    private void initializeOrigin(Location originLocation) {
-        this.origin = new Node(sourceId, null);
-    }
-
-    /**
-     * Initialize the destination in the graph. If null the destination will be the last task in the route. This is
-     * represented by a locationId = 0. OBS!! was id=-1, but removed virtual node. If locationId is 0 it should be the last task.
-     * 
-     *
-     * @param destinationLocation Location of the destination, must be in the travel matrix, or null.
-     */
-    private void initializeDestination( Location destinationLocation) {
-        this.destination = new Node(sinkId, null);
-    }
-
-    private void addNodesToGraph(Collection<? extends  Visit> visits) {
+    private void addNodesToGraph(List<Node> graphNodes, Collection<? extends  Visit> visits) {
         for ( Visit visit : visits) {
             Node node = new Node(getNewNodeId(), visit);
-            nodes.add(node);
+            graphNodes.add(node);
             visitToNodes.put(visit, node);
         }
     }
 
-    private void updateTravelTimeInformation( Map<Integer, TravelTimeMatrix> travelTimeMatrixInput) {
-        TravelTimeMatrix travelTimeMatrixInputDrive = travelTimeMatrixInput.get(Constants.TransportMode.DRIVE);
-        TravelTimeMatrix travelTimeMatrixInputWalk = travelTimeMatrixInput.get(Constants.TransportMode.WALK);
-
-        int n = travelTimeMatrixInputDrive.getLocations().size();
-        int m = travelTimeMatrixInputWalk.getLocations().size();
-
-        this.travelTimeMatrix = new HashMap<Integer, Integer[][]>(){{
-            put(Constants.TransportMode.DRIVE, new Integer[n][n]);
-            put(Constants.TransportMode.WALK, new Integer[m][m]);
-        }};
-        // Is the same locations in both, so whould not matter which we iterate through
-        for ( Location locationA : travelTimeMatrixInputDrive.getLocations()) {
-            for ( Location locationB : travelTimeMatrixInputDrive.getLocations()) {
-                addTravelTime(travelTimeMatrixInputDrive, locationA, locationB, Constants.TransportMode.DRIVE);
-                addTravelTime(travelTimeMatrixInputWalk, locationA, locationB, Constants.TransportMode.WALK);
-            }
-        }
-    }
-
-
     /**
      * Gets the location id of a location in the graph, the graph must contain the location.
      *
@@ -165,15 +85,6 @@ public class SearchGraph {
         return visitToNodes.get(visit).getLocationId();
     }
 
-    private void addTravelTime(TravelTimeMatrix travelTimeMatrixInput,  Location fromLocation,  Location toLocation, int transportmode) {
-        int fromId = getLocationId(fromLocation);
-        int toId = getLocationId(toLocation);
-        if (!travelTimeMatrixInput.connected(fromLocation, toLocation))
-            return;
-        int travelTime = travelTimeMatrixInput.getTravelTime(fromLocation, toLocation);
-        this.travelTimeMatrix.get(transportmode)[fromId][toId] = travelTime;
-    }
-
     public Node getOrigin() {
         return origin;
     }
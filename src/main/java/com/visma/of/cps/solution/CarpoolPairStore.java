@@ -0,0 +1,206 @@
+package com.visma.of.cps.solution;
+
+import com.visma.of.cps.model.TimeDependentVisitPair;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The carpool time dependent visit pairs of a solution and the synced start times of their visits, indexed by visit
+ * id. Each visit is in at most one pair, hence the pair of a visit is found and removed in constant time. The pairs
+ * are kept densely in an array, a removed pair is replaced by the last pair, and copying the store is an array copy.
+ */
+class CarpoolPairStore {
+
+    private static final int NO_PAIR = -1;
+
+    private final Visit[] visitsById;
+    private final int[] startTimes;
+    private final int[] pairIndexOfVisit;
+    private final TimeDependentVisitPair[] pairs;
+    private int numberOfPairs;
+    private final Map<Visit, Integer> startTimeView;
+
+    CarpoolPairStore(Collection<Visit> visits) {
+        int size = 0;
+        for (Visit visit : visits)
+            size = Math.max(size, visit.getId() + 1);
+        this.visitsById = new Visit[size];
+        for (Visit visit : visits)
+            visitsById[visit.getId()] = visit;
+        this.startTimes = new int[size];
+        Arrays.fill(startTimes, VisitSchedule.NOT_SET);
+        this.pairIndexOfVisit = new int[size];
+        Arrays.fill(pairIndexOfVisit, NO_PAIR);
+        this.pairs = new TimeDependentVisitPair[size / 2 + 1];
+        this.startTimeView = new StartTimeView();
+    }
+
+    CarpoolPairStore(CarpoolPairStore other) {
+        this.visitsById = other.visitsById;
+        this.startTimes = other.startTimes.clone();
+        this.pairIndexOfVisit = other.pairIndexOfVisit.clone();
+        this.pairs = other.pairs.clone();
+        this.numberOfPairs = other.numberOfPairs;
+        this.startTimeView = new StartTimeView();
+    }
+
+    void update(CarpoolPairStore other) {
+        System.arraycopy(other.startTimes, 0, this.startTimes, 0, startTimes.length);
+        System.arraycopy(other.pairIndexOfVisit, 0, this.pairIndexOfVisit, 0, pairIndexOfVisit.length);
+        System.arraycopy(other.pairs, 0, this.pairs, 0, pairs.length);
+        this.numberOfPairs = other.numberOfPairs;
+    }
+
+    /**
+     * @return The pair the visit is in, null if it is in none.
+     */
+    TimeDependentVisitPair getPair(Visit visit) {
+        return getPair(visit.getId());
+    }
+
+    TimeDependentVisitPair getPair(int visitId) {
+        int pairIndex = pairIndexOfVisit[visitId];
+        return pairIndex == NO_PAIR ? null : pairs[pairIndex];
+    }
+
+    /**
+     * Adds the pair, unless it is already in the store. A visit is in at most one pair, hence any other pair of its
+     * visits is removed.
+     *
+     * @return True if the pair was added.
+     */
+    boolean addPair(TimeDependentVisitPair pair) {
+        TimeDependentVisitPair masterPair = getPair(pair.getMasterVisit());
+        if (masterPair == pair)
+            return false;
+        if (masterPair != null)
+            removePair(masterPair);
+        TimeDependentVisitPair dependentPair = getPair(pair.getDependentVisit());
+        if (dependentPair != null)
+            removePair(dependentPair);
+        pairs[numberOfPairs] = pair;
+        pairIndexOfVisit[pair.getMasterVisit().getId()] = numberOfPairs;
+        pairIndexOfVisit[pair.getDependentVisit().getId()] = numberOfPairs;
+        numberOfPairs++;
+        return true;
+    }
+
+    /**
+     * @return True if the pair was in the store.
+     */
+    boolean removePair(TimeDependentVisitPair pair) {
+        int pairIndex = pairIndexOfVisit[pair.getMasterVisit().getId()];
+        if (pairIndex == NO_PAIR || pairs[pairIndex] != pair)
+            return false;
+        pairIndexOfVisit[pair.getMasterVisit().getId()] = NO_PAIR;
+        pairIndexOfVisit[pair.getDependentVisit().getId()] = NO_PAIR;
+        int lastIndex = --numberOfPairs;
+        if (pairIndex != lastIndex) {
+            TimeDependentVisitPair last = pairs[lastIndex];
+            pairs[pairIndex] = last;
+            pairIndexOfVisit[last.getMasterVisit().getId()] = pairIndex;
+            pairIndexOfVisit[last.getDependentVisit().getId()] = pairIndex;
+        }
+        pairs[lastIndex] = null;
+        return true;
+    }
+
+    /**
+     * @return The pairs in the store, the list must not be changed and is only valid until the store is changed.
+     */
+    List<TimeDependentVisitPair> getPairs() {
+        return Collections.unmodifiableList(Arrays.asList(pairs).subList(0, numberOfPairs));
+    }
+
+    /**
+     * @return Synced start time of the visit, VisitSchedule.NOT_SET if it has none.
+     */
+    int getStartTime(Visit visit) {
+        return startTimes[visit.getId()];
+    }
+
+    /**
+     * Sets the synced start time of the visit, VisitSchedule.NOT_SET removes it.
+     *
+     * @return The previous start time of the visit, VisitSchedule.NOT_SET if it had none.
+     */
+    int setStartTime(Visit visit, int startTime) {
+        int previousStartTime = startTimes[visit.getId()];
+        startTimes[visit.getId()] = startTime;
+        return previousStartTime;
+    }
+
+    /**
+     * @return The synced start times as a map from visit to start time, backed by this store and read only.
+     */
+    Map<Visit, Integer> getStartTimes() {
+        return startTimeView;
+    }
+
+    private class StartTimeView extends AbstractMap<Visit, Integer> {
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof Visit)) return null;
+            int startTime = startTimes[((Visit) key).getId()];
+            return startTime == VisitSchedule.NOT_SET ? null : startTime;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Visit && startTimes[((Visit) key).getId()] != VisitSchedule.NOT_SET;
+        }
+
+        @Override
+        public Set<Entry<Visit, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Visit, Integer>> iterator() {
+                    return new Iterator<>() {
+                        private int next = nextVisitId(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < startTimes.length;
+                        }
+
+                        @Override
+                        public Entry<Visit, Integer> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            Entry<Visit, Integer> entry = new SimpleImmutableEntry<>(visitsById[next], startTimes[next]);
+                            next = nextVisitId(next + 1);
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int startTime : startTimes)
+                        if (startTime != VisitSchedule.NOT_SET) size++;
+                    return size;
+                }
+            };
+        }
+
+        private int nextVisitId(int fromId) {
+            int visitId = fromId;
+            while (visitId < startTimes.length && startTimes[visitId] == VisitSchedule.NOT_SET)
+                visitId++;
+            return visitId;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.visma.of.cps.solution;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Set of visits or tasks of the model held as a bitset indexed by their ids, which are dense integers. Membership is
+ * a bit test, the size is cached and copying a set is an array copy. The objects of the model are looked up by id
+ * when iterating, this lookup table is shared by all copies of the set.
+ *
+ * @param <T> Visit or Task.
+ */
+class IdBitSet<T> extends AbstractSet<T> {
+
+    private final Object[] objectsById;
+    private final ToIntFunction<T> idOf;
+    private final long[] words;
+    private int size;
+    private int modifications;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param universe All objects that may be added to the set.
+     * @param idOf     Id of an object.
+     */
+    IdBitSet(Collection<T> universe, ToIntFunction<T> idOf) {
+        int maxId = -1;
+        for (T object : universe)
+            maxId = Math.max(maxId, idOf.applyAsInt(object));
+        this.objectsById = new Object[maxId + 1];
+        for (T object : universe)
+            objectsById[idOf.applyAsInt(object)] = object;
+        this.idOf = idOf;
+        this.words = new long[(objectsById.length + 63) >>> 6];
+    }
+
+    IdBitSet(IdBitSet<T> other) {
+        this.objectsById = other.objectsById;
+        this.idOf = other.idOf;
+        this.words = other.words.clone();
+        this.size = other.size;
+    }
+
+    /**
+     * Updates this set to contain the same objects as the other set, which must have the same universe.
+     */
+    void update(IdBitSet<T> other) {
+        System.arraycopy(other.words, 0, this.words, 0, words.length);
+        this.size = other.size;
+        modifications++;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        @SuppressWarnings("unchecked")
+        int id = idOf.applyAsInt((T) object);
+        return (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    @Override
+    public boolean add(T object) {
+        int id = idOf.applyAsInt(object);
+        long bit = 1L << id;
+        if ((words[id >>> 6] & bit) != 0)
+            return false;
+        words[id >>> 6] |= bit;
+        size++;
+        modifications++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        @SuppressWarnings("unchecked")
+        int id = idOf.applyAsInt((T) object);
+        long bit = 1L << id;
+        if ((words[id >>> 6] & bit) == 0)
+            return false;
+        words[id >>> 6] &= ~bit;
+        size--;
+        modifications++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+        size = 0;
+        modifications++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private final int expectedModifications = modifications;
+            private int next = nextId(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (next < 0)
+                    throw new NoSuchElementException();
+                if (modifications != expectedModifications)
+                    throw new ConcurrentModificationException();
+                T object = (T) objectsById[next];
+                next = nextId(next + 1);
+                return object;
+            }
+        };
+    }
+
+    /**
+     * @return The smallest id in the set that is at least fromId, -1 if there is none.
+     */
+    private int nextId(int fromId) {
+        int wordIndex = fromId >>> 6;
+        if (wordIndex >= words.length)
+            return -1;
+        long word = words[wordIndex] & (-1L << fromId);
+        while (true) {
+            if (word != 0)
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            if (++wordIndex == words.length)
+                return -1;
+            word = words[wordIndex];
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.visma.of.cps.solution;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Journal of the changes made to a problem by a neighborhood move. Every change records how it is undone, such that
+ * a rejected move is rolled back in time proportional to the size of the move, rather than by updating the entire
+ * problem from the current solution.
+ * <p>
+ * The routes are copy-on-write, see ShiftRoute, hence the route of a shift is undone by restoring the route it had
+ * before the move, which is only recorded the first time the shift is changed.
+ */
+class MoveJournal {
+
+    private final List<Runnable> undoActions;
+    private final BitSet changedShifts;
+
+    MoveJournal() {
+        this.undoActions = new ArrayList<>();
+        this.changedShifts = new BitSet();
+    }
+
+    /**
+     * Records how a change is undone.
+     *
+     * @param undoAction Action restoring the state from before the change.
+     */
+    void record(Runnable undoAction) {
+        undoActions.add(undoAction);
+    }
+
+    /**
+     * @return True the first time it is called for the shift since the journal was cleared.
+     */
+    boolean firstChangeOfShift(int shiftId) {
+        if (changedShifts.get(shiftId))
+            return false;
+        changedShifts.set(shiftId);
+        return true;
+    }
+
+    /**
+     * Undoes the recorded changes in reverse order and clears the journal.
+     */
+    void rollback() {
+        for (int i = undoActions.size() - 1; i >= 0; i--)
+            undoActions.get(i).run();
+        clear();
+    }
+
+    void clear() {
+        undoActions.clear();
+        changedShifts.clear();
+    }
+}
@@ -5,10 +5,12 @@ import java.util.*;
 import com.visma.of.cps.model.Model;
 import com.visma.of.cps.model.Shift;
 import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
 import com.visma.of.cps.routeEvaluator.evaluation.objective.IObjectiveFunction;
 import com.visma.of.cps.routeEvaluator.evaluation.objective.WeightObjectivePair;
 import com.visma.of.cps.routeEvaluator.results.RouteEvaluatorResult;
 import com.visma.of.cps.routeEvaluator.solver.RouteEvaluator;
+import com.visma.of.cps.routeEvaluator.solver.algorithm.SearchGraph;
 
 /**
  * The objective class holds the total objective values and the objective values for the individual shifts.
@@ -29,6 +31,8 @@ public class Objective {
     //private double[] shiftTotalRouteValues;
     private double totalObjectiveValue;
     private final List<Visit> addRemoveVisits;
+    // Records how the changes are undone while a neighborhood move is journaled, null otherwise
+    private MoveJournal journal;
 
 
     public void updateObjectiveWeight(String name, double newWeight) {
@@ -56,18 +60,29 @@ public class Objective {
 
     public Map<Integer, RouteEvaluator> initializeRouteEvaluators(Model model) {
         var evaluators = new LinkedHashMap<Integer, RouteEvaluator>();
+        // All shifts start and end at the depot, hence the same search graph can be used for all of them
+        SearchGraph graph = new SearchGraph(model.getTravelTimeProvider(), model.getVisits(),
+                model.getOriginLocation(), model.getOriginLocation());
         for (Shift shift : model.getShifts()) {
-            // Use constructor that sets origin and destination to depot
-            RouteEvaluator routeEvaluator = new RouteEvaluator(model.getTravelTimeMatrix(), model.getVisits(), model.getOriginLocation());
+            RouteEvaluator routeEvaluator = new RouteEvaluator(graph);
             evaluators.put(shift.getId(), routeEvaluator);
         }
         return evaluators;
     }
 
     public Objective(Objective objective) {
+        this(objective, false);
+    }
+
+    /**
+     * @param objective           Objective to copy.
+     * @param copyRouteEvaluators If true the route evaluators are copied, otherwise they are shared with the objective.
+     */
+    public Objective(Objective objective, boolean copyRouteEvaluators) {
         this.shiftIntraRouteValues = Arrays.copyOf(objective.shiftIntraRouteValues, objective.shiftIntraRouteValues.length);
         this.totalObjectiveValue = objective.totalObjectiveValue;
-        this.routeEvaluators = makeRouteEvaluatorCopy(objective.routeEvaluators);
+        this.routeEvaluators = copyRouteEvaluators ? makeDeepRouteEvaluatorCopy(objective.routeEvaluators)
+                : makeRouteEvaluatorCopy(objective.routeEvaluators);
         this.activeObjectiveFunctions = new LinkedHashMap<>();
         this.inActiveObjectiveFunctions = new LinkedHashMap<>();
         this.addRemoveVisits = new ArrayList<>();
@@ -86,9 +101,21 @@ public class Objective {
         return new LinkedHashMap<>(routeEvaluators);
     }
 
+    private Map<Integer, RouteEvaluator> makeDeepRouteEvaluatorCopy(Map<Integer, RouteEvaluator> routeEvaluators) {
+        if (routeEvaluators == null) return null;
+        Map<Integer, RouteEvaluator> copy = new LinkedHashMap<>();
+        for (var entry : routeEvaluators.entrySet())
+            copy.put(entry.getKey(), new RouteEvaluator(entry.getValue()));
+        return copy;
+    }
+
     private void updateRouteEvaluators(Map<Integer, RouteEvaluator> routeEvaluatorsMapping) {
+        if (this.routeEvaluators == routeEvaluatorsMapping) return;
         for (var entry : routeEvaluatorsMapping.entrySet()) {
-            this.routeEvaluators.get(entry.getKey()).update(entry.getValue());
+            RouteEvaluator routeEvaluator = this.routeEvaluators.get(entry.getKey());
+            // Copies of an objective share the route evaluators, these are already up to date
+            if (routeEvaluator != entry.getValue())
+                routeEvaluator.update(entry.getValue());
         }
     }
 
@@ -106,29 +133,77 @@ public class Objective {
     }
 
     protected void addVisit(Shift shift, Visit visit) {
+        if (journal != null)
+            journal.record(() -> removeObjectiveFunctionsVisit(shift, visit));
         for (WeightObjectivePair<IObjectiveFunction> objectivePair : activeObjectiveFunctions.values()) {
             objectivePair.getObjectiveFunction().addingVisit(shift, visit);
         }
     }
 
     protected void addVisits(Shift shift, Collection<Visit> visits) {
+        if (journal != null) {
+            List<Visit> addedVisits = new ArrayList<>(visits);
+            journal.record(() -> removeObjectiveFunctionsVisits(shift, addedVisits));
+        }
         for (WeightObjectivePair<IObjectiveFunction> objectivePair : activeObjectiveFunctions.values()) {
             objectivePair.getObjectiveFunction().addingVisits(shift, visits);
         }
     }
 
     protected void removeVisits(Shift shift, Collection<Visit> visits) {
+        if (journal != null) {
+            // Undoes what is done below, i.e., the visits being added to the objective functions
+            List<Visit> removedVisits = new ArrayList<>(visits);
+            journal.record(() -> removeObjectiveFunctionsVisits(shift, removedVisits));
+        }
         for (WeightObjectivePair<IObjectiveFunction> objectivePair : activeObjectiveFunctions.values()) {
             objectivePair.getObjectiveFunction().addingVisits(shift, visits);
         }
     }
 
     protected void removeVisit(Shift shift, Visit visit) {
+        if (journal != null)
+            journal.record(() -> addObjectiveFunctionsVisit(shift, visit));
+        removeObjectiveFunctionsVisit(shift, visit);
+    }
+
+    private void addObjectiveFunctionsVisit(Shift shift, Visit visit) {
+        for (WeightObjectivePair<IObjectiveFunction> objectivePair : activeObjectiveFunctions.values()) {
+            objectivePair.getObjectiveFunction().addingVisit(shift, visit);
+        }
+    }
+
+    private void removeObjectiveFunctionsVisit(Shift shift, Visit visit) {
         for (WeightObjectivePair<IObjectiveFunction> objectivePair : activeObjectiveFunctions.values()) {
             objectivePair.getObjectiveFunction().removingVisit(shift, visit);
         }
     }
 
+    private void removeObjectiveFunctionsVisits(Shift shift, Collection<Visit> visits) {
+        for (WeightObjectivePair<IObjectiveFunction> objectivePair : activeObjectiveFunctions.values()) {
+            objectivePair.getObjectiveFunction().removingVisits(shift, visits);
+        }
+    }
+
+    /**
+     * Starts or stops recording how the changes made to the objective values are undone, see MoveJournal.
+     *
+     * @param journal Journal to record to, null to stop recording.
+     */
+    void setJournal(MoveJournal journal) {
+        this.journal = journal;
+    }
+
+    private void recordObjectiveValues(int shiftId) {
+        if (journal == null) return;
+        double previousTotalObjectiveValue = totalObjectiveValue;
+        double previousShiftValue = shiftIntraRouteValues[shiftId];
+        journal.record(() -> {
+            totalObjectiveValue = previousTotalObjectiveValue;
+            shiftIntraRouteValues[shiftId] = previousShiftValue;
+        });
+    }
+
     protected void removeVisits(Shift shift, List<Visit> currentRoute, List<Integer> removeVisits) {
         addRemoveVisits.clear();
         for (int visitIndex : removeVisits)
@@ -144,11 +219,13 @@ public class Objective {
      * @param route                Route to evaluate.
      * @param index                Index to remove.
      * @param syncedVisitsStartTime Start time for synced visits.
+     * @param visitSchedule         Time windows of the visits in the solution.
      * @return Change in objective value or null if the change is infeasible.
      */
-    public Double deltaIntraObjectiveRemovingVisitAtIndex(Shift shift, List<Visit> route, int index, Map<Visit, Integer> syncedVisitsStartTime) {
+    public Double deltaIntraObjectiveRemovingVisitAtIndex(Shift shift, List<Visit> route, int index, Map<Visit, Integer> syncedVisitsStartTime,
+                                                          VisitSchedule visitSchedule) {
         RouteEvaluator routeEvaluator = routeEvaluators.get(shift.getId());
-        Double newObj = routeEvaluator.evaluateRouteByTheOrderOfVisitsRemoveVisitObjective(route, index, syncedVisitsStartTime, shift);
+        Double newObj = routeEvaluator.evaluateRouteByTheOrderOfVisitsRemoveVisitObjective(route, index, syncedVisitsStartTime, visitSchedule, shift);
         if (newObj == null)
             return null;
         return newObj - shiftIntraRouteValues[shift.getId()];
@@ -159,19 +236,21 @@ public class Objective {
      * @param removeIndicesInRoute Skips visits at these indices in the route, e.g., if the set contains index 0 and 2.
      *                             visit number 0 and 2 in the route will not be visited.
      * @param syncedVisitsStartTime Start time for synced visits.
+     * @param visitSchedule         Time windows of the visits in the solution.
      * @return Delta objective or null if infeasible
      */
-    public Double deltaIntraObjectiveNewRoute(Shift shift, List<Visit> route, List<Integer> removeIndicesInRoute, Map<Visit, Integer> syncedVisitsStartTime) {
+    public Double deltaIntraObjectiveNewRoute(Shift shift, List<Visit> route, List<Integer> removeIndicesInRoute, Map<Visit, Integer> syncedVisitsStartTime,
+                                              VisitSchedule visitSchedule) {
         RouteEvaluator routeEvaluator = routeEvaluators.get(shift.getId());
-        Double newObj = routeEvaluator.evaluateRouteByTheOrderOfVisitsRemoveVisitObjective(route, removeIndicesInRoute, syncedVisitsStartTime, shift);
+        Double newObj = routeEvaluator.evaluateRouteByTheOrderOfVisitsRemoveVisitObjective(route, removeIndicesInRoute, syncedVisitsStartTime, visitSchedule, shift);
         if (newObj == null)
             return null;
         return newObj - shiftIntraRouteValues[shift.getId()];
     }
 
-    public RouteEvaluatorResult routeEvaluatorResult(Shift shift, Map<Visit, Integer> syncedVisitsStartTime, List<Visit> route) {
+    public RouteEvaluatorResult routeEvaluatorResult(Shift shift, Map<Visit, Integer> syncedVisitsStartTime, VisitSchedule visitSchedule, List<Visit> route) {
         RouteEvaluator routeEvaluator = routeEvaluators.get(shift.getId());
-        return routeEvaluator.evaluateRouteByTheOrderOfVisits(route, syncedVisitsStartTime, shift);
+        return routeEvaluator.evaluateRouteByTheOrderOfVisits(route, syncedVisitsStartTime, visitSchedule, shift);
     }
 
     /**
@@ -181,6 +260,7 @@ public class Objective {
      * @param objectiveValue Objective value.
      */
     protected void setShiftIntraRouteObjectiveValue(Shift shift, double objectiveValue) {
+        recordObjectiveValues(shift.getId());
         shiftIntraRouteValues[shift.getId()] = objectiveValue;
     }
 
@@ -219,6 +299,7 @@ public class Objective {
      * @param deltaValue Double value to add to the objective.
      */
     protected void updateTotalRouteObjective(Shift shift, double deltaValue) {
+        recordObjectiveValues(shift.getId());
         totalObjectiveValue += deltaValue;
         shiftIntraRouteValues[shift.getId()] += deltaValue;
     }
@@ -232,6 +313,7 @@ public class Objective {
      * @param deltaValue Double value to add to the objective.
      */
     protected void updateIntraRouteObjective(Shift shift, double deltaValue) {
+        recordObjectiveValues(shift.getId());
         totalObjectiveValue += deltaValue;
         shiftIntraRouteValues[shift.getId()] += deltaValue;
     }
@@ -250,7 +332,8 @@ public class Objective {
 
         for (Shift shift : model.getShifts()) {
             RouteEvaluator routeEvaluator = routeEvaluators.get(shift.getId());
-            Double intraObjective = routeEvaluator.evaluateRouteObjective(solution.getRoute(shift), solution.getCarpoolSyncedTaskStartTimes(), shift);
+            Double intraObjective = routeEvaluator.evaluateRouteObjective(solution.getRoute(shift), solution.getCarpoolSyncedTaskStartTimes(),
+                    solution.getVisitSchedule(), shift);
             if (intraObjective == null)
                 return false;
             // double extraObjective = calcExtraRouteObjectiveValue(shift, solution.getRoute(shift));
@@ -259,6 +342,14 @@ public class Objective {
             tmpTotalObjectiveValue += intraObjective;
         }
 
+        if (journal != null) {
+            double previousTotalObjectiveValue = totalObjectiveValue;
+            double[] previousShiftValues = shiftIntraRouteValues.clone();
+            journal.record(() -> {
+                totalObjectiveValue = previousTotalObjectiveValue;
+                System.arraycopy(previousShiftValues, 0, shiftIntraRouteValues, 0, shiftIntraRouteValues.length);
+            });
+        }
         totalObjectiveValue = tmpTotalObjectiveValue;
         //System.arraycopy(tmpShiftIntraRouteValues, 0, shiftIntraRouteValues, 0, shiftIntraRouteValues.length);
         System.arraycopy(tmpShiftTotalRouteValues, 0, shiftIntraRouteValues, 0, shiftIntraRouteValues.length);
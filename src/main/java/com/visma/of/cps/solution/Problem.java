@@ -3,6 +3,7 @@ package com.visma.of.cps.solution;
 import com.visma.of.cps.model.*;
 import com.visma.of.cps.routeEvaluator.evaluation.constraint.IConstraintIntraRoute;
 import com.visma.of.cps.routeEvaluator.evaluation.objective.IObjectiveFunctionIntraRoute;
+import com.visma.of.cps.routeEvaluator.results.Route;
 import com.visma.of.cps.routeEvaluator.solver.RouteEvaluator;
 import com.visma.of.cps.util.Constants;
 import com.visma.of.cps.util.Constants.TransportMode;
@@ -15,6 +16,8 @@ public class Problem {
     protected Solution solution;
     protected Objective objective;
     private final Map<String, IObjectiveFunctionIntraRoute> relaxedIntraRouteConstraints;
+    private final MoveJournal moveJournal = new MoveJournal();
+    private boolean journaling;
 
     public Problem(Model model) {
         this.solution = new Solution(model);
@@ -23,8 +26,18 @@ public class Problem {
     }
 
     public Problem(Problem problem) {
+        this(problem, false);
+    }
+
+    /**
+     * @param problem              Problem to copy.
+     * @param copyRouteEvaluators If true the copy gets its own copies of the route evaluators, otherwise it shares them
+     *                             with the problem. A copy that is handed to searches on other threads must have its
+     *                             own route evaluators, as those of the problem are changed by the search owning it.
+     */
+    public Problem(Problem problem, boolean copyRouteEvaluators) {
         this.solution = problem.solution != null ? new Solution(problem.solution) : null;
-        this.objective = problem.objective != null ? new Objective(problem.objective) : null;
+        this.objective = problem.objective != null ? new Objective(problem.objective, copyRouteEvaluators) : null;
 
         this.relaxedIntraRouteConstraints = problem.relaxedIntraRouteConstraints;
     }
@@ -66,6 +79,7 @@ public class Problem {
     }
 
     public void update(Problem problem) {
+        commitMove();
         this.solution.update(problem.solution);
         this.objective.update(problem.objective);
     }
@@ -77,20 +91,23 @@ public class Problem {
      * @param intraObjectiveDeltaValue
      */
     public void unAssignVisitByRouteIndex(Shift shift, int index, double intraObjectiveDeltaValue) {
-        List<Visit> route = solution.getRoute(shift);
+        VisitSchedule visitSchedule = solution.getVisitSchedule();
         Visit removedVisit = solution.unAssignVisitFromShift(shift, index);
+        // Fetched after the removal, as a shared route is replaced by a copy when it is changed
+        List<Visit> route = solution.getRoute(shift);
         if (removedVisit.completesTask()){
             // The visit includes completing the task
             solution.unAllocateTask(removedVisit.getTask());
         }
-        if (removedVisit.getCoCarPoolerShiftID() != null) {
-            removedVisit.removeCarPooling();
+        if (visitSchedule.hasCoCarPooler(removedVisit)) {
+            visitSchedule.removeCarPooling(removedVisit);
             solution.removeCarpoolTimeDependentVisitPair(removedVisit);
             if (removedVisit.getVisitType()  == Constants.VisitType.JOIN_MOTORIZED && !shift.isMotorized() && route.size() > index){
-                Visit successor = route.get(index+1);
-                successor.setTransportType(Constants.TransportMode.WALK);
+                // The successor of the removed visit now has its index
+                Visit successor = route.get(index);
+                visitSchedule.setTransportType(successor, Constants.TransportMode.WALK);
                 if (successor.completesTask()){
-                    successor.removeCarPooling();
+                    visitSchedule.removeCarPooling(successor);
                     solution.removeCarpoolTimeDependentVisitPair(successor);
                 }
 
@@ -98,6 +115,7 @@ public class Problem {
         }
         objective.removeVisit(shift, removedVisit);
         objective.updateIntraRouteObjective(shift, intraObjectiveDeltaValue);
+        routeChanged(shift);
     }  
     
     /**
@@ -110,12 +128,14 @@ public class Problem {
      */
     public void assignVisitToShiftByIndex(Shift shift, Visit visit, int index, double intraObjectiveDeltaValue) {
         solution.assignVisitToShift(visit, shift, index);
+        routeChanged(shift);
 
         // Checks whether the insertion of this visit completes any tasks
 
         List<Visit> route = solution.getRoute(shift);
+        VisitSchedule visitSchedule = solution.getVisitSchedule();
 
-        if (visit.getTransportType() == TransportMode.WALK && index > 0) {
+        if (visitSchedule.getTransportType(visit) == TransportMode.WALK && index > 0) {
             // You completed the task on the previous index
             Task predecessor = route.get(index - 1).getTask();
             solution.allocateTask(predecessor);
@@ -124,7 +144,7 @@ public class Problem {
         if (index < route.size() - 1) {
             // Visit has a successor
             Visit successor = route.get(index + 1);
-            if (successor.getTransportType() == TransportMode.WALK) {
+            if (visitSchedule.getTransportType(successor) == TransportMode.WALK) {
                 // Successor walks, i.e., completes the task of the visit that is to be inserted
                 solution.allocateTask(successor.getTask());
             }
@@ -137,18 +157,65 @@ public class Problem {
     }
 
     public void unAssignVisitFromShift(Shift shift, int index) {
-        List<Visit> route = solution.getRoute(shift);
         Visit removedVisit = solution.unAssignVisitFromShift(shift, index);
+        // Fetched after the removal, as a shared route is replaced by a copy when it is changed
+        List<Visit> route = solution.getRoute(shift);
         if (removedVisit.completesTask()){
             // The visit includes completing the task
             solution.unAllocateTask(removedVisit.getTask());
         }
         if (removedVisit.getVisitType()  == Constants.VisitType.JOIN_MOTORIZED && !shift.isMotorized() && route.size() > index){
             // You remove a walkers pick-up point. It should no longer drive to the next task
-            route.get(index+1).setCoCarPoolerShiftID(null);
-            route.get(index+1).setTransportType(Constants.TransportMode.WALK);
+            solution.getVisitSchedule().setCoCarPoolerShiftId(route.get(index), VisitSchedule.NOT_SET);
+            solution.getVisitSchedule().setTransportType(route.get(index), Constants.TransportMode.WALK);
         }
         objective.removeVisit(shift, removedVisit);
+        routeChanged(shift);
+    }
+
+    /**
+     * Invalidates what the route evaluator of the shift has cached about the route.
+     */
+    private void routeChanged(Shift shift) {
+        RouteEvaluator routeEvaluator = objective.getRouteEvaluators().get(shift.getId());
+        routeEvaluator.invalidateRouteSummary();
+        if (journaling)
+            moveJournal.record(routeEvaluator::invalidateRouteSummary);
+    }
+
+    /**
+     * Starts journaling the changes made to the problem, such that a neighborhood move can be rolled back in time
+     * proportional to its size, see rollbackMove. Any previous journal is discarded.
+     */
+    public void startMove() {
+        commitMove();
+        journaling = true;
+        solution.setJournal(moveJournal);
+        objective.setJournal(moveJournal);
+    }
+
+    /**
+     * Keeps the changes made since startMove and stops journaling.
+     */
+    public void commitMove() {
+        if (!journaling) return;
+        journaling = false;
+        moveJournal.clear();
+        solution.setJournal(null);
+        objective.setJournal(null);
+    }
+
+    /**
+     * Undoes the changes made since startMove and stops journaling.
+     *
+     * @return False if no move was journaled, in which case nothing is undone.
+     */
+    public boolean rollbackMove() {
+        if (!journaling) return false;
+        journaling = false;
+        solution.rollbackJournal();
+        objective.setJournal(null);
+        return true;
     }
 
     public void addVisitsToUnallocatedVisits(Collection<Visit> visits) { solution.addVisitsToUnallocatedVisits(visits);}
@@ -165,11 +232,10 @@ public class Problem {
      */
 	public void unAssignVisitsByRouteIndices(Shift removeShift, List<Integer> indices, double bestIntraObjective) {
         List<Integer> indicesSorted = indices.stream().sorted(Comparator.reverseOrder()).collect(Collectors.toList());
-        List<Visit> route = this.solution.getRoute(removeShift);
         for(int index : indicesSorted){
             // Checking if carpool time dependent visit pairs must be removed
-            Visit visit = route.get(index);
-            if (visit.isSynced()) {
+            Visit visit = this.solution.getRoute(removeShift).get(index);
+            if (this.solution.getVisitSchedule().isSynced(visit)) {
                 this.solution.removeCarpoolTimeDependentVisitPair(visit);
             }
             unAssignVisitByRouteIndex(removeShift, index, 0.0);
@@ -196,5 +262,25 @@ public class Problem {
      */
     public void addCarpoolTimeDependentVisitPair(TimeDependentVisitPair pair, int masterStartTime, int dependentStartTime) {
         this.solution.addCarpoolTimeDependentVisitPair(pair, masterStartTime, dependentStartTime);
+        this.solution.getVisitSchedule().setCarpooling(pair.getMasterVisit(), pair.getDependentShiftId());
+        this.solution.getVisitSchedule().setCarpooling(pair.getDependentVisit(), pair.getMasterShiftId());
+    }
+
+    /**
+     * Sets the time window of a visit in the solution, e.g., of a visit that is carpooled.
+     * Any objective affected will not be updated.
+     */
+    public void setVisitTimeWindow(Visit visit, int timeWindowStart, int timeWindowEnd) {
+        solution.getVisitSchedule().setTimeWindow(visit, timeWindowStart, timeWindowEnd);
+    }
+
+    /**
+     * Sets the schedule of the visits found when the route was evaluated, i.e., their start times, travel times and
+     * transport modes. Any objective affected will not be updated.
+     *
+     * @param route Evaluated route of one of the shifts of the solution.
+     */
+    public void setVisitSchedule(Route route) {
+        route.writeSchedule(solution.getVisitSchedule());
     }
 }
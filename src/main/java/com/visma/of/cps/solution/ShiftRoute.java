@@ -0,0 +1,70 @@
+package com.visma.of.cps.solution;
+
+import com.visma.of.cps.model.Visit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The route of a shift in a solution. Routes are copy-on-write, i.e., once a route is shared by several solutions it
+ * is never changed, a solution that changes a shared route first replaces it by a copy. Hence copying or updating a
+ * solution only has to share the routes that differ.
+ * <p>
+ * The version identifies the visits of the route. It is unique over all routes and is changed every time the route
+ * is changed, hence two solutions have the same route for a shift if they hold the same version.
+ */
+class ShiftRoute {
+
+    private static final AtomicLong NEXT_VERSION = new AtomicLong();
+
+    private final List<Visit> visits;
+    private long version;
+    private boolean shared;
+
+    ShiftRoute() {
+        this(new ArrayList<>());
+    }
+
+    private ShiftRoute(List<Visit> visits) {
+        this.visits = visits;
+        this.version = NEXT_VERSION.incrementAndGet();
+    }
+
+    /**
+     * Marks the route as shared by several solutions, such that it is never changed again.
+     *
+     * @return This route.
+     */
+    ShiftRoute share() {
+        if (!shared)
+            shared = true;
+        return this;
+    }
+
+    /**
+     * @return This route if it is not shared, otherwise a copy of it that is not shared.
+     */
+    ShiftRoute mutable() {
+        return shared ? new ShiftRoute(new ArrayList<>(visits)) : this;
+    }
+
+    void add(int index, Visit visit) {
+        visits.add(index, visit);
+        version = NEXT_VERSION.incrementAndGet();
+    }
+
+    Visit remove(int index) {
+        Visit visit = visits.remove(index);
+        version = NEXT_VERSION.incrementAndGet();
+        return visit;
+    }
+
+    List<Visit> getVisits() {
+        return visits;
+    }
+
+    long getVersion() {
+        return version;
+    }
+}
@@ -5,54 +5,94 @@ import com.visma.of.cps.model.Shift;
 import com.visma.of.cps.model.Task;
 import com.visma.of.cps.model.Visit;
 import com.visma.of.cps.model.TimeDependentVisitPair;
+import com.visma.of.cps.model.VisitSchedule;
+import com.visma.of.cps.util.Constants.VisitType;
 
 import java.util.*;
 
 public class Solution {
 
-    protected List<List<Visit>> shiftRoutes;
+    private static final int[] TRANSPORT_VISIT_TYPES = {VisitType.JOIN_MOTORIZED, VisitType.DROP_OF, VisitType.PICK_UP};
+    private static final int[] TASK_VISIT_TYPES = {VisitType.COMPLETE_TASK, VisitType.JOIN_MOTORIZED, VisitType.DROP_OF, VisitType.PICK_UP};
+
+    // Copy-on-write, see ShiftRoute. Routes shared with other solutions are replaced by a copy before they are changed.
+    private final ShiftRoute[] shiftRoutes;
     private Shift[] taskAssignedToShift;
     private Shift[] visitAssignedToShift;
-    private Set<Task> unallocatedTasks;
-    private Set<Task> allocatedTasks;
-    private Collection<TimeDependentVisitPair> carpoolTimeDependentVisitPairs = new HashSet<>();
-    private Map<Visit, Integer> carpoolTimeDependentVisitStartTime;
-    private Set<Visit> unallocatedVisits;
-
+    // Position of each visit in the route of the shift it is assigned to, only valid for visits assigned to a shift
+    private final int[] positionOfVisit;
+    private final Model model;
+    // Bitsets indexed by the ids of the tasks and visits, see IdBitSet
+    private final IdBitSet<Task> unallocatedTasks;
+    private final UnallocatedTaskStatistics unallocatedTaskStatistics;
+    private final IdBitSet<Task> allocatedTasks;
+    private final CarpoolPairStore carpoolPairs;
+    private final SyncedPairTracker syncedPairTracker;
+    private final IdBitSet<Visit> unallocatedVisits;
+    private final VisitSchedule visitSchedule;
+    // Records how the changes are undone while a neighborhood move is journaled, null otherwise
+    private MoveJournal journal;
 
     private int numTasks;
 
     public Solution(Model model) {
-        unallocatedTasks = new HashSet<>();
-        unallocatedVisits= new HashSet<>();
-        allocatedTasks= new HashSet<>();
-        taskAssignedToShift = new Shift[model.getTasks().size()];
-        visitAssignedToShift = new Shift[model.getVisits().size()];
-        shiftRoutes = new ArrayList<>();
-        for (int i = 0; i < model.getShifts().size(); i++) {
-            shiftRoutes.add(new ArrayList<>());
-
+        this.model = model;
+        unallocatedTasks = new IdBitSet<>(model.getTasks(), Task::getId);
+        unallocatedTaskStatistics = new UnallocatedTaskStatistics(model.getTasks());
+        unallocatedVisits = new IdBitSet<>(model.getVisits(), Visit::getId);
+        allocatedTasks = new IdBitSet<>(model.getTasks(), Task::getId);
+        carpoolPairs = new CarpoolPairStore(model.getVisits());
+        syncedPairTracker = new SyncedPairTracker(model);
+        // Indexed by id, the ids are not necessarily from zero
+        int taskIdBound = model.getTasks().stream().mapToInt(Task::getId).max().orElse(-1) + 1;
+        int visitIdBound = model.getVisits().stream().mapToInt(Visit::getId).max().orElse(-1) + 1;
+        taskAssignedToShift = new Shift[taskIdBound];
+        visitAssignedToShift = new Shift[visitIdBound];
+        positionOfVisit = new int[visitIdBound];
+        shiftRoutes = new ShiftRoute[model.getShifts().size()];
+        for (int i = 0; i < shiftRoutes.length; i++) {
+            shiftRoutes[i] = new ShiftRoute();
         }
+        visitSchedule = new VisitSchedule(model.getVisits());
     }
 
     public Solution(Solution other) {
-        this.shiftRoutes = new ArrayList<>(other.shiftRoutes.size());
-        for (List<Visit> route : other.shiftRoutes)
-            this.shiftRoutes.add(new ArrayList<>(route));
+        this.shiftRoutes = new ShiftRoute[other.shiftRoutes.length];
+        for (int i = 0; i < shiftRoutes.length; i++)
+            this.shiftRoutes[i] = other.shiftRoutes[i].share();
+        this.model = other.model;
         this.taskAssignedToShift = Arrays.copyOf(other.taskAssignedToShift, other.taskAssignedToShift.length);
-        this.unallocatedTasks = new HashSet<>(other.unallocatedTasks);
-        this.unallocatedVisits = new HashSet<>(other.unallocatedVisits);
-
+        this.visitAssignedToShift = Arrays.copyOf(other.visitAssignedToShift, other.visitAssignedToShift.length);
+        this.positionOfVisit = other.positionOfVisit.clone();
+        this.unallocatedTasks = new IdBitSet<>(other.unallocatedTasks);
+        this.unallocatedTaskStatistics = new UnallocatedTaskStatistics(other.unallocatedTaskStatistics);
+        this.allocatedTasks = new IdBitSet<>(other.allocatedTasks);
+        this.unallocatedVisits = new IdBitSet<>(other.unallocatedVisits);
+        this.carpoolPairs = new CarpoolPairStore(other.carpoolPairs);
+        this.syncedPairTracker = new SyncedPairTracker(other.syncedPairTracker);
+        this.visitSchedule = new VisitSchedule(other.visitSchedule);
     }
 
+    /**
+     * Updates this solution to be equal to the other solution. Only the routes of the shifts that differ are updated,
+     * and they are shared with the other solution rather than copied.
+     */
     protected void update(Solution other) {
-        for (int i = 0; i < other.shiftRoutes.size(); i++) {
-            this.shiftRoutes.set(i, new ArrayList<>(other.shiftRoutes.get(i)));
+        for (int i = 0; i < other.shiftRoutes.length; i++) {
+            if (this.shiftRoutes[i] != other.shiftRoutes[i])
+                this.shiftRoutes[i] = other.shiftRoutes[i].share();
         }
         System.arraycopy(other.taskAssignedToShift, 0, this.taskAssignedToShift,
                 0, other.taskAssignedToShift.length);
-        this.unallocatedTasks.clear();
-        this.unallocatedTasks.addAll(other.unallocatedTasks);
+        System.arraycopy(other.visitAssignedToShift, 0, this.visitAssignedToShift, 0, visitAssignedToShift.length);
+        System.arraycopy(other.positionOfVisit, 0, this.positionOfVisit, 0, positionOfVisit.length);
+        this.unallocatedTasks.update(other.unallocatedTasks);
+        this.unallocatedTaskStatistics.update(other.unallocatedTaskStatistics);
+        this.allocatedTasks.update(other.allocatedTasks);
+        this.unallocatedVisits.update(other.unallocatedVisits);
+        this.carpoolPairs.update(other.carpoolPairs);
+        this.syncedPairTracker.update(other.syncedPairTracker);
+        this.visitSchedule.update(other.visitSchedule);
     }
     
     /**
@@ -68,7 +108,7 @@ public class Solution {
     }
 
     protected void assignVisitToShift(Visit visit, Shift shift, int index) {
-        unallocatedVisits.remove(visit);
+        removeUnallocatedVisit(visit);
         setVisitId(visit, shift);
         addVisitToRoute(shift, visit, index);
     }
@@ -76,39 +116,46 @@ public class Solution {
     protected Visit unAssignVisitFromShift(Shift shift, int index) {
         Visit visit = removeFromRoute(shift, index);
         setVisitId(visit, null);
-        visit.resetVisitWhenRemovedFromShift();
-        unallocatedVisits.add(visit);
+        visitSchedule.resetVisitWhenRemovedFromShift(visit);
+        addUnallocatedVisit(visit);
         return visit;
     }
 
     protected Visit unAssignVisitFromShift(int shiftId, int index) {
         Visit visit = removeFromRoute(shiftId, index);
         setVisitId(visit, null);
-        visit.resetVisitWhenRemovedFromShift();
-        unallocatedVisits.add(visit);
+        visitSchedule.resetVisitWhenRemovedFromShift(visit);
+        addUnallocatedVisit(visit);
         return visit;
     }
 
+    /**
+     * Un assigns the visits of the task of the visit from the shift.
+     *
+     * @return The visits removed, in the order they had in the route.
+     */
     public List<Visit> unAssignVisitsConnectedToTask(int shiftId, Visit visit){
-        List<Visit> removedVisits = new ArrayList<>();
-        int i = 0;
-        for(Visit v : getRoute(shiftId)){
-            if(v.getTask() == visit.getTask()){
-                removedVisits.add(unAssignVisitFromShift(shiftId, i));
-            }
-            i++;
+        int[] positions = new int[TASK_VISIT_TYPES.length];
+        int numberOfPositions = 0;
+        for (int visitType : TASK_VISIT_TYPES) {
+            Visit taskVisit = model.getVisit(visit.getTask(), visitType);
+            if (taskVisit != null && isVisitInShift(taskVisit, shiftId))
+                positions[numberOfPositions++] = positionOfVisit[taskVisit.getId()];
         }
+        // Removed from the back, such that the positions of the visits not yet removed are unchanged
+        Arrays.sort(positions, 0, numberOfPositions);
+        LinkedList<Visit> removedVisits = new LinkedList<>();
+        for (int i = numberOfPositions - 1; i >= 0; i--)
+            removedVisits.addFirst(unAssignVisitFromShift(shiftId, positions[i]));
         return removedVisits;
     }
 
     public Map<Integer, Integer> getTransportVisitIndices(int shiftId, Visit visit){
         Map<Integer, Integer> transportVisitIndices = new HashMap<>();
-        int i = 0;
-        for(Visit v : getRoute(shiftId)){
-            if(!v.completesTask() && v.getTask() == visit.getTask()){
-                transportVisitIndices.put(v.getVisitType(), i);
-            }
-            i++;
+        for (int visitType : TRANSPORT_VISIT_TYPES) {
+            Integer index = getCorrespondingVisitOfTypeIndex(shiftId, visit, visitType);
+            if (index != null)
+                transportVisitIndices.put(visitType, index);
         }
         return transportVisitIndices;
     }
@@ -121,14 +168,28 @@ public class Solution {
      * @return
      */
     public Integer getCorrespondingVisitOfTypeIndex(int shiftId, Visit visit, int visitType){
-        int i = 0;
-        for(Visit v : getRoute(shiftId)){
-            if(v.getVisitType() == visitType && v.getTask() == visit.getTask()){
-                return i;
-            }
-            i++;
-        }
-        return null;
+        Visit corresponding = model.getVisit(visit.getTask(), visitType);
+        return corresponding != null && isVisitInShift(corresponding, shiftId) ? positionOfVisit[corresponding.getId()] : null;
+    }
+
+    /**
+     * @return Position of the visit in the route of the shift it is assigned to, -1 if it is not assigned to a shift.
+     */
+    public int getPositionInRoute(Visit visit) {
+        return visitAssignedToShift[visit.getId()] == null ? -1 : positionOfVisit[visit.getId()];
+    }
+
+    public boolean isVisitInShift(Visit visit, int shiftId) {
+        Shift shift = visitAssignedToShift[visit.getId()];
+        return shift != null && shift.getId() == shiftId;
+    }
+
+    /**
+     * @return Whether the complete task visit of the task is in the route of the shift.
+     */
+    public boolean isCompleteTaskInShift(Task task, int shiftId) {
+        Visit completeTask = model.getVisit(task, VisitType.COMPLETE_TASK);
+        return completeTask != null && isVisitInShift(completeTask, shiftId);
     }
 
 
@@ -144,17 +205,43 @@ public class Solution {
         if (unallocatedTasks.contains(task)) {
             throw new IllegalArgumentException("This task has already been added to the solution");
         }
-        unallocatedTasks.add(task);
+        addUnallocatedTask(task);
     }
 
     protected void allocateTask(Task task) {
-        allocatedTasks.add(task);
-        unallocatedTasks.remove(task);
+        boolean added = allocatedTasks.add(task);
+        boolean removed = removeUnallocatedTask(task);
+        if (journal != null && (added || removed)) {
+            journal.record(() -> {
+                if (added) allocatedTasks.remove(task);
+                if (removed) addUnallocatedTask(task);
+            });
+        }
     }
 
     protected void unAllocateTask(Task task) {
-        unallocatedTasks.add(task);
-        allocatedTasks.remove(task);
+        boolean added = addUnallocatedTask(task);
+        boolean removed = allocatedTasks.remove(task);
+        if (journal != null && (added || removed)) {
+            journal.record(() -> {
+                if (added) removeUnallocatedTask(task);
+                if (removed) allocatedTasks.add(task);
+            });
+        }
+    }
+
+    private boolean addUnallocatedTask(Task task) {
+        if (!unallocatedTasks.add(task))
+            return false;
+        unallocatedTaskStatistics.add(task);
+        return true;
+    }
+
+    private boolean removeUnallocatedTask(Task task) {
+        if (!unallocatedTasks.remove(task))
+            return false;
+        unallocatedTaskStatistics.remove(task);
+        return true;
     }
 
     public boolean isAllocated(Task task) {
@@ -166,83 +253,243 @@ public class Solution {
     }
 
     private void setVisitId(Visit visit, Shift shift) {
-        visitAssignedToShift[visit.getId()] = shift;
+        int visitId = visit.getId();
+        if (journal != null) {
+            Shift previousShift = visitAssignedToShift[visitId];
+            journal.record(() -> visitAssignedToShift[visitId] = previousShift);
+        }
+        visitAssignedToShift[visitId] = shift;
+    }
+
+    private void addUnallocatedVisit(Visit visit) {
+        if (unallocatedVisits.add(visit)) {
+            syncedPairTracker.markDirty(visit);
+            if (journal != null)
+                journal.record(() -> removeUnallocatedVisit(visit));
+        }
+    }
+
+    private void removeUnallocatedVisit(Visit visit) {
+        if (unallocatedVisits.remove(visit)) {
+            syncedPairTracker.markDirty(visit);
+            if (journal != null)
+                journal.record(() -> addUnallocatedVisit(visit));
+        }
     }
 
     private void addVisitToRoute(Shift shift, Visit visit, int index) {
-        getRoute(shift).add(index, visit);
+        ShiftRoute route = mutableRoute(shift.getId());
+        route.add(index, visit);
+        updatePositions(route.getVisits(), index);
+    }
+
+    /**
+     * Sets the positions of the visits of the route from the given index on.
+     */
+    private void updatePositions(List<Visit> route, int fromIndex) {
+        for (int i = fromIndex; i < route.size(); i++)
+            positionOfVisit[route.get(i).getId()] = i;
+    }
+
+    private ShiftRoute mutableRoute(int shiftId) {
+        if (journal != null && journal.firstChangeOfShift(shiftId)) {
+            // The route from before the move is shared with the journal, hence the move changes a copy of it
+            ShiftRoute previousRoute = shiftRoutes[shiftId].share();
+            journal.record(() -> {
+                shiftRoutes[shiftId] = previousRoute;
+                updatePositions(previousRoute.getVisits(), 0);
+            });
+        }
+        ShiftRoute route = shiftRoutes[shiftId].mutable();
+        shiftRoutes[shiftId] = route;
+        return route;
     }
 
 
     // Method to add new carpoolTimeDependentVisitPair, because this list is initially empty. Input: TimeDependentVisitPair
     protected void addCarpoolTimeDependentVisitPair(TimeDependentVisitPair pair, int masterStartTime, int dependentStartTime){
-        this.carpoolTimeDependentVisitPairs.add(pair);
-        this.carpoolTimeDependentVisitStartTime.put(pair.getMasterVisit(), masterStartTime); 
-        this.carpoolTimeDependentVisitStartTime.put(pair.getDependentVisit(), dependentStartTime);
+        TimeDependentVisitPair masterPair = carpoolPairs.getPair(pair.getMasterVisit());
+        TimeDependentVisitPair dependentPair = carpoolPairs.getPair(pair.getDependentVisit());
+        if (journal != null && masterPair != pair) {
+            journal.record(() -> {
+                removeCarpoolPair(pair);
+                if (masterPair != null) addCarpoolPair(masterPair);
+                if (dependentPair != null && dependentPair != masterPair) addCarpoolPair(dependentPair);
+            });
+        }
+        // Other pairs of the visits are replaced
+        if (masterPair != null) markSyncedPairDirty(masterPair);
+        if (dependentPair != null) markSyncedPairDirty(dependentPair);
+        addCarpoolPair(pair);
+        setCarpoolSyncedVisitStartTime(pair.getMasterVisit(), masterStartTime);
+        setCarpoolSyncedVisitStartTime(pair.getDependentVisit(), dependentStartTime);
     }
 
     /**
-     * Method to remove carpoolTimeDependentVisitPair, and ensuring it gets deleted from both lists.
-     * Also removes carpool variables from the pairs.
+     * Method to remove carpoolTimeDependentVisitPair the visit is in, and the synced start times of its visits.
+     * Also removes carpool variables from the visits.
      * @param visit Visit we want to remove, can be either a master og a dependent visit
      */
     protected void removeCarpoolTimeDependentVisitPair(Visit visit) {
-        for (TimeDependentVisitPair pair: this.carpoolTimeDependentVisitPairs){
-            if (pair.getMasterVisit().equals(visit)){
-                this.carpoolTimeDependentVisitStartTime.remove(pair.getDependentVisit());
-                this.carpoolTimeDependentVisitStartTime.remove(visit);
-                this.carpoolTimeDependentVisitPairs.remove(pair);
-                pair.getDependentVisit().removeCarPooling();
-            }
-            else if (pair.getDependentVisit().equals(visit)){
-                this.carpoolTimeDependentVisitStartTime.remove(pair.getMasterVisit());
-                this.carpoolTimeDependentVisitStartTime.remove(visit);
-                this.carpoolTimeDependentVisitPairs.remove(pair);
-                pair.getMasterVisit().removeCarPooling();
-            }
-            visit.removeCarPooling();
+        TimeDependentVisitPair pair = carpoolPairs.getPair(visit);
+        if (pair != null) {
+            Visit other = pair.getMasterVisit().equals(visit) ? pair.getDependentVisit() : pair.getMasterVisit();
+            setCarpoolSyncedVisitStartTime(other, VisitSchedule.NOT_SET);
+            setCarpoolSyncedVisitStartTime(visit, VisitSchedule.NOT_SET);
+            removeCarpoolPair(pair);
+            if (journal != null)
+                journal.record(() -> addCarpoolPair(pair));
+            visitSchedule.removeCarPooling(other);
         }
+        visitSchedule.removeCarPooling(visit);
+    }
+
+    private void addCarpoolPair(TimeDependentVisitPair pair) {
+        carpoolPairs.addPair(pair);
+        markSyncedPairDirty(pair);
+    }
+
+    private void removeCarpoolPair(TimeDependentVisitPair pair) {
+        carpoolPairs.removePair(pair);
+        markSyncedPairDirty(pair);
     }
 
-    // Carpool-sync-starttime-setter
+    private void markSyncedPairDirty(TimeDependentVisitPair pair) {
+        syncedPairTracker.markDirty(pair.getMasterVisit());
+        syncedPairTracker.markDirty(pair.getDependentVisit());
+    }
+
+    // Carpool-sync-starttime-setter, VisitSchedule.NOT_SET removes the start time
     protected void setCarpoolSyncedVisitStartTime(Visit visit, int startTime) {
-        this.carpoolTimeDependentVisitStartTime.put(visit, startTime);
+        int previousStartTime = setSyncedStartTime(visit, startTime);
+        if (journal != null && previousStartTime != startTime)
+            journal.record(() -> setSyncedStartTime(visit, previousStartTime));
+    }
+
+    private int setSyncedStartTime(Visit visit, int startTime) {
+        syncedPairTracker.markDirty(visit);
+        int previousStartTime = carpoolPairs.setStartTime(visit, startTime);
+        if (previousStartTime != startTime)
+            visitSchedule.syncedStartTimesChanged();
+        return previousStartTime;
     }
 
     // Carpool-Visit-pairs setter
     protected void setCarpoolTimeDependentVisitPairs(Collection<TimeDependentVisitPair> carpoolDependentVisitPairs){
-        this.carpoolTimeDependentVisitPairs = carpoolDependentVisitPairs;
+        for (TimeDependentVisitPair pair : getCarpoolTimeDependentVisitPairs().toArray(new TimeDependentVisitPair[0]))
+            removeCarpoolPair(pair);
+        for (TimeDependentVisitPair pair : carpoolDependentVisitPairs)
+            addCarpoolPair(pair);
+    }
+
+    /**
+     * @return True if no time dependent visit pair of the model and no carpool pair is violated, i.e., either both or
+     * none of the visits of each pair are allocated, and the start times of the allocated pairs are synchronized.
+     */
+    public boolean isSyncedPairsFeasible() {
+        return syncedPairTracker.isFeasible(this);
+    }
+
+    /**
+     * @return The time dependent visit pairs of the model that are violated in this solution.
+     */
+    public List<TimeDependentVisitPair> getViolatedTimeDependentVisitPairs() {
+        return syncedPairTracker.getViolatedModelPairs(this);
     }
 
     // Carpool-sync-starttime-getter
     public int getCarpoolSyncedTaskStartTime(Visit visit) {
-        return this.carpoolTimeDependentVisitStartTime.get(visit);
+        return carpoolPairs.getStartTime(visit);
     }
 
-    // Carpool-sync-starttime-getter
+    /**
+     * @return The synced start times of the carpooled visits, read only and backed by the solution.
+     */
     public Map<Visit, Integer> getCarpoolSyncedTaskStartTimes() {
-        return this.carpoolTimeDependentVisitStartTime;
+        return carpoolPairs.getStartTimes();
+    }
+
+    /**
+     * @return The carpool pair the visit is in, null if it is not carpooled.
+     */
+    public TimeDependentVisitPair getCarpoolTimeDependentVisitPair(Visit visit) {
+        return carpoolPairs.getPair(visit.getId());
+    }
+
+    TimeDependentVisitPair getCarpoolTimeDependentVisitPair(int visitId) {
+        return carpoolPairs.getPair(visitId);
     }
 
-    // Carpool-Visit-pairs getter
+    /**
+     * @return The carpool pairs, read only and only valid until the pairs of the solution are changed.
+     */
     public Collection<TimeDependentVisitPair> getCarpoolTimeDependentVisitPairs(){
-        return this.carpoolTimeDependentVisitPairs;
+        return carpoolPairs.getPairs();
     }
 
     protected Visit removeFromRoute(Shift shift, int index) {
-        return getRoute(shift).remove(index);
+        return removeFromRoute(shift.getId(), index);
     }
 
     protected Visit removeFromRoute(int shiftID, int index) {
-        return getRoute(shiftID).remove(index);
+        ShiftRoute route = mutableRoute(shiftID);
+        Visit visit = route.remove(index);
+        updatePositions(route.getVisits(), index);
+        return visit;
     }
 
+    /**
+     * @return The route of the shift, it may be shared with other solutions and must not be changed.
+     */
     public List<Visit> getRoute(Shift shift) {
         return getRoute(shift.getId());
     }
 
+    /**
+     * @return The route of the shift, read only. The route may be shared with other solutions, hence the list is only
+     * valid until the route is changed, the route must be fetched again after a change.
+     */
     public List<Visit> getRoute(int shiftId) {
-        return shiftRoutes.get(shiftId);
+        return Collections.unmodifiableList(shiftRoutes[shiftId].getVisits());
+    }
+
+    /**
+     * @return Version of the route of the shift, it changes every time the route is changed. Two solutions have the
+     * same route for the shift if they have the same version.
+     */
+    public long getRouteVersion(int shiftId) {
+        return shiftRoutes[shiftId].getVersion();
+    }
+
+    /**
+     * Starts or stops recording how the changes made to this solution are undone, see MoveJournal.
+     *
+     * @param journal Journal to record to, null to stop recording.
+     */
+    void setJournal(MoveJournal journal) {
+        this.journal = journal;
+        if (journal != null)
+            visitSchedule.startJournal();
+        else
+            visitSchedule.clearJournal();
+    }
+
+    /**
+     * Undoes the changes recorded since the journal was started, and stops recording.
+     */
+    void rollbackJournal() {
+        // Stop recording first, the changes made when undoing are not to be recorded
+        MoveJournal rolledBack = journal;
+        journal = null;
+        rolledBack.rollback();
+        visitSchedule.rollbackJournal();
+    }
+
+    /**
+     * @return The time windows, carpooling and schedule of the visits in this solution.
+     */
+    public VisitSchedule getVisitSchedule() {
+        return visitSchedule;
     }
 
     @Override
@@ -257,15 +504,35 @@ public class Solution {
         return unallocatedTasks;
     }
 
+    public int getNumberOfUnallocatedTasks() {
+        return unallocatedTaskStatistics.getCount();
+    }
+
+    /**
+     * @return Sum of the durations of the unallocated tasks.
+     */
+    public long getUnallocatedTaskDurationSum() {
+        return unallocatedTaskStatistics.getDurationSum();
+    }
+
+    /**
+     * @return Largest duration of an unallocated task, Integer.MIN_VALUE if all tasks are allocated.
+     */
+    public int getUnallocatedTaskMaxDuration() {
+        return unallocatedTaskStatistics.getMaxDuration();
+    }
+
     public Set<Visit> getUnallocatedVisits() {
         return unallocatedVisits;
     }
 
     public void addVisitsToUnallocatedVisits(Collection<Visit> visits) {
-        unallocatedVisits.addAll(visits);
+        for (Visit visit : visits)
+            addUnallocatedVisit(visit);
     }
     public void addTasksToUnallocatedTasks(Collection<Task> tasks) {
-        unallocatedTasks.addAll(tasks);
+        for (Task task : tasks)
+            addUnallocatedTask(task);
     }
     public static void main(String[] args) {
         Model model = new Model(4);
@@ -0,0 +1,142 @@
+package com.visma.of.cps.solution;
+
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.TimeDependentVisitPair;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.util.SynchronizedTaskUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Keeps track of which synced pairs of a solution are violated, i.e., only one of the visits is allocated or the
+ * start times are not synchronized. This is both the time dependent visit pairs of the model and the carpool pairs of
+ * the solution.
+ * <p>
+ * The solution marks a visit as dirty when its allocation, synced start time or carpool pair changes. Only the pairs
+ * of the dirty visits are checked again when the violations are queried, hence the cost of a query is proportional to
+ * the size of the changes since the last query, not to the number of pairs.
+ */
+class SyncedPairTracker {
+
+    private static final int[] NO_PAIRS = new int[0];
+
+    // Shared by all copies
+    private final TimeDependentVisitPair[] modelPairs;
+    private final int[][] modelPairsOfVisit;
+
+    private final BitSet violatedModelPairs;
+    // Violated carpool pairs, indexed by the id of their master visit
+    private final BitSet violatedCarpoolPairs;
+    private final boolean[] dirty;
+    private int[] dirtyVisitIds;
+    private int numberOfDirtyVisits;
+
+    SyncedPairTracker(Model model) {
+        this.modelPairs = model.getTimeDependentVisitPairs().toArray(new TimeDependentVisitPair[0]);
+        int size = 0;
+        for (Visit visit : model.getVisits())
+            size = Math.max(size, visit.getId() + 1);
+        int[] pairsPerVisit = new int[size];
+        for (TimeDependentVisitPair pair : modelPairs) {
+            pairsPerVisit[pair.getMasterVisit().getId()]++;
+            pairsPerVisit[pair.getDependentVisit().getId()]++;
+        }
+        this.modelPairsOfVisit = new int[size][];
+        for (int visitId = 0; visitId < size; visitId++)
+            modelPairsOfVisit[visitId] = pairsPerVisit[visitId] == 0 ? NO_PAIRS : new int[pairsPerVisit[visitId]];
+        Arrays.fill(pairsPerVisit, 0);
+        for (int pairIndex = 0; pairIndex < modelPairs.length; pairIndex++) {
+            int masterId = modelPairs[pairIndex].getMasterVisit().getId();
+            int dependentId = modelPairs[pairIndex].getDependentVisit().getId();
+            modelPairsOfVisit[masterId][pairsPerVisit[masterId]++] = pairIndex;
+            modelPairsOfVisit[dependentId][pairsPerVisit[dependentId]++] = pairIndex;
+        }
+        this.violatedModelPairs = new BitSet(modelPairs.length);
+        this.violatedCarpoolPairs = new BitSet(size);
+        this.dirty = new boolean[size];
+        this.dirtyVisitIds = new int[16];
+        for (TimeDependentVisitPair pair : modelPairs) {
+            markDirty(pair.getMasterVisit());
+            markDirty(pair.getDependentVisit());
+        }
+    }
+
+    SyncedPairTracker(SyncedPairTracker other) {
+        this.modelPairs = other.modelPairs;
+        this.modelPairsOfVisit = other.modelPairsOfVisit;
+        this.violatedModelPairs = (BitSet) other.violatedModelPairs.clone();
+        this.violatedCarpoolPairs = (BitSet) other.violatedCarpoolPairs.clone();
+        this.dirty = other.dirty.clone();
+        this.dirtyVisitIds = Arrays.copyOf(other.dirtyVisitIds, Math.max(16, other.numberOfDirtyVisits));
+        this.numberOfDirtyVisits = other.numberOfDirtyVisits;
+    }
+
+    void update(SyncedPairTracker other) {
+        violatedModelPairs.clear();
+        violatedModelPairs.or(other.violatedModelPairs);
+        violatedCarpoolPairs.clear();
+        violatedCarpoolPairs.or(other.violatedCarpoolPairs);
+        for (int i = 0; i < numberOfDirtyVisits; i++)
+            dirty[dirtyVisitIds[i]] = false;
+        numberOfDirtyVisits = 0;
+        for (int i = 0; i < other.numberOfDirtyVisits; i++)
+            markDirty(other.dirtyVisitIds[i]);
+    }
+
+    void markDirty(Visit visit) {
+        markDirty(visit.getId());
+    }
+
+    private void markDirty(int visitId) {
+        if (dirty[visitId]) return;
+        dirty[visitId] = true;
+        if (numberOfDirtyVisits == dirtyVisitIds.length)
+            dirtyVisitIds = Arrays.copyOf(dirtyVisitIds, numberOfDirtyVisits * 2);
+        dirtyVisitIds[numberOfDirtyVisits++] = visitId;
+    }
+
+    /**
+     * @return True if no synced pair of the solution is violated.
+     */
+    boolean isFeasible(Solution solution) {
+        checkDirtyVisits(solution);
+        return violatedModelPairs.isEmpty() && violatedCarpoolPairs.isEmpty();
+    }
+
+    /**
+     * @return The time dependent visit pairs of the model that are violated in the solution.
+     */
+    List<TimeDependentVisitPair> getViolatedModelPairs(Solution solution) {
+        checkDirtyVisits(solution);
+        List<TimeDependentVisitPair> violated = new ArrayList<>(violatedModelPairs.cardinality());
+        for (int pairIndex = violatedModelPairs.nextSetBit(0); pairIndex >= 0; pairIndex = violatedModelPairs.nextSetBit(pairIndex + 1))
+            violated.add(modelPairs[pairIndex]);
+        return violated;
+    }
+
+    private void checkDirtyVisits(Solution solution) {
+        for (int i = 0; i < numberOfDirtyVisits; i++) {
+            int visitId = dirtyVisitIds[i];
+            dirty[visitId] = false;
+            for (int pairIndex : modelPairsOfVisit[visitId])
+                violatedModelPairs.set(pairIndex, isViolated(solution, modelPairs[pairIndex]));
+            checkCarpoolPair(solution, visitId);
+        }
+        numberOfDirtyVisits = 0;
+    }
+
+    private void checkCarpoolPair(Solution solution, int visitId) {
+        TimeDependentVisitPair pair = solution.getCarpoolTimeDependentVisitPair(visitId);
+        if (pair == null || pair.getMasterVisit().getId() != visitId)
+            violatedCarpoolPairs.clear(visitId);
+        if (pair != null)
+            violatedCarpoolPairs.set(pair.getMasterVisit().getId(), isViolated(solution, pair));
+    }
+
+    private static boolean isViolated(Solution solution, TimeDependentVisitPair pair) {
+        return SynchronizedTaskUtils.isNotSameAllocationState(solution, pair) || SynchronizedTaskUtils.isStartTimeInvalid(solution, pair);
+    }
+}
@@ -0,0 +1,83 @@
+package com.visma.of.cps.solution;
+
+import com.visma.of.cps.model.Task;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Number of unallocated tasks of a solution and the sum and maximum of their durations, maintained as tasks are
+ * allocated and unallocated, such that solutions can be compared on unallocated tasks in constant time.
+ * <p>
+ * The maximum is kept by counting the unallocated tasks of each distinct task duration of the model, the durations
+ * are sorted and shared by all copies.
+ */
+class UnallocatedTaskStatistics {
+
+    private final int[] durations;
+    private final int[] countByDuration;
+    private int count;
+    private long durationSum;
+    // Index in durations of the largest duration of an unallocated task, -1 if there are none
+    private int maxDurationIndex;
+
+    UnallocatedTaskStatistics(Collection<Task> tasks) {
+        this.durations = tasks.stream().mapToInt(Task::getDuration).distinct().sorted().toArray();
+        this.countByDuration = new int[durations.length];
+        this.maxDurationIndex = -1;
+    }
+
+    UnallocatedTaskStatistics(UnallocatedTaskStatistics other) {
+        this.durations = other.durations;
+        this.countByDuration = other.countByDuration.clone();
+        this.count = other.count;
+        this.durationSum = other.durationSum;
+        this.maxDurationIndex = other.maxDurationIndex;
+    }
+
+    void update(UnallocatedTaskStatistics other) {
+        System.arraycopy(other.countByDuration, 0, this.countByDuration, 0, countByDuration.length);
+        this.count = other.count;
+        this.durationSum = other.durationSum;
+        this.maxDurationIndex = other.maxDurationIndex;
+    }
+
+    void add(Task task) {
+        int index = durationIndex(task);
+        countByDuration[index]++;
+        count++;
+        durationSum += task.getDuration();
+        maxDurationIndex = Math.max(maxDurationIndex, index);
+    }
+
+    void remove(Task task) {
+        int index = durationIndex(task);
+        countByDuration[index]--;
+        count--;
+        durationSum -= task.getDuration();
+        while (maxDurationIndex >= 0 && countByDuration[maxDurationIndex] == 0)
+            maxDurationIndex--;
+    }
+
+    private int durationIndex(Task task) {
+        int index = Arrays.binarySearch(durations, task.getDuration());
+        if (index < 0)
+            throw new IllegalArgumentException("Task " + task.getId() + " has a duration that is not in the model");
+        return index;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getDurationSum() {
+        return durationSum;
+    }
+
+    /**
+     * @return Largest duration of an unallocated task, Integer.MIN_VALUE if there are none.
+     */
+    int getMaxDuration() {
+        return maxDurationIndex < 0 ? Integer.MIN_VALUE : durations[maxDurationIndex];
+    }
+}
@@ -5,8 +5,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.visma.of.api.model.Request;
 import com.visma.of.api.model.SolverStatus;
 import com.visma.of.cps.SuperSolver;
+import com.visma.of.cps.model.InstanceData;
 import com.visma.of.cps.model.Model;
 import com.visma.of.cps.solution.Problem;
+import com.visma.of.cps.util.Constants;
 import com.visma.of.solverapi.Solver;
 import com.visma.of.solverapi.SolverListener;
 import com.visma.of.solverapi.SolverProvider;
@@ -19,6 +21,8 @@ import java.util.Map;
 
 public class CpsSolver extends Solver {
 
+    private static final ModelCache MODEL_CACHE = new ModelCache(Constants.MODEL_CACHE_MAX_BYTES);
+
     private Model model;
     private SuperSolver superSolver;
     private boolean hasLikelyConverged = false;
@@ -31,9 +35,8 @@ public class CpsSolver extends Solver {
     public void initializeSolver() throws Exception {
         JSONObject jsonObject = getJsonPayload();
         Request dataProvider = Solver.readFromJsonObjectMapper(Request.class, jsonObject.toJSONString());
-        // model = ModelFactory.generateModelFromDataProvider(dataProvider);
-        model = new Model(4);
-        SuperSolver superSolver = new SuperSolver();
+        model = MODEL_CACHE.getModel(InstanceData.fromRequest(dataProvider));
+        superSolver = new SuperSolver();
         superSolver.initialize(model);
     }
 
@@ -53,6 +56,7 @@ public class CpsSolver extends Solver {
     @Override
     public Map<String, Double> getPayloadStatisticsAsNumbers() {
         Map<String, Double> payloadStats = new HashMap<>();
+        payloadStats.putAll(MODEL_CACHE.getStatistics());
         return payloadStats;
     }
 
@@ -0,0 +1,86 @@
+package com.visma.of.cps.solver;
+
+import com.visma.of.cps.model.InstanceData;
+import com.visma.of.cps.model.LocationData;
+import com.visma.of.cps.model.Model;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of location data shared by the solver jobs in this process. When the same district is solved several times,
+ * only with changes to the tasks, the locations and travel times are reused from the earlier job and only the
+ * tasks, visits and shifts are created anew. The location data is keyed by a hash of the coordinates and driving
+ * times, and the least recently used entries are evicted when the approximate size of the cache exceeds the limit.
+ */
+public class ModelCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Long, LocationData> entries;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ModelCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Creates an initialized model for the instance, reusing the location data of an earlier instance with the same
+     * locations and travel times if it is still cached.
+     *
+     * @param instanceData The instance to create the model for.
+     * @return The initialized model.
+     */
+    public Model getModel(InstanceData instanceData) {
+        Model model = new Model(instanceData, getLocationData(instanceData));
+        model.initialize();
+        return model;
+    }
+
+    private synchronized LocationData getLocationData(InstanceData instanceData) {
+        long key = LocationData.contentHash(instanceData);
+        LocationData cached = entries.get(key);
+        if (cached != null && cached.matches(instanceData)) {
+            hits++;
+            return cached;
+        }
+        misses++;
+        LocationData locationData = LocationData.create(instanceData);
+        put(key, locationData);
+        return locationData;
+    }
+
+    private void put(long key, LocationData locationData) {
+        long size = locationData.getApproximateHeapBytes();
+        if (size > maxBytes) {
+            return;
+        }
+        LocationData replaced = entries.put(key, locationData);
+        if (replaced != null) {
+            bytes -= replaced.getApproximateHeapBytes();
+        }
+        bytes += size;
+        Iterator<LocationData> leastRecentlyUsed = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= leastRecentlyUsed.next().getApproximateHeapBytes();
+            leastRecentlyUsed.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized Map<String, Double> getStatistics() {
+        Map<String, Double> statistics = new HashMap<>();
+        statistics.put("modelCacheHits", (double) hits);
+        statistics.put("modelCacheMisses", (double) misses);
+        statistics.put("modelCacheEvictions", (double) evictions);
+        statistics.put("modelCacheEntries", (double) entries.size());
+        statistics.put("modelCacheBytes", (double) bytes);
+        return statistics;
+    }
+
+}
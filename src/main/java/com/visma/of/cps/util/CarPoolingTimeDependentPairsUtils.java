@@ -3,6 +3,7 @@ package com.visma.of.cps.util;
 import com.visma.of.cps.model.Shift;
 import com.visma.of.cps.model.TimeDependentVisitPair;
 import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
 import com.visma.of.cps.routeEvaluator.results.RouteEvaluatorResult;
 
 import java.util.ArrayList;
@@ -26,20 +27,22 @@ public class CarPoolingTimeDependentPairsUtils {
      * @param pickUp The pick-up visit in the transport request
      * @param completeTask The complete task visit that is the successor of the join motorized visit in the route
      * @param syncedVisitsStartTimes start times of already synced visits
+     * @param visitSchedule The time windows and schedule of the visits in the route
      * @param employeeShift The (non motorized) shift that owns the route
      * @return A map of time windows for all relevant visits
      */
-    public Map<Visit, List<Integer>> calculateTimeWindowsForNonMotorized(List<Visit> route, Visit joinMotorized, Visit dropOff, Visit pickUp, Visit completeTask, Map<Visit, Integer> syncedVisitsStartTimes, Shift employeeShift){
+    public Map<Visit, List<Integer>> calculateTimeWindowsForNonMotorized(List<Visit> route, Visit joinMotorized, Visit dropOff, Visit pickUp, Visit completeTask, Map<Visit, Integer> syncedVisitsStartTimes, VisitSchedule visitSchedule, Shift employeeShift){
         Map<Visit, List<Integer>> timeWindows = new HashMap<>();
+        RouteTimeWindows routeTimeWindows = new RouteTimeWindows(route, syncedVisitsStartTimes, visitSchedule, employeeShift);
 
         // COMPLETE TASK
-        List<Integer> completeTaskTimeWindowList = calculateTimeWindow(route, completeTask, syncedVisitsStartTimes, employeeShift);
+        List<Integer> completeTaskTimeWindowList = calculateTimeWindow(routeTimeWindows, completeTask);
         timeWindows.put(completeTask, completeTaskTimeWindowList);
         
         // JOIN MOTORIZED
         List<Integer> joinMotorizedTimeWindow = new ArrayList<>();
-        int joinMotorizedTimeWindowStart = getTimeWindowStart(route, joinMotorized, syncedVisitsStartTimes, employeeShift);
-        int joinMotorizedTimeWindowEnd = completeTaskTimeWindowList.get(END_TIME)-completeTask.getTravelTime();
+        int joinMotorizedTimeWindowStart = routeTimeWindows.getTimeWindowStart(joinMotorized);
+        int joinMotorizedTimeWindowEnd = completeTaskTimeWindowList.get(END_TIME)-visitSchedule.getTravelTime(completeTask);
         joinMotorizedTimeWindow.add(joinMotorizedTimeWindowStart);
         joinMotorizedTimeWindow.add(joinMotorizedTimeWindowEnd);
         timeWindows.put(joinMotorized, joinMotorizedTimeWindow);
@@ -52,7 +55,7 @@ public class CarPoolingTimeDependentPairsUtils {
         
         // DROP OFF 
         List<Integer> dropOffTimeWindowList = new ArrayList<>();
-        dropOffTimeWindowList.add(joinMotorizedTimeWindowStart + completeTask.getTravelTime());
+        dropOffTimeWindowList.add(joinMotorizedTimeWindowStart + visitSchedule.getTravelTime(completeTask));
         dropOffTimeWindowList.add(completeTaskTimeWindowList.get(END_TIME)-completeTask.getVisitDuration());
         timeWindows.put(dropOff, dropOffTimeWindowList);
         
@@ -72,14 +75,16 @@ public class CarPoolingTimeDependentPairsUtils {
      * @param pickUp The pick-up visit that corresponds to the completeTask-visit
      * @param completeTask the complete task that we inserted
      * @param syncedVisitsStartTimes The current syncronized start times
+     * @param visitSchedule The time windows and schedule of the visits in the route
      * @param employeeShift Shift that own the route 
      * @return List of time windows for the nodes
      */
-    public Map<Visit, List<Integer>> calculateTimeWindowsForMotorized(List<Visit> route, Visit joinMotorized, Visit dropOff, Visit pickUp, Visit completeTask, Map<Visit, Integer> syncedVisitsStartTimes, Shift employeeShift) {
+    public Map<Visit, List<Integer>> calculateTimeWindowsForMotorized(List<Visit> route, Visit joinMotorized, Visit dropOff, Visit pickUp, Visit completeTask, Map<Visit, Integer> syncedVisitsStartTimes, VisitSchedule visitSchedule, Shift employeeShift) {
         Map<Visit, List<Integer>> timeWindows = new HashMap<>();
+        RouteTimeWindows routeTimeWindows = new RouteTimeWindows(route, syncedVisitsStartTimes, visitSchedule, employeeShift);
 
         // PICK UP
-        List<Integer> pickUpTimeWindow = calculateTimeWindow(route, pickUp, syncedVisitsStartTimes, employeeShift);
+        List<Integer> pickUpTimeWindow = calculateTimeWindow(routeTimeWindows, pickUp);
         timeWindows.put(pickUp, pickUpTimeWindow); 
             
         // JOIN MOTORIZED - Have the same as the pick up visit
@@ -91,9 +96,7 @@ public class CarPoolingTimeDependentPairsUtils {
         // COMPLETE TASK - end time depend on pick up, start time must be calculated
         List<Integer> completeTaskTimeWindow= new ArrayList<>();
 
-        // ToDo: you have already calculated this when you run the  'calculateTimeWindow' method on the pickUp visit.
-        //  this means that you can speed up the calculations with some dynamic programming
-        int completeTaskTimeWindowStart = getTimeWindowStart(route, completeTask, syncedVisitsStartTimes, employeeShift);
+        int completeTaskTimeWindowStart = routeTimeWindows.getTimeWindowStart(completeTask);
         int completeTaskTimeWindowEnd = pickUpTimeWindow.get(END_TIME) - completeTask.getVisitDuration();
         completeTaskTimeWindow.add(completeTaskTimeWindowStart); 
         completeTaskTimeWindow.add(completeTaskTimeWindowEnd); 
@@ -115,68 +118,13 @@ public class CarPoolingTimeDependentPairsUtils {
      * @param route The route that contains the visit
      * @param currentVisit The visit we want to fond the time window start for
      * @param syncedVisitsStartTimes List of visits that have a fixed start time due to synchronization
+     * @param visitSchedule The time windows and schedule of the visits in the route, the start time of a visit is used
+     *                      as its earliest start when it is set
      * @return time window start for the visit. Null if visit is not in the route 
-     * @throws NullPointerException if the start time of any visit of the route is not set
+     * @throws NullPointerException if neither the start time nor the time window of any visit of the route is set
      */
-    public Integer getTimeWindowStart(List<Visit> route, Visit currentVisit, Map<Visit, Integer> syncedVisitsStartTimes, Shift employeeShift) throws NullPointerException{
-        int startTime;
-        int previousVisitEndTime = employeeShift.getStartTime();
-        if (syncedVisitsStartTimes.containsKey(currentVisit)){
-            return syncedVisitsStartTimes.get(currentVisit);
-        }
-        for(Visit visit : route){
-            if (visit.getTimeWindowStart() == null){
-                throw new NullPointerException("Time window start of visit is not initialized");
-            }
-            if (syncedVisitsStartTimes.containsKey(visit)){
-                // If the synced visit is Synced With Interval Diff then it can start after the synced visit start, but never before.
-                // The visit can never start before the visit start interval. 
-                // NB!! is visit.getTravelTime updated?
-                startTime = Math.max(Math.max(previousVisitEndTime + visit.getTravelTime(), visit.getTimeWindowStart()), syncedVisitsStartTimes.get(visit));
-            } else {
-                startTime = Math.max(previousVisitEndTime + visit.getTravelTime(), visit.getTimeWindowStart());
-            }
-            previousVisitEndTime = startTime + visit.getVisitDuration();
-            if (visit == currentVisit){
-                return startTime;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Calculates the time window end (i.e., the latest possible start time) for the visit. Calculation is done so that the route is feasible 
-     * with respect to time windows
-     * @param route
-     * @param currentVisit
-     * @param syncedVisitsStartTimes
-     * @param employeeShift
-     * @return The time window end. 
-     * @throws NullPointerException if the visit is not in the route
-     */
-    private Integer getTimeWindowEnd(List<Visit> route, Visit currentVisit, Map<Visit, Integer> syncedVisitsStartTimes, Shift employeeShift){
-        int latestStartTime = Math.min(route.get(-1).getTaskEndTime(), employeeShift.getTimeWindowEnd());
-        int previousVisitTravelTime = 0;
-        if (syncedVisitsStartTimes.containsKey(currentVisit)){
-            return syncedVisitsStartTimes.get(currentVisit) + currentVisit.getTimeDependentOffsetInterval();
-        }
-        for (int i=route.size(); i-- > 0;){
-            Visit visit = route.get(i);
-            if (visit.getTimeWindowEnd() == null){
-                throw new NullPointerException("End time of visit is not initialized");
-            }
-            if (syncedVisitsStartTimes.containsKey(visit)){
-                latestStartTime = syncedVisitsStartTimes.get(visit)+visit.getTimeDependentOffsetInterval();
-            } else {
-                latestStartTime = Math.max(Math.min(latestStartTime - previousVisitTravelTime - visit.getVisitDuration(),  visit.getTimeWindowEnd()-visit.getVisitDuration()), visit.getTimeWindowStart());
-            }
-            previousVisitTravelTime = visit.getTravelTime();
-            if (visit == currentVisit){
-                return latestStartTime + visit.getVisitDuration();
-            }
-        }
-        return null;
-
+    public Integer getTimeWindowStart(List<Visit> route, Visit currentVisit, Map<Visit, Integer> syncedVisitsStartTimes, VisitSchedule visitSchedule, Shift employeeShift) throws NullPointerException{
+        return new RouteTimeWindows(route, syncedVisitsStartTimes, visitSchedule, employeeShift).getTimeWindowStart(currentVisit);
     }
 
     /**
@@ -185,13 +133,24 @@ public class CarPoolingTimeDependentPairsUtils {
      * @param route The route we use to calculate the time window
      * @param currentVisit The visit we wish to find the time window for
      * @param syncedVisitsStartTimes Start times of synced visits we have to take into account when calculating the time window
+     * @param visitSchedule The time windows and schedule of the visits in the route
      * @param employeeShift The shift that owns the route
      * @return A list of integers on the format [earliestPossibleStartTime, latestPossibleStartTime]
      */
-    public List<Integer> calculateTimeWindow(List<Visit> route, Visit currentVisit, Map<Visit, Integer> syncedVisitsStartTimes, Shift employeeShift) {
+    public List<Integer> calculateTimeWindow(List<Visit> route, Visit currentVisit, Map<Visit, Integer> syncedVisitsStartTimes, VisitSchedule visitSchedule, Shift employeeShift) {
+        return calculateTimeWindow(new RouteTimeWindows(route, syncedVisitsStartTimes, visitSchedule, employeeShift), currentVisit);
+    }
+
+    /**
+     * Calculate the time window for a visit from the time windows of its route.
+     * @param routeTimeWindows Time windows of the route that contains the visit
+     * @param currentVisit The visit we wish to find the time window for
+     * @return A list of integers on the format [earliestPossibleStartTime, latestPossibleStartTime]
+     */
+    public List<Integer> calculateTimeWindow(RouteTimeWindows routeTimeWindows, Visit currentVisit) {
         List<Integer> timeWindowStartTime = new ArrayList<>();
-        timeWindowStartTime.add(getTimeWindowStart(route, currentVisit, syncedVisitsStartTimes, employeeShift));
-        timeWindowStartTime.add(getTimeWindowEnd(route, currentVisit, syncedVisitsStartTimes, employeeShift));
+        timeWindowStartTime.add(routeTimeWindows.getTimeWindowStart(currentVisit));
+        timeWindowStartTime.add(routeTimeWindows.getTimeWindowEnd(currentVisit));
         return timeWindowStartTime;
     }
 
@@ -25,7 +25,9 @@ public class Constants {
     public static final double OVERTIME_WEIGHT = 0.3;
 
     public static final int MAX_WALK_TIME = 10;
+    public static final double WALK_TRAVEL_TIME_SCALE = 10;
     public static final int SOLVER_RUNTIME = 5*60;
+    public static final long MODEL_CACHE_MAX_BYTES = 256L * 1024 * 1024;
 
     public static final int SYNCED_TASK_CONSTRAINT_ALLOWED_SLACK_DEFAULT = 60;
     public static final int STRICT_TIME_WINDOW_RELAXATION_PENALTY_DEFAULT = 10;
@@ -3,6 +3,7 @@ package com.visma.of.cps.util;
 
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 import static java.util.concurrent.ThreadLocalRandom.current;
 
@@ -21,6 +22,13 @@ public class RandomUtils {
         return (1 - MAX_NOISE_ON_OBJECTIVE_VALUE / 2) + MAX_NOISE_ON_OBJECTIVE_VALUE * random.nextDouble();
     }
 
+    /**
+     * As objectiveNoise(Random), for randoms that are confined to one thread.
+     */
+    public static double objectiveNoise(SplittableRandom random) {
+        return (1 - MAX_NOISE_ON_OBJECTIVE_VALUE / 2) + MAX_NOISE_ON_OBJECTIVE_VALUE * random.nextDouble();
+    }
+
     /**
      * Returns a next random element from a given list.
      *
@@ -0,0 +1,132 @@
+package com.visma.of.cps.util;
+
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The time windows of all visits of a route, i.e., the earliest possible start and the latest possible end of each
+ * visit such that the route is feasible with respect to time windows. The earliest starts are found in one pass
+ * forward through the route, and the latest ends in one pass backward the first time one is asked for, hence the time
+ * window of any visit is then found in constant time.
+ * <p>
+ * Only valid as long as the route, the synced start times and the visit schedule are not changed.
+ */
+public class RouteTimeWindows {
+
+    private final List<Visit> route;
+    private final Map<Visit, Integer> syncedVisitsStartTimes;
+    private final VisitSchedule visitSchedule;
+    private final Shift employeeShift;
+    private final Map<Visit, Integer> indexOfVisit;
+    private final int[] earliestStarts;
+    // Index of the first visit without start time and time window start, earliest starts from it on are unknown
+    private final int invalidStartIndex;
+    private int[] latestEnds;
+    // Index of the last visit without time window, latest ends up to it are unknown
+    private int invalidEndIndex;
+
+    /**
+     * @param route                  The route that contains the visits.
+     * @param syncedVisitsStartTimes Start times of the visits that are synchronized.
+     * @param visitSchedule          The time windows and schedule of the visits in the route, the start time of a
+     *                               visit is used as its earliest start when it is set.
+     * @param employeeShift          The shift that owns the route.
+     */
+    public RouteTimeWindows(List<Visit> route, Map<Visit, Integer> syncedVisitsStartTimes, VisitSchedule visitSchedule, Shift employeeShift) {
+        this.route = route;
+        this.syncedVisitsStartTimes = syncedVisitsStartTimes;
+        this.visitSchedule = visitSchedule;
+        this.employeeShift = employeeShift;
+        this.indexOfVisit = new HashMap<>();
+        this.earliestStarts = new int[route.size()];
+
+        int invalidIndex = route.size();
+        int previousVisitEndTime = employeeShift.getStartTime();
+        for (int i = 0; i < route.size(); i++) {
+            Visit visit = route.get(i);
+            indexOfVisit.putIfAbsent(visit, i);
+            if (invalidIndex < route.size()) continue;
+            int earliestStartTime = visitSchedule.getStartTime(visit);
+            if (earliestStartTime == VisitSchedule.NOT_SET) {
+                earliestStartTime = visitSchedule.getTimeWindowStart(visit);
+            }
+            if (earliestStartTime == VisitSchedule.NOT_SET) {
+                invalidIndex = i;
+                continue;
+            }
+            int startTime = Math.max(previousVisitEndTime + visitSchedule.getTravelTime(visit), earliestStartTime);
+            Integer syncedStartTime = syncedVisitsStartTimes.get(visit);
+            if (syncedStartTime != null) {
+                // If the synced visit is Synced With Interval Diff then it can start after the synced visit start, but never before.
+                // The visit can never start before the visit start interval.
+                startTime = Math.max(startTime, syncedStartTime);
+            }
+            earliestStarts[i] = startTime;
+            previousVisitEndTime = startTime + visit.getVisitDuration();
+        }
+        this.invalidStartIndex = invalidIndex;
+    }
+
+    /**
+     * @return The earliest possible start time of the visit. Null if the visit is not in the route and not synced.
+     * @throws NullPointerException if neither the start time nor the time window of a visit up to this visit is set
+     */
+    public Integer getTimeWindowStart(Visit visit) throws NullPointerException {
+        Integer syncedStartTime = syncedVisitsStartTimes.get(visit);
+        if (syncedStartTime != null)
+            return syncedStartTime;
+        Integer index = indexOfVisit.get(visit);
+        if (index == null)
+            return null;
+        if (index >= invalidStartIndex)
+            throw new NullPointerException("Time window start of visit is not initialized");
+        return earliestStarts[index];
+    }
+
+    /**
+     * @return The latest possible end time of the visit. Null if the visit is not in the route and not synced.
+     * @throws NullPointerException if the time window of a visit from this visit on is not set
+     */
+    public Integer getTimeWindowEnd(Visit visit) throws NullPointerException {
+        Integer syncedStartTime = syncedVisitsStartTimes.get(visit);
+        if (syncedStartTime != null)
+            return syncedStartTime + visitSchedule.getTimeDependentOffsetInterval(visit);
+        Integer index = indexOfVisit.get(visit);
+        if (index == null)
+            return null;
+        if (latestEnds == null)
+            calculateLatestEnds();
+        if (index <= invalidEndIndex)
+            throw new NullPointerException("End time of visit is not initialized");
+        return latestEnds[index];
+    }
+
+    private void calculateLatestEnds() {
+        latestEnds = new int[route.size()];
+        invalidEndIndex = -1;
+        if (route.isEmpty()) return;
+        int latestStartTime = Math.min(route.get(route.size() - 1).getTaskEndTime(), employeeShift.getTimeWindowEnd());
+        int previousVisitTravelTime = 0;
+        for (int i = route.size(); i-- > 0; ) {
+            Visit visit = route.get(i);
+            if (!visitSchedule.hasTimeWindow(visit)) {
+                invalidEndIndex = i;
+                return;
+            }
+            Integer syncedStartTime = syncedVisitsStartTimes.get(visit);
+            if (syncedStartTime != null) {
+                latestStartTime = syncedStartTime + visitSchedule.getTimeDependentOffsetInterval(visit);
+            } else {
+                latestStartTime = Math.max(Math.min(latestStartTime - previousVisitTravelTime - visit.getVisitDuration(),
+                        visitSchedule.getTimeWindowEnd(visit) - visit.getVisitDuration()), visitSchedule.getTimeWindowStart(visit));
+            }
+            previousVisitTravelTime = visitSchedule.getTravelTime(visit);
+            latestEnds[i] = latestStartTime + visit.getVisitDuration();
+        }
+    }
+}
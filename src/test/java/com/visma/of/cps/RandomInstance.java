@@ -0,0 +1,111 @@
+package com.visma.of.cps;
+
+import com.visma.of.cps.model.InstanceData;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.TimeDependentVisitPair;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.evaluation.constraint.StrictTimeWindowConstraint;
+import com.visma.of.cps.routeEvaluator.evaluation.constraint.SyncedTasksConstraint;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.StrictTimeWindowObjectiveFunction;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.SyncedVisitStartTimeObjective;
+import com.visma.of.cps.solution.Problem;
+import com.visma.of.cps.util.Constants;
+import com.visma.of.cps.util.Constants.VisitType;
+import com.visma.of.cps.util.Constants.Penalty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Small random instances for the tests, created from instance data rather than read from file. The tasks are placed
+ * in a 100 x 100 square with the depot at its centre, the driving times are the euclidean distances, and the time
+ * windows lie within a working day of 960 minutes.
+ */
+public class RandomInstance {
+
+    public static final int NUMBER_OF_SHIFTS = 6;
+    private static final int DAY_LENGTH = 960;
+
+    private RandomInstance() {
+    }
+
+    /**
+     * Creates an initialized model. The first two times numberOfPairs tasks are pairwise synced, their complete task
+     * visits must start within 15 minutes of each other.
+     *
+     * @param seed          Seed of the instance.
+     * @param numberOfTasks Number of tasks.
+     * @param numberOfPairs Number of time dependent visit pairs of the model.
+     * @return The model.
+     */
+    public static Model createModel(long seed, int numberOfTasks, int numberOfPairs) {
+        Random random = new Random(seed);
+        int numberOfLocations = numberOfTasks + 1;
+        double[] xCoords = new double[numberOfLocations];
+        double[] yCoords = new double[numberOfLocations];
+        int[] durations = new int[numberOfLocations];
+        int[] weights = new int[numberOfLocations];
+        int[] startTimes = new int[numberOfLocations];
+        int[] endTimes = new int[numberOfLocations];
+        xCoords[0] = 50;
+        yCoords[0] = 50;
+        endTimes[0] = DAY_LENGTH;
+        for (int i = 1; i < numberOfLocations; i++) {
+            xCoords[i] = 100 * random.nextDouble();
+            yCoords[i] = 100 * random.nextDouble();
+            durations[i] = 10 + random.nextInt(21);
+            weights[i] = 1;
+            startTimes[i] = random.nextInt(DAY_LENGTH - 250);
+            endTimes[i] = startTimes[i] + 60 + random.nextInt(191);
+        }
+        int[] drivingTimes = new int[numberOfLocations * numberOfLocations];
+        for (int i = 0; i < numberOfLocations; i++) {
+            for (int j = 0; j < numberOfLocations; j++) {
+                double distance = Math.hypot(xCoords[i] - xCoords[j], yCoords[i] - yCoords[j]);
+                drivingTimes[i * numberOfLocations + j] = (int) Math.round(distance);
+            }
+        }
+        Model model = new Model(new InstanceData(NUMBER_OF_SHIFTS, DAY_LENGTH, xCoords, yCoords, durations, weights,
+                startTimes, endTimes, drivingTimes), null);
+        model.initialize();
+
+        List<TimeDependentVisitPair> pairs = new ArrayList<>();
+        for (int i = 0; i < numberOfPairs; i++) {
+            Visit master = model.getVisit(2 * i + 1, VisitType.COMPLETE_TASK);
+            Visit dependent = model.getVisit(2 * i + 2, VisitType.COMPLETE_TASK);
+            pairs.add(new TimeDependentVisitPair(master, 0, dependent, 1, -15, 15));
+        }
+        model.setTimeDependentVisitPairs(pairs);
+        return model;
+    }
+
+    /**
+     * Creates a problem with all tasks unallocated, the standard intra route objectives, and the strict time window
+     * and synced tasks constraints relaxed. The overtime constraint is left out, as the shifts have no working hours.
+     */
+    public static Problem createProblem(Model model) {
+        Problem problem = new Problem(model);
+        problem.addVisitsToUnallocatedVisits(model.getVisits());
+        problem.addTasksToUnallocatedTasks(model.getTasks());
+        SuperSolver.initializeStandardIntraRouteObjectives(model, problem);
+        problem.addRelaxedIntraConstraint(StrictTimeWindowConstraint.class.getSimpleName(), new StrictTimeWindowConstraint(),
+                new StrictTimeWindowObjectiveFunction(Penalty.STRICT_TIME_WINDOW_RELAXATION_PENALTY_DEFAULT));
+        problem.addRelaxedIntraConstraint(SyncedTasksConstraint.class.getSimpleName(),
+                new SyncedTasksConstraint(Constants.SYNCED_TASK_CONSTRAINT_ALLOWED_SLACK_DEFAULT),
+                new SyncedVisitStartTimeObjective(Constants.SYNCED_TASK_CONSTRAINT_ALLOWED_SLACK_DEFAULT, 15.0));
+        problem.calculateAndSetObjectiveValuesForSolution(model);
+        return problem;
+    }
+
+    /**
+     * Sets the synced start times of the visits of the time dependent visit pairs of the model to the start of their
+     * time windows, such that the pairs can be checked whenever both visits are allocated.
+     */
+    public static void setModelPairStartTimes(Model model, Problem problem) {
+        for (TimeDependentVisitPair pair : model.getTimeDependentVisitPairs()) {
+            problem.setTimeDependentTaskStartTime(pair.getMasterVisit(), pair.getMasterVisit().getTaskStartTime());
+            problem.setTimeDependentTaskStartTime(pair.getDependentVisit(), pair.getDependentVisit().getTaskStartTime());
+        }
+    }
+}
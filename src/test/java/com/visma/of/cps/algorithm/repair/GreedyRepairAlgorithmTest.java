@@ -0,0 +1,100 @@
+package com.visma.of.cps.algorithm.repair;
+
+import com.visma.of.cps.RandomInstance;
+import com.visma.of.cps.algorithm.NeighborhoodMoveInfo;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.results.MultiRouteEvaluatorResult;
+import com.visma.of.cps.solution.Problem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GreedyRepairAlgorithmTest {
+
+    private static final int NUMBER_OF_REPAIRS = 40;
+
+    @Test
+    public void sameInsertsSequentiallyAndInPools() {
+        ForkJoinPool onePool = new ForkJoinPool(1);
+        ForkJoinPool fourPool = new ForkJoinPool(4);
+        try {
+            for (long seed = 1; seed <= 5; seed++) {
+                Model model = RandomInstance.createModel(seed, 45, 0);
+                Run sequential = new Run(model, seed, null);
+                Run oneThread = new Run(model, seed, onePool);
+                Run fourThreads = new Run(model, seed, fourPool);
+
+                for (int repair = 0; repair < NUMBER_OF_REPAIRS; repair++) {
+                    Double sequentialDelta = sequential.repair();
+                    assertEquals(sequentialDelta, oneThread.repair());
+                    assertEquals(sequentialDelta, fourThreads.repair());
+                }
+
+                assertTrue(sequential.algorithm.inserts.size() > NUMBER_OF_REPAIRS / 2);
+                assertEquals(sequential.algorithm.inserts, oneThread.algorithm.inserts);
+                assertEquals(sequential.algorithm.inserts, fourThreads.algorithm.inserts);
+                for (Shift shift : model.getShifts()) {
+                    assertEquals(sequential.problem.getSolution().getRoute(shift), oneThread.problem.getSolution().getRoute(shift));
+                    assertEquals(sequential.problem.getSolution().getRoute(shift), fourThreads.problem.getSolution().getRoute(shift));
+                }
+                assertEquals(sequential.problem.getObjective().getTotalObjectiveValue(),
+                        fourThreads.problem.getObjective().getTotalObjectiveValue(), 0.0);
+            }
+        } finally {
+            onePool.shutdown();
+            fourPool.shutdown();
+        }
+    }
+
+    /**
+     * Repairs of a problem of its own, by an algorithm with a random of the same seed as the other runs.
+     */
+    private static class Run {
+        private final Model model;
+        private final Problem problem;
+        private final RecordingGreedyRepairAlgorithm algorithm;
+
+        private Run(Model model, long seed, ForkJoinPool pool) {
+            this.model = model;
+            this.problem = RandomInstance.createProblem(model);
+            this.algorithm = new RecordingGreedyRepairAlgorithm(model, new Random(seed), pool);
+        }
+
+        private Double repair() {
+            NeighborhoodMoveInfo moveInfo = algorithm.repair(new NeighborhoodMoveInfo(problem, 0.0), model.getShifts(),
+                    new HashSet<>(problem.getSolution().getUnallocatedVisits()));
+            return moveInfo == null ? null : moveInfo.getDeltaObjectiveValue();
+        }
+    }
+
+    /**
+     * Records the shifts and visits of every insert made.
+     */
+    private static class RecordingGreedyRepairAlgorithm extends GreedyRepairAlgorithm {
+
+        private final List<String> inserts = new ArrayList<>();
+
+        private RecordingGreedyRepairAlgorithm(Model model, Random random, ForkJoinPool pool) {
+            super(model, random, pool);
+        }
+
+        @Override
+        protected Double updateSolution(Problem problem, double bestObjective, MultiRouteEvaluatorResult bestInsertVisitResult) {
+            List<Integer> visitIds = new ArrayList<>();
+            for (Visit visit : bestInsertVisitResult.getAllInsertedVisits())
+                visitIds.add(visit.getId());
+            int shiftIdTwo = bestInsertVisitResult.isMultipleRoutesAffected() ? bestInsertVisitResult.getShiftIdTwo() : -1;
+            inserts.add(bestInsertVisitResult.getShiftIdOne() + "/" + shiftIdTwo + " " + visitIds + " " + bestObjective);
+            return super.updateSolution(problem, bestObjective, bestInsertVisitResult);
+        }
+    }
+}
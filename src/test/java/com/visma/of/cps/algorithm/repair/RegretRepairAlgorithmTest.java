@@ -0,0 +1,186 @@
+package com.visma.of.cps.algorithm.repair;
+
+import com.visma.of.cps.RandomInstance;
+import com.visma.of.cps.algorithm.NeighborhoodMoveInfo;
+import com.visma.of.cps.algorithm.repair.RegretRepairAlgorithm.InsertTable;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.results.MultiRouteEvaluatorResult;
+import com.visma.of.cps.solution.Problem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class RegretRepairAlgorithmTest {
+
+    private static final double INFEASIBLE = Double.POSITIVE_INFINITY;
+
+    @Test
+    public void incrementalTableMatchesEvaluatingAllInserts() {
+        for (int k = 2; k <= 3; k++) {
+            for (long seed = 1; seed <= 5; seed++) {
+                Model model = RandomInstance.createModel(seed, 20, 0);
+                Problem problem = RandomInstance.createProblem(model);
+                CheckingRegretRepairAlgorithm algorithm = new CheckingRegretRepairAlgorithm(model, new Random(seed), k);
+
+                assertNotNull(repair(algorithm, model, problem));
+                assertTrue(algorithm.checkedTables > 1);
+            }
+        }
+    }
+
+    @Test
+    public void bestColumnsAndRegretsForTwoBest() {
+        InsertTable table = createTable();
+        table.updateBestColumns(2);
+
+        assertBestColumns(table, 0, 3, 2, new int[]{1, 2});
+        assertBestColumns(table, 1, 1, 0, new int[]{2});
+        assertBestColumns(table, 2, 0, 0, new int[]{});
+        assertBestColumns(table, 3, 4, 1, new int[]{3, 0});
+        assertBestColumns(table, 4, 2, 2, new int[]{0, 2});
+    }
+
+    @Test
+    public void bestColumnsAndRegretsForThreeBest() {
+        InsertTable table = createTable();
+        table.updateBestColumns(3);
+
+        assertBestColumns(table, 0, 3, 6, new int[]{1, 2, 0});
+        assertBestColumns(table, 1, 1, 0, new int[]{2});
+        assertBestColumns(table, 2, 0, 0, new int[]{});
+        assertBestColumns(table, 3, 4, 2, new int[]{3, 0, 1});
+        assertBestColumns(table, 4, 2, 2, new int[]{0, 2});
+    }
+
+    @Test
+    public void bestColumnsFollowChangedCosts() {
+        InsertTable table = createTable();
+        table.updateBestColumns(2);
+        table.costs[0] = new double[]{INFEASIBLE, 8, INFEASIBLE, 2};
+        table.costs[2] = new double[]{9, INFEASIBLE, INFEASIBLE, INFEASIBLE};
+        table.removeVisit(table.visits.get(3));
+        table.updateBestColumns(2);
+
+        assertBestColumns(table, 0, 2, 6, new int[]{3, 1});
+        assertBestColumns(table, 2, 1, 0, new int[]{0});
+        // Inactive rows are left as they were
+        assertBestColumns(table, 3, 4, 1, new int[]{3, 0});
+    }
+
+    @Test
+    public void sameInsertsWithAndWithoutPool() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int k = 2; k <= 3; k++) {
+                for (long seed = 1; seed <= 5; seed++) {
+                    Model model = RandomInstance.createModel(seed, 20, 0);
+                    Problem sequentialProblem = RandomInstance.createProblem(model);
+                    Problem parallelProblem = RandomInstance.createProblem(model);
+                    RecordingRegretRepairAlgorithm sequential = new RecordingRegretRepairAlgorithm(model, new Random(seed), k, null);
+                    RecordingRegretRepairAlgorithm parallel = new RecordingRegretRepairAlgorithm(model, new Random(seed), k, pool);
+
+                    Double sequentialDelta = repair(sequential, model, sequentialProblem);
+                    Double parallelDelta = repair(parallel, model, parallelProblem);
+
+                    assertEquals(sequential.inserts, parallel.inserts);
+                    assertEquals(sequentialDelta, parallelDelta);
+                    for (Shift shift : model.getShifts())
+                        assertEquals(sequentialProblem.getSolution().getRoute(shift), parallelProblem.getSolution().getRoute(shift));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Double repair(RegretRepairAlgorithm algorithm, Model model, Problem problem) {
+        NeighborhoodMoveInfo moveInfo = algorithm.repair(new NeighborhoodMoveInfo(problem, 0.0), model.getShifts(),
+                new HashSet<>(problem.getSolution().getUnallocatedVisits()));
+        return moveInfo == null ? null : moveInfo.getDeltaObjectiveValue();
+    }
+
+    /**
+     * A table of five visits and four shifts. The rows have three, one, no, four with ties, and two feasible shifts.
+     */
+    private static InsertTable createTable() {
+        Model model = RandomInstance.createModel(1, 5, 0);
+        List<Visit> visits = new ArrayList<>(model.getVisits()).subList(0, 5);
+        InsertTable table = new InsertTable(visits, model.getShifts().subList(0, 4));
+        table.costs[0] = new double[]{5, 1, 3, INFEASIBLE};
+        table.costs[1] = new double[]{INFEASIBLE, INFEASIBLE, 7, INFEASIBLE};
+        table.costs[2] = new double[]{INFEASIBLE, INFEASIBLE, INFEASIBLE, INFEASIBLE};
+        table.costs[3] = new double[]{2, 2, 4, 1};
+        table.costs[4] = new double[]{4, INFEASIBLE, 6, INFEASIBLE};
+        return table;
+    }
+
+    private static void assertBestColumns(InsertTable table, int row, int feasibleShifts, double regret, int[] bestColumns) {
+        assertEquals(feasibleShifts, table.feasibleShifts[row]);
+        assertEquals(regret, table.regrets[row], 1e-9);
+        int[] found = new int[bestColumns.length];
+        System.arraycopy(table.bestColumns[row], 0, found, 0, found.length);
+        assertArrayEquals(bestColumns, found);
+    }
+
+    /**
+     * Checks every time the table is updated that the inserts kept from before the last insert are those found when
+     * every visit is evaluated again in every shift.
+     */
+    private static class CheckingRegretRepairAlgorithm extends RegretRepairAlgorithm {
+
+        private int checkedTables;
+
+        private CheckingRegretRepairAlgorithm(Model model, Random random, int k) {
+            super(model, random, k);
+        }
+
+        @Override
+        void tableUpdated(Problem problem, InsertTable table) {
+            for (int row = 0; row < table.visits.size(); row++) {
+                if (!table.active[row]) continue;
+                for (int column = 0; column < table.shifts.size(); column++) {
+                    MultiRouteEvaluatorResult result = findInsert(problem, problem.getRouteEvaluators(),
+                            table.visits.get(row), table.shifts.get(column));
+                    double cost = result == null ? INFEASIBLE : result.getDeltaObjective(problem.getObjective());
+                    assertEquals("Visit " + table.visits.get(row).getId() + " in shift " + table.shifts.get(column).getId(),
+                            cost, table.costs[row][column], 1e-9);
+                    assertEquals(result == null, table.results[row][column] == null);
+                }
+            }
+            checkedTables++;
+        }
+    }
+
+    /**
+     * Records the shifts and visits of every insert made.
+     */
+    private static class RecordingRegretRepairAlgorithm extends RegretRepairAlgorithm {
+
+        private final List<String> inserts = new ArrayList<>();
+
+        private RecordingRegretRepairAlgorithm(Model model, Random random, int k, ForkJoinPool pool) {
+            super(model, random, k, pool);
+        }
+
+        @Override
+        protected Double updateSolution(Problem problem, double bestObjective, MultiRouteEvaluatorResult bestInsertVisitResult) {
+            List<Integer> visitIds = new ArrayList<>();
+            for (Visit visit : bestInsertVisitResult.getAllInsertedVisits())
+                visitIds.add(visit.getId());
+            int shiftIdTwo = bestInsertVisitResult.isMultipleRoutesAffected() ? bestInsertVisitResult.getShiftIdTwo() : -1;
+            inserts.add(bestInsertVisitResult.getShiftIdOne() + "/" + shiftIdTwo + " " + visitIds + " " + bestObjective);
+            return super.updateSolution(problem, bestObjective, bestInsertVisitResult);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.visma.of.cps.routeEvaluator.solver;
+
+import com.visma.of.cps.RandomInstance;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.TimeDependentVisitPair;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.evaluation.constraint.StrictTimeWindowConstraint;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.TimeWindowLowHighObjectiveFunction;
+import com.visma.of.cps.routeEvaluator.results.RouteEvaluatorResult;
+import com.visma.of.cps.solution.Problem;
+import com.visma.of.cps.solution.Solution;
+import com.visma.of.cps.util.Constants.VisitType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RouteEvaluatorTest {
+
+    private static final int NUMBER_OF_TASKS = 14;
+    private static final int ROUTE_SIZE = 4;
+
+    private Model model;
+    private Problem problem;
+    private Shift shift;
+    private Shift otherShift;
+    private RouteEvaluator routeEvaluator;
+    private List<Visit> candidates;
+
+    @Before
+    public void setUp() {
+        model = RandomInstance.createModel(3, NUMBER_OF_TASKS, 0);
+        problem = RandomInstance.createProblem(model);
+        shift = model.getShift(0);
+        otherShift = model.getShift(1);
+        routeEvaluator = problem.getRouteEvaluators().get(shift.getId());
+        candidates = new ArrayList<>();
+        for (int taskId = 1; taskId <= NUMBER_OF_TASKS; taskId++)
+            candidates.add(model.getVisit(taskId, VisitType.COMPLETE_TASK));
+        // The route is built from the best inserts, such that it is feasible and the summary is used
+        while (getRoute().size() < ROUTE_SIZE)
+            insertBest(shift);
+        insertBest(otherShift);
+    }
+
+    @Test
+    public void summaryIsReusedWhileNothingChanges() {
+        assertInsertsAfterChange(true);
+        assertInsertsAfterChange(false);
+        assertInsertsAfterChange(false);
+    }
+
+    @Test
+    public void summaryIsRebuiltAfterTimeWindowChange() {
+        assertInsertsAfterChange(true);
+        Visit visit = getRoute().get(1);
+        problem.setVisitTimeWindow(visit, 0, visit.getTaskStartTime() + 300);
+        assertInsertsAfterChange(true);
+    }
+
+    @Test
+    public void summaryIsRebuiltAfterSyncedStartTimeChange() {
+        Visit visit = addCarpoolPair();
+        assertInsertsAfterChange(true);
+        problem.setTimeDependentTaskStartTime(visit, problem.getSolution().getCarpoolSyncedTaskStartTimes().get(visit) + 40);
+        assertInsertsAfterChange(true);
+        problem.setTimeDependentTaskStartTime(visit, problem.getSolution().getCarpoolSyncedTaskStartTimes().get(visit) - 80);
+        assertInsertsAfterChange(true);
+    }
+
+    @Test
+    public void summaryIsRebuiltAfterCarpoolingChange() {
+        assertInsertsAfterChange(true);
+        Visit visit = addCarpoolPair();
+        assertTrue(problem.getSolution().getVisitSchedule().isSynced(visit));
+        assertInsertsAfterChange(true);
+        problem.getSolution().getVisitSchedule().removeCarPooling(visit);
+        assertInsertsAfterChange(true);
+    }
+
+    @Test
+    public void summaryIsRebuiltAfterConstraintOrObjectiveToggle() {
+        String constraintName = StrictTimeWindowConstraint.class.getSimpleName();
+        String objectiveName = TimeWindowLowHighObjectiveFunction.class.getSimpleName();
+        assertInsertsAfterChange(true);
+        assertTrue(routeEvaluator.deactivateConstraint(constraintName));
+        assertInsertsAfterChange(true);
+        assertTrue(routeEvaluator.activateConstraint(constraintName));
+        assertInsertsAfterChange(true);
+        assertTrue(routeEvaluator.getObjectiveFunctions().deactivateObjective(objectiveName));
+        assertInsertsAfterChange(true);
+        assertTrue(routeEvaluator.getObjectiveFunctions().activateObjective(objectiveName));
+        assertInsertsAfterChange(true);
+    }
+
+    @Test
+    public void summaryIsRebuiltAfterRollback() {
+        assertInsertsAfterChange(true);
+        problem.startMove();
+        Visit visit = getRoute().get(0);
+        problem.setVisitTimeWindow(visit, 0, visit.getTaskStartTime() + 300);
+        insertBest(shift);
+        assertInsertsAfterChange(true);
+        assertTrue(problem.rollbackMove());
+        assertEquals(ROUTE_SIZE, getRoute().size());
+        assertInsertsAfterChange(true);
+
+        // Rolled back without being evaluated during the move
+        problem.startMove();
+        problem.unAssignVisitByRouteIndex(shift, 1, 0.0);
+        assertTrue(problem.rollbackMove());
+        assertInsertsAfterChange(true);
+    }
+
+    /**
+     * Evaluates the insert of every unallocated candidate, and checks that the results are those found by the
+     * labelling algorithm, which does not use the summary. The summary must be built for the first insert if the route
+     * or its times changed, and must be reused for all other inserts.
+     *
+     * @param rebuilt Whether the summary must be built.
+     */
+    private void assertInsertsAfterChange(boolean rebuilt) {
+        int summaryCount = routeEvaluator.getRouteSummaryCount();
+        int inserts = 0;
+        for (Visit visit : candidates) {
+            if (problem.getSolution().isVisitAllocated(visit)) continue;
+            RouteEvaluatorResult result = evaluateInsert(shift, visit);
+            Double expected = routeEvaluator.evaluateRouteByTheOrderOfVisitsInsertVisitsObjective(getRoute(),
+                    Collections.singletonList(visit), getSolution().getCarpoolSyncedTaskStartTimes(),
+                    getSolution().getVisitSchedule(), shift);
+            if (expected == null) {
+                assertNull(result);
+                continue;
+            }
+            assertNotNull(result);
+            assertEquals(expected, result.getObjectiveValue(), 1e-6);
+            assertEquals(getRoute().size() + 1, result.getVisitSolution().size());
+            assertEquals(result.getObjectiveValue(), routeEvaluator.evaluateRouteObjective(result.getVisitSolution(),
+                    getSolution().getCarpoolSyncedTaskStartTimes(), getSolution().getVisitSchedule(), shift), 1e-6);
+            inserts++;
+        }
+        assertTrue(inserts > 0);
+        assertEquals(summaryCount + (rebuilt ? 1 : 0), routeEvaluator.getRouteSummaryCount());
+    }
+
+    private RouteEvaluatorResult evaluateInsert(Shift insertShift, Visit visit) {
+        return problem.getRouteEvaluators().get(insertShift.getId()).evaluateRouteByTheOrderOfVisitsInsertVisit(
+                getSolution().getRoute(insertShift), getSolution().getRouteVersion(insertShift.getId()), visit,
+                getSolution().getCarpoolSyncedTaskStartTimes(), getSolution().getVisitSchedule(), insertShift);
+    }
+
+    /**
+     * Inserts the unallocated candidate with the cheapest feasible insert in the shift.
+     */
+    private void insertBest(Shift insertShift) {
+        RouteEvaluatorResult best = null;
+        Visit bestVisit = null;
+        for (Visit visit : candidates) {
+            if (getSolution().isVisitAllocated(visit)) continue;
+            RouteEvaluatorResult result = evaluateInsert(insertShift, visit);
+            if (result != null && (best == null || result.getObjectiveValue() < best.getObjectiveValue())) {
+                best = result;
+                bestVisit = visit;
+            }
+        }
+        assertNotNull(best);
+        int index = best.getRoute().findIndexInRouteVisit(bestVisit);
+        problem.assignVisitToShiftByIndex(insertShift, bestVisit, index, 0.0);
+    }
+
+    /**
+     * Carpools the last visit of the route with the visit of the other shift, starting both at their current start.
+     *
+     * @return The visit of the route.
+     */
+    private Visit addCarpoolPair() {
+        Visit visit = getRoute().get(getRoute().size() - 1);
+        Visit otherVisit = getSolution().getRoute(otherShift).get(0);
+        int startTime = evaluateStartTime(visit);
+        problem.addCarpoolTimeDependentVisitPair(new TimeDependentVisitPair(visit, shift.getId(), otherVisit,
+                otherShift.getId(), 0, 15), startTime, startTime);
+        return visit;
+    }
+
+    private int evaluateStartTime(Visit visit) {
+        RouteEvaluatorResult result = routeEvaluator.evaluateRouteByTheOrderOfVisits(getRoute(),
+                getSolution().getCarpoolSyncedTaskStartTimes(), getSolution().getVisitSchedule(), shift);
+        assertNotNull(result);
+        return result.getRoute().getStartTime(result.getRoute().findIndexInRouteVisit(visit));
+    }
+
+    private List<Visit> getRoute() {
+        return getSolution().getRoute(shift);
+    }
+
+    private Solution getSolution() {
+        return problem.getSolution();
+    }
+}
@@ -0,0 +1,145 @@
+package com.visma.of.cps.routeEvaluator.solver.algorithm;
+
+import com.visma.of.cps.RandomInstance;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.routeEvaluator.evaluation.constraint.ConstraintsIntraRouteHandler;
+import com.visma.of.cps.routeEvaluator.evaluation.constraint.StrictTimeWindowConstraint;
+import com.visma.of.cps.routeEvaluator.evaluation.constraint.SyncedTasksConstraint;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.ObjectiveFunctionsIntraRouteHandler;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.StrictTimeWindowObjectiveFunction;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.SyncedVisitStartTimeObjective;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.TimeWindowLowHighObjectiveFunction;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.TravelTimeObjectiveFunction;
+import com.visma.of.cps.routeEvaluator.evaluation.objective.WeightedObjective;
+import com.visma.of.cps.routeEvaluator.results.Route;
+import com.visma.of.cps.routeEvaluator.results.RouteEvaluatorResult;
+import com.visma.of.cps.util.Constants;
+import com.visma.of.cps.util.Constants.Penalty;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LinearRouteEvaluatorTest {
+
+    private static final int NUMBER_OF_ROUTES = 500;
+
+    @Test
+    public void sameRoutesAsTheLabellingAlgorithm() {
+        int feasibleRoutes = 0;
+        int infeasibleRoutes = 0;
+        for (long seed = 1; seed <= 5; seed++) {
+            Model model = RandomInstance.createModel(seed, 20, 0);
+            SearchGraph graph = new SearchGraph(model.getTravelTimeProvider(), model.getVisits(),
+                    model.getOriginLocation(), model.getOriginLocation());
+            Random random = new Random(seed);
+            List<Visit> visits = new ArrayList<>(model.getVisits());
+
+            for (boolean strict : new boolean[]{false, true}) {
+                ObjectiveFunctionsIntraRouteHandler objectiveFunctions = createObjectiveFunctions(strict);
+                ConstraintsIntraRouteHandler constraints = createConstraints(strict);
+                LinearRouteEvaluator linearEvaluator = new LinearRouteEvaluator(graph, objectiveFunctions, constraints);
+                LabellingAlgorithm algorithm = new LabellingAlgorithm(graph, objectiveFunctions, constraints);
+
+                for (int routeNumber = 0; routeNumber < NUMBER_OF_ROUTES; routeNumber++) {
+                    Collections.shuffle(visits, random);
+                    List<Visit> route = visits.subList(0, 1 + random.nextInt(10));
+                    NodeList nodeList = new NodeList(graph.getNodes().size());
+                    nodeList.initializeWithNodes(graph, route);
+                    NodeTimes nodeTimes = createNodeTimes(graph, route, random);
+                    Shift shift = model.getShifts().get(random.nextInt(model.getShifts().size()));
+
+                    boolean feasible = linearEvaluator.evaluate(nodeList, nodeTimes, shift, null);
+                    Double labellingObjective = algorithm.solveRouteEvaluatorObjective(new WeightedObjective(),
+                            new ExtendInfoOneElement(nodeList), nodeTimes, shift);
+                    RouteEvaluatorResult linearResult = linearEvaluator.solveRouteEvaluatorResult(new WeightedObjective(),
+                            nodeList, nodeTimes, shift);
+                    RouteEvaluatorResult labellingResult = algorithm.solveRouteEvaluatorResult(new WeightedObjective(),
+                            new ExtendInfoOneElement(nodeList), nodeTimes, shift);
+                    if (!feasible) {
+                        assertNull(labellingObjective);
+                        assertNull(linearResult);
+                        assertNull(labellingResult);
+                        infeasibleRoutes++;
+                        continue;
+                    }
+                    feasibleRoutes++;
+                    assertNotNull(labellingObjective);
+                    assertNotNull(labellingResult);
+                    assertEquals(labellingObjective, linearEvaluator.getObjectiveValue(), 1e-6);
+                    assertEquals(labellingObjective, linearResult.getObjectiveValue(), 1e-6);
+                    assertEquals(labellingObjective, labellingResult.getObjectiveValue(), 1e-6);
+                    assertSameSchedule(route, labellingResult.getRoute(), linearResult.getRoute());
+                    assertEquals(labellingResult.getTimeOfArrivalAtDestination(), linearResult.getTimeOfArrivalAtDestination());
+                    assertEquals(labellingResult.getTimeOfArrivalAtDestination().intValue(), linearEvaluator.getRouteFinishedAtTime());
+                }
+            }
+        }
+        // Both outcomes must be reached for the comparison to mean anything
+        assertTrue(feasibleRoutes > NUMBER_OF_ROUTES);
+        assertTrue(infeasibleRoutes > NUMBER_OF_ROUTES / 10);
+    }
+
+    /**
+     * The travel time and time window objectives, with the strict time windows and synced start times relaxed as
+     * objectives unless they are strict constraints.
+     */
+    private static ObjectiveFunctionsIntraRouteHandler createObjectiveFunctions(boolean strict) {
+        ObjectiveFunctionsIntraRouteHandler objectiveFunctions = new ObjectiveFunctionsIntraRouteHandler();
+        objectiveFunctions.addIntraShiftObjectiveFunction(TravelTimeObjectiveFunction.class.getSimpleName(),
+                Constants.TRAVEL_TIME_WEIGTH, new TravelTimeObjectiveFunction());
+        objectiveFunctions.addIntraShiftObjectiveFunction(TimeWindowLowHighObjectiveFunction.class.getSimpleName(),
+                Constants.TIME_WINDOW_WEIGHT, new TimeWindowLowHighObjectiveFunction(300, 3));
+        if (!strict) {
+            objectiveFunctions.addIntraShiftObjectiveFunction(StrictTimeWindowObjectiveFunction.class.getSimpleName(), 1.0,
+                    new StrictTimeWindowObjectiveFunction(Penalty.STRICT_TIME_WINDOW_RELAXATION_PENALTY_DEFAULT));
+            objectiveFunctions.addIntraShiftObjectiveFunction(SyncedVisitStartTimeObjective.class.getSimpleName(), 1.0,
+                    new SyncedVisitStartTimeObjective(Constants.SYNCED_TASK_CONSTRAINT_ALLOWED_SLACK_DEFAULT, 15.0));
+        }
+        return objectiveFunctions;
+    }
+
+    private static ConstraintsIntraRouteHandler createConstraints(boolean strict) {
+        ConstraintsIntraRouteHandler constraints = new ConstraintsIntraRouteHandler();
+        if (strict) {
+            constraints.addConstraint(new StrictTimeWindowConstraint());
+            constraints.addConstraint(new SyncedTasksConstraint(Constants.SYNCED_TASK_CONSTRAINT_ALLOWED_SLACK_DEFAULT));
+        }
+        return constraints;
+    }
+
+    /**
+     * Random time windows for the visits of the route, some of them open, and synced start times for some of them.
+     */
+    private static NodeTimes createNodeTimes(SearchGraph graph, List<Visit> route, Random random) {
+        NodeTimes nodeTimes = new NodeTimes(graph.getNodes().size());
+        for (Visit visit : route) {
+            int timeWindowStart = random.nextInt(700);
+            int timeWindowEnd = random.nextInt(5) == 0 ? NodeTimes.OPEN_TIME_WINDOW_END : timeWindowStart + 30 + random.nextInt(221);
+            int syncedStartTime = random.nextInt(4) == 0 ? timeWindowStart + random.nextInt(60) : NodeTimes.NOT_SYNCED;
+            nodeTimes.set(graph.getNode(visit), timeWindowStart, timeWindowEnd, syncedStartTime);
+        }
+        return nodeTimes;
+    }
+
+    private static void assertSameSchedule(List<Visit> visits, Route expected, Route actual) {
+        assertEquals(visits, expected.getVisitSolution());
+        assertEquals(visits, actual.getVisitSolution());
+        assertTrue(expected.hasSchedule());
+        assertTrue(actual.hasSchedule());
+        for (int i = 0; i < visits.size(); i++) {
+            assertEquals(expected.getStartTime(i), actual.getStartTime(i));
+            assertEquals(expected.getTravelTime(i), actual.getTravelTime(i));
+            assertEquals(expected.getTransportType(i), actual.getTransportType(i));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.visma.of.cps.solution;
+
+import com.visma.of.cps.RandomInstance;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.Task;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MoveJournalTest {
+
+    private static final int NUMBER_OF_MOVES = 300;
+
+    @Test
+    public void rollbackRestoresTheSolutionFromBeforeTheMove() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Model model = RandomInstance.createModel(seed, 15, 3);
+            Problem problem = RandomInstance.createProblem(model);
+            RandomInstance.setModelPairStartTimes(model, problem);
+            Random random = new Random(seed);
+            RandomMoves moves = new RandomMoves(model, problem, random);
+
+            for (int move = 0; move < NUMBER_OF_MOVES; move++) {
+                Solution before = new Solution(problem.getSolution());
+                Objective objectiveBefore = new Objective(problem.getObjective());
+
+                problem.startMove();
+                moves.apply(1 + random.nextInt(8));
+                if (random.nextInt(3) == 0) {
+                    // Accepted, such that the moves start from different solutions
+                    problem.commitMove();
+                    continue;
+                }
+                assertTrue(problem.rollbackMove());
+
+                assertSameSolution(model, before, problem.getSolution());
+                assertSameObjective(model, objectiveBefore, problem.getObjective());
+            }
+        }
+    }
+
+    @Test
+    public void rollbackWithoutMoveDoesNothing() {
+        Model model = RandomInstance.createModel(1, 10, 0);
+        Problem problem = RandomInstance.createProblem(model);
+        RandomMoves moves = new RandomMoves(model, problem, new Random(1));
+        moves.apply(20);
+        Solution before = new Solution(problem.getSolution());
+
+        assertFalse(problem.rollbackMove());
+        problem.startMove();
+        problem.commitMove();
+        assertFalse(problem.rollbackMove());
+        assertSameSolution(model, before, problem.getSolution());
+    }
+
+    private static void assertSameSolution(Model model, Solution expected, Solution actual) {
+        for (Shift shift : model.getShifts()) {
+            assertEquals(expected.getRoute(shift), actual.getRoute(shift));
+            assertEquals(expected.getRouteVersion(shift.getId()), actual.getRouteVersion(shift.getId()));
+        }
+        for (Visit visit : model.getVisits()) {
+            assertSame(expected.shiftForVisit(visit), actual.shiftForVisit(visit));
+            assertEquals(expected.getPositionInRoute(visit), actual.getPositionInRoute(visit));
+            assertEquals(expected.isVisitAllocated(visit), actual.isVisitAllocated(visit));
+            assertSame(expected.getCarpoolTimeDependentVisitPair(visit), actual.getCarpoolTimeDependentVisitPair(visit));
+            assertEquals(expected.getCarpoolSyncedTaskStartTime(visit), actual.getCarpoolSyncedTaskStartTime(visit));
+        }
+        for (Task task : model.getTasks())
+            assertEquals(expected.isAllocated(task), actual.isAllocated(task));
+        assertEquals(expected.getAllocatedTasks(), actual.getAllocatedTasks());
+        assertEquals(expected.getUnallocatedTasks(), actual.getUnallocatedTasks());
+        assertEquals(expected.getUnallocatedVisits(), actual.getUnallocatedVisits());
+        assertEquals(expected.getNumberOfUnallocatedTasks(), actual.getNumberOfUnallocatedTasks());
+        assertEquals(expected.getUnallocatedTaskDurationSum(), actual.getUnallocatedTaskDurationSum());
+        assertEquals(expected.getUnallocatedTaskMaxDuration(), actual.getUnallocatedTaskMaxDuration());
+        assertEquals(new HashSet<>(expected.getCarpoolTimeDependentVisitPairs()),
+                new HashSet<>(actual.getCarpoolTimeDependentVisitPairs()));
+        assertEquals(expected.getCarpoolSyncedTaskStartTimes(), actual.getCarpoolSyncedTaskStartTimes());
+        assertSameVisitSchedule(model, expected.getVisitSchedule(), actual.getVisitSchedule());
+    }
+
+    private static void assertSameVisitSchedule(Model model, VisitSchedule expected, VisitSchedule actual) {
+        for (Visit visit : model.getVisits()) {
+            assertEquals(expected.getTimeWindowStart(visit), actual.getTimeWindowStart(visit));
+            assertEquals(expected.getTimeWindowEnd(visit), actual.getTimeWindowEnd(visit));
+            assertEquals(expected.getTimeDependentOffsetInterval(visit), actual.getTimeDependentOffsetInterval(visit));
+            assertEquals(expected.isSynced(visit), actual.isSynced(visit));
+            assertEquals(expected.getStartTime(visit), actual.getStartTime(visit));
+            assertEquals(expected.getTravelTime(visit), actual.getTravelTime(visit));
+            assertEquals(expected.getTransportType(visit), actual.getTransportType(visit));
+            assertEquals(expected.getCoCarPoolerShiftId(visit), actual.getCoCarPoolerShiftId(visit));
+        }
+        assertEquals(expected.getTimesVersion(), actual.getTimesVersion());
+    }
+
+    private static void assertSameObjective(Model model, Objective expected, Objective actual) {
+        assertEquals(expected.getTotalObjectiveValue(), actual.getTotalObjectiveValue(), 0.0);
+        for (Shift shift : model.getShifts())
+            assertEquals(expected.getShiftIntraRouteObjectiveValue(shift), actual.getShiftIntraRouteObjectiveValue(shift), 0.0);
+    }
+}
@@ -0,0 +1,187 @@
+package com.visma.of.cps.solution;
+
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.Shift;
+import com.visma.of.cps.model.TimeDependentVisitPair;
+import com.visma.of.cps.model.Visit;
+import com.visma.of.cps.model.VisitSchedule;
+import com.visma.of.cps.util.Constants.TransportMode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Makes random changes to a problem, as a neighborhood move would: assigning and un assigning visits, carpooling
+ * visits, and changing synced start times, time windows and schedules.
+ * <p>
+ * The visits of the time dependent visit pairs of the model are never carpooled, and their synced start times are
+ * only changed, never removed. Hence the model pairs can be checked whenever both visits are allocated, provided
+ * their start times are set up front, see RandomInstance.setModelPairStartTimes.
+ */
+class RandomMoves {
+
+    private final Model model;
+    private final Problem problem;
+    private final Random random;
+    private final List<Visit> visits;
+    private final List<Visit> modelPairVisits;
+    private final List<Visit> carpoolableVisits;
+
+    RandomMoves(Model model, Problem problem, Random random) {
+        this.model = model;
+        this.problem = problem;
+        this.random = random;
+        this.visits = new ArrayList<>(model.getVisits());
+        Set<Visit> inModelPair = new HashSet<>();
+        for (TimeDependentVisitPair pair : model.getTimeDependentVisitPairs()) {
+            inModelPair.add(pair.getMasterVisit());
+            inModelPair.add(pair.getDependentVisit());
+        }
+        this.modelPairVisits = new ArrayList<>(inModelPair);
+        modelPairVisits.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        this.carpoolableVisits = new ArrayList<>();
+        for (Visit visit : visits) {
+            if (!inModelPair.contains(visit))
+                carpoolableVisits.add(visit);
+        }
+    }
+
+    /**
+     * Makes the given number of random changes.
+     */
+    void apply(int numberOfChanges) {
+        for (int i = 0; i < numberOfChanges; i++)
+            apply();
+    }
+
+    /**
+     * Makes one random change, assignments are the most likely such that the routes grow.
+     */
+    void apply() {
+        switch (random.nextInt(10)) {
+            case 0:
+            case 1:
+            case 2:
+                assignVisit();
+                break;
+            case 3:
+                unAssignVisit();
+                break;
+            case 4:
+                unAssignVisits();
+                break;
+            case 5:
+                addCarpoolPair();
+                break;
+            case 6:
+                changeSyncedStartTime();
+                break;
+            case 7:
+                changeTimeWindow();
+                break;
+            case 8:
+                changeSchedule();
+                break;
+            default:
+                changeObjective();
+        }
+    }
+
+    void assignVisit() {
+        List<Visit> unallocated = new ArrayList<>(problem.getSolution().getUnallocatedVisits());
+        if (unallocated.isEmpty()) return;
+        Visit visit = unallocated.get(random.nextInt(unallocated.size()));
+        Shift shift = randomShift();
+        int index = random.nextInt(problem.getSolution().getRoute(shift).size() + 1);
+        problem.assignVisitToShiftByIndex(shift, visit, index, 0.0);
+    }
+
+    void unAssignVisit() {
+        Shift shift = randomNonEmptyShift();
+        if (shift == null) return;
+        int index = random.nextInt(problem.getSolution().getRoute(shift).size());
+        if (random.nextBoolean())
+            problem.unAssignVisitByRouteIndex(shift, index, random.nextInt(100) - 50);
+        else
+            problem.unAssignVisitFromShift(shift, index);
+    }
+
+    void unAssignVisits() {
+        Shift shift = randomNonEmptyShift();
+        if (shift == null) return;
+        int routeSize = problem.getSolution().getRoute(shift).size();
+        List<Integer> indices = new ArrayList<>();
+        for (int index = 0; index < routeSize; index++) {
+            if (random.nextInt(3) == 0)
+                indices.add(index);
+        }
+        problem.unAssignVisitsByRouteIndices(shift, indices, random.nextInt(100) - 50);
+    }
+
+    void addCarpoolPair() {
+        Visit master = carpoolableVisits.get(random.nextInt(carpoolableVisits.size()));
+        Visit dependent = carpoolableVisits.get(random.nextInt(carpoolableVisits.size()));
+        if (master == dependent) return;
+        for (Visit visit : new Visit[]{master, dependent}) {
+            int timeWindowStart = random.nextInt(700);
+            problem.setVisitTimeWindow(visit, timeWindowStart, timeWindowStart + 60 + random.nextInt(200));
+        }
+        int masterShiftId = randomShift().getId();
+        int dependentShiftId = randomShift().getId();
+        TimeDependentVisitPair pair = new TimeDependentVisitPair(master, masterShiftId, dependent, dependentShiftId,
+                random.nextInt(10), 10 + random.nextInt(10));
+        problem.addCarpoolTimeDependentVisitPair(pair, random.nextInt(900), random.nextInt(900));
+    }
+
+    void changeSyncedStartTime() {
+        List<Visit> syncedVisits = new ArrayList<>(modelPairVisits);
+        for (TimeDependentVisitPair pair : problem.getSolution().getCarpoolTimeDependentVisitPairs()) {
+            syncedVisits.add(pair.getMasterVisit());
+            syncedVisits.add(pair.getDependentVisit());
+        }
+        if (syncedVisits.isEmpty()) return;
+        Visit visit = syncedVisits.get(random.nextInt(syncedVisits.size()));
+        problem.setTimeDependentTaskStartTime(visit, random.nextInt(900));
+    }
+
+    void changeTimeWindow() {
+        Visit visit = visits.get(random.nextInt(visits.size()));
+        int timeWindowStart = random.nextInt(700);
+        problem.setVisitTimeWindow(visit, timeWindowStart, timeWindowStart + 60 + random.nextInt(200));
+    }
+
+    void changeSchedule() {
+        Shift shift = randomNonEmptyShift();
+        if (shift == null) return;
+        List<Visit> route = problem.getSolution().getRoute(shift);
+        Visit visit = route.get(random.nextInt(route.size()));
+        int transportType = random.nextBoolean() ? TransportMode.DRIVE : TransportMode.WALK;
+        problem.getSolution().getVisitSchedule().setSchedule(visit, random.nextInt(900), random.nextInt(60), transportType);
+        if (random.nextBoolean())
+            problem.getSolution().getVisitSchedule().setCoCarPoolerShiftId(visit, random.nextBoolean()
+                    ? randomShift().getId() : VisitSchedule.NOT_SET);
+    }
+
+    void changeObjective() {
+        if (random.nextBoolean())
+            problem.calculateAndSetObjectiveValuesForSolution(model);
+        else
+            problem.objective.updateIntraRouteObjective(randomShift(), random.nextInt(100) - 50);
+    }
+
+    private Shift randomShift() {
+        return model.getShifts().get(random.nextInt(model.getShifts().size()));
+    }
+
+    private Shift randomNonEmptyShift() {
+        List<Shift> nonEmpty = new ArrayList<>();
+        for (Shift shift : model.getShifts()) {
+            if (!problem.getSolution().getRoute(shift).isEmpty())
+                nonEmpty.add(shift);
+        }
+        return nonEmpty.isEmpty() ? null : nonEmpty.get(random.nextInt(nonEmpty.size()));
+    }
+}
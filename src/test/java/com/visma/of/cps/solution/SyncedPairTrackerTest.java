@@ -0,0 +1,94 @@
+package com.visma.of.cps.solution;
+
+import com.visma.of.cps.RandomInstance;
+import com.visma.of.cps.model.Model;
+import com.visma.of.cps.model.TimeDependentVisitPair;
+import com.visma.of.cps.util.SynchronizedTaskUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SyncedPairTrackerTest {
+
+    private static final int NUMBER_OF_MOVES = 300;
+
+    @Test
+    public void violationsMatchCheckingAllPairs() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Model model = RandomInstance.createModel(seed, 16, 5);
+            Problem current = RandomInstance.createProblem(model);
+            RandomInstance.setModelPairStartTimes(model, current);
+            Problem best = new Problem(current);
+            Random random = new Random(seed);
+            RandomMoves moves = new RandomMoves(model, current, random);
+            assertSameViolations(model, current.getSolution());
+
+            for (int move = 0; move < NUMBER_OF_MOVES; move++) {
+                current.startMove();
+                int numberOfChanges = 1 + random.nextInt(8);
+                for (int change = 0; change < numberOfChanges; change++) {
+                    moves.apply();
+                    // The violations are also queried during the move, such that the changes are checked in parts
+                    if (random.nextInt(4) == 0)
+                        assertSameViolations(model, current.getSolution());
+                }
+                switch (random.nextInt(4)) {
+                    case 0:
+                        current.commitMove();
+                        break;
+                    case 1:
+                        current.commitMove();
+                        best.update(current);
+                        assertSameViolations(model, best.getSolution());
+                        break;
+                    case 2:
+                        current.rollbackMove();
+                        break;
+                    default:
+                        current.update(best);
+                }
+                assertSameViolations(model, current.getSolution());
+            }
+        }
+    }
+
+    @Test
+    public void copiesKeepTheViolationsNotYetChecked() {
+        Model model = RandomInstance.createModel(7, 16, 5);
+        Problem problem = RandomInstance.createProblem(model);
+        RandomInstance.setModelPairStartTimes(model, problem);
+        Random random = new Random(7);
+        RandomMoves moves = new RandomMoves(model, problem, random);
+        for (int move = 0; move < NUMBER_OF_MOVES; move++) {
+            moves.apply(1 + random.nextInt(4));
+            // Copied before the changes are checked, the copy must check them itself
+            Solution copy = new Solution(problem.getSolution());
+            assertSameViolations(model, copy);
+            assertSameViolations(model, problem.getSolution());
+        }
+    }
+
+    private static void assertSameViolations(Model model, Solution solution) {
+        List<TimeDependentVisitPair> violatedModelPairs = new ArrayList<>();
+        for (TimeDependentVisitPair pair : model.getTimeDependentVisitPairs()) {
+            if (isViolated(solution, pair))
+                violatedModelPairs.add(pair);
+        }
+        boolean feasible = violatedModelPairs.isEmpty();
+        for (TimeDependentVisitPair pair : solution.getCarpoolTimeDependentVisitPairs()) {
+            if (isViolated(solution, pair))
+                feasible = false;
+        }
+        assertEquals(feasible, solution.isSyncedPairsFeasible());
+        assertEquals(violatedModelPairs, solution.getViolatedTimeDependentVisitPairs());
+    }
+
+    private static boolean isViolated(Solution solution, TimeDependentVisitPair pair) {
+        return SynchronizedTaskUtils.isNotSameAllocationState(solution, pair)
+                || SynchronizedTaskUtils.isStartTimeInvalid(solution, pair);
+    }
+}